@@ -1,5 +1,5 @@
 import request from './request'
-import type { ApiResponse, PageResult, Statistics, User, Restaurant, Order, Category, Review, PlatformConfig } from '../types'
+import type { ApiResponse, PageResult, CursorResult, Statistics, User, Restaurant, Order, Category, Review, PlatformConfig } from '../types'
 
 // ==================== 统计数据 ====================
 
@@ -18,6 +18,16 @@ export const getUsers = (params: {
   return request.get('/admin/users', { params })
 }
 
+// 按用户名/手机号搜索（索引 + 游标分页）
+export const searchUsers = (params: {
+  keyword: string
+  role?: string
+  cursor?: string
+  size?: number
+}): Promise<ApiResponse<CursorResult<User>>> => {
+  return request.get('/admin/users/search', { params })
+}
+
 export const updateUserStatus = (id: number, enabled: boolean): Promise<ApiResponse<void>> => {
   return request.put(`/admin/users/${id}/status`, { enabled })
 }
@@ -77,6 +87,15 @@ export const getOrders = (params: {
   return request.get('/admin/orders', { params })
 }
 
+// 按订单号/手机号搜索（索引 + 游标分页）
+export const searchOrders = (params: {
+  keyword: string
+  cursor?: string
+  size?: number
+}): Promise<ApiResponse<CursorResult<Order>>> => {
+  return request.get('/admin/orders/search', { params })
+}
+
 export const updateOrderStatus = (id: number, status: string): Promise<ApiResponse<Order>> => {
   return request.put(`/admin/orders/${id}/status`, { status })
 }
@@ -119,6 +138,15 @@ export const getReviews = (params: {
   return request.get('/admin/reviews', { params })
 }
 
+// 按评价内容搜索（索引 + 游标分页）
+export const searchReviews = (params: {
+  keyword: string
+  cursor?: string
+  size?: number
+}): Promise<ApiResponse<CursorResult<Review>>> => {
+  return request.get('/admin/reviews/search', { params })
+}
+
 export const deleteReview = (id: number): Promise<ApiResponse<void>> => {
   return request.delete(`/admin/reviews/${id}`)
 }
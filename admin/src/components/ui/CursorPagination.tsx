@@ -0,0 +1,32 @@
+import { ChevronLeft, ChevronRight } from 'lucide-react'
+
+interface CursorPaginationProps {
+  page: number
+  hasMore: boolean
+  onPageChange: (page: number) => void
+}
+
+// 游标分页：只能逐页前进/后退，不显示总数
+export default function CursorPagination({ page, hasMore, onPageChange }: CursorPaginationProps) {
+  if (page === 0 && !hasMore) return null
+
+  return (
+    <div className="flex items-center justify-end gap-2 px-4 py-3 border-t">
+      <button
+        onClick={() => onPageChange(page - 1)}
+        disabled={page === 0}
+        className="p-1.5 rounded-lg border hover:bg-gray-50 disabled:opacity-50 disabled:cursor-not-allowed"
+      >
+        <ChevronLeft className="w-4 h-4" />
+      </button>
+      <span className="text-sm text-gray-600">第 {page + 1} 页</span>
+      <button
+        onClick={() => onPageChange(page + 1)}
+        disabled={!hasMore}
+        className="p-1.5 rounded-lg border hover:bg-gray-50 disabled:opacity-50 disabled:cursor-not-allowed"
+      >
+        <ChevronRight className="w-4 h-4" />
+      </button>
+    </div>
+  )
+}
@@ -1,11 +1,12 @@
 import { useEffect, useState } from 'react'
 import { Search, Eye, Pencil } from 'lucide-react'
-import { getOrders, updateOrderStatus } from '../api/admin'
+import { getOrders, searchOrders, updateOrderStatus } from '../api/admin'
 import { useToastStore } from '../store/useToastStore'
 import Table from '../components/ui/Table'
 import Pagination from '../components/ui/Pagination'
+import CursorPagination from '../components/ui/CursorPagination'
 import Modal from '../components/ui/Modal'
-import type { Order, PageResult } from '../types'
+import type { Order, PageResult, CursorResult } from '../types'
 
 const statusMap: Record<string, { label: string; color: string }> = {
   PENDING: { label: '待支付', color: 'bg-gray-100 text-gray-600' },
@@ -24,6 +25,11 @@ export default function Orders() {
   const [page, setPage] = useState(0)
   const [status, setStatus] = useState('')
   const [keyword, setKeyword] = useState('')
+  // 已提交的搜索关键词：有关键词时走索引搜索，按游标逐页翻
+  const [searchKeyword, setSearchKeyword] = useState('')
+  const [searchResult, setSearchResult] = useState<CursorResult<Order> | null>(null)
+  // cursors[i] 为搜索结果第 i 页的起始游标
+  const [cursors, setCursors] = useState<(string | undefined)[]>([undefined])
   const [selectedOrder, setSelectedOrder] = useState<Order | null>(null)
 
   // 修改状态弹窗
@@ -36,12 +42,23 @@ export default function Orders() {
 
   useEffect(() => {
     loadOrders()
-  }, [page, status])
+  }, [page, status, searchKeyword])
 
   const loadOrders = async () => {
     setLoading(true)
     try {
-      const res = await getOrders({ page, size: 10, status: status || undefined, keyword: keyword || undefined })
+      if (searchKeyword) {
+        const res = await searchOrders({ keyword: searchKeyword, cursor: cursors[page], size: 10 })
+        if (res.code === 200) {
+          setSearchResult(res.data)
+          setCursors((prev) => [...prev.slice(0, page + 1), res.data.nextCursor ?? undefined])
+        } else {
+          setSearchResult(null)
+          showToast(res.message || '搜索失败', 'error')
+        }
+        return
+      }
+      const res = await getOrders({ page, size: 10, status: status || undefined })
       if (res.code === 200) {
         setOrders(res.data)
       }
@@ -54,8 +71,13 @@ export default function Orders() {
 
   const handleSearch = (e: React.FormEvent) => {
     e.preventDefault()
-    setPage(0)
-    loadOrders()
+    const next = keyword.trim()
+    if (next === searchKeyword && page === 0) {
+      loadOrders()
+    } else {
+      setPage(0)
+      setSearchKeyword(next)
+    }
   }
 
   // 打开修改状态弹窗
@@ -170,7 +192,7 @@ export default function Orders() {
                 type="text"
                 value={keyword}
                 onChange={(e) => setKeyword(e.target.value)}
-                placeholder="搜索订单号..."
+                placeholder="搜索订单号或手机号..."
                 className="w-full pl-10 pr-4 py-2 border rounded-lg focus:outline-none focus:ring-2 focus:ring-primary-500"
               />
             </div>
@@ -200,8 +222,12 @@ export default function Orders() {
 
       {/* 订单列表 */}
       <div className="bg-white rounded-xl shadow-sm overflow-hidden">
-        <Table columns={columns} data={orders?.content || []} loading={loading} />
-        {orders && (
+        <Table columns={columns} data={(searchKeyword ? searchResult?.content : orders?.content) || []} loading={loading} />
+        {searchKeyword ? (
+          searchResult && (
+            <CursorPagination page={page} hasMore={searchResult.hasMore} onPageChange={setPage} />
+          )
+        ) : orders && (
           <Pagination
             page={orders.page}
             totalPages={orders.totalPages}
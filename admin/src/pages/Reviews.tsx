@@ -1,12 +1,13 @@
 import { useEffect, useState } from 'react'
 import { Search, Trash2, Star, Eye, MessageSquare } from 'lucide-react'
-import { getReviews, deleteReview, replyReview } from '../api/admin'
+import { getReviews, searchReviews, deleteReview, replyReview } from '../api/admin'
 import { useToastStore } from '../store/useToastStore'
 import Table from '../components/ui/Table'
 import Pagination from '../components/ui/Pagination'
+import CursorPagination from '../components/ui/CursorPagination'
 import ConfirmDialog from '../components/ui/ConfirmDialog'
 import Modal from '../components/ui/Modal'
-import type { Review, PageResult } from '../types'
+import type { Review, PageResult, CursorResult } from '../types'
 
 export default function Reviews() {
   const { showToast } = useToastStore()
@@ -14,6 +15,11 @@ export default function Reviews() {
   const [loading, setLoading] = useState(true)
   const [page, setPage] = useState(0)
   const [keyword, setKeyword] = useState('')
+  // 已提交的搜索关键词：有关键词时走索引搜索，按游标逐页翻
+  const [searchKeyword, setSearchKeyword] = useState('')
+  const [searchResult, setSearchResult] = useState<CursorResult<Review> | null>(null)
+  // cursors[i] 为搜索结果第 i 页的起始游标
+  const [cursors, setCursors] = useState<(string | undefined)[]>([undefined])
   const [deleteDialog, setDeleteDialog] = useState<{ isOpen: boolean; review: Review | null }>({
     isOpen: false,
     review: null
@@ -32,12 +38,23 @@ export default function Reviews() {
 
   useEffect(() => {
     loadReviews()
-  }, [page])
+  }, [page, searchKeyword])
 
   const loadReviews = async () => {
     setLoading(true)
     try {
-      const res = await getReviews({ page, size: 10, keyword: keyword || undefined })
+      if (searchKeyword) {
+        const res = await searchReviews({ keyword: searchKeyword, cursor: cursors[page], size: 10 })
+        if (res.code === 200) {
+          setSearchResult(res.data)
+          setCursors((prev) => [...prev.slice(0, page + 1), res.data.nextCursor ?? undefined])
+        } else {
+          setSearchResult(null)
+          showToast(res.message || '搜索失败', 'error')
+        }
+        return
+      }
+      const res = await getReviews({ page, size: 10 })
       if (res.code === 200) {
         setReviews(res.data)
       }
@@ -50,8 +67,13 @@ export default function Reviews() {
 
   const handleSearch = (e: React.FormEvent) => {
     e.preventDefault()
-    setPage(0)
-    loadReviews()
+    const next = keyword.trim()
+    if (next === searchKeyword && page === 0) {
+      loadReviews()
+    } else {
+      setPage(0)
+      setSearchKeyword(next)
+    }
   }
 
   const handleDelete = async () => {
@@ -217,8 +239,12 @@ export default function Reviews() {
 
       {/* 评价列表 */}
       <div className="bg-white rounded-xl shadow-sm overflow-hidden">
-        <Table columns={columns} data={reviews?.content || []} loading={loading} />
-        {reviews && (
+        <Table columns={columns} data={(searchKeyword ? searchResult?.content : reviews?.content) || []} loading={loading} />
+        {searchKeyword ? (
+          searchResult && (
+            <CursorPagination page={page} hasMore={searchResult.hasMore} onPageChange={setPage} />
+          )
+        ) : reviews && (
           <Pagination
             page={reviews.page}
             totalPages={reviews.totalPages}
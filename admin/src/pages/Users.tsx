@@ -1,12 +1,13 @@
 import { useEffect, useState } from 'react'
 import { Search, UserCheck, UserX, Pencil, Wallet } from 'lucide-react'
-import { getUsers, updateUserStatus, updateUser, rechargeBalance } from '../api/admin'
+import { getUsers, searchUsers, updateUserStatus, updateUser, rechargeBalance } from '../api/admin'
 import { useToastStore } from '../store/useToastStore'
 import Table from '../components/ui/Table'
 import Pagination from '../components/ui/Pagination'
+import CursorPagination from '../components/ui/CursorPagination'
 import ConfirmDialog from '../components/ui/ConfirmDialog'
 import Modal from '../components/ui/Modal'
-import type { User, PageResult } from '../types'
+import type { User, PageResult, CursorResult } from '../types'
 
 export default function Users() {
   const { showToast } = useToastStore()
@@ -14,6 +15,11 @@ export default function Users() {
   const [loading, setLoading] = useState(true)
   const [page, setPage] = useState(0)
   const [keyword, setKeyword] = useState('')
+  // 已提交的搜索关键词：有关键词时走索引搜索，按游标逐页翻
+  const [searchKeyword, setSearchKeyword] = useState('')
+  const [searchResult, setSearchResult] = useState<CursorResult<User> | null>(null)
+  // cursors[i] 为搜索结果第 i 页的起始游标
+  const [cursors, setCursors] = useState<(string | undefined)[]>([undefined])
   const [role, setRole] = useState('')
   const [confirmDialog, setConfirmDialog] = useState<{
     isOpen: boolean
@@ -44,12 +50,23 @@ export default function Users() {
 
   useEffect(() => {
     loadUsers()
-  }, [page, role])
+  }, [page, role, searchKeyword])
 
   const loadUsers = async () => {
     setLoading(true)
     try {
-      const res = await getUsers({ page, size: 10, keyword: keyword || undefined, role: role || undefined })
+      if (searchKeyword) {
+        const res = await searchUsers({ keyword: searchKeyword, role: role || undefined, cursor: cursors[page], size: 10 })
+        if (res.code === 200) {
+          setSearchResult(res.data)
+          setCursors((prev) => [...prev.slice(0, page + 1), res.data.nextCursor ?? undefined])
+        } else {
+          setSearchResult(null)
+          showToast(res.message || '搜索失败', 'error')
+        }
+        return
+      }
+      const res = await getUsers({ page, size: 10, role: role || undefined })
       if (res.code === 200) {
         setUsers(res.data)
       }
@@ -62,8 +79,13 @@ export default function Users() {
 
   const handleSearch = (e: React.FormEvent) => {
     e.preventDefault()
-    setPage(0)
-    loadUsers()
+    const next = keyword.trim()
+    if (next === searchKeyword && page === 0) {
+      loadUsers()
+    } else {
+      setPage(0)
+      setSearchKeyword(next)
+    }
   }
 
   const handleStatusChange = async () => {
@@ -304,8 +326,12 @@ export default function Users() {
 
       {/* 用户列表 */}
       <div className="bg-white rounded-xl shadow-sm overflow-hidden">
-        <Table columns={columns} data={users?.content || []} loading={loading} />
-        {users && (
+        <Table columns={columns} data={(searchKeyword ? searchResult?.content : users?.content) || []} loading={loading} />
+        {searchKeyword ? (
+          searchResult && (
+            <CursorPagination page={page} hasMore={searchResult.hasMore} onPageChange={setPage} />
+          )
+        ) : users && (
           <Pagination
             page={users.page}
             totalPages={users.totalPages}
@@ -143,6 +143,14 @@ export interface PageResult<T> {
   last: boolean
 }
 
+// 游标分页结果类型（关键词搜索，不统计总数）
+export interface CursorResult<T> {
+  content: T[]
+  size: number
+  nextCursor: string | null
+  hasMore: boolean
+}
+
 // API 响应类型
 export interface ApiResponse<T> {
   code: number
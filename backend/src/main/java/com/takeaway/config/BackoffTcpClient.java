@@ -0,0 +1,52 @@
+package com.takeaway.config;
+
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.simp.stomp.StompReactorNettyCodec;
+import org.springframework.messaging.tcp.ReconnectStrategy;
+import org.springframework.messaging.tcp.TcpConnectionHandler;
+import org.springframework.messaging.tcp.TcpOperations;
+import org.springframework.messaging.tcp.reactor.ReactorNettyTcpClient;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 代理中继 TCP 客户端
+ * 包装 Reactor Netty 客户端，把系统连接默认的固定 5 秒重连改为指数退避，
+ * 外部代理短暂重启时快速恢复，长时间不可用时降低重连频率
+ */
+public class BackoffTcpClient implements TcpOperations<byte[]> {
+
+    private final ReactorNettyTcpClient<byte[]> delegate;
+    private final long initialInterval;
+    private final long maxInterval;
+
+    public BackoffTcpClient(String host, int port, long initialInterval, long maxInterval) {
+        this.delegate = new ReactorNettyTcpClient<>(host, port, new StompReactorNettyCodec());
+        this.initialInterval = Math.max(100, initialInterval);
+        this.maxInterval = Math.max(this.initialInterval, maxInterval);
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<Void> connectAsync(@NonNull TcpConnectionHandler<byte[]> handler) {
+        return delegate.connectAsync(handler);
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<Void> connectAsync(@NonNull TcpConnectionHandler<byte[]> handler,
+                                                @NonNull ReconnectStrategy reconnectStrategy) {
+        return delegate.connectAsync(handler, this::nextAttempt);
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<Void> shutdownAsync() {
+        return delegate.shutdownAsync();
+    }
+
+    private Long nextAttempt(int attemptCount) {
+        int exponent = Math.min(Math.max(attemptCount, 0), 20);
+        return Math.min(maxInterval, initialInterval << exponent);
+    }
+}
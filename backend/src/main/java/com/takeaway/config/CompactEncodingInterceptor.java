@@ -0,0 +1,157 @@
+package com.takeaway.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 紧凑编码协商拦截器（同时注册在入站和出站通道）
+ * 原生 WebSocket 连接在 CONNECT 帧带 accept-encoding: cbor 时，该会话收到的 JSON 消息体转为 CBOR，
+ * 以二进制帧发送并带 content-encoding: cbor 头；SockJS 只能传文本，始终保持 JSON。
+ * 同一份消息体发往多个会话时只转码一次
+ */
+@Slf4j
+@Component
+public class CompactEncodingInterceptor implements ChannelInterceptor {
+
+    public static final String ACCEPT_ENCODING_HEADER = "accept-encoding";
+    public static final String CONTENT_ENCODING_HEADER = "content-encoding";
+    public static final String ENCODING_CBOR = "cbor";
+
+    // 原生 WebSocket 握手标记（会话属性）
+    private static final String RAW_WEBSOCKET_ATTRIBUTE = "rawWebSocket";
+
+    private final ObjectMapper objectMapper;
+    private final CBORMapper cborMapper = new CBORMapper();
+
+    @Value("${websocket.compact-encoding.enabled:true}")
+    private boolean enabled;
+
+    // 协商了 CBOR 的会话
+    private final Set<String> cborSessions = ConcurrentHashMap.newKeySet();
+
+    // JSON 消息体 -> CBOR 消息体（按数组引用缓存，广播给多个会话时复用）
+    private final Map<byte[], byte[]> transcoded = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public CompactEncodingInterceptor(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 原生 WebSocket 端点的握手拦截器，用于区分 SockJS 连接
+     */
+    public static HandshakeInterceptor rawWebSocketMarker() {
+        return new HandshakeInterceptor() {
+            @Override
+            public boolean beforeHandshake(@NonNull ServerHttpRequest request, @NonNull ServerHttpResponse response,
+                                           @NonNull WebSocketHandler wsHandler, @NonNull Map<String, Object> attributes) {
+                attributes.put(RAW_WEBSOCKET_ATTRIBUTE, Boolean.TRUE);
+                return true;
+            }
+
+            @Override
+            public void afterHandshake(@NonNull ServerHttpRequest request, @NonNull ServerHttpResponse response,
+                                       @NonNull WebSocketHandler wsHandler, @Nullable Exception exception) {
+            }
+        };
+    }
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (type == null || sessionId == null) {
+            return message;
+        }
+        switch (type) {
+            case CONNECT -> negotiate(message, sessionId);
+            case DISCONNECT -> cborSessions.remove(sessionId);
+            case MESSAGE -> {
+                if (cborSessions.contains(sessionId)) {
+                    return toCbor(message);
+                }
+            }
+            default -> {
+            }
+        }
+        return message;
+    }
+
+    // ==================== 内部方法 ====================
+
+    private void negotiate(Message<?> message, String sessionId) {
+        if (!enabled) {
+            return;
+        }
+        Map<String, Object> attributes = SimpMessageHeaderAccessor.getSessionAttributes(message.getHeaders());
+        String accept = StompHeaderAccessor.wrap(message).getFirstNativeHeader(ACCEPT_ENCODING_HEADER);
+        if (accept != null && accept.toLowerCase().contains(ENCODING_CBOR)
+                && attributes != null && Boolean.TRUE.equals(attributes.get(RAW_WEBSOCKET_ATTRIBUTE))) {
+            cborSessions.add(sessionId);
+        }
+    }
+
+    private Message<?> toCbor(Message<?> message) {
+        MimeType contentType = contentType(message);
+        if (!(message.getPayload() instanceof byte[] json)
+                || contentType == null || !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(contentType)) {
+            return message;
+        }
+        byte[] cbor;
+        synchronized (transcoded) {
+            cbor = transcoded.get(json);
+        }
+        if (cbor == null) {
+            try {
+                cbor = cborMapper.writeValueAsBytes(objectMapper.readTree(json));
+            } catch (IOException e) {
+                log.warn("消息转码 CBOR 失败，按 JSON 发送: {}", e.getMessage());
+                return message;
+            }
+            transcoded.put(json, cbor);
+        }
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        // octet-stream 内容类型会以二进制帧发送
+        accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        accessor.setNativeHeader(CONTENT_ENCODING_HEADER, ENCODING_CBOR);
+        return MessageBuilder.createMessage(cbor, accessor.getMessageHeaders());
+    }
+
+    /**
+     * 读取消息内容类型（头中可能是 MimeType 或字符串）
+     */
+    @Nullable
+    private static MimeType contentType(Message<?> message) {
+        Object value = message.getHeaders().get(MessageHeaders.CONTENT_TYPE);
+        if (value instanceof MimeType mimeType) {
+            return mimeType;
+        }
+        return value instanceof String text ? MimeTypeUtils.parseMimeType(text) : null;
+    }
+}
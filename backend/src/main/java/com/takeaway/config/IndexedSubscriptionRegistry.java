@@ -0,0 +1,123 @@
+package com.takeaway.config;
+
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.broker.AbstractSubscriptionRegistry;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.PathMatcher;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按目的地索引的订阅注册表
+ * 精确目的地（如 /topic/merchant/1/orders）用哈希表直接查找订阅者，投递时不再遍历全部订阅；
+ * 含通配符的订阅单独存放，只在存在时逐个匹配
+ */
+public class IndexedSubscriptionRegistry extends AbstractSubscriptionRegistry {
+
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+
+    // 目的地 -> (会话ID -> 订阅ID集合)
+    private final Map<String, Map<String, Set<String>>> exactIndex = new ConcurrentHashMap<>();
+
+    // 通配符目的地 -> (会话ID -> 订阅ID集合)
+    private final Map<String, Map<String, Set<String>>> patternIndex = new ConcurrentHashMap<>();
+
+    // 会话ID -> (订阅ID -> 目的地)，用于取消订阅和断开时清理
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+
+    @Override
+    protected void addSubscriptionInternal(@NonNull String sessionId, @NonNull String subscriptionId,
+                                           @NonNull String destination, @NonNull Message<?> message) {
+        sessions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>()).put(subscriptionId, destination);
+        // 增删都在目的地键的 compute 内完成，避免与清理空条目并发时丢失订阅
+        indexFor(destination).compute(destination, (d, subscribers) -> {
+            Map<String, Set<String>> target = subscribers != null ? subscribers : new ConcurrentHashMap<>();
+            target.computeIfAbsent(sessionId, id -> ConcurrentHashMap.newKeySet()).add(subscriptionId);
+            return target;
+        });
+    }
+
+    @Override
+    protected void removeSubscriptionInternal(@NonNull String sessionId, @NonNull String subscriptionId,
+                                              @NonNull Message<?> message) {
+        Map<String, String> subscriptions = sessions.get(sessionId);
+        if (subscriptions == null) {
+            return;
+        }
+        String destination = subscriptions.remove(subscriptionId);
+        if (destination != null) {
+            removeFromIndex(destination, sessionId, subscriptionId);
+        }
+    }
+
+    @Override
+    public void unregisterAllSubscriptions(@NonNull String sessionId) {
+        Map<String, String> subscriptions = sessions.remove(sessionId);
+        if (subscriptions != null) {
+            subscriptions.forEach((subscriptionId, destination) ->
+                    removeFromIndex(destination, sessionId, subscriptionId));
+        }
+    }
+
+    @Override
+    @NonNull
+    protected MultiValueMap<String, String> findSubscriptionsInternal(@NonNull String destination,
+                                                                      @NonNull Message<?> message) {
+        MultiValueMap<String, String> result = new LinkedMultiValueMap<>();
+        collect(exactIndex.get(destination), result);
+        if (!patternIndex.isEmpty()) {
+            patternIndex.forEach((pattern, subscribers) -> {
+                if (pathMatcher.match(pattern, destination)) {
+                    collect(subscribers, result);
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * 当前会话数
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * 当前已建立索引的目的地数
+     */
+    public int getDestinationCount() {
+        return exactIndex.size() + patternIndex.size();
+    }
+
+    // ==================== 内部方法 ====================
+
+    private Map<String, Map<String, Set<String>>> indexFor(String destination) {
+        return pathMatcher.isPattern(destination) ? patternIndex : exactIndex;
+    }
+
+    private void removeFromIndex(String destination, String sessionId, String subscriptionId) {
+        indexFor(destination).computeIfPresent(destination, (d, subscribers) -> {
+            subscribers.computeIfPresent(sessionId, (id, subscriptionIds) -> {
+                subscriptionIds.remove(subscriptionId);
+                return subscriptionIds.isEmpty() ? null : subscriptionIds;
+            });
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    private static void collect(Map<String, Set<String>> subscribers, MultiValueMap<String, String> result) {
+        if (subscribers == null) {
+            return;
+        }
+        subscribers.forEach((sessionId, subscriptionIds) -> {
+            for (String subscriptionId : subscriptionIds) {
+                result.add(sessionId, subscriptionId);
+            }
+        });
+    }
+}
@@ -0,0 +1,204 @@
+package com.takeaway.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分区出站执行器（用于 clientOutboundChannel）
+ * 按会话ID哈希到固定分区，每个分区一个线程，同一会话的消息有序且不跨线程争用会话锁；
+ * 每个会话一个有界队列，慢消费者积压时丢弃最旧的 MESSAGE 帧，
+ * 可合并目的地（如未读数推送）只保留最新一条
+ */
+@Slf4j
+public class PartitionedOutboundExecutor extends ThreadPoolTaskExecutor {
+
+    // 单个会话一次连续发送的最大条数，之后让出分区线程
+    private static final int DRAIN_BATCH = 32;
+
+    private final Partition[] partitions;
+    private final int sessionQueueCapacity;
+    private final List<String> coalescePatterns;
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * @param partitionCount 分区数（线程数），小于等于 0 时取 CPU 核数
+     * @param sessionQueueCapacity 单个会话的待发送上限
+     * @param coalescePatterns 可合并的目的地模式
+     */
+    public PartitionedOutboundExecutor(int partitionCount, int sessionQueueCapacity, List<String> coalescePatterns) {
+        int count = partitionCount > 0 ? partitionCount : Runtime.getRuntime().availableProcessors();
+        this.partitions = new Partition[count];
+        for (int i = 0; i < count; i++) {
+            partitions[i] = new Partition(i);
+        }
+        this.sessionQueueCapacity = Math.max(1, sessionQueueCapacity);
+        this.coalescePatterns = coalescePatterns;
+        // 不带会话ID的少量消息仍走父类线程池
+        setThreadNamePrefix("ws-outbound-");
+    }
+
+    @Override
+    public void execute(@NonNull Runnable task) {
+        if (task instanceof MessageHandlingRunnable runnable) {
+            String sessionId = SimpMessageHeaderAccessor.getSessionId(runnable.getMessage().getHeaders());
+            if (sessionId != null) {
+                partitions[Math.floorMod(sessionId.hashCode(), partitions.length)].enqueue(sessionId, runnable);
+                return;
+            }
+        }
+        super.execute(task);
+    }
+
+    @Override
+    public void shutdown() {
+        for (Partition partition : partitions) {
+            partition.worker.shutdown();
+        }
+        super.shutdown();
+    }
+
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    // ==================== 内部方法 ====================
+
+    private boolean isDroppable(Message<?> message) {
+        return SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE;
+    }
+
+    private String coalesceKey(Message<?> message) {
+        if (coalescePatterns.isEmpty() || !isDroppable(message)) {
+            return null;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null) {
+            return null;
+        }
+        for (String pattern : coalescePatterns) {
+            if (pathMatcher.match(pattern, destination)) {
+                return destination;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 分区：单线程顺序处理落在本分区的所有会话
+     */
+    private final class Partition {
+
+        private final ExecutorService worker;
+        private final Map<String, SessionQueue> queues = new HashMap<>();
+
+        Partition(int index) {
+            AtomicInteger threads = new AtomicInteger();
+            this.worker = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "ws-partition-" + index + "-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        void enqueue(String sessionId, MessageHandlingRunnable task) {
+            String coalesceKey = coalesceKey(task.getMessage());
+            boolean schedule;
+            synchronized (this) {
+                SessionQueue queue = queues.computeIfAbsent(sessionId, id -> new SessionQueue());
+                if (coalesceKey != null && queue.removeSameDestination(coalesceKey)) {
+                    coalesced.incrementAndGet();
+                } else if (queue.tasks.size() >= sessionQueueCapacity && queue.dropOldestMessage()) {
+                    dropped.incrementAndGet();
+                }
+                queue.tasks.addLast(task);
+                schedule = !queue.scheduled;
+                queue.scheduled = true;
+            }
+            if (schedule) {
+                worker.execute(() -> drain(sessionId));
+            }
+        }
+
+        private void drain(String sessionId) {
+            for (int i = 0; i < DRAIN_BATCH; i++) {
+                MessageHandlingRunnable task;
+                synchronized (this) {
+                    SessionQueue queue = queues.get(sessionId);
+                    task = queue != null ? queue.tasks.pollFirst() : null;
+                    if (task == null) {
+                        queues.remove(sessionId);
+                        return;
+                    }
+                }
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    log.warn("WebSocket 出站消息发送失败 - 会话ID: {}, 错误: {}", sessionId, e.getMessage());
+                }
+            }
+            // 本会话还有积压，排到分区队尾，避免单个会话长期占用线程
+            worker.execute(() -> drain(sessionId));
+        }
+    }
+
+    /**
+     * 单个会话的待发送队列
+     */
+    private final class SessionQueue {
+
+        private final ArrayDeque<MessageHandlingRunnable> tasks = new ArrayDeque<>();
+        private boolean scheduled;
+
+        boolean removeSameDestination(String destination) {
+            Iterator<MessageHandlingRunnable> iterator = tasks.iterator();
+            while (iterator.hasNext()) {
+                Message<?> queued = iterator.next().getMessage();
+                if (isDroppable(queued)
+                        && destination.equals(SimpMessageHeaderAccessor.getDestination(queued.getHeaders()))) {
+                    iterator.remove();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean dropOldestMessage() {
+            Iterator<MessageHandlingRunnable> iterator = tasks.iterator();
+            while (iterator.hasNext()) {
+                if (isDroppable(iterator.next().getMessage())) {
+                    iterator.remove();
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.takeaway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 接口限流配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * 是否启用限流
+     */
+    private boolean enabled = true;
+
+    /**
+     * 令牌桶存储：local（本节点内存）/ shared（Redis 共享，不可用时回退本地）
+     */
+    private String mode = "local";
+
+    /**
+     * 本地最多保留的令牌桶数，达到上限时先回收已回满的桶，仍满则新主体共用策略的溢出桶
+     */
+    private int maxBuckets = 200000;
+
+    /**
+     * 本地令牌桶清理间隔（毫秒）
+     */
+    private long sweepInterval = 60000;
+
+    /**
+     * 限流策略（按顺序匹配，命中第一条）
+     */
+    private List<Policy> policies = new ArrayList<>();
+
+    @Data
+    public static class Policy {
+
+        /**
+         * 策略名（用于统计和令牌桶键）
+         */
+        private String name;
+
+        /**
+         * HTTP 方法，为空时匹配所有方法
+         */
+        private String method;
+
+        /**
+         * 路径模式（Ant 风格）
+         */
+        private List<String> patterns = new ArrayList<>();
+
+        /**
+         * 需携带的非空查询参数（如列表接口仅在带 keyword 搜索时限流），为空时不要求
+         */
+        private String requiredParam;
+
+        /**
+         * 桶容量（允许的突发请求数）
+         */
+        private int capacity = 20;
+
+        /**
+         * 每秒补充的令牌数
+         */
+        private double refillPerSecond = 5;
+
+        /**
+         * 是否只按 IP 计数（登录等匿名接口）
+         */
+        private boolean perIp;
+    }
+}
@@ -0,0 +1,135 @@
+package com.takeaway.config;
+
+import com.takeaway.dto.OrderStatusMessage;
+import com.takeaway.service.OrderMessageReplayBuffer;
+import com.takeaway.service.WebSocketService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.simp.user.UserDestinationMessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 订阅补发拦截器
+ * 客户端 SUBSCRIBE 帧带 last-seq 头（纪元:序号，逗号分隔）时，在代理登记订阅之前锁定该目的地的补发缓冲，
+ * 把缓冲中之后的订单消息直接发给这个订阅，登记完成后才释放锁，补发消息先于订阅生效后的实时消息进入出站通道；
+ * 无法补发（缺口超出缓冲、节点重启或见过其他节点的消息）时发送 RESYNC 通知客户端全量刷新。
+ * /user/queue/... 订阅在用户目的地处理器（同步登记到代理）处理时补发，按 /user/{用户ID}/queue/... 查缓冲。
+ * 出站线程池仍可能让实时消息越过补发消息，客户端发现序号缺口时会带 last-seq 重新订阅
+ */
+@Slf4j
+@Component
+public class ReplaySubscriptionInterceptor implements ExecutorChannelInterceptor {
+
+    public static final String LAST_SEQ_HEADER = "last-seq";
+
+    private static final String USER_PREFIX = "/user/";
+
+    private final OrderMessageReplayBuffer replayBuffer;
+    private final WebSocketService webSocketService;
+    private final MessageChannel clientOutboundChannel;
+
+    // 当前处理线程持有的目的地锁（beforeHandle 与 afterMessageHandled 在同一线程中调用）
+    private final ThreadLocal<Lock> heldLock = new ThreadLocal<>();
+
+    // 消息服务和出站通道依赖消息代理配置创建的 Bean，延迟注入避免循环依赖
+    public ReplaySubscriptionInterceptor(OrderMessageReplayBuffer replayBuffer,
+                                         @Lazy WebSocketService webSocketService,
+                                         @Lazy @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel) {
+        this.replayBuffer = replayBuffer;
+        this.webSocketService = webSocketService;
+        this.clientOutboundChannel = clientOutboundChannel;
+    }
+
+    @Override
+    public Message<?> beforeHandle(@NonNull Message<?> message, @NonNull MessageChannel channel,
+                                   @NonNull MessageHandler handler) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        String lastSeqHeader = accessor.getFirstNativeHeader(LAST_SEQ_HEADER);
+        if (accessor.getCommand() != StompCommand.SUBSCRIBE || lastSeqHeader == null || accessor.getDestination() == null) {
+            return message;
+        }
+        String bufferKey = bufferKey(accessor, handler);
+        Map<String, Long> positions = OrderMessageReplayBuffer.parsePositions(lastSeqHeader);
+        if (bufferKey == null || positions == null) {
+            return message;
+        }
+
+        OrderMessageReplayBuffer.LockedReplay locked = replayBuffer.lockForReplay(bufferKey, positions);
+        heldLock.set(locked.lock());
+        try {
+            OrderMessageReplayBuffer.Replay replay = locked.replay();
+            if (replay.gap()) {
+                send(accessor, replay.epoch(), replay.latestSeq(), webSocketService.serialize(OrderStatusMessage.builder()
+                        .type("RESYNC")
+                        .message("离线期间消息过多，请刷新订单列表")
+                        .build()));
+                log.debug("订阅无法补发，通知客户端刷新 - 目的地: {}, last-seq: {}", accessor.getDestination(), lastSeqHeader);
+            } else {
+                for (OrderMessageReplayBuffer.Entry missed : replay.messages()) {
+                    send(accessor, replay.epoch(), missed.seq(), missed.body());
+                }
+            }
+        } catch (RuntimeException e) {
+            release();
+            throw e;
+        }
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(@NonNull Message<?> message, @NonNull MessageChannel channel,
+                                    @NonNull MessageHandler handler, @Nullable Exception ex) {
+        release();
+    }
+
+    /**
+     * 个人队列订阅由用户目的地处理器登记，主题订阅由代理登记，各自在对应处理器之后补发
+     */
+    private String bufferKey(StompHeaderAccessor accessor, MessageHandler handler) {
+        String destination = accessor.getDestination();
+        boolean userDestination = destination.startsWith(USER_PREFIX);
+        if (handler instanceof UserDestinationMessageHandler && userDestination && accessor.getUser() != null) {
+            return USER_PREFIX + accessor.getUser().getName() + destination.substring(USER_PREFIX.length() - 1);
+        }
+        if (handler instanceof AbstractBrokerMessageHandler && !userDestination) {
+            return destination;
+        }
+        return null;
+    }
+
+    private void release() {
+        Lock lock = heldLock.get();
+        if (lock != null) {
+            heldLock.remove();
+            lock.unlock();
+        }
+    }
+
+    private void send(StompHeaderAccessor subscribe, String epoch, long seq, byte[] body) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(subscribe.getSessionId());
+        headers.setSubscriptionId(subscribe.getSubscriptionId());
+        headers.setDestination(subscribe.getDestination());
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setNativeHeader(OrderMessageReplayBuffer.EPOCH_HEADER, epoch);
+        headers.setNativeHeader(OrderMessageReplayBuffer.SEQ_HEADER, String.valueOf(seq));
+        clientOutboundChannel.send(MessageBuilder.createMessage(body, headers.getMessageHeaders()));
+    }
+}
@@ -1,7 +1,10 @@
 package com.takeaway.config;
 
 import com.takeaway.security.JwtAuthenticationFilter;
+import com.takeaway.security.RateLimitFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -26,6 +29,7 @@ import java.util.List;
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final RateLimitFilter rateLimitFilter;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -34,7 +38,9 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
-                        // WebSocket 端点
+                        // 异步分派（SSE 结束时）沿用原请求的鉴权结果
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        // WebSocket 端点（握手放行，JWT 在 STOMP CONNECT 帧中校验）
                         .requestMatchers("/ws/**").permitAll()
                         // 静态资源（上传文件、favicon）
                         .requestMatchers("/uploads/**", "/favicon.ico").permitAll()
@@ -65,7 +71,9 @@ public class SecurityConfig {
                         // 其他接口需要认证
                         .anyRequest().authenticated()
                 )
-                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                // 限流在认证之后，已登录用户按用户ID计数
+                .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
@@ -83,8 +91,11 @@ public class SecurityConfig {
         return source;
     }
 
+    /**
+     * 调整强度后，旧哈希在用户下次登录时自动按新强度重新哈希
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.password.bcrypt-strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 }
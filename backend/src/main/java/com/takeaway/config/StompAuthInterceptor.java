@@ -0,0 +1,139 @@
+package com.takeaway.config;
+
+import com.takeaway.entity.Restaurant;
+import com.takeaway.entity.User;
+import com.takeaway.repository.RestaurantRepository;
+import com.takeaway.security.AuthenticatedUserCache;
+import com.takeaway.security.JwtTokenProvider;
+import com.takeaway.security.StompPrincipal;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StringUtils;
+
+import java.security.Principal;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * STOMP 认证与订阅授权拦截器（入站通道，排在其他拦截器之前）
+ * CONNECT 帧必须带 Authorization: Bearer {token}，校验通过后把身份绑定到会话；
+ * 订阅按白名单放行，其余一律拒绝（代理把订阅目的地当作 Ant 通配模式匹配，含通配符的订阅可收到他人消息）：
+ * /user/queue/{名称} 由用户目的地解析到本人会话；/topic/merchant/{餐厅ID}/orders 需为该餐厅商家或管理员；
+ * /topic/user/{用户ID}/{名称} 只能订阅本人。目的地含通配符（* ? {）的订阅直接拒绝
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@SuppressWarnings("null")
+public class StompAuthInterceptor implements ChannelInterceptor {
+
+    private static final String AUTHORIZATION_HEADER = "Authorization";
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    // 允许订阅的目的地形状（段内只允许字母、数字、下划线和连字符）
+    private static final Pattern USER_QUEUE = Pattern.compile("/user/queue/[A-Za-z0-9_-]+");
+    private static final Pattern USER_TOPIC = Pattern.compile("/topic/user/(\\d{1,19})/[A-Za-z0-9_-]+");
+    private static final Pattern MERCHANT_ORDERS_TOPIC = Pattern.compile("/topic/merchant/(\\d{1,19})/orders");
+
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final AuthenticatedUserCache authenticatedUserCache;
+    private final RestaurantRepository restaurantRepository;
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+        if (accessor.getCommand() == StompCommand.CONNECT) {
+            accessor.setUser(authenticate(accessor.getFirstNativeHeader(AUTHORIZATION_HEADER)));
+        } else if (accessor.getCommand() == StompCommand.SUBSCRIBE) {
+            authorizeSubscribe(accessor.getUser(), accessor.getDestination());
+        }
+        return message;
+    }
+
+    // ==================== 内部方法 ====================
+
+    private StompPrincipal authenticate(String authorization) {
+        if (!StringUtils.hasText(authorization) || !authorization.startsWith(BEARER_PREFIX)) {
+            throw new BadCredentialsException("未登录");
+        }
+        Claims claims = jwtTokenProvider.verify(authorization.substring(BEARER_PREFIX.length()));
+        if (claims == null) {
+            throw new BadCredentialsException("登录已过期，请重新登录");
+        }
+        User user = authenticatedUserCache.resolve(claims);
+        if (user == null) {
+            throw new BadCredentialsException("用户不存在或已被禁用");
+        }
+        return new StompPrincipal(user.getId(), user.getRole(), findRestaurantId(user.getId(), user.getRole()));
+    }
+
+    private void authorizeSubscribe(Principal user, String destination) {
+        if (!(user instanceof StompPrincipal principal)) {
+            throw new AccessDeniedException("未登录");
+        }
+        if (destination == null || pathMatcher.isPattern(destination)) {
+            deny(principal, destination);
+        }
+        if (USER_QUEUE.matcher(destination).matches()) {
+            return;
+        }
+        Matcher userTopic = USER_TOPIC.matcher(destination);
+        if (userTopic.matches()) {
+            if (!principal.userId().equals(parseId(userTopic.group(1)))) {
+                deny(principal, destination);
+            }
+            return;
+        }
+        Matcher merchantTopic = MERCHANT_ORDERS_TOPIC.matcher(destination);
+        if (merchantTopic.matches()) {
+            Long restaurantId = parseId(merchantTopic.group(1));
+            if (principal.isAdmin() || (restaurantId != null && restaurantId.equals(principal.restaurantId()))) {
+                return;
+            }
+            // 连接之后才开店的商家：再查一次归属
+            if (restaurantId == null || !restaurantId.equals(findRestaurantId(principal.userId(), principal.role()))) {
+                deny(principal, destination);
+            }
+            return;
+        }
+        deny(principal, destination);
+    }
+
+    private Long findRestaurantId(Long userId, String role) {
+        if (!"MERCHANT".equals(role)) {
+            return null;
+        }
+        return restaurantRepository.findByOwnerId(userId).map(Restaurant::getId).orElse(null);
+    }
+
+    private static Long parseId(String id) {
+        try {
+            return Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void deny(StompPrincipal principal, String destination) {
+        log.warn("拒绝越权订阅 - 用户ID: {}, 目的地: {}", principal.userId(), destination);
+        throw new AccessDeniedException("无权订阅该频道");
+    }
+}
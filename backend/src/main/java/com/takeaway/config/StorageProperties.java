@@ -0,0 +1,77 @@
+package com.takeaway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 上传文件存储配置
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "file.storage")
+public class StorageProperties {
+
+    /**
+     * 存储类型：local（本地目录 file.upload.path）/ s3（S3 兼容对象存储）/ memory（进程内存储，仅用于开发调试）
+     */
+    private String type = "local";
+
+    private S3 s3 = new S3();
+
+    private Cache cache = new Cache();
+
+    @Data
+    public static class S3 {
+
+        /**
+         * 服务地址，使用 AWS S3 时留空，MinIO 等兼容存储填写其地址
+         */
+        private String endpoint;
+
+        private String region = "us-east-1";
+
+        private String bucket;
+
+        /**
+         * 访问密钥，留空时使用默认凭证链（环境变量、实例角色等）
+         */
+        private String accessKey;
+
+        private String secretKey;
+
+        /**
+         * 是否使用路径风格访问（MinIO 需要开启）
+         */
+        private boolean pathStyle = false;
+
+        /**
+         * 超过该大小（字节）的文件分段上传
+         */
+        private long multipartThreshold = 16 * 1024 * 1024;
+
+        /**
+         * 分段大小（字节，S3 要求至少 5MB）
+         */
+        private int partSize = 8 * 1024 * 1024;
+
+        /**
+         * 直传地址有效期（秒）
+         */
+        private long presignTtl = 600;
+    }
+
+    @Data
+    public static class Cache {
+
+        /**
+         * 远程对象的本地读穿缓存目录
+         */
+        private String path = "./storage-cache";
+
+        /**
+         * 缓存总大小上限（字节），超出后淘汰最久未访问的文件
+         */
+        private long maxBytes = 1024L * 1024 * 1024;
+    }
+}
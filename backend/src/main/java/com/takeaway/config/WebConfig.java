@@ -1,35 +1,17 @@
 package com.takeaway.config;
 
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.lang.NonNull;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
-import java.nio.file.Paths;
-
 /**
  * Web 配置类
+ * 上传文件访问见 UploadFileController
  */
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
-    @Value("${file.upload.path:./uploads}")
-    private String uploadPath;
-
-    /**
-     * 配置静态资源访问
-     * 允许通过 /uploads/** 访问上传的文件
-     */
-    @Override
-    public void addResourceHandlers(@NonNull ResourceHandlerRegistry registry) {
-        // 将 /uploads/** 映射到本地上传目录
-        String absolutePath = Paths.get(uploadPath).toAbsolutePath().toString();
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:" + absolutePath + "/");
-    }
-
     /**
      * 配置跨域访问
      */
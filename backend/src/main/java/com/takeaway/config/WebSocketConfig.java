@@ -1,30 +1,154 @@
 package com.takeaway.config;
 
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.lang.NonNull;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+
 /**
  * WebSocket 配置类
  * 使用 STOMP 协议实现消息推送
+ * websocket.broker.mode=partitioned 时，内置代理改用按目的地索引的订阅表，
+ * 出站消息按会话分区、每会话有界队列发送；simple 为 Spring 默认实现；
+ * relay 时 /topic、/queue 转发到外部 STOMP 代理，多节点部署共享订阅，
+ * 启动时代理不可达且允许降级则回退为本节点分区模式；降级只在启动时判断，运行中代理断开按退避重连、不切换到本节点代理。
+ * 握手地址 /ws 对 HTTP 放行，身份在 STOMP CONNECT 帧中校验（见 StompAuthInterceptor）
  */
+@Slf4j
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private static final String MODE_PARTITIONED = "partitioned";
+    private static final String MODE_RELAY = "relay";
+
+    private final StompAuthInterceptor stompAuthInterceptor;
+    private final ReplaySubscriptionInterceptor replaySubscriptionInterceptor;
+    private final CompactEncodingInterceptor compactEncodingInterceptor;
+
+    @Value("${websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${websocket.broker.partitions:0}")
+    private int partitions;
+
+    @Value("${websocket.broker.session-queue-capacity:256}")
+    private int sessionQueueCapacity;
+
+    @Value("${websocket.broker.coalesce-destinations:/queue/notifications-user*}")
+    private List<String> coalesceDestinations;
+
+    @Value("${websocket.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${websocket.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${websocket.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${websocket.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${websocket.broker.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    @Value("${websocket.broker.relay.heartbeat-send-interval:10000}")
+    private long relayHeartbeatSend;
+
+    @Value("${websocket.broker.relay.heartbeat-receive-interval:10000}")
+    private long relayHeartbeatReceive;
+
+    @Value("${websocket.broker.relay.reconnect-initial-interval:1000}")
+    private long relayReconnectInitial;
+
+    @Value("${websocket.broker.relay.reconnect-max-interval:30000}")
+    private long relayReconnectMax;
+
+    @Value("${websocket.broker.relay.fallback-to-local:true}")
+    private boolean relayFallbackToLocal;
+
+    @Value("${websocket.broker.relay.connect-timeout:2000}")
+    private int relayConnectTimeout;
+
+    // 实际是否使用外部代理中继（relay 模式下启动探测决定）
+    private boolean relayActive;
+
+    @PostConstruct
+    public void resolveBrokerMode() {
+        if (!MODE_RELAY.equals(brokerMode)) {
+            return;
+        }
+        if (!relayFallbackToLocal || isRelayReachable()) {
+            relayActive = true;
+            log.info("WebSocket 使用外部 STOMP 代理中继 - {}:{}", relayHost, relayPort);
+        } else {
+            log.warn("外部 STOMP 代理不可达，降级为本节点消息代理（多节点间推送不互通） - {}:{}", relayHost, relayPort);
+        }
+    }
+
     @Override
     public void configureMessageBroker(@NonNull MessageBrokerRegistry config) {
-        // 配置消息代理，客户端订阅的目的地前缀
-        config.enableSimpleBroker("/topic", "/queue");
+        if (relayActive) {
+            // 转发到外部代理，所有节点的订阅与推送经代理汇聚
+            config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setVirtualHost(relayVirtualHost.isEmpty() ? null : relayVirtualHost)
+                    .setSystemHeartbeatSendInterval(relayHeartbeatSend)
+                    .setSystemHeartbeatReceiveInterval(relayHeartbeatReceive)
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry")
+                    .setTcpClient(new BackoffTcpClient(relayHost, relayPort,
+                            relayReconnectInitial, relayReconnectMax));
+        } else {
+            // 配置消息代理，客户端订阅的目的地前缀
+            config.enableSimpleBroker("/topic", "/queue");
+        }
         // 配置应用程序目的地前缀，客户端发送消息的目的地前缀
         config.setApplicationDestinationPrefixes("/app");
         // 配置用户目的地前缀，用于点对点消息
         config.setUserDestinationPrefix("/user");
     }
 
+    @Override
+    public void configureClientInboundChannel(@NonNull ChannelRegistration registration) {
+        // CONNECT 校验令牌并绑定身份、SUBSCRIBE 鉴权；带 last-seq 的订阅在登记前补发缺失的订单消息；CONNECT 时协商紧凑编码
+        registration.interceptors(stompAuthInterceptor, replaySubscriptionInterceptor, compactEncodingInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(@NonNull ChannelRegistration registration) {
+        // 协商了 CBOR 的会话在出站时转码
+        registration.interceptors(compactEncodingInterceptor);
+        if (usesPartitionedLocalBroker(brokerMode) && !relayActive) {
+            registration.taskExecutor(new PartitionedOutboundExecutor(
+                    partitions, sessionQueueCapacity, coalesceDestinations));
+        }
+    }
+
     @Override
     public void registerStompEndpoints(@NonNull StompEndpointRegistry registry) {
         // 注册 STOMP 端点，客户端连接的地址
@@ -32,8 +156,39 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
         
-        // 同时支持原生 WebSocket 连接（不使用 SockJS）
+        // 同时支持原生 WebSocket 连接（不使用 SockJS），可协商二进制紧凑编码
         registry.addEndpoint("/ws")
-                .setAllowedOriginPatterns("*");
+                .setAllowedOriginPatterns("*")
+                .addInterceptors(CompactEncodingInterceptor.rawWebSocketMarker());
+    }
+
+    /**
+     * 分区模式（含中继降级）下为内置代理替换订阅注册表（在代理启动前设置）
+     */
+    @Bean
+    public static BeanPostProcessor indexedSubscriptionRegistryPostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(@NonNull Object bean, @NonNull String beanName) throws BeansException {
+                if (bean instanceof SimpleBrokerMessageHandler handler
+                        && usesPartitionedLocalBroker(environment.getProperty("websocket.broker.mode", "simple"))) {
+                    handler.setSubscriptionRegistry(new IndexedSubscriptionRegistry());
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static boolean usesPartitionedLocalBroker(String mode) {
+        return MODE_PARTITIONED.equals(mode) || MODE_RELAY.equals(mode);
+    }
+
+    private boolean isRelayReachable() {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(relayHost, relayPort), relayConnectTimeout);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
     }
 }
@@ -4,7 +4,11 @@ import com.takeaway.dto.*;
 import com.takeaway.dto.request.BroadcastRequest;
 import com.takeaway.dto.request.CategoryRequest;
 import com.takeaway.dto.request.UpdatePlatformRateRequest;
+import com.takeaway.security.PasswordHasher;
 import com.takeaway.service.AdminService;
+import com.takeaway.service.RateLimitService;
+import com.takeaway.service.SearchIndexRebuildService;
+import com.takeaway.service.UploadGcService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
@@ -21,6 +25,10 @@ import java.util.Map;
 public class AdminController {
 
     private final AdminService adminService;
+    private final RateLimitService rateLimitService;
+    private final PasswordHasher passwordHasher;
+    private final UploadGcService uploadGcService;
+    private final SearchIndexRebuildService searchIndexRebuildService;
 
     // ==================== 统计数据 ====================
 
@@ -37,13 +45,23 @@ public class AdminController {
 
     /**
      * 获取用户列表（分页）
+     * 传入 cursor 参数（首页传空字符串）且无关键词时切换为游标分页，不统计总数
      */
     @GetMapping("/users")
-    public ApiResponse<PageResult<UserDTO>> getUsers(
+    public ApiResponse<?> getUsers(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String keyword,
-            @RequestParam(required = false) String role) {
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        if (cursor != null && (keyword == null || keyword.isEmpty())) {
+            try {
+                return ApiResponse.success(adminService.getUsersByCursor(cursor, size, role, withTotal));
+            } catch (Exception e) {
+                return ApiResponse.error(400, e.getMessage());
+            }
+        }
         PageResult<UserDTO> result = adminService.getUsers(page, size, keyword, role);
         return ApiResponse.success(result);
     }
@@ -113,10 +131,19 @@ public class AdminController {
      * 获取餐厅列表（分页）
      */
     @GetMapping("/restaurants")
-    public ApiResponse<PageResult<RestaurantDTO>> getRestaurants(
+    public ApiResponse<?> getRestaurants(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(required = false) String keyword) {
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        if (cursor != null && (keyword == null || keyword.isEmpty())) {
+            try {
+                return ApiResponse.success(adminService.getRestaurantsByCursor(cursor, size, withTotal));
+            } catch (Exception e) {
+                return ApiResponse.error(400, e.getMessage());
+            }
+        }
         PageResult<RestaurantDTO> result = adminService.getRestaurants(page, size, keyword);
         return ApiResponse.success(result);
     }
@@ -161,11 +188,20 @@ public class AdminController {
      * 获取订单列表（分页）
      */
     @GetMapping("/orders")
-    public ApiResponse<PageResult<OrderDTO>> getOrders(
+    public ApiResponse<?> getOrders(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String status,
-            @RequestParam(required = false) String keyword) {
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        if (cursor != null && (keyword == null || keyword.isEmpty())) {
+            try {
+                return ApiResponse.success(adminService.getOrdersByCursor(cursor, size, status, withTotal));
+            } catch (Exception e) {
+                return ApiResponse.error(400, e.getMessage());
+            }
+        }
         PageResult<OrderDTO> result = adminService.getOrders(page, size, status, keyword);
         return ApiResponse.success(result);
     }
@@ -287,6 +323,102 @@ public class AdminController {
         }
     }
 
+    // ==================== 索引搜索 ====================
+
+    /**
+     * 搜索用户（用户名/手机号，游标分页）
+     */
+    @GetMapping("/users/search")
+    public ApiResponse<CursorResult<UserDTO>> searchUsers(
+            @RequestParam String keyword,
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        try {
+            return ApiResponse.success(adminService.searchUsers(keyword, role, cursor, size));
+        } catch (Exception e) {
+            return ApiResponse.error(400, e.getMessage());
+        }
+    }
+
+    /**
+     * 搜索订单（订单号/手机号，游标分页）
+     */
+    @GetMapping("/orders/search")
+    public ApiResponse<CursorResult<OrderDTO>> searchOrders(
+            @RequestParam String keyword,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        try {
+            return ApiResponse.success(adminService.searchOrders(keyword, cursor, size));
+        } catch (Exception e) {
+            return ApiResponse.error(400, e.getMessage());
+        }
+    }
+
+    /**
+     * 搜索评价（内容，游标分页）
+     */
+    @GetMapping("/reviews/search")
+    public ApiResponse<CursorResult<ReviewDTO>> searchReviews(
+            @RequestParam String keyword,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        try {
+            return ApiResponse.success(adminService.searchReviews(keyword, cursor, size));
+        } catch (Exception e) {
+            return ApiResponse.error(400, e.getMessage());
+        }
+    }
+
+    /**
+     * 启动搜索索引重建（存量数据回填，后台执行），返回任务状态
+     */
+    @PostMapping("/search/rebuild")
+    public ApiResponse<Map<String, Object>> rebuildSearchIndex() {
+        try {
+            return ApiResponse.success("索引重建已启动", searchIndexRebuildService.start());
+        } catch (Exception e) {
+            return ApiResponse.error(400, e.getMessage());
+        }
+    }
+
+    /**
+     * 查询搜索索引重建任务状态
+     */
+    @GetMapping("/search/rebuild")
+    public ApiResponse<Map<String, Object>> getSearchIndexRebuildStatus() {
+        return ApiResponse.success(searchIndexRebuildService.getStatus());
+    }
+
+    /**
+     * 接口限流统计（各策略放行/拒绝次数）
+     */
+    @GetMapping("/rate-limit/stats")
+    public ApiResponse<Map<String, Object>> getRateLimitStats() {
+        return ApiResponse.success(rateLimitService.getStats());
+    }
+
+    /**
+     * 密码哈希线程池统计（排队深度、拒绝次数）
+     */
+    @GetMapping("/password-hasher/stats")
+    public ApiResponse<Map<String, Object>> getPasswordHasherStats() {
+        return ApiResponse.success(passwordHasher.getStats());
+    }
+
+    /**
+     * 手动执行孤立上传文件清理（dryRun 只统计不删除）
+     */
+    @PostMapping("/uploads/gc")
+    public ApiResponse<Map<String, Object>> runUploadGc(@RequestParam(defaultValue = "true") boolean dryRun) {
+        try {
+            return ApiResponse.success(uploadGcService.run(dryRun));
+        } catch (Exception e) {
+            return ApiResponse.error(400, e.getMessage());
+        }
+    }
+
     // ==================== 通知管理 ====================
 
     /**
@@ -5,11 +5,14 @@ import com.takeaway.dto.UserDTO;
 import com.takeaway.dto.request.LoginRequest;
 import com.takeaway.dto.request.RegisterRequest;
 import com.takeaway.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -18,13 +21,19 @@ public class AuthController {
 
     private final UserService userService;
 
+    /**
+     * 登录（异步返回，密码校验期间不占用请求线程）
+     */
     @PostMapping("/login")
-    public ApiResponse<Map<String, Object>> login(@Valid @RequestBody LoginRequest request) {
+    public CompletableFuture<ApiResponse<Map<String, Object>>> login(@Valid @RequestBody LoginRequest request,
+                                                                     HttpServletRequest httpRequest) {
         try {
-            Map<String, Object> result = userService.login(request);
-            return ApiResponse.success(result);
+            // 部署在反向代理后时需配置 server.forward-headers-strategy 才能取到真实 IP
+            return userService.login(request, httpRequest.getRemoteAddr())
+                    .thenApply(ApiResponse::success)
+                    .exceptionally(e -> ApiResponse.error(400, unwrap(e).getMessage()));
         } catch (Exception e) {
-            return ApiResponse.error(400, e.getMessage());
+            return CompletableFuture.completedFuture(ApiResponse.error(400, e.getMessage()));
         }
     }
 
@@ -52,4 +61,8 @@ public class AuthController {
     public ApiResponse<Void> logout() {
         return ApiResponse.success("退出成功", null);
     }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
 }
@@ -187,13 +187,22 @@ public class MerchantController {
 
     // ==================== 订单管理 ====================
 
+    /**
+     * 获取店铺订单列表
+     * 传入 cursor 参数（首页传空字符串）时切换为游标分页，不统计总数
+     */
     @GetMapping("/orders")
-    public ApiResponse<Page<OrderDTO>> getOrders(
+    public ApiResponse<?> getOrders(
             @AuthenticationPrincipal User user,
             @RequestParam(required = false) String status,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
         try {
+            if (cursor != null) {
+                return ApiResponse.success(merchantService.getOrdersByCursor(user.getId(), status, cursor, size, withTotal));
+            }
             Page<OrderDTO> orders = merchantService.getOrders(user.getId(), status, page, size);
             return ApiResponse.success(orders);
         } catch (Exception e) {
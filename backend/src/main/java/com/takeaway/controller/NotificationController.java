@@ -23,18 +23,34 @@ public class NotificationController {
 
     /**
      * 获取所有通知
+     * 传入 cursor 参数（首页传空字符串）时切换为游标分页
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<NotificationDTO>>> getNotifications(@AuthenticationPrincipal User user) {
+    public ResponseEntity<ApiResponse<?>> getNotifications(
+            @AuthenticationPrincipal User user,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "20") int size) {
+        if (cursor != null) {
+            return ResponseEntity.ok(ApiResponse.success(
+                    notificationService.getNotificationsByCursor(user.getId(), false, cursor, size)));
+        }
         List<NotificationDTO> notifications = notificationService.getNotifications(user.getId());
         return ResponseEntity.ok(ApiResponse.success(notifications));
     }
 
     /**
      * 获取未读通知
+     * 传入 cursor 参数（首页传空字符串）时切换为游标分页
      */
     @GetMapping("/unread")
-    public ResponseEntity<ApiResponse<List<NotificationDTO>>> getUnreadNotifications(@AuthenticationPrincipal User user) {
+    public ResponseEntity<ApiResponse<?>> getUnreadNotifications(
+            @AuthenticationPrincipal User user,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "20") int size) {
+        if (cursor != null) {
+            return ResponseEntity.ok(ApiResponse.success(
+                    notificationService.getNotificationsByCursor(user.getId(), true, cursor, size)));
+        }
         List<NotificationDTO> notifications = notificationService.getUnreadNotifications(user.getId());
         return ResponseEntity.ok(ApiResponse.success(notifications));
     }
@@ -4,12 +4,15 @@ import com.takeaway.dto.ApiResponse;
 import com.takeaway.dto.OrderDTO;
 import com.takeaway.dto.request.CreateOrderRequest;
 import com.takeaway.entity.User;
+import com.takeaway.service.OrderEventStreamService;
 import com.takeaway.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -17,6 +20,7 @@ import org.springframework.web.bind.annotation.*;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderEventStreamService orderEventStreamService;
 
     @PostMapping
     public ApiResponse<OrderDTO> createOrder(@AuthenticationPrincipal User user,
@@ -32,16 +36,29 @@ public class OrderController {
         }
     }
 
+    /**
+     * 获取订单列表
+     * 传入 cursor 参数（首页传空字符串）时切换为游标分页，不统计总数
+     */
     @GetMapping
-    public ApiResponse<Page<OrderDTO>> getOrders(
+    public ApiResponse<?> getOrders(
             @AuthenticationPrincipal User user,
             @RequestParam(required = false) String status,
             @RequestParam(required = false, defaultValue = "0") int page,
-            @RequestParam(required = false, defaultValue = "20") int size) {
+            @RequestParam(required = false, defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "false") boolean withTotal) {
         
         if (user == null) {
             return ApiResponse.error(401, "请先登录");
         }
+        if (cursor != null) {
+            try {
+                return ApiResponse.success(orderService.getOrdersByCursor(user.getId(), status, cursor, size, withTotal));
+            } catch (Exception e) {
+                return ApiResponse.error(400, e.getMessage());
+            }
+        }
         Page<OrderDTO> orders = orderService.getOrders(user.getId(), status, page, size);
         return ApiResponse.success(orders);
     }
@@ -56,6 +73,23 @@ public class OrderController {
         }
     }
 
+    /**
+     * 订单状态事件流（SSE），供无法保持 STOMP 连接的客户端替代轮询
+     * 首条为当前状态快照（SNAPSHOT），之后推送状态变化，订单完成或取消后服务端结束连接；
+     * EventSource 无法设置请求头时可用 access_token 参数传令牌
+     */
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter orderEvents(@AuthenticationPrincipal User user, @PathVariable Long id) {
+        if (user == null) {
+            return orderEventStreamService.rejected(401, "请先登录");
+        }
+        try {
+            return orderEventStreamService.subscribe(id, user.getId());
+        } catch (Exception e) {
+            return orderEventStreamService.rejected(400, e.getMessage());
+        }
+    }
+
     @PutMapping("/{id}/cancel")
     public ApiResponse<OrderDTO> cancelOrder(@PathVariable Long id) {
         try {
@@ -18,16 +18,29 @@ public class RestaurantController {
 
     private final RestaurantService restaurantService;
 
+    /**
+     * 获取餐厅列表
+     * 传入 cursor 参数（首页传空字符串）且无关键词时切换为游标分页，按上架时间倒序，不统计总数
+     */
     @GetMapping
-    public ApiResponse<Page<RestaurantDTO>> getRestaurants(
+    public ApiResponse<?> getRestaurants(
             @RequestParam(required = false) Long categoryId,
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false, defaultValue = "rating") String sortBy,
             @RequestParam(required = false, defaultValue = "0") int page,
             @RequestParam(required = false, defaultValue = "12") int size,
             @RequestParam(required = false) Double userLat,
-            @RequestParam(required = false) Double userLng) {
+            @RequestParam(required = false) Double userLng,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "false") boolean withTotal) {
         
+        if (cursor != null && (keyword == null || keyword.isEmpty())) {
+            try {
+                return ApiResponse.success(restaurantService.getRestaurantsByCursor(categoryId, cursor, size, userLat, userLng, withTotal));
+            } catch (Exception e) {
+                return ApiResponse.error(400, e.getMessage());
+            }
+        }
         Page<RestaurantDTO> restaurants = restaurantService.getRestaurants(categoryId, keyword, sortBy, page, size, userLat, userLng);
         return ApiResponse.success(restaurants);
     }
@@ -44,14 +44,24 @@ public class ReviewController {
 
     /**
      * 获取餐厅评价列表
+     * 传入 cursor 参数（首页传空字符串）时切换为游标分页，不统计总数
      */
     @GetMapping("/restaurants/{restaurantId}/reviews")
-    public ApiResponse<Page<ReviewDTO>> getRestaurantReviews(
+    public ApiResponse<?> getRestaurantReviews(
             @PathVariable Long restaurantId,
             @AuthenticationPrincipal User user,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
         Long userId = user != null ? user.getId() : null;
+        if (cursor != null) {
+            try {
+                return ApiResponse.success(reviewService.getReviewsByRestaurantCursor(restaurantId, userId, cursor, size, withTotal));
+            } catch (Exception e) {
+                return ApiResponse.error(400, e.getMessage());
+            }
+        }
         Page<ReviewDTO> reviews = reviewService.getReviewsByRestaurant(restaurantId, userId, page, size);
         return ApiResponse.success(reviews);
     }
@@ -1,11 +1,19 @@
 package com.takeaway.controller;
 
 import com.takeaway.dto.ApiResponse;
+import com.takeaway.dto.request.InitChunkedUploadRequest;
+import com.takeaway.dto.request.PresignUploadRequest;
+import com.takeaway.entity.User;
+import com.takeaway.service.ChunkedUploadService;
 import com.takeaway.service.FileService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -19,6 +27,9 @@ public class UploadController {
     @Autowired
     private FileService fileService;
 
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
     /**
      * 上传图片
      */
@@ -40,4 +51,118 @@ public class UploadController {
         fileService.deleteFile(url);
         return ApiResponse.success("删除成功", null);
     }
+
+    // ==================== 直传接口 ====================
+
+    /**
+     * 申请直传地址（使用对象存储时可用，内容已存在时返回 exists=true 跳过上传，均需调用确认接口）
+     */
+    @PostMapping("/presign")
+    public ApiResponse<Map<String, Object>> presignUpload(
+            @AuthenticationPrincipal User user,
+            @Valid @RequestBody PresignUploadRequest request) {
+        try {
+            return ApiResponse.success(fileService.presignImageUpload(user.getId(), request.getFilename(),
+                    request.getContentType(), request.getTotalSize(), request.getSha256()));
+        } catch (Exception e) {
+            return ApiResponse.error(400, e.getMessage());
+        }
+    }
+
+    /**
+     * 直传完成确认
+     */
+    @PostMapping("/presign/complete")
+    public ApiResponse<Map<String, String>> completePresignedUpload(
+            @AuthenticationPrincipal User user,
+            @RequestParam("url") String url) {
+        try {
+            Map<String, String> result = new HashMap<>();
+            result.put("url", fileService.completePresignedUpload(user.getId(), url));
+            return ApiResponse.success("上传成功", result);
+        } catch (Exception e) {
+            return ApiResponse.error(400, e.getMessage());
+        }
+    }
+
+    // ==================== 分片上传接口 ====================
+
+    /**
+     * 初始化分片上传
+     */
+    @PostMapping("/chunked")
+    public ApiResponse<Map<String, Object>> initChunkedUpload(
+            @AuthenticationPrincipal User user,
+            @Valid @RequestBody InitChunkedUploadRequest request) {
+        try {
+            return ApiResponse.success(chunkedUploadService.init(user.getId(), request));
+        } catch (Exception e) {
+            return ApiResponse.error(400, e.getMessage());
+        }
+    }
+
+    /**
+     * 查询分片上传进度（断线后续传）
+     */
+    @GetMapping("/chunked/{uploadId}")
+    public ApiResponse<Map<String, Object>> getChunkedUploadStatus(
+            @AuthenticationPrincipal User user,
+            @PathVariable String uploadId) {
+        try {
+            return ApiResponse.success(chunkedUploadService.status(user.getId(), uploadId));
+        } catch (Exception e) {
+            return ApiResponse.error(400, e.getMessage());
+        }
+    }
+
+    /**
+     * 上传一个分片（请求体为分片原始字节，X-Chunk-Sha256 为分片的 SHA-256）
+     */
+    @PutMapping("/chunked/{uploadId}/{index}")
+    public ApiResponse<Map<String, Object>> uploadChunk(
+            @AuthenticationPrincipal User user,
+            @PathVariable String uploadId,
+            @PathVariable int index,
+            @RequestHeader(value = "X-Chunk-Sha256", required = false) String checksum,
+            HttpServletRequest request) {
+        try {
+            return ApiResponse.success(chunkedUploadService.uploadChunk(
+                    user.getId(), uploadId, index, checksum, request.getInputStream()));
+        } catch (IOException e) {
+            return ApiResponse.error(400, "分片读取失败");
+        } catch (Exception e) {
+            return ApiResponse.error(400, e.getMessage());
+        }
+    }
+
+    /**
+     * 完成分片上传
+     */
+    @PostMapping("/chunked/{uploadId}/complete")
+    public ApiResponse<Map<String, String>> completeChunkedUpload(
+            @AuthenticationPrincipal User user,
+            @PathVariable String uploadId) {
+        try {
+            Map<String, String> result = new HashMap<>();
+            result.put("url", chunkedUploadService.complete(user.getId(), uploadId));
+            return ApiResponse.success("上传成功", result);
+        } catch (Exception e) {
+            return ApiResponse.error(400, e.getMessage());
+        }
+    }
+
+    /**
+     * 取消分片上传
+     */
+    @DeleteMapping("/chunked/{uploadId}")
+    public ApiResponse<Void> abortChunkedUpload(
+            @AuthenticationPrincipal User user,
+            @PathVariable String uploadId) {
+        try {
+            chunkedUploadService.abort(user.getId(), uploadId);
+            return ApiResponse.success("已取消", null);
+        } catch (Exception e) {
+            return ApiResponse.error(400, e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,31 @@
+package com.takeaway.controller;
+
+import com.takeaway.service.FileService;
+import com.takeaway.service.UploadServingService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 上传文件访问控制器
+ * /uploads/** 由 UploadServingService 直接输出（支持 ETag、Range 和 size 尺寸变体）
+ */
+@RestController
+@RequiredArgsConstructor
+public class UploadFileController {
+
+    private final UploadServingService uploadServingService;
+
+    @RequestMapping(value = "/uploads/**", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length() + FileService.URL_PREFIX.length());
+        uploadServingService.serve(UriUtils.decode(path, StandardCharsets.UTF_8), request, response);
+    }
+}
@@ -0,0 +1,26 @@
+package com.takeaway.dto;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 游标分页结果 DTO
+ * 不统计总数，客户端用 nextCursor 请求下一页
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorResult<T> {
+
+    private List<T> content;
+    private int size;
+    private String nextCursor;
+    private boolean hasMore;
+    // 近似总数（仅在请求 withTotal 时返回，可能略有滞后）
+    private Long approximateTotal;
+}
@@ -0,0 +1,79 @@
+package com.takeaway.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 键集分页游标 (created_at, id)
+ * 对外编码为不透明的 Base64 字符串，客户端原样回传即可
+ */
+@Getter
+@AllArgsConstructor
+public class KeysetCursor {
+
+    // 首页起点，比任何记录都新（MySQL DATETIME 上限）
+    private static final LocalDateTime FIRST_CREATED_AT = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private final LocalDateTime createdAt;
+    private final Long id;
+
+    /**
+     * 解析游标，空游标表示第一页
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return new KeysetCursor(FIRST_CREATED_AT, Long.MAX_VALUE);
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("无效的分页游标");
+        }
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 查询条数：多取一条用于判断是否还有下一页
+     */
+    public static Pageable limit(int size) {
+        return PageRequest.of(0, size + 1);
+    }
+
+    /**
+     * 将 size + 1 条查询结果转换为游标分页结果
+     */
+    public static <E, D> CursorResult<D> toResult(List<E> rows, int size,
+                                                  Function<E, LocalDateTime> createdAtGetter,
+                                                  Function<E, Long> idGetter,
+                                                  Function<E, D> converter) {
+        boolean hasMore = rows.size() > size;
+        List<E> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            E last = page.get(page.size() - 1);
+            nextCursor = new KeysetCursor(createdAtGetter.apply(last), idGetter.apply(last)).encode();
+        }
+        return CursorResult.<D>builder()
+                .content(page.stream().map(converter).collect(Collectors.toList()))
+                .size(size)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+}
@@ -0,0 +1,26 @@
+package com.takeaway.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+/**
+ * 分片上传初始化请求 DTO
+ */
+@Data
+public class InitChunkedUploadRequest {
+
+    @NotBlank(message = "文件名不能为空")
+    private String filename;
+
+    @NotBlank(message = "文件类型不能为空")
+    private String contentType;
+
+    @NotNull(message = "文件大小不能为空")
+    @Positive(message = "文件大小必须大于0")
+    private Long totalSize;
+
+    // 分片大小（字节），不传时使用默认值，超出范围时按上下限调整
+    private Integer chunkSize;
+}
@@ -0,0 +1,27 @@
+package com.takeaway.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+/**
+ * 直传申请请求 DTO
+ */
+@Data
+public class PresignUploadRequest {
+
+    @NotBlank(message = "文件名不能为空")
+    private String filename;
+
+    @NotBlank(message = "文件类型不能为空")
+    private String contentType;
+
+    @NotNull(message = "文件大小不能为空")
+    @Positive(message = "文件大小必须大于0")
+    private Long totalSize;
+
+    // 文件内容的 SHA-256（十六进制）
+    @NotBlank(message = "文件摘要不能为空")
+    private String sha256;
+}
@@ -0,0 +1,51 @@
+package com.takeaway.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * 系统广播实体类
+ * 一次广播只存一条记录，用户读取时按水位线合并到个人通知中
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "broadcast_notifications")
+public class BroadcastNotification {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String title;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String content;
+
+    @Column(nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private Notification.NotificationType type = Notification.NotificationType.SYSTEM;
+
+    /**
+     * 是否已全部物化到用户通知表（仅物化模式下由后台任务推进）
+     */
+    @Column(nullable = false)
+    private Boolean materialized = true;
+
+    /**
+     * 物化进度：已处理到的最大用户ID（按主键游标推进，重启后可续跑）
+     */
+    @Column(name = "materialize_cursor", nullable = false)
+    private Long materializeCursor = 0L;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
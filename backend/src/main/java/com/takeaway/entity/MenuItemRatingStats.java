@@ -0,0 +1,30 @@
+package com.takeaway.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 菜品评分聚合
+ * 随评价-菜品映射增删维护评价数与综合评分总和
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "menu_item_rating_stats")
+public class MenuItemRatingStats {
+
+    @Id
+    @Column(name = "menu_item_id")
+    private Long menuItemId;
+
+    @Column(name = "review_count", nullable = false)
+    private Long reviewCount = 0L;
+
+    @Column(name = "rating_sum", nullable = false, precision = 14, scale = 1)
+    private BigDecimal ratingSum = BigDecimal.ZERO;
+}
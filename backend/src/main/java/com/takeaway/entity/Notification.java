@@ -15,7 +15,10 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+    @Index(name = "idx_notifications_user_read", columnList = "user_id, is_read"),
+    @Index(name = "idx_notifications_user_created", columnList = "user_id, created_at, id")
+})
 public class Notification {
 
     @Id
@@ -0,0 +1,61 @@
+package com.takeaway.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 餐厅评分统计
+ * 按评价增删增量维护各维度评分总和与星级分布，平均分 = 总和 / 评价数
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "restaurant_rating_stats")
+public class RestaurantRatingStats {
+
+    @Id
+    @Column(name = "restaurant_id")
+    private Long restaurantId;
+
+    @Column(name = "review_count", nullable = false)
+    private Long reviewCount = 0L;
+
+    @Column(name = "overall_sum", nullable = false, precision = 14, scale = 1)
+    private BigDecimal overallSum = BigDecimal.ZERO;
+
+    @Column(name = "taste_sum", nullable = false)
+    private Long tasteSum = 0L;
+
+    @Column(name = "packaging_sum", nullable = false)
+    private Long packagingSum = 0L;
+
+    @Column(name = "delivery_sum", nullable = false)
+    private Long deliverySum = 0L;
+
+    // 星级分布（综合评分四舍五入到整数）
+    @Column(name = "star1_count", nullable = false)
+    private Long star1Count = 0L;
+
+    @Column(name = "star2_count", nullable = false)
+    private Long star2Count = 0L;
+
+    @Column(name = "star3_count", nullable = false)
+    private Long star3Count = 0L;
+
+    @Column(name = "star4_count", nullable = false)
+    private Long star4Count = 0L;
+
+    @Column(name = "star5_count", nullable = false)
+    private Long star5Count = 0L;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
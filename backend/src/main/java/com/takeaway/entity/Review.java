@@ -53,7 +53,8 @@ public class Review {
     @Column(name = "is_anonymous")
     private Boolean isAnonymous = false;
 
-    @Column(name = "like_count")
+    // 点赞数由点赞服务批量 SQL 累加，实体保存时不覆盖
+    @Column(name = "like_count", updatable = false)
     private Integer likeCount = 0;
 
     @Column(name = "reply_content", columnDefinition = "TEXT")
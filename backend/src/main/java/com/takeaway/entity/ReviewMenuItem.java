@@ -0,0 +1,54 @@
+package com.takeaway.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 评价-菜品映射
+ * 评价创建时按订单商品写入，菜品评价列表直接按 (menu_item_id, created_at) 范围读取，
+ * 不再经由 评价 -> 订单 -> 订单项 联表去重
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "review_menu_items", indexes = {
+    @Index(name = "idx_review_menu_items_created", columnList = "menu_item_id, created_at, review_id"),
+    @Index(name = "idx_review_menu_items_review", columnList = "review_id")
+})
+@IdClass(ReviewMenuItem.ReviewMenuItemId.class)
+public class ReviewMenuItem {
+
+    @Id
+    @Column(name = "menu_item_id")
+    private Long menuItemId;
+
+    @Id
+    @Column(name = "review_id")
+    private Long reviewId;
+
+    // 冗余评价综合评分，便于维护菜品聚合
+    @Column(name = "overall_rating", nullable = false, precision = 2, scale = 1)
+    private BigDecimal overallRating;
+
+    // 冗余评价创建时间，用于列表排序
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * 联合主键 (menu_item_id, review_id)
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ReviewMenuItemId implements Serializable {
+        private Long menuItemId;
+        private Long reviewId;
+    }
+}
@@ -0,0 +1,47 @@
+package com.takeaway.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 搜索 N-gram 倒排表
+ * 每行表示某个实体的可搜索字段中包含一个三元组，用于替代前导通配符 LIKE 全表扫描
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "search_ngrams", indexes = {
+    @Index(name = "idx_search_ngrams_entity", columnList = "entity_type, entity_id")
+})
+@IdClass(SearchNgram.SearchNgramId.class)
+public class SearchNgram {
+
+    @Id
+    @Column(name = "entity_type", length = 10)
+    private String entityType;
+
+    @Id
+    @Column(length = 3)
+    private String gram;
+
+    @Id
+    @Column(name = "entity_id")
+    private Long entityId;
+
+    /**
+     * 联合主键 (entity_type, gram, entity_id)
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SearchNgramId implements Serializable {
+        private String entityType;
+        private String gram;
+        private Long entityId;
+    }
+}
@@ -0,0 +1,41 @@
+package com.takeaway.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * 上传文件引用计数
+ * 文件按内容 SHA-256 寻址存放，相同内容只存一份；每次上传计数加一，删除时减一，归零后才删除文件
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "stored_files")
+public class StoredFile {
+
+    // 相对上传目录的路径，如 ab/cd/abcd...ef.jpg
+    @Id
+    @Column(name = "path", length = 100)
+    private String path;
+
+    @Column(name = "size", nullable = false)
+    private Long size;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount = 0;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -39,6 +39,7 @@ public class SystemConfig {
 
     // 配置键常量
     public static final String KEY_DEFAULT_PLATFORM_RATE = "default_platform_rate";  // 默认平台抽成比例
+    public static final String KEY_REVIEW_MENU_ITEMS_BACKFILLED = "review_menu_items_backfilled";  // 评价-菜品映射是否已回填
 
     /**
      * 获取配置值为 BigDecimal
@@ -41,6 +41,10 @@ public class User {
     @Column(nullable = false)
     private Boolean enabled = true;
 
+    // 用户自行注销的时间（注销同时禁用；管理员禁用不设置）
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
     @Column(nullable = false)
     private String role = "USER";
 
@@ -0,0 +1,35 @@
+package com.takeaway.repository;
+
+import com.takeaway.entity.BroadcastNotification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 系统广播数据访问层
+ */
+@Repository
+public interface BroadcastNotificationRepository extends JpaRepository<BroadcastNotification, Long> {
+
+    /**
+     * 统计水位线之后、对该用户可见的广播数量
+     * 管理员不接收广播，注册时间晚于广播的用户也不接收
+     */
+    @Query("SELECT COUNT(b) FROM BroadcastNotification b, User u " +
+           "WHERE u.id = :userId AND u.role <> 'ADMIN' AND b.id > :afterId AND b.createdAt >= u.createdAt")
+    long countVisibleAfter(@Param("userId") Long userId, @Param("afterId") Long afterId);
+
+    /**
+     * 当前最大广播ID
+     */
+    @Query("SELECT COALESCE(MAX(b.id), 0) FROM BroadcastNotification b")
+    Long findMaxId();
+
+    /**
+     * 待物化的广播（按ID升序）
+     */
+    List<BroadcastNotification> findByMaterializedFalseOrderByIdAsc();
+}
@@ -1,8 +1,10 @@
 package com.takeaway.repository;
 
 import com.takeaway.entity.Category;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,4 +16,8 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
 
     @Query("SELECT c FROM Category c ORDER BY c.sortOrder ASC")
     List<Category> findAllOrdered();
+
+    // 上传文件清理：按主键游标分批读取图片引用（第一列为ID）
+    @Query("SELECT c.id, c.icon FROM Category c WHERE c.id > :afterId ORDER BY c.id ASC")
+    List<Object[]> findImageRefsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -0,0 +1,44 @@
+package com.takeaway.repository;
+
+import com.takeaway.entity.MenuItemRatingStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 菜品评分聚合数据访问层
+ */
+@Repository
+public interface MenuItemRatingStatsRepository extends JpaRepository<MenuItemRatingStats, Long> {
+
+    /**
+     * 按评价的菜品映射累加聚合（评价创建后调用）
+     */
+    @Modifying
+    @Query(value = "INSERT INTO menu_item_rating_stats (menu_item_id, review_count, rating_sum) " +
+                   "SELECT m.menu_item_id, 1, m.overall_rating FROM review_menu_items m WHERE m.review_id = :reviewId " +
+                   "ON DUPLICATE KEY UPDATE review_count = review_count + 1, rating_sum = rating_sum + VALUES(rating_sum)",
+           nativeQuery = true)
+    int addReview(@Param("reviewId") Long reviewId);
+
+    /**
+     * 按评价的菜品映射扣减聚合（删除映射前调用）
+     */
+    @Modifying
+    @Query(value = "UPDATE menu_item_rating_stats s JOIN review_menu_items m ON m.menu_item_id = s.menu_item_id " +
+                   "SET s.review_count = GREATEST(0, s.review_count - 1), s.rating_sum = GREATEST(0, s.rating_sum - m.overall_rating) " +
+                   "WHERE m.review_id = :reviewId", nativeQuery = true)
+    int removeReview(@Param("reviewId") Long reviewId);
+
+    /**
+     * 按映射表全量重建聚合（回填完成后调用）
+     */
+    @Modifying
+    @Query(value = "INSERT INTO menu_item_rating_stats (menu_item_id, review_count, rating_sum) " +
+                   "SELECT menu_item_id, COUNT(*), SUM(overall_rating) FROM review_menu_items GROUP BY menu_item_id " +
+                   "ON DUPLICATE KEY UPDATE review_count = VALUES(review_count), rating_sum = VALUES(rating_sum)",
+           nativeQuery = true)
+    int rebuildAll();
+}
@@ -1,6 +1,7 @@
 package com.takeaway.repository;
 
 import com.takeaway.entity.MenuItem;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -25,4 +26,8 @@ public interface MenuItemRepository extends JpaRepository<MenuItem, Long> {
     Long countByMenuCategoryId(@Param("categoryId") Long categoryId);
 
     List<MenuItem> findByRestaurantIdAndIsHotTrue(Long restaurantId);
+
+    // 上传文件清理：按主键游标分批读取图片引用（第一列为ID）
+    @Query("SELECT m.id, m.image FROM MenuItem m WHERE m.id > :afterId ORDER BY m.id ASC")
+    List<Object[]> findImageRefsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -2,12 +2,14 @@ package com.takeaway.repository;
 
 import com.takeaway.entity.Notification;
 import com.takeaway.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -17,14 +19,39 @@ import java.util.List;
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
 
     /**
-     * 根据用户查询所有通知（按创建时间倒序）
+     * 按用户ID查询所有通知（按创建时间倒序，不加载用户）
      */
-    List<Notification> findByUserOrderByCreatedAtDesc(User user);
+    List<Notification> findByUserIdOrderByCreatedAtDescIdDesc(Long userId);
 
     /**
-     * 根据用户和已读状态查询通知
+     * 按用户ID和已读状态查询通知（不加载用户）
      */
-    List<Notification> findByUserAndIsReadOrderByCreatedAtDesc(User user, Boolean isRead);
+    List<Notification> findByUserIdAndIsReadOrderByCreatedAtDescIdDesc(Long userId, Boolean isRead);
+
+    // ==================== 游标分页（走 user_id, created_at, id 联合索引倒序 seek） ====================
+
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId " +
+           "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findUserNotificationsBefore(@Param("userId") Long userId,
+                                                   @Param("createdAt") LocalDateTime createdAt,
+                                                   @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId AND n.isRead = false " +
+           "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findUserUnreadNotificationsBefore(@Param("userId") Long userId,
+                                                         @Param("createdAt") LocalDateTime createdAt,
+                                                         @Param("id") Long id, Pageable pageable);
+
+    /**
+     * 删除一批早于截止时间的已读通知（单批限量，避免长时间锁表）
+     * 按 (is_read, created_at) 索引顺序删除，读满一批即停止，不扫描全部已读通知
+     */
+    @Modifying
+    @Query(value = "DELETE FROM notifications WHERE is_read = TRUE AND created_at < :cutoff " +
+                   "ORDER BY created_at LIMIT :limit", nativeQuery = true)
+    int deleteReadBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
 
     /**
      * 统计用户未读通知数量
@@ -32,19 +59,31 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     Long countByUserAndIsRead(User user, Boolean isRead);
 
     /**
-     * 将用户所有通知标记为已读
+     * 按用户ID统计未读通知数量（走 user_id, is_read 联合索引，不加载用户）
+     */
+    long countByUserIdAndIsReadFalse(Long userId);
+
+    /**
+     * 将用户所有未读通知标记为已读，返回实际变更的数量
      */
     @Modifying
-    @Query("UPDATE Notification n SET n.isRead = true WHERE n.user = :user")
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.user = :user AND n.isRead = false")
     int markAllAsRead(@Param("user") User user);
 
     /**
-     * 将指定通知标记为已读
+     * 将指定未读通知标记为已读，返回实际变更的数量
      */
     @Modifying
-    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id = :id AND n.user = :user")
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id = :id AND n.user = :user AND n.isRead = false")
     int markAsRead(@Param("id") Long id, @Param("user") User user);
 
+    /**
+     * 删除用户的指定未读通知，返回删除数量（用于扣减未读计数）
+     */
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.id = :id AND n.user = :user AND n.isRead = false")
+    int deleteUnreadByIdAndUser(@Param("id") Long id, @Param("user") User user);
+
     /**
      * 删除用户的指定通知
      */
@@ -54,4 +93,17 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
      * 删除用户所有通知
      */
     void deleteByUser(User user);
+
+    /**
+     * 将水位线之后、截止到 upToId 的广播写入一批用户的个人通知
+     * 一条 INSERT ... SELECT 完成，沿用广播的创建时间以保持排序
+     */
+    @Modifying
+    @Query(value = "INSERT INTO notifications (user_id, title, content, type, is_read, created_at) " +
+                   "SELECT u.id, b.title, b.content, b.type, FALSE, b.created_at " +
+                   "FROM users u " +
+                   "JOIN user_broadcast_states s ON s.user_id = u.id " +
+                   "JOIN broadcast_notifications b ON b.id > s.last_broadcast_id AND b.id <= :upToId " +
+                   "WHERE u.id IN (:userIds) AND u.role <> 'ADMIN' AND b.created_at >= u.created_at", nativeQuery = true)
+    int insertPendingBroadcasts(@Param("userIds") List<Long> userIds, @Param("upToId") Long upToId);
 }
@@ -1,13 +1,24 @@
 package com.takeaway.repository;
 
 import com.takeaway.entity.OrderItem;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
 
     List<OrderItem> findByOrderId(Long orderId);
+
+    // 批量获取多个订单的商品（评价列表组装使用）
+    List<OrderItem> findByOrderIdIn(Collection<Long> orderIds);
+
+    // 上传文件清理：按主键游标分批读取下单时的菜品图片快照（第一列为ID）
+    @Query("SELECT oi.id, oi.menuItemImage FROM OrderItem oi WHERE oi.id > :afterId ORDER BY oi.id ASC")
+    List<Object[]> findImageRefsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
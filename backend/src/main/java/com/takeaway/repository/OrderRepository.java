@@ -92,4 +92,44 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     // 统计商家今日实际收入
     @Query("SELECT COALESCE(SUM(o.merchantIncome), 0) FROM Order o WHERE o.restaurant.id = :restaurantId AND o.status = 'COMPLETED' AND DATE(o.completedAt) = CURRENT_DATE")
     java.math.BigDecimal sumTodayMerchantIncomeByRestaurantId(@Param("restaurantId") Long restaurantId);
+    
+    // 按主键游标分批读取（搜索索引重建使用）
+    List<Order> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    
+    // ==================== 游标分页（按 created_at, id 倒序 seek，不统计总数） ====================
+    
+    @Query("SELECT o FROM Order o WHERE o.user.id = :userId AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findUserOrdersBefore(@Param("userId") Long userId, @Param("createdAt") java.time.LocalDateTime createdAt,
+                                     @Param("id") Long id, Pageable pageable);
+    
+    @Query("SELECT o FROM Order o WHERE o.user.id = :userId AND o.status = :status AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findUserOrdersByStatusBefore(@Param("userId") Long userId, @Param("status") Order.OrderStatus status,
+                                             @Param("createdAt") java.time.LocalDateTime createdAt,
+                                             @Param("id") Long id, Pageable pageable);
+    
+    @Query("SELECT o FROM Order o WHERE o.restaurant.id = :restaurantId AND o.status = :status AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findRestaurantOrdersByStatusBefore(@Param("restaurantId") Long restaurantId, @Param("status") Order.OrderStatus status,
+                                                   @Param("createdAt") java.time.LocalDateTime createdAt,
+                                                   @Param("id") Long id, Pageable pageable);
+    
+    @Query("SELECT o FROM Order o WHERE o.restaurant.id = :restaurantId AND o.status <> :status AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findRestaurantOrdersExcludingStatusBefore(@Param("restaurantId") Long restaurantId, @Param("status") Order.OrderStatus status,
+                                                          @Param("createdAt") java.time.LocalDateTime createdAt,
+                                                          @Param("id") Long id, Pageable pageable);
+    
+    @Query("SELECT o FROM Order o WHERE (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findOrdersBefore(@Param("createdAt") java.time.LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+    
+    @Query("SELECT o FROM Order o WHERE o.status = :status AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findOrdersByStatusBefore(@Param("status") Order.OrderStatus status, @Param("createdAt") java.time.LocalDateTime createdAt,
+                                         @Param("id") Long id, Pageable pageable);
+    
+    // 近似总数使用的计数
+    long countByUserId(Long userId);
+    
+    long countByUserIdAndStatus(Long userId, Order.OrderStatus status);
+    
+    long countByRestaurantIdAndStatusNot(Long restaurantId, Order.OrderStatus status);
+    
+    long countByStatus(Order.OrderStatus status);
 }
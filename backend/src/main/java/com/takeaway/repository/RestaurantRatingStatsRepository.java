@@ -0,0 +1,68 @@
+package com.takeaway.repository;
+
+import com.takeaway.entity.RestaurantRatingStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * 餐厅评分统计数据访问层
+ */
+@Repository
+public interface RestaurantRatingStatsRepository extends JpaRepository<RestaurantRatingStats, Long> {
+
+    /**
+     * 原子累加一条评价的贡献（delta 为 1 表示新增，-1 表示删除）
+     * 单条语句完成，并发评价之间无需读改写
+     */
+    @Modifying
+    @Query(value = "INSERT INTO restaurant_rating_stats (restaurant_id, review_count, overall_sum, taste_sum, packaging_sum, delivery_sum, " +
+                   "star1_count, star2_count, star3_count, star4_count, star5_count, updated_at) " +
+                   "VALUES (:restaurantId, :delta, :delta * :overall, :delta * :taste, :delta * :packaging, :delta * :delivery, " +
+                   "CASE WHEN :star = 1 THEN :delta ELSE 0 END, CASE WHEN :star = 2 THEN :delta ELSE 0 END, " +
+                   "CASE WHEN :star = 3 THEN :delta ELSE 0 END, CASE WHEN :star = 4 THEN :delta ELSE 0 END, " +
+                   "CASE WHEN :star = 5 THEN :delta ELSE 0 END, NOW()) " +
+                   "ON DUPLICATE KEY UPDATE review_count = review_count + VALUES(review_count), " +
+                   "overall_sum = overall_sum + VALUES(overall_sum), taste_sum = taste_sum + VALUES(taste_sum), " +
+                   "packaging_sum = packaging_sum + VALUES(packaging_sum), delivery_sum = delivery_sum + VALUES(delivery_sum), " +
+                   "star1_count = star1_count + VALUES(star1_count), star2_count = star2_count + VALUES(star2_count), " +
+                   "star3_count = star3_count + VALUES(star3_count), star4_count = star4_count + VALUES(star4_count), " +
+                   "star5_count = star5_count + VALUES(star5_count), updated_at = NOW()", nativeQuery = true)
+    int applyDelta(@Param("restaurantId") Long restaurantId, @Param("delta") int delta,
+                   @Param("overall") BigDecimal overall, @Param("taste") int taste,
+                   @Param("packaging") int packaging, @Param("delivery") int delivery,
+                   @Param("star") int star);
+
+    /**
+     * 补齐统计行（已存在则忽略），保证校验时总能锁到该行
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO restaurant_rating_stats (restaurant_id, review_count, overall_sum, taste_sum, packaging_sum, delivery_sum, " +
+                   "star1_count, star2_count, star3_count, star4_count, star5_count, updated_at) " +
+                   "VALUES (:restaurantId, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, NOW())", nativeQuery = true)
+    int ensureStats(@Param("restaurantId") Long restaurantId);
+
+    /**
+     * 用统计行刷新餐厅的评分与评价数（没有评价时保留原评分）
+     */
+    @Modifying
+    @Query(value = "UPDATE restaurants r JOIN restaurant_rating_stats s ON s.restaurant_id = r.id " +
+                   "SET r.review_count = s.review_count, " +
+                   "r.rating = CASE WHEN s.review_count > 0 THEN ROUND(s.overall_sum / s.review_count, 1) ELSE r.rating END " +
+                   "WHERE r.id = :restaurantId", nativeQuery = true)
+    int refreshRestaurant(@Param("restaurantId") Long restaurantId);
+
+    /**
+     * 加锁读取统计行（校验修正时使用，阻塞同期的增量累加）
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM RestaurantRatingStats s WHERE s.restaurantId = :restaurantId")
+    Optional<RestaurantRatingStats> findForUpdate(@Param("restaurantId") Long restaurantId);
+}
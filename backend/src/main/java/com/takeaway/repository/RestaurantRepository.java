@@ -49,4 +49,20 @@ public interface RestaurantRepository extends JpaRepository<Restaurant, Long> {
     // 所有餐厅分页（按创建时间倒序）
     @Query("SELECT r FROM Restaurant r ORDER BY r.createdAt DESC")
     Page<Restaurant> findAllOrderByCreatedAtDesc(Pageable pageable);
+    
+    // 游标分页（按 created_at, id 倒序 seek，不统计总数）
+    @Query("SELECT r FROM Restaurant r WHERE (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) ORDER BY r.createdAt DESC, r.id DESC")
+    List<Restaurant> findRestaurantsBefore(@Param("createdAt") java.time.LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+    
+    @Query("SELECT r FROM Restaurant r WHERE r.category.id = :categoryId AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) ORDER BY r.createdAt DESC, r.id DESC")
+    List<Restaurant> findCategoryRestaurantsBefore(@Param("categoryId") Long categoryId, @Param("createdAt") java.time.LocalDateTime createdAt,
+                                                   @Param("id") Long id, Pageable pageable);
+    
+    // 按主键游标分批读取餐厅ID（后台校验任务使用）
+    @Query("SELECT r.id FROM Restaurant r WHERE r.id > :afterId ORDER BY r.id ASC")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 上传文件清理：按主键游标分批读取图片引用（第一列为ID）
+    @Query("SELECT r.id, r.image, r.logo FROM Restaurant r WHERE r.id > :afterId ORDER BY r.id ASC")
+    List<Object[]> findImageRefsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -2,6 +2,8 @@ package com.takeaway.repository;
 
 import com.takeaway.entity.ReviewLike;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -21,4 +23,8 @@ public interface ReviewLikeRepository extends JpaRepository<ReviewLike, Long> {
     
     // 获取用户点赞过的评价ID列表
     List<ReviewLike> findByUserIdAndReviewIdIn(Long userId, List<Long> reviewIds);
+    
+    // 获取用户点赞过的全部评价ID（加载用户点赞集合使用）
+    @Query("SELECT l.review.id FROM ReviewLike l WHERE l.user.id = :userId")
+    List<Long> findReviewIdsByUserId(@Param("userId") Long userId);
 }
@@ -0,0 +1,51 @@
+package com.takeaway.repository;
+
+import com.takeaway.entity.ReviewMenuItem;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 评价-菜品映射数据访问层
+ */
+@Repository
+public interface ReviewMenuItemRepository extends JpaRepository<ReviewMenuItem, ReviewMenuItem.ReviewMenuItemId> {
+
+    /**
+     * 菜品评价ID分页（按时间倒序的索引范围读取）
+     */
+    @Query("SELECT m.reviewId FROM ReviewMenuItem m WHERE m.menuItemId = :menuItemId ORDER BY m.createdAt DESC, m.reviewId DESC")
+    List<Long> findReviewIdsByMenuItemId(@Param("menuItemId") Long menuItemId, Pageable pageable);
+
+    /**
+     * 为 (afterId, upToId] 区间内的评价写入菜品映射（按订单商品去重，已存在则忽略）
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO review_menu_items (menu_item_id, review_id, overall_rating, created_at) " +
+                   "SELECT DISTINCT oi.menu_item_id, r.id, r.overall_rating, r.created_at " +
+                   "FROM reviews r JOIN order_items oi ON oi.order_id = r.order_id " +
+                   "WHERE r.id > :afterId AND r.id <= :upToId", nativeQuery = true)
+    int insertMappings(@Param("afterId") Long afterId, @Param("upToId") Long upToId);
+
+    /**
+     * 为单条评价写入菜品映射（按订单商品去重，已存在则忽略）
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO review_menu_items (menu_item_id, review_id, overall_rating, created_at) " +
+                   "SELECT DISTINCT oi.menu_item_id, r.id, r.overall_rating, r.created_at " +
+                   "FROM reviews r JOIN order_items oi ON oi.order_id = r.order_id " +
+                   "WHERE r.id = :reviewId", nativeQuery = true)
+    int insertMappingsFor(@Param("reviewId") Long reviewId);
+
+    /**
+     * 删除评价的菜品映射
+     */
+    @Modifying
+    @Query("DELETE FROM ReviewMenuItem m WHERE m.reviewId = :reviewId")
+    int deleteByReviewId(@Param("reviewId") Long reviewId);
+}
@@ -42,18 +42,6 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     @Query("SELECT AVG(r.tasteRating), AVG(r.packagingRating), AVG(r.deliveryRating) FROM Review r WHERE r.restaurant.id = :restaurantId")
     List<Object[]> getAverageRatingsByRestaurantId(@Param("restaurantId") Long restaurantId);
     
-    // 根据菜品ID查询包含该菜品的评价（通过订单项关联）
-    @Query("SELECT DISTINCT r FROM Review r JOIN r.order.items oi WHERE oi.menuItem.id = :menuItemId ORDER BY r.createdAt DESC")
-    Page<Review> findByMenuItemId(@Param("menuItemId") Long menuItemId, Pageable pageable);
-    
-    // 统计包含该菜品的评价数量
-    @Query("SELECT COUNT(DISTINCT r) FROM Review r JOIN r.order.items oi WHERE oi.menuItem.id = :menuItemId")
-    long countByMenuItemId(@Param("menuItemId") Long menuItemId);
-    
-    // 计算包含该菜品的评价平均分
-    @Query("SELECT AVG(r.overallRating) FROM Review r JOIN r.order.items oi WHERE oi.menuItem.id = :menuItemId")
-    java.math.BigDecimal calculateAverageRatingByMenuItemId(@Param("menuItemId") Long menuItemId);
-    
     // 管理后台查询方法
     
     // 统计今日新增评价
@@ -67,4 +55,30 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     // 搜索评价（按内容）
     @Query("SELECT r FROM Review r WHERE r.content LIKE %:keyword% ORDER BY r.createdAt DESC")
     Page<Review> searchByContent(@Param("keyword") String keyword, Pageable pageable);
+    
+    // 按主键游标分批读取（搜索索引重建使用）
+    List<Review> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    
+    // 游标分页获取餐厅评价（按 created_at, id 倒序 seek，不统计总数）
+    @Query("SELECT r FROM Review r WHERE r.restaurant.id = :restaurantId AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findRestaurantReviewsBefore(@Param("restaurantId") Long restaurantId, @Param("createdAt") java.time.LocalDateTime createdAt,
+                                             @Param("id") Long id, Pageable pageable);
+    
+    // 全量汇总餐厅评分（评分统计校验使用）：数量、各维度总和、1-5 星分布
+    // 使用锁定读，读取最新已提交数据而不是事务快照
+    @Query(value = "SELECT COUNT(*), COALESCE(SUM(overall_rating), 0), COALESCE(SUM(taste_rating), 0), " +
+                   "COALESCE(SUM(packaging_rating), 0), COALESCE(SUM(delivery_rating), 0), " +
+                   "COALESCE(SUM(ROUND(overall_rating) = 1), 0), COALESCE(SUM(ROUND(overall_rating) = 2), 0), " +
+                   "COALESCE(SUM(ROUND(overall_rating) = 3), 0), COALESCE(SUM(ROUND(overall_rating) = 4), 0), " +
+                   "COALESCE(SUM(ROUND(overall_rating) = 5), 0) " +
+                   "FROM reviews WHERE restaurant_id = :restaurantId LOCK IN SHARE MODE", nativeQuery = true)
+    List<Object[]> aggregateRatingStats(@Param("restaurantId") Long restaurantId);
+    
+    // 按主键游标分批读取评价ID（菜品映射回填使用）
+    @Query("SELECT r.id FROM Review r WHERE r.id > :afterId ORDER BY r.id ASC")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 上传文件清理：按主键游标分批读取图片引用（第一列为ID）
+    @Query("SELECT r.id, r.images FROM Review r WHERE r.id > :afterId ORDER BY r.id ASC")
+    List<Object[]> findImageRefsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -0,0 +1,41 @@
+package com.takeaway.repository;
+
+import com.takeaway.entity.SearchNgram;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 搜索 N-gram 倒排表数据访问层
+ */
+@Repository
+public interface SearchNgramRepository extends JpaRepository<SearchNgram, SearchNgram.SearchNgramId>,
+        SearchNgramRepositoryCustom {
+
+    /**
+     * 查找同时包含全部三元组的实体ID（按ID倒序，游标分页）
+     * 结果是候选集，调用方需再做一次子串校验
+     */
+    @Query(value = "SELECT entity_id FROM search_ngrams " +
+                   "WHERE entity_type = :entityType AND gram IN (:grams) AND entity_id < :beforeId " +
+                   "GROUP BY entity_id HAVING COUNT(*) = :gramCount " +
+                   "ORDER BY entity_id DESC", nativeQuery = true)
+    List<Long> findCandidateIds(@Param("entityType") String entityType,
+                                @Param("grams") Collection<String> grams,
+                                @Param("gramCount") long gramCount,
+                                @Param("beforeId") Long beforeId,
+                                Pageable pageable);
+
+    /**
+     * 删除某个实体的全部三元组
+     */
+    @Modifying
+    @Query("DELETE FROM SearchNgram g WHERE g.entityType = :entityType AND g.entityId = :entityId")
+    int deleteByEntity(@Param("entityType") String entityType, @Param("entityId") Long entityId);
+}
@@ -0,0 +1,14 @@
+package com.takeaway.repository;
+
+import java.util.Collection;
+
+/**
+ * 搜索 N-gram 倒排表批量写入
+ */
+public interface SearchNgramRepositoryCustom {
+
+    /**
+     * 批量写入某个实体的三元组（已存在则忽略）
+     */
+    void insertGrams(String entityType, Long entityId, Collection<String> grams);
+}
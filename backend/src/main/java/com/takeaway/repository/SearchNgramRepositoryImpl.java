@@ -0,0 +1,33 @@
+package com.takeaway.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 搜索 N-gram 倒排表批量写入实现
+ * 一个实体的全部三元组走一次 JDBC 批量插入，避免逐行 persist
+ */
+@RequiredArgsConstructor
+public class SearchNgramRepositoryImpl implements SearchNgramRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "INSERT IGNORE INTO search_ngrams (entity_type, gram, entity_id) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertGrams(String entityType, Long entityId, Collection<String> grams) {
+        if (grams.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            args.add(new Object[]{entityType, gram, entityId});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, args);
+    }
+}
@@ -0,0 +1,43 @@
+package com.takeaway.repository;
+
+import com.takeaway.entity.StoredFile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 上传文件引用计数数据访问层
+ */
+@Repository
+public interface StoredFileRepository extends JpaRepository<StoredFile, String> {
+
+    /**
+     * 引用计数加一（记录不存在时插入），单条语句完成
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO stored_files (path, size, ref_count, created_at, updated_at) " +
+                   "VALUES (:path, :size, 1, NOW(), NOW()) " +
+                   "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1, updated_at = NOW()", nativeQuery = true)
+    int incrementRef(@Param("path") String path, @Param("size") long size);
+
+    /**
+     * 引用计数减一，返回受影响行数（记录不存在或计数已为 0 时为 0）
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE stored_files SET ref_count = ref_count - 1, updated_at = NOW() " +
+                   "WHERE path = :path AND ref_count > 0", nativeQuery = true)
+    int decrementRef(@Param("path") String path);
+
+    /**
+     * 删除已无引用的记录，返回 1 表示可以删除文件
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM stored_files WHERE path = :path AND ref_count <= 0", nativeQuery = true)
+    int deleteIfUnreferenced(@Param("path") String path);
+}
@@ -0,0 +1,45 @@
+package com.takeaway.repository;
+
+import com.takeaway.entity.UserBroadcastState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 用户广播水位线数据访问层
+ */
+@Repository
+public interface UserBroadcastStateRepository extends JpaRepository<UserBroadcastState, Long> {
+
+    /**
+     * 读取用户水位线（不存在时视为 0）
+     */
+    @Query("SELECT COALESCE(MAX(s.lastBroadcastId), 0) FROM UserBroadcastState s WHERE s.userId = :userId")
+    Long findWatermark(@Param("userId") Long userId);
+
+    /**
+     * 为一批用户补齐水位线记录（已存在则忽略）
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO user_broadcast_states (user_id, last_broadcast_id, updated_at) " +
+                   "SELECT u.id, 0, NOW() FROM users u WHERE u.id IN (:userIds)", nativeQuery = true)
+    int ensureStates(@Param("userIds") List<Long> userIds);
+
+    /**
+     * 锁定一批用户的水位线记录，避免读取合并与后台物化重复投递
+     */
+    @Query(value = "SELECT user_id FROM user_broadcast_states WHERE user_id IN (:userIds) FOR UPDATE", nativeQuery = true)
+    List<Long> lockStates(@Param("userIds") List<Long> userIds);
+
+    /**
+     * 推进一批用户的水位线（只前进不后退）
+     */
+    @Modifying
+    @Query(value = "UPDATE user_broadcast_states SET last_broadcast_id = :broadcastId, updated_at = NOW() " +
+                   "WHERE user_id IN (:userIds) AND last_broadcast_id < :broadcastId", nativeQuery = true)
+    int advanceWatermarks(@Param("userIds") List<Long> userIds, @Param("broadcastId") Long broadcastId);
+}
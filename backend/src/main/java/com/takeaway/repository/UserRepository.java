@@ -4,9 +4,11 @@ import com.takeaway.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -47,6 +49,28 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT u FROM User u WHERE u.role = :role AND (u.username LIKE %:keyword% OR u.phone LIKE %:keyword%)")
     Page<User> searchByRoleAndKeyword(@Param("role") String role, @Param("keyword") String keyword, Pageable pageable);
     
-    // 获取所有用户（管理后台）
-    List<User> findByRoleNot(String role);
+    // 按主键游标分批读取非管理员用户ID（广播物化使用，避免整表加载实体）
+    @Query("SELECT u.id FROM User u WHERE u.id > :afterId AND u.role <> 'ADMIN' ORDER BY u.id ASC")
+    List<Long> findNonAdminIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // 按主键游标分批读取（搜索索引重建使用）
+    List<User> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    
+    // 游标分页（按 created_at, id 倒序 seek，不统计总数）
+    @Query("SELECT u FROM User u WHERE (u.createdAt < :createdAt OR (u.createdAt = :createdAt AND u.id < :id)) ORDER BY u.createdAt DESC, u.id DESC")
+    List<User> findUsersBefore(@Param("createdAt") java.time.LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+    
+    @Query("SELECT u FROM User u WHERE u.role = :role AND (u.createdAt < :createdAt OR (u.createdAt = :createdAt AND u.id < :id)) ORDER BY u.createdAt DESC, u.id DESC")
+    List<User> findUsersByRoleBefore(@Param("role") String role, @Param("createdAt") java.time.LocalDateTime createdAt,
+                                     @Param("id") Long id, Pageable pageable);
+    
+    // 登录后按新强度重新哈希：仅当密码未被并发修改时更新
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int updatePasswordIfUnchanged(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+
+    // 上传文件清理：按主键游标分批读取图片引用（第一列为ID）
+    @Query("SELECT u.id, u.avatar FROM User u WHERE u.id > :afterId ORDER BY u.id ASC")
+    List<Object[]> findImageRefsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
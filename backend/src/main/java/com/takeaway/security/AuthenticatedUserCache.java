@@ -0,0 +1,142 @@
+package com.takeaway.security;
+
+import com.takeaway.entity.User;
+import com.takeaway.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 认证用户缓存
+ * 按用户ID缓存认证所需的字段（ID、用户名、角色、启用状态），短期有效，避免每个请求按主键查用户表；
+ * 禁用、注销、修改角色或用户名时显式失效。
+ * jwt.embed-claims 开启后令牌自带角色和用户名，签发时间晚于该用户最近一次失效（及本次启动）的令牌直接按声明认证，不查库。
+ * 内存状态按单实例设计，多实例部署时其他节点依赖有效期收敛，且不应开启 embed-claims
+ */
+@Component
+@RequiredArgsConstructor
+@SuppressWarnings("null")
+public class AuthenticatedUserCache {
+
+    // 本次启动时间，之前签发的令牌无法确认是否已失效，一律查库
+    private static final long STARTED_AT = System.currentTimeMillis();
+
+    // 失效记录超过该数量时清理已超过令牌有效期的记录
+    private static final int INVALIDATION_PRUNE_THRESHOLD = 10000;
+
+    private final UserRepository userRepository;
+
+    @Value("${security.principal-cache.ttl:60000}")
+    private long ttl;
+
+    @Value("${security.principal-cache.max-size:100000}")
+    private int maxSize;
+
+    @Value("${jwt.embed-claims:false}")
+    private boolean embedClaims;
+
+    @Value("${jwt.expiration}")
+    private long jwtExpiration;
+
+    // 用户ID -> 认证信息（LRU 淘汰）
+    private final Map<Long, CachedUser> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, CachedUser> eldest) {
+                    return size() > maxSize;
+                }
+            });
+
+    // 用户ID -> 最近一次失效时间，早于该时间签发的令牌不再信任其中的声明
+    private final Map<Long, Long> invalidatedAt = new ConcurrentHashMap<>();
+
+    /**
+     * 按令牌声明解析认证用户，用户不存在或已禁用时返回 null
+     * 返回的 User 只填充认证字段，不是持久化实体
+     */
+    public User resolve(Claims claims) {
+        Long userId = Long.parseLong(claims.getSubject());
+        if (embedClaims && isClaimsTrusted(userId, claims)) {
+            return principal(userId, claims.get(JwtTokenProvider.CLAIM_USERNAME, String.class),
+                    claims.get(JwtTokenProvider.CLAIM_ROLE, String.class));
+        }
+        return get(userId);
+    }
+
+    /**
+     * 按用户ID获取认证用户（命中且未过期时不查库），用户不存在或已禁用时返回 null
+     */
+    public User get(Long userId) {
+        long now = System.currentTimeMillis();
+        CachedUser cached = cache.get(userId);
+        if (cached == null || now - cached.loadedAt() > ttl) {
+            cached = userRepository.findById(userId)
+                    .map(user -> new CachedUser(user.getUsername(), user.getRole(),
+                            Boolean.TRUE.equals(user.getEnabled()), now))
+                    .orElse(null);
+            if (cached == null) {
+                cache.remove(userId);
+                return null;
+            }
+            cache.put(userId, cached);
+        }
+        return cached.enabled() ? principal(userId, cached.username(), cached.role()) : null;
+    }
+
+    /**
+     * 用户状态、角色或用户名变更后失效（立即失效，并在事务提交后再次失效，避免提交前被并发请求重新加载旧值）
+     */
+    public void invalidate(Long userId) {
+        evict(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(userId);
+                }
+            });
+        }
+    }
+
+    // ==================== 内部方法 ====================
+
+    private void evict(Long userId) {
+        cache.remove(userId);
+        long now = System.currentTimeMillis();
+        invalidatedAt.put(userId, now);
+        if (invalidatedAt.size() > INVALIDATION_PRUNE_THRESHOLD) {
+            invalidatedAt.values().removeIf(time -> now - time > jwtExpiration);
+        }
+    }
+
+    private boolean isClaimsTrusted(Long userId, Claims claims) {
+        Date issuedAt = claims.getIssuedAt();
+        if (issuedAt == null || claims.get(JwtTokenProvider.CLAIM_ROLE) == null) {
+            return false;
+        }
+        // 签发时间精确到秒，向下取整后与失效时间比较，同一秒内签发的令牌按不可信处理
+        long floor = Math.max(STARTED_AT, invalidatedAt.getOrDefault(userId, 0L));
+        return issuedAt.getTime() > floor;
+    }
+
+    private static User principal(Long userId, String username, String role) {
+        User user = new User();
+        user.setId(userId);
+        user.setUsername(username);
+        user.setRole(role);
+        user.setEnabled(true);
+        return user;
+    }
+
+    private record CachedUser(String username, String role, boolean enabled, long loadedAt) {
+    }
+}
@@ -1,7 +1,7 @@
 package com.takeaway.security;
 
 import com.takeaway.entity.User;
-import com.takeaway.repository.UserRepository;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -25,7 +25,7 @@ import java.util.Collections;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider jwtTokenProvider;
-    private final UserRepository userRepository;
+    private final AuthenticatedUserCache authenticatedUserCache;
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
@@ -33,11 +33,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && jwtTokenProvider.validateToken(jwt)) {
-                Long userId = jwtTokenProvider.getUserIdFromToken(jwt);
-                User user = userRepository.findById(userId).orElse(null);
+            // 一次完成验签与解析，无效或过期时为 null
+            Claims claims = StringUtils.hasText(jwt) ? jwtTokenProvider.verify(jwt) : null;
 
-                if (user != null && user.getEnabled()) {
+            if (claims != null) {
+                // 认证字段走缓存，已禁用或不存在时为 null
+                User user = authenticatedUserCache.resolve(claims);
+
+                if (user != null) {
                     UsernamePasswordAuthenticationToken authentication =
                             new UsernamePasswordAuthenticationToken(
                                     user,
@@ -60,6 +63,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
             return bearerToken.substring(7);
         }
+        // SSE 事件流（浏览器 EventSource 不能设置请求头）允许通过参数传令牌
+        if (request.getRequestURI().endsWith("/events")) {
+            String token = request.getParameter("access_token");
+            if (StringUtils.hasText(token)) {
+                return token;
+            }
+        }
         return null;
     }
 }
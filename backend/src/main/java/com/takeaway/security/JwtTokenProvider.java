@@ -1,60 +1,141 @@
 package com.takeaway.security;
 
+import com.takeaway.entity.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+/**
+ * JWT 签发与校验
+ * 签名密钥和解析器启动时构建一次（解析器线程安全）；verify 一次完成验签、过期校验并返回声明。
+ * 最近验签通过的令牌按 SHA-256 摘要缓存声明（不保存令牌原文），有效期内重复请求跳过 Base64 解码、HMAC 和 JSON 解析
+ */
 @Component
 public class JwtTokenProvider {
 
+    public static final String CLAIM_USERNAME = "username";
+    public static final String CLAIM_ROLE = "role";
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
     @Value("${jwt.expiration}")
     private long jwtExpiration;
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    // 令牌是否携带角色声明（认证时可免查库，见 AuthenticatedUserCache）
+    @Value("${jwt.embed-claims:false}")
+    private boolean embedClaims;
+
+    @Value("${jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    // 令牌摘要 -> 已验证的声明（LRU 淘汰；ByteBuffer 按内容比较）
+    private final Map<ByteBuffer, Verified> verified = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<ByteBuffer, Verified> eldest) {
+                    return size() > verifiedCacheSize;
+                }
+            });
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser().verifyWith(signingKey).build();
     }
 
-    public String generateToken(Long userId, String username) {
+    public String generateToken(User user) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpiration);
 
-        return Jwts.builder()
-                .subject(userId.toString())
-                .claim("username", username)
+        JwtBuilder builder = Jwts.builder()
+                .subject(user.getId().toString())
+                .claim(CLAIM_USERNAME, user.getUsername())
                 .issuedAt(now)
-                .expiration(expiryDate)
-                .signWith(getSigningKey())
-                .compact();
+                .expiration(expiryDate);
+        if (embedClaims) {
+            builder.claim(CLAIM_ROLE, user.getRole());
+        }
+        return builder.signWith(signingKey).compact();
     }
 
-    public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-
-        return Long.parseLong(claims.getSubject());
-    }
+    /**
+     * 校验令牌并返回声明，无效或已过期时返回 null
+     */
+    public Claims verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        ByteBuffer key = verifiedCacheSize > 0 ? digest(token) : null;
+        if (key != null) {
+            Verified hit = verified.get(key);
+            if (hit != null) {
+                if (hit.expiresAt() > now) {
+                    return hit.claims();
+                }
+                verified.remove(key);
+                return null;
+            }
+        }
 
-    public boolean validateToken(String token) {
+        Claims claims;
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            claims = parser.parseSignedClaims(token).getPayload();
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return null;
         }
+        if (key != null && claims.getExpiration() != null) {
+            verified.put(key, new Verified(claims, claims.getExpiration().getTime()));
+        }
+        return claims;
+    }
+
+    public Claims getClaimsFromToken(String token) {
+        Claims claims = verify(token);
+        if (claims == null) {
+            throw new JwtException("令牌无效或已过期");
+        }
+        return claims;
+    }
+
+    public Long getUserIdFromToken(String token) {
+        return Long.parseLong(getClaimsFromToken(token).getSubject());
+    }
+
+    public boolean validateToken(String token) {
+        return verify(token) != null;
+    }
+
+    private static ByteBuffer digest(String token) {
+        MessageDigest sha256 = SHA256.get();
+        sha256.reset();
+        return ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private record Verified(Claims claims, long expiresAt) {
     }
 }
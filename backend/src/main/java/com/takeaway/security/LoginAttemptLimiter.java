@@ -0,0 +1,104 @@
+package com.takeaway.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 登录尝试限制
+ * 按手机号和客户端 IP 分别统计固定时间窗口内的失败次数，超出后在窗口结束前直接拒绝，不再进行密码哈希；
+ * 登录成功清除该手机号的计数。内存状态按单实例设计，多实例部署时每个节点单独计数
+ */
+@Component
+public class LoginAttemptLimiter {
+
+    @Value("${security.login-limit.max-phone-failures:5}")
+    private int maxPhoneFailures;
+
+    @Value("${security.login-limit.max-ip-failures:30}")
+    private int maxIpFailures;
+
+    @Value("${security.login-limit.window:900000}")
+    private long window;
+
+    @Value("${security.login-limit.max-tracked-keys:100000}")
+    private int maxTrackedKeys;
+
+    // 手机号 -> 失败窗口（LRU 淘汰）
+    private final Map<String, Window> phones = lruMap();
+
+    // 客户端 IP -> 失败窗口（LRU 淘汰）
+    private final Map<String, Window> ips = lruMap();
+
+    /**
+     * 手机号或 IP 失败次数超限时抛出异常
+     */
+    public void check(String phone, String clientIp) {
+        long now = System.currentTimeMillis();
+        if (isBlocked(phones, phone, maxPhoneFailures, now) || isBlocked(ips, clientIp, maxIpFailures, now)) {
+            throw new RuntimeException("尝试次数过多，请稍后再试");
+        }
+    }
+
+    public void recordFailure(String phone, String clientIp) {
+        long now = System.currentTimeMillis();
+        increment(phones, phone, now);
+        increment(ips, clientIp, now);
+    }
+
+    public void recordSuccess(String phone) {
+        if (phone != null) {
+            phones.remove(phone);
+        }
+    }
+
+    // ==================== 内部方法 ====================
+
+    private boolean isBlocked(Map<String, Window> windows, String key, int maxFailures, long now) {
+        if (key == null || maxFailures <= 0) {
+            return false;
+        }
+        Window current = windows.get(key);
+        return current != null && current.failures(now, window) >= maxFailures;
+    }
+
+    private void increment(Map<String, Window> windows, String key, long now) {
+        if (key == null) {
+            return;
+        }
+        windows.computeIfAbsent(key, k -> new Window()).increment(now, window);
+    }
+
+    private Map<String, Window> lruMap() {
+        return Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Window> eldest) {
+                return size() > maxTrackedKeys;
+            }
+        });
+    }
+
+    /**
+     * 固定窗口失败计数
+     */
+    private static final class Window {
+
+        private long start;
+        private int failures;
+
+        synchronized int failures(long now, long length) {
+            return now - start >= length ? 0 : failures;
+        }
+
+        synchronized void increment(long now, long length) {
+            if (now - start >= length) {
+                start = now;
+                failures = 0;
+            }
+            failures++;
+        }
+    }
+}
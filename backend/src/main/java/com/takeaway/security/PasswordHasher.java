@@ -0,0 +1,140 @@
+package com.takeaway.security;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 密码哈希执行器
+ * BCrypt 计算放到独立的有界线程池（默认 CPU 核数），同时进行的哈希数不超过线程数，
+ * 排队已满时立即拒绝，登录高峰不会占满 Tomcat 工作线程、拖慢其他接口。
+ * 登录走异步接口，请求线程不等待；其他低频操作同步等待，但同样受线程池限流
+ */
+@Slf4j
+@Component
+public class PasswordHasher {
+
+    private static final String BUSY_MESSAGE = "系统繁忙，请稍后重试";
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long waitTimeout;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          @Value("${security.password.hash-threads:0}") int threads,
+                          @Value("${security.password.queue-capacity:64}") int queueCapacity,
+                          @Value("${security.password.wait-timeout:3000}") long waitTimeout) {
+        this.passwordEncoder = passwordEncoder;
+        this.waitTimeout = waitTimeout;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread thread = new Thread(r, "password-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 异步校验密码，线程池排队已满时返回失败的 Future
+     */
+    public CompletableFuture<Boolean> matchesAsync(String rawPassword, String encodedPassword) {
+        return submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * 异步计算密码哈希
+     */
+    public CompletableFuture<String> encodeAsync(String rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * 同步校验密码（在哈希线程池中计算）
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return await(matchesAsync(rawPassword, encodedPassword));
+    }
+
+    /**
+     * 同步计算密码哈希（在哈希线程池中计算）
+     */
+    public String encode(String rawPassword) {
+        return await(encodeAsync(rawPassword));
+    }
+
+    /**
+     * 已有哈希的强度低于当前配置时需要重新哈希
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * 哈希线程池统计：线程数、执行中与排队的任务数、累计拒绝次数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("poolSize", executor.getMaximumPoolSize());
+        result.put("active", executor.getActiveCount());
+        result.put("queueDepth", executor.getQueue().size());
+        result.put("rejected", rejected.get());
+        return result;
+    }
+
+    // ==================== 内部方法 ====================
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            long count = rejected.incrementAndGet();
+            if (count % 100 == 1) {
+                log.warn("密码哈希线程池已满，拒绝请求 - 累计拒绝: {}", count);
+            }
+            return CompletableFuture.failedFuture(new RuntimeException(BUSY_MESSAGE));
+        }
+    }
+
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get(waitTimeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw new RuntimeException(BUSY_MESSAGE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(BUSY_MESSAGE);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.takeaway.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.takeaway.config.RateLimitProperties;
+import com.takeaway.dto.ApiResponse;
+import com.takeaway.entity.User;
+import com.takeaway.service.RateLimitService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 接口限流过滤器（位于 JWT 认证之后）
+ * 命中限流策略的请求按用户ID计数，未登录或策略指定按 IP 时按客户端 IP 计数；
+ * 超限返回 429 和 Retry-After 头
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitService rateLimitService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        RateLimitProperties.Policy policy = rateLimitService.match(request);
+        if (policy != null) {
+            long retryAfter = rateLimitService.tryAcquire(policy, subject(request, policy));
+            if (retryAfter > 0) {
+                reject(response, retryAfter);
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private String subject(HttpServletRequest request, RateLimitProperties.Policy policy) {
+        if (!policy.isPerIp()) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.getPrincipal() instanceof User user) {
+                return "u:" + user.getId();
+            }
+        }
+        // 部署在反向代理后时需配置 server.forward-headers-strategy 才能取到真实 IP
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, long retryAfterSeconds) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.error(429, "请求过于频繁，请稍后再试"));
+    }
+}
@@ -0,0 +1,20 @@
+package com.takeaway.security;
+
+import java.security.Principal;
+
+/**
+ * STOMP 会话身份
+ * 名称为用户ID，用户目的地 /user/{id}/queue/... 按它解析到会话；
+ * 商家在连接时带上所属餐厅ID，订阅商家频道时不再查库
+ */
+public record StompPrincipal(Long userId, String role, Long restaurantId) implements Principal {
+
+    @Override
+    public String getName() {
+        return String.valueOf(userId);
+    }
+
+    public boolean isAdmin() {
+        return "ADMIN".equals(role);
+    }
+}
@@ -5,6 +5,7 @@ import com.takeaway.dto.request.BroadcastRequest;
 import com.takeaway.dto.request.CategoryRequest;
 import com.takeaway.entity.*;
 import com.takeaway.repository.*;
+import com.takeaway.security.AuthenticatedUserCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -31,8 +32,15 @@ public class AdminService {
     private final OrderRepository orderRepository;
     private final CategoryRepository categoryRepository;
     private final ReviewRepository reviewRepository;
-    private final NotificationRepository notificationRepository;
     private final SystemConfigRepository systemConfigRepository;
+    private final BroadcastService broadcastService;
+    private final SearchIndexService searchIndexService;
+    private final ApproximateCountService approximateCountService;
+    private final RestaurantRatingService restaurantRatingService;
+    private final ReviewAssembler reviewAssembler;
+    private final UnreadCounterService unreadCounterService;
+    private final MenuItemReviewService menuItemReviewService;
+    private final AuthenticatedUserCache authenticatedUserCache;
 
     // 兜底默认平台抽成比例（当系统配置表无数据时使用）
     private static final BigDecimal FALLBACK_PLATFORM_RATE = BigDecimal.valueOf(0.08);
@@ -185,6 +193,31 @@ public class AdminService {
                 .build();
     }
 
+    /**
+     * 游标分页获取用户列表（按 created_at, id 倒序 seek，不执行 COUNT）
+     */
+    public CursorResult<UserDTO> getUsersByCursor(String cursor, int size, String role, boolean withTotal) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        List<User> users;
+        Long total = null;
+
+        if (role != null && !role.isEmpty()) {
+            users = userRepository.findUsersByRoleBefore(role, position.getCreatedAt(), position.getId(), KeysetCursor.limit(size));
+            if (withTotal) {
+                total = approximateCountService.cached("users:role:" + role, () -> userRepository.countByRole(role));
+            }
+        } else {
+            users = userRepository.findUsersBefore(position.getCreatedAt(), position.getId(), KeysetCursor.limit(size));
+            if (withTotal) {
+                total = approximateCountService.tableRows("users");
+            }
+        }
+
+        CursorResult<UserDTO> result = KeysetCursor.toResult(users, size, User::getCreatedAt, User::getId, this::convertToUserDTO);
+        result.setApproximateTotal(total);
+        return result;
+    }
+
     /**
      * 修改用户状态（启用/禁用）
      */
@@ -194,6 +227,7 @@ public class AdminService {
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
         user.setEnabled(enabled);
         userRepository.save(user);
+        authenticatedUserCache.invalidate(userId);
     }
 
     /**
@@ -244,9 +278,16 @@ public class AdminService {
         // 更新状态
         if (data.containsKey("enabled")) {
             user.setEnabled((Boolean) data.get("enabled"));
+            // 重新启用已注销的账号视为恢复，重新进入搜索索引
+            if (Boolean.TRUE.equals(user.getEnabled())) {
+                user.setDeletedAt(null);
+            }
         }
 
         User savedUser = userRepository.save(user);
+        searchIndexService.indexUser(savedUser);
+        // 用户名、角色或状态可能变化
+        authenticatedUserCache.invalidate(userId);
         return convertToUserDTO(savedUser);
     }
 
@@ -302,6 +343,22 @@ public class AdminService {
                 .build();
     }
 
+    /**
+     * 游标分页获取餐厅列表（按 created_at, id 倒序 seek，不执行 COUNT）
+     */
+    public CursorResult<RestaurantDTO> getRestaurantsByCursor(String cursor, int size, boolean withTotal) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        List<Restaurant> restaurants = restaurantRepository.findRestaurantsBefore(
+                position.getCreatedAt(), position.getId(), KeysetCursor.limit(size));
+
+        CursorResult<RestaurantDTO> result = KeysetCursor.toResult(restaurants, size,
+                Restaurant::getCreatedAt, Restaurant::getId, this::convertToRestaurantDTO);
+        if (withTotal) {
+            result.setApproximateTotal(approximateCountService.tableRows("restaurants"));
+        }
+        return result;
+    }
+
     /**
      * 修改餐厅状态（上架/下架）
      */
@@ -425,6 +482,33 @@ public class AdminService {
                 .build();
     }
 
+    /**
+     * 游标分页获取订单列表（按 created_at, id 倒序 seek，不执行 COUNT）
+     * 关键词搜索请使用索引搜索接口
+     */
+    public CursorResult<OrderDTO> getOrdersByCursor(String cursor, int size, String status, boolean withTotal) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        List<Order> orders;
+        Long total = null;
+
+        if (status != null && !status.isEmpty()) {
+            Order.OrderStatus orderStatus = Order.OrderStatus.valueOf(status);
+            orders = orderRepository.findOrdersByStatusBefore(orderStatus, position.getCreatedAt(), position.getId(), KeysetCursor.limit(size));
+            if (withTotal) {
+                total = approximateCountService.cached("orders:status:" + orderStatus, () -> orderRepository.countByStatus(orderStatus));
+            }
+        } else {
+            orders = orderRepository.findOrdersBefore(position.getCreatedAt(), position.getId(), KeysetCursor.limit(size));
+            if (withTotal) {
+                total = approximateCountService.tableRows("orders");
+            }
+        }
+
+        CursorResult<OrderDTO> result = KeysetCursor.toResult(orders, size, Order::getCreatedAt, Order::getId, this::convertToOrderDTO);
+        result.setApproximateTotal(total);
+        return result;
+    }
+
     /**
      * 修改订单状态
      */
@@ -517,9 +601,7 @@ public class AdminService {
             reviewPage = reviewRepository.findAllOrderByCreatedAtDesc(pageable);
         }
 
-        List<ReviewDTO> reviews = reviewPage.getContent().stream()
-                .map(this::convertToReviewDTO)
-                .collect(Collectors.toList());
+        List<ReviewDTO> reviews = reviewAssembler.assembleForAdmin(reviewPage.getContent());
 
         return PageResult.<ReviewDTO>builder()
                 .content(reviews)
@@ -537,7 +619,12 @@ public class AdminService {
      */
     @Transactional
     public void deleteReview(Long reviewId) {
-        reviewRepository.deleteById(reviewId);
+        Review review = reviewRepository.findById(reviewId)
+                .orElseThrow(() -> new RuntimeException("评价不存在"));
+        reviewRepository.delete(review);
+        searchIndexService.removeReview(reviewId);
+        restaurantRatingService.revertReview(review);
+        menuItemReviewService.removeReview(reviewId);
     }
 
     /**
@@ -552,27 +639,69 @@ public class AdminService {
         review.setReplyTime(java.time.LocalDateTime.now());
         
         Review savedReview = reviewRepository.save(review);
-        return convertToReviewDTO(savedReview);
+        return reviewAssembler.assembleForAdmin(List.of(savedReview)).get(0);
+    }
+
+    // ==================== 索引搜索 ====================
+
+    /**
+     * 按用户名/手机号搜索用户（三元组索引 + ID游标），可按角色筛选
+     */
+    public CursorResult<UserDTO> searchUsers(String keyword, String role, String cursor, int size) {
+        boolean filterRole = role != null && !role.isEmpty();
+        CursorResult<User> result = searchIndexService.search(SearchIndexService.TYPE_USER, keyword, cursor, size,
+                ids -> userRepository.findAllById(ids).stream()
+                        .filter(user -> !SearchIndexService.isDeleted(user))
+                        .filter(user -> !filterRole || role.equals(user.getRole()))
+                        .collect(Collectors.toList()),
+                User::getId,
+                user -> new String[]{user.getUsername(), user.getPhone()});
+        return toDTOResult(result, this::convertToUserDTO);
+    }
+
+    /**
+     * 按订单号/手机号搜索订单（三元组索引 + ID游标）
+     */
+    public CursorResult<OrderDTO> searchOrders(String keyword, String cursor, int size) {
+        CursorResult<Order> result = searchIndexService.search(SearchIndexService.TYPE_ORDER, keyword, cursor, size,
+                orderRepository::findAllById, Order::getId,
+                order -> new String[]{order.getOrderNo(), order.getPhone()});
+        return toDTOResult(result, this::convertToOrderDTO);
+    }
+
+    /**
+     * 按内容搜索评价（三元组索引 + ID游标）
+     */
+    public CursorResult<ReviewDTO> searchReviews(String keyword, String cursor, int size) {
+        CursorResult<Review> result = searchIndexService.search(SearchIndexService.TYPE_REVIEW, keyword, cursor, size,
+                reviewRepository::findAllById, Review::getId,
+                review -> new String[]{review.getContent()});
+        return toDTOBatchResult(result, reviewAssembler::assembleForAdmin);
+    }
+
+    private <E, D> CursorResult<D> toDTOResult(CursorResult<E> result, java.util.function.Function<E, D> converter) {
+        return toDTOBatchResult(result, content -> content.stream().map(converter).collect(Collectors.toList()));
+    }
+
+    private <E, D> CursorResult<D> toDTOBatchResult(CursorResult<E> result,
+                                                    java.util.function.Function<List<E>, List<D>> converter) {
+        return CursorResult.<D>builder()
+                .content(converter.apply(result.getContent()))
+                .size(result.getSize())
+                .nextCursor(result.getNextCursor())
+                .hasMore(result.isHasMore())
+                .build();
     }
 
     // ==================== 通知管理 ====================
 
     /**
      * 发送系统广播通知（给所有用户）
+     * 只写一条广播记录，用户读取时合并；物化模式下由后台任务分批写入
      */
-    @Transactional
     public void broadcastNotification(BroadcastRequest request) {
-        List<User> allUsers = userRepository.findByRoleNot("ADMIN");
-        
-        for (User user : allUsers) {
-            Notification notification = new Notification();
-            notification.setUser(user);
-            notification.setTitle(request.getTitle());
-            notification.setContent(request.getContent());
-            notification.setType(Notification.NotificationType.valueOf(request.getType()));
-            notification.setIsRead(false);
-            notificationRepository.save(notification);
-        }
+        broadcastService.publish(request);
+        unreadCounterService.onBroadcast();
     }
 
     // ==================== 转换方法 ====================
@@ -678,27 +807,4 @@ public class AdminService {
         dto.setRestaurantCount(restaurantRepository.countByCategoryId(category.getId()));
         return dto;
     }
-
-    private ReviewDTO convertToReviewDTO(Review review) {
-        ReviewDTO dto = new ReviewDTO();
-        dto.setId(review.getId());
-        dto.setOrderId(review.getOrder().getId());
-        dto.setUserId(review.getUser().getId());
-        dto.setUsername(review.getIsAnonymous() ? "匿名用户" : review.getUser().getUsername());
-        dto.setUserAvatar(review.getIsAnonymous() ? null : review.getUser().getAvatar());
-        dto.setRestaurantId(review.getRestaurant().getId());
-        dto.setRestaurantName(review.getRestaurant().getName());
-        dto.setTasteRating(review.getTasteRating());
-        dto.setPackagingRating(review.getPackagingRating());
-        dto.setDeliveryRating(review.getDeliveryRating());
-        dto.setOverallRating(review.getOverallRating());
-        dto.setContent(review.getContent());
-        dto.setImagesFromString(review.getImages());
-        dto.setIsAnonymous(review.getIsAnonymous());
-        dto.setLikeCount(review.getLikeCount());
-        dto.setReplyContent(review.getReplyContent());
-        dto.setReplyTime(review.getReplyTime());
-        dto.setCreatedAt(review.getCreatedAt());
-        return dto;
-    }
 }
@@ -0,0 +1,71 @@
+package com.takeaway.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 近似总数服务
+ * 游标分页默认不统计总数；客户端需要时，整表用 InnoDB 统计信息估算，
+ * 带条件的列表执行一次 COUNT 后短时缓存，翻页期间不再重复统计
+ */
+@Service
+@RequiredArgsConstructor
+public class ApproximateCountService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<String, CachedCount> cache = new ConcurrentHashMap<>();
+
+    @Value("${pagination.approximate-total.ttl:60000}")
+    private long ttlMillis;
+
+    @Value("${pagination.approximate-total.max-entries:10000}")
+    private int maxEntries;
+
+    /**
+     * 整表近似行数（读取统计信息，不扫描数据）
+     */
+    public long tableRows(String table) {
+        return cached("table:" + table, () -> jdbcTemplate.queryForObject(
+                "SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?",
+                Long.class, table));
+    }
+
+    /**
+     * 带条件的计数，结果在有效期内复用
+     */
+    public long cached(String key, Supplier<Long> counter) {
+        long now = System.currentTimeMillis();
+        CachedCount entry = cache.get(key);
+        if (entry != null && entry.expiresAt > now) {
+            return entry.value;
+        }
+
+        Long value = counter.get();
+        long count = value != null ? value : 0L;
+        if (cache.size() >= maxEntries) {
+            cache.values().removeIf(cached -> cached.expiresAt <= now);
+            if (cache.size() >= maxEntries) {
+                cache.clear();
+            }
+        }
+        cache.put(key, new CachedCount(count, now + ttlMillis));
+        return count;
+    }
+
+    private static final class CachedCount {
+        private final long value;
+        private final long expiresAt;
+
+        private CachedCount(long value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.takeaway.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 广播物化后台任务
+ * 仅在 notification.broadcast.materialize=true 时启用，逐批把广播写入用户个人通知
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "notification.broadcast", name = "materialize", havingValue = "true")
+public class BroadcastMaterializeJob {
+
+    private final BroadcastService broadcastService;
+
+    @Scheduled(fixedDelayString = "${notification.broadcast.materialize-interval:5000}")
+    public void run() {
+        for (Long broadcastId : broadcastService.findPendingMaterialization()) {
+            try {
+                while (broadcastService.materializeNextBatch(broadcastId) > 0) {
+                    // 每批独立事务，循环直至该广播处理完毕
+                }
+            } catch (Exception e) {
+                log.error("广播物化失败 - 广播ID: {}, 错误: {}", broadcastId, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.takeaway.service;
+
+import com.takeaway.dto.request.BroadcastRequest;
+import com.takeaway.entity.BroadcastNotification;
+import com.takeaway.entity.Notification;
+import com.takeaway.repository.BroadcastNotificationRepository;
+import com.takeaway.repository.NotificationRepository;
+import com.takeaway.repository.UserBroadcastStateRepository;
+import com.takeaway.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * 系统广播服务
+ * 广播只写一条记录，用户读取时按水位线合并（fan-out-on-read）；
+ * 开启物化模式后，由后台任务按用户ID游标分批写入个人通知
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@SuppressWarnings("null")
+public class BroadcastService {
+
+    private final BroadcastNotificationRepository broadcastNotificationRepository;
+    private final UserBroadcastStateRepository userBroadcastStateRepository;
+    private final NotificationRepository notificationRepository;
+    private final UserRepository userRepository;
+
+    @Value("${notification.broadcast.materialize:false}")
+    private boolean materialize;
+
+    @Value("${notification.broadcast.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * 发布广播（只写一条广播记录）
+     */
+    @Transactional
+    public BroadcastNotification publish(BroadcastRequest request) {
+        BroadcastNotification broadcast = new BroadcastNotification();
+        broadcast.setTitle(request.getTitle());
+        broadcast.setContent(request.getContent());
+        broadcast.setType(Notification.NotificationType.valueOf(request.getType()));
+        broadcast.setMaterialized(!materialize);
+        broadcast.setMaterializeCursor(0L);
+        return broadcastNotificationRepository.save(broadcast);
+    }
+
+    /**
+     * 统计用户尚未合并的广播数量（只读，不写入）
+     */
+    public long countPending(Long userId) {
+        Long watermark = userBroadcastStateRepository.findWatermark(userId);
+        return broadcastNotificationRepository.countVisibleAfter(userId, watermark);
+    }
+
+    /**
+     * 将用户水位线之后的广播合并到其个人通知中，并推进水位线
+     * 水位线行加锁，保证并发读取或后台物化时同一广播只投递一次
+     */
+    @Transactional
+    public int claimPending(Long userId) {
+        Long maxId = broadcastNotificationRepository.findMaxId();
+        if (maxId == 0 || userBroadcastStateRepository.findWatermark(userId) >= maxId) {
+            return 0;
+        }
+        return deliver(List.of(userId), maxId);
+    }
+
+    /**
+     * 物化一批用户（按用户ID游标推进），返回本批处理的用户数
+     * 每批单独提交事务，避免大事务长时间持锁
+     */
+    @Transactional
+    public int materializeNextBatch(Long broadcastId) {
+        BroadcastNotification broadcast = broadcastNotificationRepository.findById(broadcastId)
+                .orElseThrow(() -> new RuntimeException("广播不存在"));
+        if (Boolean.TRUE.equals(broadcast.getMaterialized())) {
+            return 0;
+        }
+
+        List<Long> userIds = userRepository.findNonAdminIdsAfter(
+                broadcast.getMaterializeCursor(), PageRequest.of(0, batchSize));
+        if (userIds.isEmpty()) {
+            broadcast.setMaterialized(true);
+            broadcastNotificationRepository.save(broadcast);
+            log.info("广播物化完成 - 广播ID: {}", broadcastId);
+            return 0;
+        }
+
+        int inserted = deliver(userIds, broadcastId);
+        broadcast.setMaterializeCursor(userIds.get(userIds.size() - 1));
+        broadcastNotificationRepository.save(broadcast);
+        log.debug("广播物化进度 - 广播ID: {}, 游标: {}, 写入: {}", broadcastId, broadcast.getMaterializeCursor(), inserted);
+        return userIds.size();
+    }
+
+    /**
+     * 获取待物化的广播ID列表
+     */
+    public List<Long> findPendingMaterialization() {
+        return broadcastNotificationRepository.findByMaterializedFalseOrderByIdAsc().stream()
+                .map(BroadcastNotification::getId)
+                .toList();
+    }
+
+    /**
+     * 投递 (水位线, upToId] 区间内的广播给一批用户，并推进水位线
+     */
+    private int deliver(List<Long> userIds, Long upToId) {
+        userBroadcastStateRepository.ensureStates(userIds);
+        userBroadcastStateRepository.lockStates(userIds);
+        int inserted = notificationRepository.insertPendingBroadcasts(userIds, upToId);
+        userBroadcastStateRepository.advanceWatermarks(userIds, upToId);
+        return inserted;
+    }
+}
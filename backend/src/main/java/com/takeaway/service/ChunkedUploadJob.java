@@ -0,0 +1,31 @@
+package com.takeaway.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 分片上传会话清理任务
+ * 定期删除长时间没有新分片的会话及其临时文件
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChunkedUploadJob {
+
+    private final ChunkedUploadService chunkedUploadService;
+
+    @Scheduled(initialDelayString = "${file.chunked.cleanup-interval:600000}",
+               fixedDelayString = "${file.chunked.cleanup-interval:600000}")
+    public void run() {
+        try {
+            int removed = chunkedUploadService.cleanup();
+            if (removed > 0) {
+                log.info("分片上传会话清理完成 - 删除: {}", removed);
+            }
+        } catch (Exception e) {
+            log.error("分片上传会话清理失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.takeaway.service;
+
+import com.takeaway.dto.request.InitChunkedUploadRequest;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 分片上传服务
+ * 初始化时按总大小预分配临时文件，每个分片按序号计算偏移直接定位写入（不经过 Multipart 临时文件），
+ * 写入同时计算 SHA-256 与客户端提供的校验值比对，校验通过才记为已接收；
+ * 断线后客户端查询已接收的分片继续上传，全部到齐后交给 FileService 按内容寻址保存。
+ * 会话保存在内存中，按单实例设计，服务重启后未完成的上传需重新开始
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChunkedUploadService {
+
+    private static final String CHUNK_DIR = "chunks";
+    private static final String PART_SUFFIX = ".part";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileService fileService;
+
+    @Value("${file.chunked.default-chunk-size:1048576}")
+    private int defaultChunkSize;
+
+    @Value("${file.chunked.min-chunk-size:262144}")
+    private int minChunkSize;
+
+    @Value("${file.chunked.max-chunk-size:5242880}")
+    private int maxChunkSize;
+
+    // 会话超过该时间没有新分片视为已放弃（毫秒）
+    @Value("${file.chunked.session-ttl:86400000}")
+    private long sessionTtl;
+
+    @Value("${file.chunked.max-sessions-per-user:20}")
+    private int maxSessionsPerUser;
+
+    // 上传ID -> 会话
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        try {
+            Files.createDirectories(chunkDirectory());
+        } catch (IOException e) {
+            throw new RuntimeException("无法创建分片上传目录: " + chunkDirectory(), e);
+        }
+    }
+
+    /**
+     * 初始化分片上传
+     * @param userId 当前用户ID
+     * @return 上传ID、分片大小、分片数和已接收的分片
+     */
+    public Map<String, Object> init(Long userId, InitChunkedUploadRequest request) {
+        fileService.validateImage(request.getFilename(), request.getContentType(), request.getTotalSize());
+        long active = sessions.values().stream().filter(session -> session.userId.equals(userId)).count();
+        if (active >= maxSessionsPerUser) {
+            throw new RuntimeException("未完成的上传过多，请稍后重试");
+        }
+
+        int chunkSize = request.getChunkSize() != null ? request.getChunkSize() : defaultChunkSize;
+        chunkSize = Math.max(minChunkSize, Math.min(maxChunkSize, chunkSize));
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        Path part = chunkDirectory().resolve(uploadId + PART_SUFFIX);
+        try (RandomAccessFile file = new RandomAccessFile(part.toFile(), "rw")) {
+            // 预分配完整大小，分片可乱序、并发写入各自的区间
+            file.setLength(request.getTotalSize());
+        } catch (IOException e) {
+            throw new RuntimeException("初始化上传失败: " + e.getMessage(), e);
+        }
+
+        Session session = new Session(uploadId, userId, request.getFilename(), part,
+                request.getTotalSize(), chunkSize);
+        sessions.put(uploadId, session);
+        return session.toStatus();
+    }
+
+    /**
+     * 查询上传进度（断线重连后用于确定需要补传的分片）
+     */
+    public Map<String, Object> status(Long userId, String uploadId) {
+        return require(userId, uploadId).toStatus();
+    }
+
+    /**
+     * 写入一个分片
+     * @param index 分片序号（从 0 开始）
+     * @param checksum 分片内容的 SHA-256（十六进制）
+     * @param body 分片内容
+     */
+    public Map<String, Object> uploadChunk(Long userId, String uploadId, int index, String checksum, InputStream body) {
+        Session session = require(userId, uploadId);
+        if (index < 0 || index >= session.totalChunks) {
+            throw new RuntimeException("分片序号超出范围");
+        }
+        if (checksum == null || checksum.length() != 64) {
+            throw new RuntimeException("缺少分片校验值");
+        }
+        if (session.isReceived(index)) {
+            // 客户端重试已成功的分片，直接返回进度
+            return session.toStatus();
+        }
+
+        long offset = (long) index * session.chunkSize;
+        long expected = Math.min(session.chunkSize, session.totalSize - offset);
+        MessageDigest sha256 = sha256();
+        long written = 0;
+        try (FileChannel channel = FileChannel.open(session.part, StandardOpenOption.WRITE)) {
+            byte[] bytes = new byte[BUFFER_SIZE];
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            int read;
+            while ((read = body.read(bytes)) != -1) {
+                if (written + read > expected) {
+                    throw new RuntimeException("分片大小不正确");
+                }
+                sha256.update(bytes, 0, read);
+                buffer.clear().limit(read);
+                while (buffer.hasRemaining()) {
+                    written += channel.write(buffer, offset + written);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("分片写入失败: " + e.getMessage(), e);
+        }
+        if (written != expected) {
+            throw new RuntimeException("分片大小不正确");
+        }
+        if (!HexFormat.of().formatHex(sha256.digest()).equalsIgnoreCase(checksum)) {
+            throw new RuntimeException("分片校验失败，请重新上传");
+        }
+        session.markReceived(index);
+        return session.toStatus();
+    }
+
+    /**
+     * 完成上传：全部分片到齐后保存为正式文件
+     * @return 文件访问路径
+     */
+    public String complete(Long userId, String uploadId) {
+        Session session = require(userId, uploadId);
+        if (!session.tryComplete()) {
+            throw new RuntimeException("还有分片未上传");
+        }
+        sessions.remove(uploadId, session);
+        return fileService.storeImage(session.part, session.filename);
+    }
+
+    /**
+     * 取消上传并删除临时文件
+     */
+    public void abort(Long userId, String uploadId) {
+        Session session = require(userId, uploadId);
+        if (sessions.remove(uploadId, session)) {
+            deleteQuietly(session.part);
+        }
+    }
+
+    /**
+     * 清理已放弃的会话，以及没有会话对应的残留临时文件（如服务重启前未完成的上传）
+     * @return 删除的临时文件数
+     */
+    public int cleanup() throws IOException {
+        long expireBefore = System.currentTimeMillis() - sessionTtl;
+        int removed = 0;
+        for (Session session : new ArrayList<>(sessions.values())) {
+            if (session.lastActiveAt < expireBefore && sessions.remove(session.uploadId, session)) {
+                deleteQuietly(session.part);
+                removed++;
+            }
+        }
+        try (var parts = Files.newDirectoryStream(chunkDirectory(), "*" + PART_SUFFIX)) {
+            for (Path part : parts) {
+                String name = part.getFileName().toString();
+                String uploadId = name.substring(0, name.length() - PART_SUFFIX.length());
+                FileTime modified = Files.getLastModifiedTime(part);
+                if (!sessions.containsKey(uploadId) && modified.toMillis() < expireBefore) {
+                    deleteQuietly(part);
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    // ==================== 内部方法 ====================
+
+    private Session require(Long userId, String uploadId) {
+        Session session = uploadId != null ? sessions.get(uploadId) : null;
+        if (session == null || !session.userId.equals(userId)) {
+            throw new RuntimeException("上传会话不存在或已过期");
+        }
+        return session;
+    }
+
+    private Path chunkDirectory() {
+        return fileService.tempDirectory().resolve(CHUNK_DIR);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除分片临时文件失败: {}", path.getFileName());
+        }
+    }
+
+    /**
+     * 单个分片上传会话
+     */
+    private static final class Session {
+
+        private final String uploadId;
+        private final Long userId;
+        private final String filename;
+        private final Path part;
+        private final long totalSize;
+        private final int chunkSize;
+        private final int totalChunks;
+        private final BitSet received;
+        private boolean completing;
+        private volatile long lastActiveAt = System.currentTimeMillis();
+
+        Session(String uploadId, Long userId, String filename, Path part, long totalSize, int chunkSize) {
+            this.uploadId = uploadId;
+            this.userId = userId;
+            this.filename = filename;
+            this.part = part;
+            this.totalSize = totalSize;
+            this.chunkSize = chunkSize;
+            this.totalChunks = (int) ((totalSize + chunkSize - 1) / chunkSize);
+            this.received = new BitSet(totalChunks);
+        }
+
+        synchronized boolean isReceived(int index) {
+            lastActiveAt = System.currentTimeMillis();
+            return received.get(index);
+        }
+
+        synchronized void markReceived(int index) {
+            lastActiveAt = System.currentTimeMillis();
+            if (completing) {
+                throw new RuntimeException("上传已完成");
+            }
+            received.set(index);
+        }
+
+        /**
+         * 全部分片到齐时标记为完成中，之后不再接受分片
+         */
+        synchronized boolean tryComplete() {
+            if (completing || received.cardinality() < totalChunks) {
+                return false;
+            }
+            completing = true;
+            return true;
+        }
+
+        synchronized Map<String, Object> toStatus() {
+            List<Integer> receivedChunks = new ArrayList<>(received.cardinality());
+            received.stream().forEach(receivedChunks::add);
+            Map<String, Object> status = new HashMap<>();
+            status.put("uploadId", uploadId);
+            status.put("chunkSize", chunkSize);
+            status.put("totalChunks", totalChunks);
+            status.put("receivedChunks", receivedChunks);
+            return status;
+        }
+    }
+}
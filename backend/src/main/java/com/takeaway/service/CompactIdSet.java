@@ -0,0 +1,145 @@
+package com.takeaway.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 紧凑ID集合（Roaring 位图思路）
+ * 按ID高位分桶，桶内元素少时用有序 char 数组，超过 4096 个转为 65536 位的位图，
+ * 点赞这类稀疏集合每个ID约占 2 字节
+ */
+class CompactIdSet {
+
+    private static final int ARRAY_LIMIT = 4096;
+
+    private final Map<Long, Container> containers = new HashMap<>();
+
+    synchronized boolean contains(long id) {
+        Container container = containers.get(id >>> 16);
+        return container != null && container.contains((char) id);
+    }
+
+    synchronized boolean add(long id) {
+        long key = id >>> 16;
+        Container container = containers.computeIfAbsent(key, k -> new ArrayContainer());
+        boolean added = container.add((char) id);
+        if (added && container instanceof ArrayContainer array && array.size > ARRAY_LIMIT) {
+            containers.put(key, array.toBitmap());
+        }
+        return added;
+    }
+
+    synchronized boolean remove(long id) {
+        long key = id >>> 16;
+        Container container = containers.get(key);
+        if (container == null || !container.remove((char) id)) {
+            return false;
+        }
+        if (container.isEmpty()) {
+            containers.remove(key);
+        }
+        return true;
+    }
+
+    private interface Container {
+        boolean contains(char value);
+
+        boolean add(char value);
+
+        boolean remove(char value);
+
+        boolean isEmpty();
+    }
+
+    /**
+     * 稀疏桶：有序 char 数组，二分查找
+     */
+    private static final class ArrayContainer implements Container {
+        private char[] values = new char[4];
+        private int size;
+
+        @Override
+        public boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+
+        @Override
+        public boolean add(char value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                return false;
+            }
+            int insertAt = -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+            values[insertAt] = value;
+            size++;
+            return true;
+        }
+
+        @Override
+        public boolean remove(char value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < size; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    /**
+     * 稠密桶：65536 位位图
+     */
+    private static final class BitmapContainer implements Container {
+        private final long[] words = new long[1024];
+        private int cardinality;
+
+        @Override
+        public boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        public boolean add(char value) {
+            if (contains(value)) {
+                return false;
+            }
+            words[value >>> 6] |= 1L << value;
+            cardinality++;
+            return true;
+        }
+
+        @Override
+        public boolean remove(char value) {
+            if (!contains(value)) {
+                return false;
+            }
+            words[value >>> 6] &= ~(1L << value);
+            cardinality--;
+            return true;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return cardinality == 0;
+        }
+    }
+}
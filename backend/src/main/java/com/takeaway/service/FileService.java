@@ -1,28 +1,88 @@
 package com.takeaway.service;
 
+import com.takeaway.entity.StoredFile;
+import com.takeaway.repository.StoredFileRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.annotation.PostConstruct;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.UUID;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 /**
  * 文件上传服务
+ * 文件按内容寻址：复制时流式计算 SHA-256，存为 {前2位}/{3-4位}/{摘要}{扩展名}，相同内容只存一份，
+ * 因此返回的 URL 内容永不变化，可长期缓存；stored_files 记录引用计数，删除时计数归零才删除文件。
+ * 原图保存后交给 ImageVariantService 在后台生成尺寸变体。
+ * 文件读写经 ObjectStorage（本地目录或 S3 兼容存储），使用对象存储时客户端可按摘要获取直传地址，文件内容不经过应用服务器；
+ * 直传申请按用户与路径记为待确认（有效期内），确认时只接受本人的待确认记录且只计数一次。
+ * 同一文件的保存与删除用进程内分段锁串行化，待确认直传保存在内存中，多实例部署时需改用分布式锁与共享存储
  */
+@Slf4j
 @Service
+@RequiredArgsConstructor
 public class FileService {
 
+    public static final String URL_PREFIX = "/uploads/";
+
+    // 上传临时目录（与上传目录同一文件系统，保证原子移动）
+    private static final String TEMP_DIR = ".tmp";
+
+    // 内容寻址文件名：64 位十六进制摘要 + 扩展名
+    public static final Pattern CONTENT_ADDRESSED = Pattern.compile("[0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f]{64}\\.[a-z]+");
+
+    public static final long MAX_IMAGE_SIZE = 10 * 1024 * 1024;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final ImageVariantService imageVariantService;
+    private final StoredFileRepository storedFileRepository;
+    private final ObjectStorage objectStorage;
+
+    // 按文件路径分段加锁，避免并发上传相同内容与删除之间出现计数有记录但文件已删除
+    private final Object[] locks = new Object[64];
+
+    {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
     @Value("${file.upload.path:./uploads}")
     private String uploadPath;
 
+    // 直传申请后等待确认的时间（毫秒），超时未确认的申请作废
+    @Value("${file.presign.pending-ttl:1800000}")
+    private long presignPendingTtl;
+
+    @Value("${file.presign.max-pending-per-user:20}")
+    private int maxPendingPresignsPerUser;
+
+    // 用户ID:相对路径 -> 待确认的直传申请
+    private final Map<String, PendingPresign> pendingPresigns = new ConcurrentHashMap<>();
+
     // 允许的图片类型
     private static final List<String> ALLOWED_IMAGE_TYPES = Arrays.asList(
         "image/jpeg", "image/jpg", "image/png", "image/gif", "image/webp"
@@ -40,6 +100,7 @@ public class FileService {
             if (!Files.exists(path)) {
                 Files.createDirectories(path);
             }
+            Files.createDirectories(path.resolve(TEMP_DIR));
         } catch (IOException e) {
             throw new RuntimeException("无法创建上传目录: " + uploadPath, e);
         }
@@ -48,77 +109,300 @@ public class FileService {
     /**
      * 上传图片
      * @param file 上传的文件
-     * @return 文件访问路径
+     * @return 文件访问路径（内容寻址，如 /uploads/ab/cd/abcd...ef.jpg）
      */
     public String uploadImage(MultipartFile file) {
         // 验证文件
         validateFile(file);
 
-        // 生成唯一文件名
-        String originalFilename = file.getOriginalFilename();
-        String extension = getFileExtension(originalFilename);
-        String newFilename = UUID.randomUUID().toString() + extension;
-
+        String extension = normalizeExtension(getFileExtension(file.getOriginalFilename()));
+        Path temp = null;
         try {
-            // 保存文件
-            Path targetPath = Paths.get(uploadPath).resolve(newFilename);
-            Files.copy(file.getInputStream(), targetPath, StandardCopyOption.REPLACE_EXISTING);
+            // 先写入临时文件，复制的同时计算摘要
+            temp = Files.createTempFile(tempDirectory(), "upload-", ".tmp");
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            long size;
+            try (InputStream input = new DigestInputStream(file.getInputStream(), sha256)) {
+                size = Files.copy(input, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
 
             // 返回访问路径
-            return "/uploads/" + newFilename;
+            return URL_PREFIX + store(temp, toHex(sha256.digest()), size, extension);
         } catch (IOException e) {
             throw new RuntimeException("文件上传失败: " + e.getMessage(), e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            deleteQuietly(temp);
         }
     }
 
     /**
-     * 删除文件
-     * @param filePath 文件路径 (如 /uploads/xxx.jpg)
+     * 保存已在上传临时目录中组装好的图片（分片上传合并后使用），完成后源文件被移走或删除
+     * @param file 临时目录中的完整文件
+     * @param originalFilename 原始文件名（用于扩展名）
+     * @return 文件访问路径
      */
-    public void deleteFile(String filePath) {
-        if (filePath == null || filePath.isEmpty()) {
-            return;
+    public String storeImage(Path file, String originalFilename) {
+        String extension = normalizeExtension(getFileExtension(originalFilename));
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            long size;
+            try (InputStream input = new DigestInputStream(Files.newInputStream(file), sha256)) {
+                size = input.transferTo(OutputStream.nullOutputStream());
+            }
+            return URL_PREFIX + store(file, toHex(sha256.digest()), size, extension);
+        } catch (IOException e) {
+            throw new RuntimeException("文件保存失败: " + e.getMessage(), e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            deleteQuietly(file);
         }
+    }
+
+    /**
+     * 申请直传：记录待确认的申请，内容已存在时返回 exists=true（跳过上传），否则返回存储端的预签名上传地址；
+     * 两种情况都需调用 completePresignedUpload 确认后才计入引用
+     * @param userId 当前用户ID
+     * @param sha256 文件内容的 SHA-256（十六进制），上传地址只接受该内容
+     */
+    public Map<String, Object> presignImageUpload(Long userId, String filename, String contentType, long size, String sha256) {
+        validateImage(filename, contentType, size);
+        if (sha256 == null || !sha256.matches("[0-9a-fA-F]{64}")) {
+            throw new IllegalArgumentException("文件摘要格式不正确");
+        }
+        String relativePath = contentPath(sha256.toLowerCase(Locale.ROOT),
+                normalizeExtension(getFileExtension(filename)));
+        registerPendingPresign(userId, relativePath, size);
 
+        Map<String, Object> result = new HashMap<>();
         try {
-            // 从路径中提取文件名
-            String filename = filePath.replace("/uploads/", "");
-            Path path = Paths.get(uploadPath).resolve(filename);
-            Files.deleteIfExists(path);
+            if (objectStorage.exists(relativePath)) {
+                // 相同内容已存在，跳过上传，确认时计入引用
+                result.put("exists", true);
+                result.put("url", URL_PREFIX + relativePath);
+                return result;
+            }
         } catch (IOException e) {
-            // 删除失败只记录日志，不抛出异常
-            System.err.println("删除文件失败: " + filePath);
+            throw new RuntimeException("查询文件失败: " + e.getMessage(), e);
         }
+
+        ObjectStorage.PresignedUpload upload = objectStorage.presignUpload(
+                relativePath, contentTypeOf(relativePath), size, sha256.toLowerCase(Locale.ROOT));
+        if (upload == null) {
+            throw new RuntimeException("当前存储不支持直传，请使用普通上传");
+        }
+        result.put("exists", false);
+        result.put("url", URL_PREFIX + relativePath);
+        result.put("uploadUrl", upload.url());
+        result.put("method", upload.method());
+        result.put("headers", upload.headers());
+        result.put("expiresAt", upload.expiresAt());
+        return result;
     }
 
     /**
-     * 验证上传的文件
+     * 直传完成：只接受本人有效期内的直传申请，确认对象已写入存储后增加一次引用计数
+     * @param userId 当前用户ID
+     * @param filePath 申请直传时返回的文件路径
      */
-    private void validateFile(MultipartFile file) {
-        if (file == null || file.isEmpty()) {
-            throw new IllegalArgumentException("上传文件不能为空");
+    public String completePresignedUpload(Long userId, String filePath) {
+        String relativePath = filePath != null && filePath.startsWith(URL_PREFIX)
+                ? filePath.substring(URL_PREFIX.length()) : filePath;
+        if (relativePath == null || !CONTENT_ADDRESSED.matcher(relativePath).matches()) {
+            throw new IllegalArgumentException("文件路径不正确");
+        }
+        String pendingKey = pendingKey(userId, relativePath);
+        PendingPresign pending = pendingPresigns.get(pendingKey);
+        if (pending == null || pending.expiresAt() < System.currentTimeMillis()) {
+            throw new IllegalArgumentException("直传申请不存在或已过期");
         }
+        try {
+            boolean created;
+            synchronized (lockFor(relativePath)) {
+                long size = objectStorage.size(relativePath);
+                if (size < 0) {
+                    // 保留申请，上传完成后可再次确认
+                    throw new RuntimeException("文件尚未上传");
+                }
+                if (size > MAX_IMAGE_SIZE) {
+                    pendingPresigns.remove(pendingKey, pending);
+                    objectStorage.delete(relativePath);
+                    throw new IllegalArgumentException("文件大小不能超过 10MB");
+                }
+                if (size != pending.size()) {
+                    pendingPresigns.remove(pendingKey, pending);
+                    throw new IllegalArgumentException("文件大小与申请不一致");
+                }
+                // 同一申请只计数一次，重复确认或并发确认时只有一次成功
+                if (!pendingPresigns.remove(pendingKey, pending)) {
+                    throw new IllegalArgumentException("直传申请不存在或已过期");
+                }
+                created = !storedFileRepository.existsById(relativePath);
+                storedFileRepository.incrementRef(relativePath, size);
+            }
+            if (created) {
+                imageVariantService.generateAll(relativePath);
+            }
+            return URL_PREFIX + relativePath;
+        } catch (IOException e) {
+            throw new RuntimeException("查询文件失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 上传临时目录（与上传目录同一文件系统，可原子移动）
+     */
+    public Path tempDirectory() {
+        return uploadRoot().resolve(TEMP_DIR);
+    }
 
+    /**
+     * 验证图片的类型、扩展名和大小
+     */
+    public void validateImage(String filename, String contentType, long size) {
         // 验证文件类型
-        String contentType = file.getContentType();
         if (contentType == null || !ALLOWED_IMAGE_TYPES.contains(contentType.toLowerCase())) {
             throw new IllegalArgumentException("不支持的文件类型，仅支持 JPG、PNG、GIF、WebP 格式");
         }
 
         // 验证文件扩展名
-        String filename = file.getOriginalFilename();
         String extension = getFileExtension(filename);
         if (!ALLOWED_EXTENSIONS.contains(extension.toLowerCase())) {
             throw new IllegalArgumentException("不支持的文件扩展名");
         }
 
         // 验证文件大小 (10MB)
-        long maxSize = 10 * 1024 * 1024;
-        if (file.getSize() > maxSize) {
+        if (size > MAX_IMAGE_SIZE) {
             throw new IllegalArgumentException("文件大小不能超过 10MB");
         }
     }
 
+    /**
+     * 删除文件
+     * 内容寻址的文件引用计数减一，归零时删除文件及其变体；旧版随机文件名的文件直接删除
+     * @param filePath 文件路径 (如 /uploads/xxx.jpg)
+     */
+    public void deleteFile(String filePath) {
+        if (filePath == null || filePath.isEmpty()) {
+            return;
+        }
+
+        // 从路径中提取相对路径，拒绝跳出上传目录的路径
+        String relativePath = filePath.startsWith(URL_PREFIX) ? filePath.substring(URL_PREFIX.length()) : filePath;
+        Path root = uploadRoot();
+        Path path = root.resolve(relativePath).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            return;
+        }
+
+        try {
+            if (CONTENT_ADDRESSED.matcher(relativePath).matches()) {
+                synchronized (lockFor(relativePath)) {
+                    if (storedFileRepository.decrementRef(relativePath) == 0
+                            || storedFileRepository.deleteIfUnreferenced(relativePath) == 0) {
+                        // 无记录或仍有引用
+                        return;
+                    }
+                    objectStorage.delete(relativePath);
+                }
+            } else {
+                objectStorage.delete(relativePath);
+            }
+            imageVariantService.deleteVariants(relativePath);
+        } catch (IOException | RuntimeException e) {
+            // 删除失败只记录日志，不抛出异常
+            log.warn("删除文件失败: {}, 错误: {}", filePath, e.getMessage());
+        }
+    }
+
+    /**
+     * 删除未被任何数据引用的文件（清理任务使用），不论引用计数
+     * 内容寻址文件在截止时间之后有过上传（相同内容再次上传）时保留，避免删除刚上传尚未保存到业务数据的文件
+     * @param relativePath 相对上传目录的路径
+     * @param cutoff 截止时间
+     * @return 是否已删除
+     */
+    public boolean purgeUnreferenced(String relativePath, LocalDateTime cutoff) throws IOException {
+        if (!CONTENT_ADDRESSED.matcher(relativePath).matches()) {
+            objectStorage.delete(relativePath);
+            imageVariantService.deleteVariants(relativePath);
+            return true;
+        }
+        synchronized (lockFor(relativePath)) {
+            StoredFile stored = storedFileRepository.findById(relativePath).orElse(null);
+            if (stored != null && stored.getUpdatedAt() != null && stored.getUpdatedAt().isAfter(cutoff)) {
+                return false;
+            }
+            if (stored != null) {
+                storedFileRepository.delete(stored);
+            }
+            objectStorage.delete(relativePath);
+        }
+        imageVariantService.deleteVariants(relativePath);
+        return true;
+    }
+
+    // ==================== 内部方法 ====================
+
+    /**
+     * 记录待确认的直传申请（同一用户同一路径重复申请只刷新有效期），顺带清理已过期的申请
+     */
+    private void registerPendingPresign(Long userId, String relativePath, long size) {
+        long now = System.currentTimeMillis();
+        String pendingKey = pendingKey(userId, relativePath);
+        String userPrefix = userId + ":";
+        int active = 0;
+        for (Iterator<Map.Entry<String, PendingPresign>> it = pendingPresigns.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, PendingPresign> entry = it.next();
+            if (entry.getValue().expiresAt() < now) {
+                it.remove();
+            } else if (entry.getKey().startsWith(userPrefix) && !entry.getKey().equals(pendingKey)) {
+                active++;
+            }
+        }
+        if (active >= maxPendingPresignsPerUser) {
+            throw new RuntimeException("未完成的上传过多，请稍后重试");
+        }
+        pendingPresigns.put(pendingKey, new PendingPresign(size, now + presignPendingTtl));
+    }
+
+    private static String pendingKey(Long userId, String relativePath) {
+        return userId + ":" + relativePath;
+    }
+
+    /**
+     * 验证上传的文件
+     */
+    private void validateFile(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("上传文件不能为空");
+        }
+        validateImage(file.getOriginalFilename(), file.getContentType(), file.getSize());
+    }
+
+    /**
+     * 按摘要移入分片目录并增加引用计数，内容已存在时丢弃源文件
+     * @return 相对上传目录的路径
+     */
+    private String store(Path source, String hash, long size, String extension) throws IOException {
+        String relativePath = contentPath(hash, extension);
+
+        boolean created = false;
+        synchronized (lockFor(relativePath)) {
+            if (!objectStorage.exists(relativePath)) {
+                objectStorage.put(relativePath, source, contentTypeOf(relativePath));
+                created = true;
+            }
+            storedFileRepository.incrementRef(relativePath, size);
+        }
+        if (created) {
+            imageVariantService.generateAll(relativePath);
+        }
+        return relativePath;
+    }
+
     /**
      * 获取文件扩展名
      */
@@ -128,4 +412,54 @@ public class FileService {
         }
         return filename.substring(filename.lastIndexOf("."));
     }
+
+    /**
+     * 扩展名统一小写，.jpeg 归为 .jpg，保证相同内容得到相同路径
+     */
+    private static String normalizeExtension(String extension) {
+        String lower = extension.toLowerCase(Locale.ROOT);
+        return ".jpeg".equals(lower) ? ".jpg" : lower;
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    private static String contentPath(String hash, String extension) {
+        return hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + extension;
+    }
+
+    private static String contentTypeOf(String relativePath) {
+        return MediaTypeFactory.getMediaType(relativePath).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+    }
+
+    private Object lockFor(String relativePath) {
+        return locks[Math.floorMod(relativePath.hashCode(), locks.length)];
+    }
+
+    private Path uploadRoot() {
+        return Paths.get(uploadPath).toAbsolutePath().normalize();
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // 临时文件残留不影响上传结果
+        }
+    }
+
+    /**
+     * 待确认的直传申请
+     */
+    private record PendingPresign(long size, long expiresAt) {
+    }
 }
@@ -0,0 +1,387 @@
+package com.takeaway.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 图片尺寸变体服务
+ * 上传后在有界线程池中生成缩略图（thumb）、卡片图（card）、详情图（detail），原图保留；
+ * 原图经 ObjectStorage 读取，变体是可重新生成的派生文件，始终存放在本地 {上传目录}/variants/{原图相对路径去扩展名}/{尺寸}.{格式}，缺失时访问触发重新生成。
+ * 输出格式按 Accept 协商：运行时存在 WebP 编码器且客户端接受时输出 WebP，否则带透明通道的输出 PNG、其余 JPEG；
+ * GIF（可能是动图）、运行时无法解码的 WebP 以及曾经解码失败的原图不生成变体，直接返回原图
+ */
+@Slf4j
+@Service
+public class ImageVariantService {
+
+    public static final String VARIANTS_DIR = "variants";
+
+    private static final String FORMAT_JPEG = "jpg";
+    private static final String FORMAT_PNG = "png";
+    private static final String FORMAT_WEBP = "webp";
+
+    // 解码前按图片头检查像素数，防止超大图片耗尽内存
+    private static final long MAX_SOURCE_PIXELS = 40_000_000L;
+
+    // 记录的无法解码原图数量上限，超出后不再记录（仍按原图返回，只是每次会重新尝试）
+    private static final int MAX_UNDECODABLE = 10_000;
+
+    /**
+     * 变体尺寸（长边上限，不放大）
+     */
+    public enum Size {
+        THUMB(200), CARD(600), DETAIL(1200);
+
+        private final int maxEdge;
+
+        Size(int maxEdge) {
+            this.maxEdge = maxEdge;
+        }
+
+        public static Size parse(String value) {
+            if (value == null) {
+                return null;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        public String key() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    @Value("${file.upload.path:./uploads}")
+    private String uploadPath;
+
+    @Value("${file.image.jpeg-quality:0.82}")
+    private float jpegQuality;
+
+    @Value("${file.image.wait-timeout:2000}")
+    private long waitTimeout;
+
+    private final ObjectStorage objectStorage;
+    private final ThreadPoolExecutor executor;
+    private final boolean webpAvailable = ImageIO.getImageWritersByFormatName(FORMAT_WEBP).hasNext();
+    private final boolean webpReadable = ImageIO.getImageReadersByFormatName(FORMAT_WEBP).hasNext();
+
+    // 解码失败的原图（相对路径），内容不会变化，后续请求不再提交生成任务
+    private final Set<String> undecodable = ConcurrentHashMap.newKeySet();
+
+    // 正在生成的变体（目标路径 -> 任务），同一变体并发请求只生成一次
+    private final Map<Path, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    public ImageVariantService(ObjectStorage objectStorage,
+                               @Value("${file.image.threads:2}") int threads,
+                               @Value("${file.image.queue-capacity:200}") int queueCapacity) {
+        this.objectStorage = objectStorage;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread thread = new Thread(r, "image-variant-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 上传完成后后台生成所有尺寸的默认格式变体（线程池已满时跳过，访问时再生成）
+     * @param relativePath 原图相对上传目录的路径
+     */
+    public void generateAll(String relativePath) {
+        if (!supportsVariants(relativePath)) {
+            return;
+        }
+        String format = defaultFormat(relativePath);
+        for (Size size : Size.values()) {
+            submit(relativePath, variantPath(relativePath, size, format), size, format);
+        }
+    }
+
+    /**
+     * 解析要返回的文件：变体存在直接返回，缺失时生成（超时或繁忙则返回原图）
+     * @param relativePath 原图相对上传目录的路径
+     * @param source 原图的本地文件
+     * @param size 尺寸
+     * @param accept 请求的 Accept 头
+     * @return 变体或原图路径
+     */
+    public Path resolve(String relativePath, Path source, Size size, String accept) {
+        if (size == null || !supportsVariants(relativePath)) {
+            return source;
+        }
+        String format = negotiateFormat(relativePath, accept);
+        Path target = variantPath(relativePath, size, format);
+        if (Files.isRegularFile(target)) {
+            return target;
+        }
+        CompletableFuture<Path> task = submit(relativePath, target, size, format);
+        if (task == null) {
+            return source;
+        }
+        try {
+            return task.get(waitTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return source;
+        } catch (Exception e) {
+            // 生成超时或失败时先返回原图，生成完成后下次请求命中变体
+            return source;
+        }
+    }
+
+    /**
+     * 删除原图的全部变体
+     */
+    public void deleteVariants(String relativePath) {
+        undecodable.remove(relativePath);
+        Path dir = variantDir(relativePath);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (var files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(dir);
+        } catch (IOException e) {
+            log.warn("删除图片变体失败 - 原图: {}, 错误: {}", relativePath, e.getMessage());
+        }
+    }
+
+    // ==================== 内部方法 ====================
+
+    /**
+     * 提交生成任务，原图在任务中经 ObjectStorage 获取本地文件（远程存储时可能需要下载）
+     */
+    private CompletableFuture<Path> submit(String relativePath, Path target, Size size, String format) {
+        CompletableFuture<Path> created = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inFlight.putIfAbsent(target, created);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    Path source = objectStorage.localPath(relativePath);
+                    if (source == null) {
+                        throw new IOException("原图不存在");
+                    }
+                    created.complete(generate(source, target, size, format));
+                } catch (UndecodableImageException e) {
+                    if (undecodable.size() < MAX_UNDECODABLE) {
+                        undecodable.add(relativePath);
+                    }
+                    log.warn("原图无法解码，不再生成变体 - 原图: {}, 错误: {}", relativePath, e.getMessage());
+                    created.completeExceptionally(e);
+                } catch (Exception e) {
+                    log.warn("生成图片变体失败 - 原图: {}, 尺寸: {}, 错误: {}", relativePath, size.key(), e.getMessage());
+                    created.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(target, created);
+                }
+            });
+            return created;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(target, created);
+            log.debug("图片处理线程池已满，跳过变体生成 - 原图: {}, 尺寸: {}", relativePath, size.key());
+            return null;
+        }
+    }
+
+    private Path generate(Path source, Path target, Size size, String format) throws IOException {
+        if (Files.isRegularFile(target)) {
+            return target;
+        }
+        BufferedImage original = read(source);
+        BufferedImage resized = resize(original, size.maxEdge, !FORMAT_JPEG.equals(format));
+
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), size.key(), ".tmp");
+        try {
+            write(resized, format, temp);
+            // 写完整后原子替换，读取方不会看到半个文件
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return target;
+    }
+
+    private BufferedImage read(Path source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            if (input == null) {
+                throw new IOException("无法读取图片");
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new UndecodableImageException("不支持的图片格式");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_SOURCE_PIXELS) {
+                    throw new UndecodableImageException("图片像素过大");
+                }
+                BufferedImage image = reader.read(0);
+                if (image == null) {
+                    throw new UndecodableImageException("图片解码失败");
+                }
+                return image;
+            } catch (UndecodableImageException e) {
+                throw e;
+            } catch (IOException | RuntimeException e) {
+                // 文件已在本地，读取异常来自内容本身（损坏或解码器不支持的编码）
+                throw new UndecodableImageException("图片解码失败: " + e.getMessage());
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 按长边等比缩小，逐次减半后再缩放到目标尺寸，兼顾速度与清晰度
+     */
+    private static BufferedImage resize(BufferedImage source, int maxEdge, boolean keepAlpha) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double scale = Math.min(1.0, (double) maxEdge / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+        int type = keepAlpha && source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage current = source;
+        int currentWidth = width;
+        int currentHeight = height;
+        do {
+            currentWidth = Math.max(targetWidth, currentWidth / 2);
+            currentHeight = Math.max(targetHeight, currentHeight / 2);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                if (type == BufferedImage.TYPE_INT_RGB) {
+                    // JPEG 不支持透明，透明区域填充白色
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, currentWidth, currentHeight);
+                }
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (currentWidth != targetWidth || currentHeight != targetHeight);
+        return current;
+    }
+
+    private void write(BufferedImage image, String format, Path target) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(FORMAT_JPEG.equals(format) ? "jpeg" : format);
+        if (!writers.hasNext()) {
+            throw new IOException("缺少图片编码器: " + format);
+        }
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (FORMAT_JPEG.equals(format)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private String negotiateFormat(String relativePath, String accept) {
+        if (webpAvailable && accept != null && accept.contains("image/webp")) {
+            return FORMAT_WEBP;
+        }
+        return defaultFormat(relativePath);
+    }
+
+    /**
+     * 原图可能带透明通道（PNG/WebP）时输出 PNG，否则 JPEG
+     */
+    private static String defaultFormat(String relativePath) {
+        String name = relativePath.toLowerCase(Locale.ROOT);
+        return name.endsWith(".png") || name.endsWith(".webp") ? FORMAT_PNG : FORMAT_JPEG;
+    }
+
+    private boolean supportsVariants(String relativePath) {
+        String name = relativePath.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".gif") || name.startsWith(VARIANTS_DIR + "/") || name.startsWith(".")) {
+            return false;
+        }
+        if (name.endsWith(".webp") && !webpReadable) {
+            return false;
+        }
+        return !undecodable.contains(relativePath);
+    }
+
+    private Path variantPath(String relativePath, Size size, String format) {
+        return variantDir(relativePath).resolve(size.key() + "." + format);
+    }
+
+    private Path variantDir(String relativePath) {
+        int dot = relativePath.lastIndexOf('.');
+        String base = dot > 0 ? relativePath.substring(0, dot) : relativePath;
+        return uploadRoot().resolve(VARIANTS_DIR).resolve(base).normalize();
+    }
+
+    private Path uploadRoot() {
+        return Paths.get(uploadPath).toAbsolutePath().normalize();
+    }
+
+    /**
+     * 原图内容无法解码（格式不支持、损坏或像素过大），重试不会成功
+     */
+    private static final class UndecodableImageException extends IOException {
+
+        UndecodableImageException(String message) {
+            super(message);
+        }
+    }
+}
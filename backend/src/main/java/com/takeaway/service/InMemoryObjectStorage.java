@@ -0,0 +1,61 @@
+package com.takeaway.service;
+
+import com.takeaway.config.StorageProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 进程内对象存储（file.storage.type=memory）
+ * 模拟远程存储：对象保存在内存中，读取同样经本地磁盘缓存，用于不依赖外部服务的开发调试；重启后数据丢失
+ */
+@Component
+@ConditionalOnProperty(name = "file.storage.type", havingValue = "memory")
+public class InMemoryObjectStorage implements ObjectStorage {
+
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final ObjectStorageCache cache;
+
+    public InMemoryObjectStorage(StorageProperties properties) {
+        this.cache = new ObjectStorageCache(properties.getCache().getPath(), properties.getCache().getMaxBytes());
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return objects.containsKey(key);
+    }
+
+    @Override
+    public long size(String key) {
+        byte[] content = objects.get(key);
+        return content != null ? content.length : -1;
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        objects.put(key, Files.readAllBytes(source));
+    }
+
+    @Override
+    public Path localPath(String key) throws IOException {
+        return cache.get(key, (objectKey, target) -> {
+            byte[] content = objects.get(objectKey);
+            if (content == null) {
+                return false;
+            }
+            Files.write(target, content);
+            return true;
+        });
+    }
+
+    @Override
+    public void delete(String key) {
+        objects.remove(key);
+        cache.invalidate(key);
+    }
+}
@@ -0,0 +1,42 @@
+package com.takeaway.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 评价-菜品映射回填任务（一次性）
+ * 启动后检查回填标记，未回填时按评价ID分批写入映射，完成后重建菜品聚合并写入标记
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MenuItemReviewBackfillJob {
+
+    private final MenuItemReviewService menuItemReviewService;
+
+    @Value("${review.menu-item-backfill.batch-size:1000}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        if (menuItemReviewService.isBackfilled()) {
+            return;
+        }
+        try {
+            log.info("开始回填评价-菜品映射");
+            Long cursor = 0L;
+            Long next;
+            while ((next = menuItemReviewService.backfillBatch(cursor, batchSize)) != null) {
+                cursor = next;
+            }
+            menuItemReviewService.finishBackfill();
+            log.info("评价-菜品映射回填完成，最大评价ID: {}", cursor);
+        } catch (Exception e) {
+            log.error("评价-菜品映射回填失败，下次启动将重试: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.takeaway.service;
+
+import com.takeaway.entity.MenuItemRatingStats;
+import com.takeaway.entity.SystemConfig;
+import com.takeaway.repository.MenuItemRatingStatsRepository;
+import com.takeaway.repository.ReviewMenuItemRepository;
+import com.takeaway.repository.ReviewRepository;
+import com.takeaway.repository.SystemConfigRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * 菜品评价索引服务
+ * 维护评价-菜品映射与菜品评分聚合，菜品评价页与菜品评分只做索引范围读取和主键读取
+ */
+@Service
+@RequiredArgsConstructor
+@SuppressWarnings("null")
+public class MenuItemReviewService {
+
+    private final ReviewMenuItemRepository reviewMenuItemRepository;
+    private final MenuItemRatingStatsRepository menuItemRatingStatsRepository;
+    private final ReviewRepository reviewRepository;
+    private final SystemConfigRepository systemConfigRepository;
+
+    /**
+     * 新评价写入菜品映射并累加菜品聚合
+     */
+    @Transactional
+    public void indexReview(Long reviewId) {
+        if (reviewMenuItemRepository.insertMappingsFor(reviewId) > 0) {
+            menuItemRatingStatsRepository.addReview(reviewId);
+        }
+    }
+
+    /**
+     * 删除评价时扣减菜品聚合并移除映射
+     */
+    @Transactional
+    public void removeReview(Long reviewId) {
+        menuItemRatingStatsRepository.removeReview(reviewId);
+        reviewMenuItemRepository.deleteByReviewId(reviewId);
+    }
+
+    /**
+     * 菜品评价ID分页（按时间倒序）
+     */
+    public List<Long> findReviewIds(Long menuItemId, Pageable pageable) {
+        return reviewMenuItemRepository.findReviewIdsByMenuItemId(menuItemId, pageable);
+    }
+
+    /**
+     * 菜品评分聚合（没有评价时返回空聚合）
+     */
+    public MenuItemRatingStats getStats(Long menuItemId) {
+        return menuItemRatingStatsRepository.findById(menuItemId)
+                .orElseGet(() -> {
+                    MenuItemRatingStats empty = new MenuItemRatingStats();
+                    empty.setMenuItemId(menuItemId);
+                    return empty;
+                });
+    }
+
+    // ==================== 存量回填 ====================
+
+    public boolean isBackfilled() {
+        return systemConfigRepository.findByConfigKey(SystemConfig.KEY_REVIEW_MENU_ITEMS_BACKFILLED)
+                .map(config -> Boolean.parseBoolean(config.getConfigValue()))
+                .orElse(false);
+    }
+
+    /**
+     * 回填一批评价的菜品映射，返回本批最大评价ID，没有更多评价时返回 null
+     */
+    @Transactional
+    public Long backfillBatch(Long afterId, int batchSize) {
+        List<Long> reviewIds = reviewRepository.findIdsAfter(afterId, PageRequest.of(0, batchSize));
+        if (reviewIds.isEmpty()) {
+            return null;
+        }
+        Long upToId = reviewIds.get(reviewIds.size() - 1);
+        reviewMenuItemRepository.insertMappings(afterId, upToId);
+        return upToId;
+    }
+
+    /**
+     * 按映射表重建菜品聚合并标记回填完成
+     */
+    @Transactional
+    public void finishBackfill() {
+        menuItemRatingStatsRepository.rebuildAll();
+        SystemConfig config = systemConfigRepository.findByConfigKey(SystemConfig.KEY_REVIEW_MENU_ITEMS_BACKFILLED)
+                .orElseGet(() -> {
+                    SystemConfig newConfig = new SystemConfig();
+                    newConfig.setConfigKey(SystemConfig.KEY_REVIEW_MENU_ITEMS_BACKFILLED);
+                    newConfig.setConfigDesc("评价-菜品映射是否已回填");
+                    return newConfig;
+                });
+        config.setConfigValue("true");
+        systemConfigRepository.save(config);
+    }
+}
@@ -36,6 +36,7 @@ public class MerchantService {
     private final SystemConfigRepository systemConfigRepository;
     private final NotificationService notificationService;
     private final WebSocketService webSocketService;
+    private final ApproximateCountService approximateCountService;
 
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
     private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
@@ -399,6 +400,41 @@ public class MerchantService {
         return orders.map(this::toOrderDTO);
     }
 
+    /**
+     * 游标分页获取店铺订单（按 created_at, id 倒序 seek，不执行 COUNT）
+     */
+    public CursorResult<OrderDTO> getOrdersByCursor(Long ownerId, String status, String cursor, int size, boolean withTotal) {
+        Restaurant restaurant = restaurantRepository.findByOwnerId(ownerId)
+                .orElseThrow(() -> new RuntimeException("店铺不存在"));
+        Long restaurantId = restaurant.getId();
+
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        List<Order> orders;
+        Long total = null;
+
+        if (status != null && !status.isEmpty() && !status.equals("all")) {
+            Order.OrderStatus orderStatus = Order.OrderStatus.valueOf(status);
+            orders = orderRepository.findRestaurantOrdersByStatusBefore(restaurantId, orderStatus,
+                    position.getCreatedAt(), position.getId(), KeysetCursor.limit(size));
+            if (withTotal) {
+                total = approximateCountService.cached("orders:restaurant:" + restaurantId + ":" + orderStatus,
+                        () -> orderRepository.countByRestaurantIdAndStatus(restaurantId, orderStatus));
+            }
+        } else {
+            // 与分页模式一致，"全部"排除待支付订单
+            orders = orderRepository.findRestaurantOrdersExcludingStatusBefore(restaurantId, Order.OrderStatus.PENDING,
+                    position.getCreatedAt(), position.getId(), KeysetCursor.limit(size));
+            if (withTotal) {
+                total = approximateCountService.cached("orders:restaurant:" + restaurantId,
+                        () -> orderRepository.countByRestaurantIdAndStatusNot(restaurantId, Order.OrderStatus.PENDING));
+            }
+        }
+
+        CursorResult<OrderDTO> result = KeysetCursor.toResult(orders, size, Order::getCreatedAt, Order::getId, this::toOrderDTO);
+        result.setApproximateTotal(total);
+        return result;
+    }
+
     public OrderDTO getOrderById(Long ownerId, Long orderId) {
         Restaurant restaurant = restaurantRepository.findByOwnerId(ownerId)
                 .orElseThrow(() -> new RuntimeException("店铺不存在"));
@@ -0,0 +1,57 @@
+package com.takeaway.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * 通知保留期清理任务
+ * 分小批删除超过保留天数的已读通知，批次之间短暂停顿，控制通知表规模
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationRetentionJob {
+
+    private final NotificationService notificationService;
+
+    @Value("${notification.retention.days:90}")
+    private int retentionDays;
+
+    @Value("${notification.retention.batch-size:500}")
+    private int batchSize;
+
+    @Value("${notification.retention.batch-pause:200}")
+    private long batchPause;
+
+    @Scheduled(initialDelayString = "${notification.retention.initial-delay:300000}",
+               fixedDelayString = "${notification.retention.interval:3600000}")
+    public void run() {
+        if (retentionDays <= 0) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        long total = 0;
+        try {
+            int deleted;
+            do {
+                deleted = notificationService.purgeReadBefore(cutoff, batchSize);
+                total += deleted;
+                if (deleted == batchSize) {
+                    Thread.sleep(batchPause);
+                }
+            } while (deleted == batchSize);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("清理过期已读通知失败: {}", e.getMessage());
+        }
+        if (total > 0) {
+            log.info("已清理过期已读通知 - 截止时间: {}, 删除: {}", cutoff, total);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.takeaway.service;
 
+import com.takeaway.dto.CursorResult;
+import com.takeaway.dto.KeysetCursor;
 import com.takeaway.dto.NotificationDTO;
 import com.takeaway.entity.Notification;
 import com.takeaway.entity.User;
@@ -9,6 +11,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -22,41 +25,69 @@ public class NotificationService {
 
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
+    private final BroadcastService broadcastService;
+    private final UnreadCounterService unreadCounterService;
 
     /**
-     * 获取用户所有通知
+     * 获取用户所有通知（先合并水位线之后的系统广播）
      */
+    @Transactional
     public List<NotificationDTO> getNotifications(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("用户不存在"));
+        broadcastService.claimPending(userId);
         
-        List<Notification> notifications = notificationRepository.findByUserOrderByCreatedAtDesc(user);
+        List<Notification> notifications = notificationRepository.findByUserIdOrderByCreatedAtDescIdDesc(userId);
         return notifications.stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
     /**
-     * 获取用户未读通知
+     * 获取用户未读通知（先合并水位线之后的系统广播）
      */
+    @Transactional
     public List<NotificationDTO> getUnreadNotifications(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("用户不存在"));
+        broadcastService.claimPending(userId);
         
-        List<Notification> notifications = notificationRepository.findByUserAndIsReadOrderByCreatedAtDesc(user, false);
+        List<Notification> notifications = notificationRepository.findByUserIdAndIsReadOrderByCreatedAtDescIdDesc(userId, false);
         return notifications.stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 游标分页获取通知（按 created_at, id 倒序 seek，首页先合并水位线之后的系统广播）
+     */
+    @Transactional
+    public CursorResult<NotificationDTO> getNotificationsByCursor(Long userId, boolean unreadOnly, String cursor, int size) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        if (cursor == null || cursor.isBlank()) {
+            broadcastService.claimPending(userId);
+        }
+
+        List<Notification> notifications = unreadOnly
+                ? notificationRepository.findUserUnreadNotificationsBefore(userId,
+                        position.getCreatedAt(), position.getId(), KeysetCursor.limit(size))
+                : notificationRepository.findUserNotificationsBefore(userId,
+                        position.getCreatedAt(), position.getId(), KeysetCursor.limit(size));
+        return KeysetCursor.toResult(notifications, size, Notification::getCreatedAt, Notification::getId,
+                this::convertToDTO);
+    }
+
+    /**
+     * 删除一批早于截止时间的已读通知（每批单独提交，由保留期任务循环调用）
+     * 已读通知不计入未读数，无需更新计数缓存
+     */
+    @Transactional
+    public int purgeReadBefore(LocalDateTime cutoff, int batchSize) {
+        return notificationRepository.deleteReadBefore(cutoff, batchSize);
+    }
+
     /**
      * 获取用户未读通知数量
+     * 读取内存计数（首次按个人未读 + 未合并广播加载），变化通过 WebSocket 推送
      */
     public Long getUnreadCount(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("用户不存在"));
-        
-        return notificationRepository.countByUserAndIsRead(user, false);
+        return unreadCounterService.get(userId);
     }
 
     /**
@@ -67,7 +98,8 @@ public class NotificationService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
         
-        notificationRepository.markAsRead(id, user);
+        int updated = notificationRepository.markAsRead(id, user);
+        unreadCounterService.add(userId, -updated);
     }
 
     /**
@@ -77,8 +109,10 @@ public class NotificationService {
     public void markAllAsRead(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
+        broadcastService.claimPending(userId);
         
-        notificationRepository.markAllAsRead(user);
+        int updated = notificationRepository.markAllAsRead(user);
+        unreadCounterService.add(userId, -updated);
     }
 
     /**
@@ -89,7 +123,12 @@ public class NotificationService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
         
-        notificationRepository.deleteByIdAndUser(id, user);
+        int deletedUnread = notificationRepository.deleteUnreadByIdAndUser(id, user);
+        if (deletedUnread > 0) {
+            unreadCounterService.add(userId, -deletedUnread);
+        } else {
+            notificationRepository.deleteByIdAndUser(id, user);
+        }
     }
 
     /**
@@ -99,8 +138,11 @@ public class NotificationService {
     public void deleteAllNotifications(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
+        // 先推进广播水位线，避免清空后旧广播再次出现
+        broadcastService.claimPending(userId);
         
         notificationRepository.deleteByUser(user);
+        unreadCounterService.reset(userId);
     }
 
     /**
@@ -121,6 +163,7 @@ public class NotificationService {
         notification.setIsRead(false);
         
         notification = notificationRepository.save(notification);
+        unreadCounterService.add(userId, 1);
         return convertToDTO(notification);
     }
 
@@ -0,0 +1,55 @@
+package com.takeaway.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * 上传文件存储
+ * 对象键为相对上传目录的路径（如 ab/cd/abcd...ef.jpg）；实现由 file.storage.type 选择：
+ * local（本地目录，默认）、s3（S3 兼容对象存储，如 MinIO）、memory（进程内存储，用于开发调试）
+ */
+public interface ObjectStorage {
+
+    /**
+     * 对象是否存在
+     */
+    boolean exists(String key) throws IOException;
+
+    /**
+     * 对象大小，不存在时返回 -1
+     */
+    long size(String key) throws IOException;
+
+    /**
+     * 写入对象（流式读取源文件，大文件分段上传），源文件可能被移走
+     * @param source 本地临时文件
+     * @param contentType 内容类型
+     */
+    void put(String key, Path source, String contentType) throws IOException;
+
+    /**
+     * 获取可直接读取的本地文件，远程存储经本地磁盘缓存读穿；对象不存在时返回 null
+     */
+    Path localPath(String key) throws IOException;
+
+    /**
+     * 删除对象（不存在时忽略）
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * 生成客户端直传地址，文件内容不经过应用服务器；不支持直传时返回 null
+     * @param size 文件大小
+     * @param sha256 文件内容的 SHA-256（十六进制），存储端据此校验内容
+     */
+    default PresignedUpload presignUpload(String key, String contentType, long size, String sha256) {
+        return null;
+    }
+
+    /**
+     * 直传地址：客户端用 method 请求 url，并带上 headers 中的请求头
+     */
+    record PresignedUpload(String url, String method, Map<String, String> headers, long expiresAt) {
+    }
+}
@@ -0,0 +1,157 @@
+package com.takeaway.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 远程对象的本地磁盘读穿缓存
+ * 未命中时下载到缓存目录后返回本地文件，之后的读取（含 sendfile 输出、生成尺寸变体）直接用本地文件；
+ * 按总字节数做 LRU 淘汰，启动时按修改时间恢复已有缓存文件的顺序
+ */
+@Slf4j
+class ObjectStorageCache {
+
+    /**
+     * 下载对象到指定文件，对象不存在时返回 false
+     */
+    @FunctionalInterface
+    interface Loader {
+        boolean load(String key, Path target) throws IOException;
+    }
+
+    private final Path root;
+    private final long maxBytes;
+
+    // 对象键 -> 文件大小（按访问顺序）
+    private final Map<String, Long> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    // 按对象键分段加锁，同一对象并发未命中时只下载一次
+    private final Object[] locks = new Object[64];
+
+    ObjectStorageCache(String path, long maxBytes) {
+        this.root = Paths.get(path).toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        try {
+            Files.createDirectories(root);
+            restore();
+        } catch (IOException e) {
+            throw new RuntimeException("无法初始化存储缓存目录: " + root, e);
+        }
+    }
+
+    Path get(String key, Loader loader) throws IOException {
+        Path path = resolve(key);
+        synchronized (entries) {
+            if (entries.get(key) != null && Files.isRegularFile(path)) {
+                return path;
+            }
+        }
+        synchronized (locks[Math.floorMod(key.hashCode(), locks.length)]) {
+            if (Files.isRegularFile(path)) {
+                record(key, Files.size(path));
+                return path;
+            }
+            Files.createDirectories(path.getParent());
+            Path temp = path.resolveSibling(path.getFileName() + ".download");
+            try {
+                Files.deleteIfExists(temp);
+                if (!loader.load(key, temp)) {
+                    return null;
+                }
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            record(key, Files.size(path));
+            return path;
+        }
+    }
+
+    void invalidate(String key) {
+        synchronized (entries) {
+            Long size = entries.remove(key);
+            if (size != null) {
+                totalBytes -= size;
+            }
+        }
+        try {
+            Files.deleteIfExists(resolve(key));
+        } catch (IOException e) {
+            log.warn("删除存储缓存文件失败 - 对象: {}, 错误: {}", key, e.getMessage());
+        }
+    }
+
+    // ==================== 内部方法 ====================
+
+    private void record(String key, long size) {
+        List<String> evicted = new ArrayList<>();
+        synchronized (entries) {
+            Long previous = entries.put(key, size);
+            totalBytes += size - (previous != null ? previous : 0);
+            Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, Long> entry = eldest.next();
+                if (entry.getKey().equals(key)) {
+                    continue;
+                }
+                totalBytes -= entry.getValue();
+                evicted.add(entry.getKey());
+                eldest.remove();
+            }
+        }
+        for (String evictedKey : evicted) {
+            try {
+                Files.deleteIfExists(resolve(evictedKey));
+            } catch (IOException e) {
+                log.warn("淘汰存储缓存文件失败 - 对象: {}, 错误: {}", evictedKey, e.getMessage());
+            }
+        }
+    }
+
+    private void restore() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.walk(root)) {
+            stream.filter(Files::isRegularFile).forEach(files::add);
+        }
+        files.sort(Comparator.comparing(path -> {
+            try {
+                return Files.readAttributes(path, BasicFileAttributes.class).lastModifiedTime();
+            } catch (IOException e) {
+                return FileTime.fromMillis(0);
+            }
+        }));
+        for (Path file : files) {
+            if (file.getFileName().toString().endsWith(".download")) {
+                Files.deleteIfExists(file);
+                continue;
+            }
+            record(root.relativize(file).toString().replace('\\', '/'), Files.size(file));
+        }
+    }
+
+    private Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new IllegalArgumentException("非法的文件路径");
+        }
+        return path;
+    }
+}
@@ -0,0 +1,30 @@
+package com.takeaway.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 订单事件 SSE 心跳任务
+ * 定期向空闲连接写注释行，清理已断开的连接，避免网关或代理因长时间无数据断开
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderEventHeartbeatJob {
+
+    private final OrderEventStreamService orderEventStreamService;
+
+    @Scheduled(initialDelayString = "${order.sse.heartbeat-interval:15000}",
+               fixedDelayString = "${order.sse.heartbeat-interval:15000}")
+    public void run() {
+        try {
+            int sent = orderEventStreamService.heartbeat();
+            log.debug("订单事件心跳已发送 - 连接数: {}, 心跳数: {}, 累计丢弃: {}",
+                    orderEventStreamService.getConnectionCount(), sent, orderEventStreamService.getDroppedCount());
+        } catch (Exception e) {
+            log.error("订单事件心跳发送失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.takeaway.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.takeaway.dto.ApiResponse;
+import com.takeaway.dto.OrderStatusMessage;
+import com.takeaway.entity.Order;
+import com.takeaway.repository.OrderRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 订单事件 SSE 推送服务
+ * 与 WebSocket 共用同一份订单状态消息（WebSocketService 推送时同步转发，消息体不重复序列化），
+ * 按订单ID登记连接；每个连接一个有界待发送队列，由少量发送线程写出，慢连接只丢自己最旧的事件；
+ * 空闲连接只占一个异步请求上下文，不占用 Servlet 线程；订单进入终态后推送最后一条事件并关闭全部连接。
+ * 内存状态按单实例设计，多实例部署时客户端需连到处理该订单推送的节点或退回轮询
+ */
+@Slf4j
+@Service
+@SuppressWarnings("null")
+public class OrderEventStreamService {
+
+    private static final String EVENT_SNAPSHOT = "SNAPSHOT";
+    private static final String EVENT_ERROR = "ERROR";
+    private static final Set<ResponseBodyEmitter.DataWithMediaType> HEARTBEAT =
+            SseEmitter.event().comment("heartbeat").build();
+
+    private final OrderRepository orderRepository;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService sender;
+
+    @Value("${order.sse.timeout:1800000}")
+    private long timeout;
+
+    @Value("${order.sse.queue-capacity:16}")
+    private int queueCapacity;
+
+    @Value("${order.sse.max-connections:50000}")
+    private int maxConnections;
+
+    // 订单ID -> 该订单的连接
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public OrderEventStreamService(OrderRepository orderRepository, ObjectMapper objectMapper,
+                                   @Value("${order.sse.sender-threads:4}") int senderThreads) {
+        this.orderRepository = orderRepository;
+        this.objectMapper = objectMapper;
+        AtomicInteger threads = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(Math.max(1, senderThreads), r -> {
+            Thread thread = new Thread(r, "order-sse-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+    }
+
+    /**
+     * 订阅订单事件：先登记连接再读取订单生成快照，登记后到达的事件排在快照之后发送；
+     * 已处于终态的订单推送快照后立即结束
+     * @param orderId 订单ID
+     * @param userId 当前用户ID（下单用户或该餐厅商家）
+     */
+    @Transactional(readOnly = true)
+    public SseEmitter subscribe(Long orderId, Long userId) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new RuntimeException("订阅人数过多，请稍后重试");
+        }
+        SseEmitter emitter = new SseEmitter(timeout);
+        Subscriber subscriber = new Subscriber(orderId, emitter);
+        subscriber.registered = true;
+        subscriber.awaitingSnapshot = true;
+        subscribers.computeIfAbsent(orderId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+
+        // 登记之后再读取订单：期间的状态变化要么已体现在快照中，要么作为事件排在快照之后
+        Order order;
+        try {
+            order = orderRepository.findById(orderId)
+                    .orElseThrow(() -> new RuntimeException("订单不存在"));
+            if (!order.getUser().getId().equals(userId)
+                    && (order.getRestaurant().getOwner() == null || !order.getRestaurant().getOwner().getId().equals(userId))) {
+                throw new RuntimeException("无权查看该订单");
+            }
+        } catch (RuntimeException e) {
+            subscriber.unregister();
+            throw e;
+        }
+
+        OrderStatusMessage snapshot = OrderStatusMessage.fromOrder(order, null);
+        snapshot.setType(EVENT_SNAPSHOT);
+        boolean terminal = isTerminal(order.getStatus());
+        if (terminal) {
+            // 终态订单不再有后续事件，立即移出登记表
+            subscriber.detach();
+        } else {
+            emitter.onCompletion(subscriber::unregister);
+            emitter.onTimeout(subscriber::unregister);
+            emitter.onError(e -> subscriber.unregister());
+        }
+        subscriber.offerSnapshot(event(EVENT_SNAPSHOT, serialize(snapshot)), terminal);
+        return emitter;
+    }
+
+    /**
+     * 订阅失败时返回的连接：推送一条错误事件后结束
+     */
+    public SseEmitter rejected(int code, String message) {
+        SseEmitter emitter = new SseEmitter(timeout);
+        new Subscriber(null, emitter).offer(event(EVENT_ERROR, serialize(ApiResponse.error(code, message))), true);
+        return emitter;
+    }
+
+    /**
+     * 推送订单状态变化（消息体为 WebSocket 已序列化的 JSON），终态时推送后关闭该订单的全部连接
+     */
+    public void publish(Long orderId, Order.OrderStatus status, String type, byte[] body) {
+        boolean terminal = isTerminal(status);
+        Set<Subscriber> targets = terminal ? subscribers.remove(orderId) : subscribers.get(orderId);
+        if (targets == null || targets.isEmpty()) {
+            return;
+        }
+        Set<ResponseBodyEmitter.DataWithMediaType> event = event(type, body);
+        for (Subscriber subscriber : targets) {
+            subscriber.offer(event, terminal);
+        }
+    }
+
+    /**
+     * 心跳：向待发送队列为空的连接写一条注释行，及时发现已断开的连接并防止代理超时断开
+     */
+    public int heartbeat() {
+        int sent = 0;
+        for (Set<Subscriber> targets : subscribers.values()) {
+            for (Subscriber subscriber : targets) {
+                if (subscriber.offerHeartbeat()) {
+                    sent++;
+                }
+            }
+        }
+        return sent;
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    // ==================== 内部方法 ====================
+
+    private static boolean isTerminal(Order.OrderStatus status) {
+        return status == Order.OrderStatus.COMPLETED || status == Order.OrderStatus.CANCELLED;
+    }
+
+    /**
+     * 事件预先构建为帧片段，同一事件发往多个连接时共享
+     */
+    private static Set<ResponseBodyEmitter.DataWithMediaType> event(String name, byte[] body) {
+        return SseEmitter.event().name(name).data(body, MediaType.APPLICATION_JSON).build();
+    }
+
+    private byte[] serialize(Object payload) {
+        try {
+            return objectMapper.writeValueAsBytes(payload);
+        } catch (IOException e) {
+            throw new RuntimeException("消息序列化失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 单个 SSE 连接：有界队列 + 串行写出
+     */
+    private final class Subscriber {
+
+        private final Long orderId;
+        private final SseEmitter emitter;
+        private final ArrayDeque<Set<ResponseBodyEmitter.DataWithMediaType>> queue = new ArrayDeque<>(2);
+        private boolean scheduled;
+        private boolean completeAfterDrain;
+        private boolean closed;
+        // 是否已登记并计入连接数
+        private boolean registered;
+        // 快照入队前到达的事件先缓存，不发送
+        private boolean awaitingSnapshot;
+
+        Subscriber(Long orderId, SseEmitter emitter) {
+            this.orderId = orderId;
+            this.emitter = emitter;
+        }
+
+        synchronized void offer(Set<ResponseBodyEmitter.DataWithMediaType> event, boolean last) {
+            if (closed || completeAfterDrain) {
+                return;
+            }
+            if (queue.size() >= queueCapacity) {
+                queue.pollFirst();
+                dropped.incrementAndGet();
+            }
+            queue.addLast(event);
+            completeAfterDrain = last;
+            if (!awaitingSnapshot) {
+                schedule();
+            }
+        }
+
+        /**
+         * 快照排在已缓存的事件之前，然后开始发送
+         */
+        synchronized void offerSnapshot(Set<ResponseBodyEmitter.DataWithMediaType> snapshot, boolean last) {
+            awaitingSnapshot = false;
+            if (closed) {
+                return;
+            }
+            queue.addFirst(snapshot);
+            completeAfterDrain |= last;
+            schedule();
+        }
+
+        synchronized boolean offerHeartbeat() {
+            if (closed || completeAfterDrain || awaitingSnapshot || !queue.isEmpty()) {
+                return false;
+            }
+            queue.addLast(HEARTBEAT);
+            schedule();
+            return true;
+        }
+
+        private void schedule() {
+            if (!scheduled) {
+                scheduled = true;
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Set<ResponseBodyEmitter.DataWithMediaType> event;
+                synchronized (this) {
+                    event = queue.pollFirst();
+                    if (event == null) {
+                        scheduled = false;
+                        if (completeAfterDrain && !closed) {
+                            closed = true;
+                            emitter.complete();
+                        }
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    // 客户端已断开，onError/onCompletion 回调会注销
+                    synchronized (this) {
+                        closed = true;
+                        queue.clear();
+                        scheduled = false;
+                    }
+                    emitter.completeWithError(e);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * 连接结束（完成、超时或出错）时注销，终态时订单的连接集合已整体移除，只扣减计数
+         */
+        void unregister() {
+            synchronized (this) {
+                closed = true;
+                queue.clear();
+            }
+            detach();
+        }
+
+        /**
+         * 移出登记表并扣减连接数（不影响待发送的事件）
+         */
+        void detach() {
+            synchronized (this) {
+                if (!registered) {
+                    return;
+                }
+                registered = false;
+            }
+            connections.decrementAndGet();
+            subscribers.computeIfPresent(orderId, (id, targets) -> {
+                targets.remove(this);
+                return targets.isEmpty() ? null : targets;
+            });
+        }
+    }
+}
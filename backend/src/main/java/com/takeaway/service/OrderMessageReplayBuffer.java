@@ -0,0 +1,183 @@
+package com.takeaway.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * 订单消息补发缓冲
+ * 每个目的地维护递增序号和定长环形缓冲（保存已序列化的消息体，补发时不再序列化），
+ * 序号只在所属的序号纪元内有意义：纪元由本节点启动标识加缓冲编号组成，节点重启、缓冲被淘汰重建或来自其他节点的消息纪元都不同。
+ * 客户端按纪元记录已收到的最大序号，重连订阅时通过 last-seq 带上（纪元:序号，逗号分隔），
+ * 只包含本节点当前缓冲纪元且缺口在缓冲内时补发，否则返回需要全量刷新。
+ * 中继模式下各节点序号互相独立，本节点只能补发自己发出的消息；客户端见过其他节点的消息时重连一律全量刷新
+ */
+@Service
+public class OrderMessageReplayBuffer {
+
+    /**
+     * 消息序号所在的 STOMP 头
+     */
+    public static final String SEQ_HEADER = "seq";
+
+    /**
+     * 消息序号纪元所在的 STOMP 头
+     */
+    public static final String EPOCH_HEADER = "seq-epoch";
+
+    @Value("${websocket.replay.buffer-size:100}")
+    private int bufferSize;
+
+    @Value("${websocket.replay.max-destinations:50000}")
+    private int maxDestinations;
+
+    // 本节点本次启动的标识，与缓冲编号组成序号纪元
+    private final String nodeEpoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final AtomicLong ringIds = new AtomicLong();
+
+    // 目的地 -> 环形缓冲（LRU 淘汰长期无消息的目的地）
+    private final Map<String, Ring> rings = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Ring> eldest) {
+                    return size() > maxDestinations;
+                }
+            });
+
+    /**
+     * 分配序号、写入缓冲并发送（同一目的地串行，保证发送顺序与序号一致）
+     * @param sender 接收序号纪元和序号
+     */
+    public void publish(String destination, byte[] body, ObjLongConsumer<String> sender) {
+        Ring ring = ring(destination);
+        ring.lock.lock();
+        try {
+            sender.accept(ring.epoch, ring.append(body));
+        } finally {
+            ring.lock.unlock();
+        }
+    }
+
+    /**
+     * 锁定目的地并计算 positions 之后需要补发的消息
+     * 持锁期间该目的地的新消息等待发送；调用方发送补发消息并登记订阅后释放返回的锁，
+     * 保证补发先于订阅生效后的实时消息
+     *
+     * @param positions 客户端各纪元已收到的最大序号
+     */
+    public LockedReplay lockForReplay(String destination, Map<String, Long> positions) {
+        Ring ring = ring(destination);
+        ring.lock.lock();
+        try {
+            return new LockedReplay(ring.since(positions), ring.lock);
+        } catch (RuntimeException e) {
+            ring.lock.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * 解析 last-seq 头（纪元:序号，逗号分隔），格式错误返回 null
+     */
+    public static Map<String, Long> parsePositions(String header) {
+        Map<String, Long> positions = new LinkedHashMap<>();
+        for (String part : header.split(",")) {
+            String position = part.trim();
+            if (position.isEmpty()) {
+                continue;
+            }
+            int colon = position.lastIndexOf(':');
+            if (colon <= 0) {
+                return null;
+            }
+            try {
+                positions.merge(position.substring(0, colon),
+                        Long.parseLong(position.substring(colon + 1)), Math::max);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * 补发结果
+     *
+     * @param messages 需要补发的消息（按序号升序）
+     * @param gap 缺口超出缓冲或包含无法补发的纪元，需全量刷新
+     * @param epoch 本节点当前缓冲的序号纪元
+     * @param latestSeq 当前最新序号
+     */
+    public record Replay(List<Entry> messages, boolean gap, String epoch, long latestSeq) {
+    }
+
+    /**
+     * 持有目的地锁的补发结果，登记订阅后必须释放 lock
+     */
+    public record LockedReplay(Replay replay, Lock lock) {
+    }
+
+    /**
+     * 缓冲中的一条消息
+     */
+    public record Entry(long seq, byte[] body) {
+    }
+
+    // ==================== 内部方法 ====================
+
+    private Ring ring(String destination) {
+        synchronized (rings) {
+            return rings.computeIfAbsent(destination,
+                    d -> new Ring(nodeEpoch + "-" + ringIds.incrementAndGet(), bufferSize));
+        }
+    }
+
+    /**
+     * 定长环形缓冲（调用方持有 lock）
+     */
+    private static final class Ring {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final String epoch;
+        private final byte[][] slots;
+        private long lastSeq;
+
+        Ring(String epoch, int capacity) {
+            this.epoch = epoch;
+            this.slots = new byte[Math.max(1, capacity)][];
+        }
+
+        long append(byte[] body) {
+            lastSeq++;
+            slots[(int) (lastSeq % slots.length)] = body;
+            return lastSeq;
+        }
+
+        Replay since(Map<String, Long> positions) {
+            if (positions.isEmpty()) {
+                return new Replay(Collections.emptyList(), false, epoch, lastSeq);
+            }
+            // 客户端见过其他节点、重启前的本节点或已淘汰缓冲发出的消息，这些纪元之后的消息无法确认是否缺失
+            Long clientSeq = positions.get(epoch);
+            long oldest = Math.max(1, lastSeq - slots.length + 1);
+            if (clientSeq == null || positions.size() > 1 || clientSeq > lastSeq || clientSeq + 1 < oldest) {
+                return new Replay(Collections.emptyList(), true, epoch, lastSeq);
+            }
+            List<Entry> messages = new ArrayList<>((int) (lastSeq - clientSeq));
+            for (long seq = clientSeq + 1; seq <= lastSeq; seq++) {
+                messages.add(new Entry(seq, slots[(int) (seq % slots.length)]));
+            }
+            return new Replay(messages, false, epoch, lastSeq);
+        }
+    }
+}
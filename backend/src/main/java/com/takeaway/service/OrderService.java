@@ -1,5 +1,7 @@
 package com.takeaway.service;
 
+import com.takeaway.dto.CursorResult;
+import com.takeaway.dto.KeysetCursor;
 import com.takeaway.dto.OrderDTO;
 import com.takeaway.dto.OrderItemDTO;
 import com.takeaway.dto.request.CreateOrderRequest;
@@ -31,6 +33,8 @@ public class OrderService {
     private final MenuItemRepository menuItemRepository;
     private final WebSocketService webSocketService;
     private final SystemConfigRepository systemConfigRepository;
+    private final SearchIndexService searchIndexService;
+    private final ApproximateCountService approximateCountService;
 
     private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
@@ -84,6 +88,7 @@ public class OrderService {
         order.setPayAmount(totalAmount.add(order.getDeliveryFee()).subtract(order.getDiscountAmount()));
 
         Order savedOrder = orderRepository.save(order);
+        searchIndexService.indexOrder(savedOrder);
         return toDTO(savedOrder);
     }
 
@@ -101,6 +106,36 @@ public class OrderService {
         return orders.map(this::toDTO);
     }
 
+    /**
+     * 游标分页获取用户订单（按 created_at, id 倒序 seek，不执行 COUNT）
+     */
+    public CursorResult<OrderDTO> getOrdersByCursor(Long userId, String status, String cursor, int size, boolean withTotal) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        List<Order> orders;
+        Long total = null;
+
+        if (status != null && !status.isEmpty() && !status.equals("all")) {
+            Order.OrderStatus orderStatus = Order.OrderStatus.valueOf(status);
+            orders = orderRepository.findUserOrdersByStatusBefore(userId, orderStatus,
+                    position.getCreatedAt(), position.getId(), KeysetCursor.limit(size));
+            if (withTotal) {
+                total = approximateCountService.cached("orders:user:" + userId + ":" + orderStatus,
+                        () -> orderRepository.countByUserIdAndStatus(userId, orderStatus));
+            }
+        } else {
+            orders = orderRepository.findUserOrdersBefore(userId,
+                    position.getCreatedAt(), position.getId(), KeysetCursor.limit(size));
+            if (withTotal) {
+                total = approximateCountService.cached("orders:user:" + userId,
+                        () -> orderRepository.countByUserId(userId));
+            }
+        }
+
+        CursorResult<OrderDTO> result = KeysetCursor.toResult(orders, size, Order::getCreatedAt, Order::getId, this::toDTO);
+        result.setApproximateTotal(total);
+        return result;
+    }
+
     public OrderDTO getOrderById(Long id) {
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("订单不存在"));
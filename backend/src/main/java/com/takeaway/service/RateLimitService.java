@@ -0,0 +1,207 @@
+package com.takeaway.service;
+
+import com.takeaway.config.RateLimitProperties;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StringUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 接口限流服务
+ * 按配置的路由策略（搜索、下单、登录、支付查询等）匹配请求，按用户ID（已登录）或客户端 IP 分桶；
+ * 本地令牌桶状态不可变、CAS 替换，补充令牌按时间差计算，无锁无后台线程；
+ * shared 模式下令牌桶在 Redis 中原子计算，多节点共享配额，Redis 异常时回退本地令牌桶；
+ * 本地桶数达到 max-buckets 且清理后仍满时，新主体共用该策略的溢出桶，桶表不会随不同主体数无限增长
+ */
+@Slf4j
+@Service
+public class RateLimitService {
+
+    private final RateLimitProperties properties;
+    private final ObjectProvider<SharedRateLimitStore> sharedStoreProvider;
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+
+    // 策略名:主体 -> 令牌桶
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    // 策略名 -> 溢出桶（本地桶数达到上限后新主体共用）
+    private final Map<String, Bucket> overflowBuckets = new ConcurrentHashMap<>();
+
+    // 桶数达到上限时最多每秒清理一次，避免每个请求都全表扫描
+    private static final long SWEEP_ON_FULL_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+    private final AtomicLong lastFullSweepAt = new AtomicLong(System.nanoTime() - SWEEP_ON_FULL_INTERVAL);
+    private final AtomicLong overflowHits = new AtomicLong();
+
+    // 策略名 -> 放行/拒绝计数
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    private final AtomicLong sharedFallbacks = new AtomicLong();
+
+    public RateLimitService(RateLimitProperties properties, ObjectProvider<SharedRateLimitStore> sharedStoreProvider) {
+        this.properties = properties;
+        this.sharedStoreProvider = sharedStoreProvider;
+    }
+
+    /**
+     * 匹配请求对应的限流策略，未命中返回 null
+     */
+    public RateLimitProperties.Policy match(HttpServletRequest request) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (RateLimitProperties.Policy policy : properties.getPolicies()) {
+            if (StringUtils.hasText(policy.getMethod()) && !policy.getMethod().equalsIgnoreCase(request.getMethod())) {
+                continue;
+            }
+            if (StringUtils.hasText(policy.getRequiredParam())
+                    && !StringUtils.hasText(request.getParameter(policy.getRequiredParam()))) {
+                continue;
+            }
+            for (String pattern : policy.getPatterns()) {
+                if (pathMatcher.match(pattern, path)) {
+                    return policy;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 尝试消耗一个令牌
+     * @param policy 限流策略
+     * @param subject 计数主体（u:用户ID 或 ip:地址）
+     * @return 放行时返回 0，拒绝时返回建议的重试等待秒数
+     */
+    public long tryAcquire(RateLimitProperties.Policy policy, String subject) {
+        String key = policy.getName() + ":" + subject;
+        long retryAfterMillis = acquire(key, policy);
+        Stats counter = stats.computeIfAbsent(policy.getName(), name -> new Stats());
+        if (retryAfterMillis <= 0) {
+            counter.allowed.incrementAndGet();
+            return 0;
+        }
+        counter.rejected.incrementAndGet();
+        return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(retryAfterMillis + 999));
+    }
+
+    /**
+     * 各策略的放行、拒绝次数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        stats.forEach((name, counter) -> result.put(name,
+                Map.of("allowed", counter.allowed.get(), "rejected", counter.rejected.get())));
+        result.put("localBuckets", buckets.size());
+        result.put("sharedFallbacks", sharedFallbacks.get());
+        result.put("overflowHits", overflowHits.get());
+        return result;
+    }
+
+    /**
+     * 清理已回满的本地令牌桶（回满的桶与不存在等价），返回清理数量
+     */
+    public int sweep() {
+        long now = System.nanoTime();
+        int before = buckets.size();
+        buckets.entrySet().removeIf(entry -> entry.getValue().isFull(now));
+        overflowBuckets.entrySet().removeIf(entry -> entry.getValue().isFull(now));
+        return before - buckets.size();
+    }
+
+    // ==================== 内部方法 ====================
+
+    private long acquire(String key, RateLimitProperties.Policy policy) {
+        SharedRateLimitStore sharedStore = "shared".equals(properties.getMode()) ? sharedStoreProvider.getIfAvailable() : null;
+        if (sharedStore != null) {
+            try {
+                return sharedStore.tryAcquire(key, policy.getCapacity(), policy.getRefillPerSecond());
+            } catch (Exception e) {
+                if (sharedFallbacks.incrementAndGet() % 1000 == 1) {
+                    log.warn("共享限流存储不可用，回退本地令牌桶 - 错误: {}", e.getMessage());
+                }
+            }
+        }
+        long now = System.nanoTime();
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= properties.getMaxBuckets()) {
+                // 桶数超限时不再新建，先清理回满的桶，仍满则使用策略的溢出桶
+                sweepWhenFull(now);
+                if (buckets.size() >= properties.getMaxBuckets()) {
+                    overflowHits.incrementAndGet();
+                    bucket = overflowBuckets.computeIfAbsent(policy.getName(),
+                            name -> new Bucket(policy.getCapacity(), policy.getRefillPerSecond()));
+                    return bucket.tryAcquire(now);
+                }
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new Bucket(policy.getCapacity(), policy.getRefillPerSecond()));
+        }
+        return bucket.tryAcquire(now);
+    }
+
+    private void sweepWhenFull(long now) {
+        long last = lastFullSweepAt.get();
+        if (now - last >= SWEEP_ON_FULL_INTERVAL && lastFullSweepAt.compareAndSet(last, now)) {
+            sweep();
+        }
+    }
+
+    /**
+     * 本地令牌桶（状态不可变，CAS 更新；时间由调用方传入，便于测试）
+     */
+    static final class Bucket {
+
+        private final double capacity;
+        private final double tokensPerNano;
+        private final AtomicReference<State> state;
+
+        Bucket(int capacity, double refillPerSecond) {
+            this.capacity = Math.max(1, capacity);
+            this.tokensPerNano = Math.max(refillPerSecond, 1e-6) / TimeUnit.SECONDS.toNanos(1);
+            this.state = new AtomicReference<>(new State(this.capacity, System.nanoTime()));
+        }
+
+        /**
+         * @return 放行返回 0，否则返回还需等待的毫秒数
+         */
+        long tryAcquire(long now) {
+            while (true) {
+                State current = state.get();
+                double tokens = refill(current, now);
+                if (tokens < 1) {
+                    return (long) Math.ceil((1 - tokens) / tokensPerNano / TimeUnit.MILLISECONDS.toNanos(1));
+                }
+                if (state.compareAndSet(current, new State(tokens - 1, now))) {
+                    return 0;
+                }
+            }
+        }
+
+        boolean isFull(long now) {
+            return refill(state.get(), now) >= capacity;
+        }
+
+        private double refill(State current, long now) {
+            return Math.min(capacity, current.tokens() + Math.max(0, now - current.updatedAt()) * tokensPerNano);
+        }
+    }
+
+    private record State(double tokens, long updatedAt) {
+    }
+
+    private static final class Stats {
+        private final AtomicLong allowed = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+    }
+}
@@ -0,0 +1,31 @@
+package com.takeaway.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 本地限流令牌桶清理任务
+ * 定期回收已回满的令牌桶，控制按用户/IP 建桶的内存占用
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RateLimitSweepJob {
+
+    private final RateLimitService rateLimitService;
+
+    @Scheduled(initialDelayString = "${rate-limit.sweep-interval:60000}",
+               fixedDelayString = "${rate-limit.sweep-interval:60000}")
+    public void run() {
+        try {
+            int removed = rateLimitService.sweep();
+            if (removed > 0) {
+                log.debug("限流令牌桶清理完成 - 回收: {}", removed);
+            }
+        } catch (Exception e) {
+            log.error("限流令牌桶清理失败: {}", e.getMessage());
+        }
+    }
+}
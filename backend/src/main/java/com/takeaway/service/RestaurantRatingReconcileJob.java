@@ -0,0 +1,41 @@
+package com.takeaway.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 餐厅评分统计校验任务
+ * 定期按评价表全量重算每家餐厅的统计，修正增量维护产生的偏差
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RestaurantRatingReconcileJob {
+
+    private final RestaurantRatingService restaurantRatingService;
+
+    @Value("${rating.reconcile.batch-size:200}")
+    private int batchSize;
+
+    @Scheduled(initialDelayString = "${rating.reconcile.initial-delay:60000}",
+               fixedDelayString = "${rating.reconcile.interval:3600000}")
+    public void run() {
+        Long cursor = 0L;
+        List<Long> restaurantIds;
+        while (!(restaurantIds = restaurantRatingService.findRestaurantIdsAfter(cursor, batchSize)).isEmpty()) {
+            for (Long restaurantId : restaurantIds) {
+                try {
+                    restaurantRatingService.reconcile(restaurantId);
+                } catch (Exception e) {
+                    log.error("餐厅评分统计校验失败 - 餐厅ID: {}, 错误: {}", restaurantId, e.getMessage());
+                }
+            }
+            cursor = restaurantIds.get(restaurantIds.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.takeaway.service;
+
+import com.takeaway.entity.RestaurantRatingStats;
+import com.takeaway.entity.Review;
+import com.takeaway.repository.RestaurantRatingStatsRepository;
+import com.takeaway.repository.RestaurantRepository;
+import com.takeaway.repository.ReviewRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 餐厅评分统计服务
+ * 评价增删时对统计行做原子增减，再由统计行刷新餐厅评分，
+ * 不再对全部评价执行 AVG/COUNT；后台任务定期全量校验修正偏差
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@SuppressWarnings("null")
+public class RestaurantRatingService {
+
+    private final RestaurantRatingStatsRepository ratingStatsRepository;
+    private final RestaurantRepository restaurantRepository;
+    private final ReviewRepository reviewRepository;
+
+    /**
+     * 累加新评价
+     */
+    @Transactional
+    public void applyReview(Review review) {
+        applyDelta(review, 1);
+    }
+
+    /**
+     * 扣除已删除评价
+     */
+    @Transactional
+    public void revertReview(Review review) {
+        applyDelta(review, -1);
+    }
+
+    /**
+     * 获取餐厅评分统计（单行主键读取）
+     */
+    @Transactional
+    public Map<String, Object> getStats(Long restaurantId) {
+        RestaurantRatingStats stats = ratingStatsRepository.findById(restaurantId)
+                .orElseGet(() -> reconcile(restaurantId));
+
+        long total = stats.getReviewCount();
+        Map<String, Object> result = new HashMap<>();
+        result.put("totalReviews", total);
+        result.put("averageRating", average(stats.getOverallSum(), total));
+        result.put("avgTasteRating", average(BigDecimal.valueOf(stats.getTasteSum()), total));
+        result.put("avgPackagingRating", average(BigDecimal.valueOf(stats.getPackagingSum()), total));
+        result.put("avgDeliveryRating", average(BigDecimal.valueOf(stats.getDeliverySum()), total));
+
+        Map<String, Long> ratingDistribution = new LinkedHashMap<>();
+        ratingDistribution.put("5", stats.getStar5Count());
+        ratingDistribution.put("4", stats.getStar4Count());
+        ratingDistribution.put("3", stats.getStar3Count());
+        ratingDistribution.put("2", stats.getStar2Count());
+        ratingDistribution.put("1", stats.getStar1Count());
+        result.put("ratingDistribution", ratingDistribution);
+        return result;
+    }
+
+    /**
+     * 按评价表全量重算一家餐厅的统计，有偏差时修正并刷新餐厅评分
+     * 加锁顺序与评价增删一致：先锁定读评价（同期新增/删除评价等待本事务提交），再锁统计行，
+     * 避免与"写评价 -> 累加统计"的事务交叉等待造成死锁
+     */
+    @Transactional
+    public RestaurantRatingStats reconcile(Long restaurantId) {
+        Object[] row = reviewRepository.aggregateRatingStats(restaurantId).get(0);
+
+        // 统计行不存在时先补齐（不对不存在的行加锁读取，避免间隙锁互等）
+        boolean isNew = !ratingStatsRepository.existsById(restaurantId)
+                && ratingStatsRepository.ensureStats(restaurantId) > 0;
+        RestaurantRatingStats stats = ratingStatsRepository.findForUpdate(restaurantId)
+                .orElseThrow(() -> new RuntimeException("餐厅评分统计不存在"));
+
+        RestaurantRatingStats actual = new RestaurantRatingStats();
+        actual.setRestaurantId(restaurantId);
+        actual.setReviewCount(toLong(row[0]));
+        actual.setOverallSum(new BigDecimal(row[1].toString()));
+        actual.setTasteSum(toLong(row[2]));
+        actual.setPackagingSum(toLong(row[3]));
+        actual.setDeliverySum(toLong(row[4]));
+        actual.setStar1Count(toLong(row[5]));
+        actual.setStar2Count(toLong(row[6]));
+        actual.setStar3Count(toLong(row[7]));
+        actual.setStar4Count(toLong(row[8]));
+        actual.setStar5Count(toLong(row[9]));
+
+        if (!isNew && sameStats(stats, actual)) {
+            return stats;
+        }
+        if (!isNew) {
+            log.warn("餐厅评分统计存在偏差，已修正 - 餐厅ID: {}, 记录数: {}, 实际数: {}",
+                    restaurantId, stats.getReviewCount(), actual.getReviewCount());
+        }
+
+        stats.setReviewCount(actual.getReviewCount());
+        stats.setOverallSum(actual.getOverallSum());
+        stats.setTasteSum(actual.getTasteSum());
+        stats.setPackagingSum(actual.getPackagingSum());
+        stats.setDeliverySum(actual.getDeliverySum());
+        stats.setStar1Count(actual.getStar1Count());
+        stats.setStar2Count(actual.getStar2Count());
+        stats.setStar3Count(actual.getStar3Count());
+        stats.setStar4Count(actual.getStar4Count());
+        stats.setStar5Count(actual.getStar5Count());
+        RestaurantRatingStats saved = ratingStatsRepository.saveAndFlush(stats);
+        ratingStatsRepository.refreshRestaurant(restaurantId);
+        return saved;
+    }
+
+    /**
+     * 按ID游标获取一批餐厅ID（后台校验使用）
+     */
+    public List<Long> findRestaurantIdsAfter(Long afterId, int batchSize) {
+        return restaurantRepository.findIdsAfter(afterId, PageRequest.of(0, batchSize));
+    }
+
+    // ==================== 内部方法 ====================
+
+    private void applyDelta(Review review, int delta) {
+        Long restaurantId = review.getRestaurant().getId();
+        if (!ratingStatsRepository.existsById(restaurantId)) {
+            // 首次维护该餐厅：直接按评价表初始化（已包含本次变更）
+            reconcile(restaurantId);
+            return;
+        }
+        ratingStatsRepository.applyDelta(restaurantId, delta,
+                review.getOverallRating(),
+                review.getTasteRating(),
+                review.getPackagingRating(),
+                review.getDeliveryRating(),
+                review.getOverallRating().setScale(0, RoundingMode.HALF_UP).intValue());
+        ratingStatsRepository.refreshRestaurant(restaurantId);
+    }
+
+    private static BigDecimal average(BigDecimal sum, long count) {
+        if (count <= 0) {
+            return BigDecimal.ZERO;
+        }
+        return sum.divide(BigDecimal.valueOf(count), 1, RoundingMode.HALF_UP);
+    }
+
+    private static boolean sameStats(RestaurantRatingStats a, RestaurantRatingStats b) {
+        return Objects.equals(a.getReviewCount(), b.getReviewCount())
+                && a.getOverallSum().compareTo(b.getOverallSum()) == 0
+                && Objects.equals(a.getTasteSum(), b.getTasteSum())
+                && Objects.equals(a.getPackagingSum(), b.getPackagingSum())
+                && Objects.equals(a.getDeliverySum(), b.getDeliverySum())
+                && Objects.equals(a.getStar1Count(), b.getStar1Count())
+                && Objects.equals(a.getStar2Count(), b.getStar2Count())
+                && Objects.equals(a.getStar3Count(), b.getStar3Count())
+                && Objects.equals(a.getStar4Count(), b.getStar4Count())
+                && Objects.equals(a.getStar5Count(), b.getStar5Count());
+    }
+
+    private static long toLong(Object value) {
+        return value == null ? 0L : ((Number) value).longValue();
+    }
+}
@@ -1,5 +1,7 @@
 package com.takeaway.service;
 
+import com.takeaway.dto.CursorResult;
+import com.takeaway.dto.KeysetCursor;
 import com.takeaway.dto.MenuCategoryDTO;
 import com.takeaway.dto.MenuItemDTO;
 import com.takeaway.dto.RestaurantDTO;
@@ -34,6 +36,7 @@ public class RestaurantService {
     private final MenuCategoryRepository menuCategoryRepository;
     private final MenuItemRepository menuItemRepository;
     private final ReviewRepository reviewRepository;
+    private final ApproximateCountService approximateCountService;
 
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
     private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
@@ -60,6 +63,38 @@ public class RestaurantService {
         return restaurants.map(restaurant -> toDTOWithLocation(restaurant, userLat, userLng));
     }
 
+    /**
+     * 游标分页获取餐厅列表（按 created_at, id 倒序 seek，不执行 COUNT）
+     * 游标模式固定按上架时间排序，关键词搜索仍走分页模式
+     */
+    public CursorResult<RestaurantDTO> getRestaurantsByCursor(Long categoryId, String cursor, int size,
+                                                              Double userLat, Double userLng, boolean withTotal) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        List<Restaurant> restaurants;
+        Long total = null;
+
+        if (categoryId != null) {
+            restaurants = restaurantRepository.findCategoryRestaurantsBefore(categoryId,
+                    position.getCreatedAt(), position.getId(), KeysetCursor.limit(size));
+            if (withTotal) {
+                total = approximateCountService.cached("restaurants:category:" + categoryId,
+                        () -> restaurantRepository.countByCategoryId(categoryId));
+            }
+        } else {
+            restaurants = restaurantRepository.findRestaurantsBefore(
+                    position.getCreatedAt(), position.getId(), KeysetCursor.limit(size));
+            if (withTotal) {
+                total = approximateCountService.tableRows("restaurants");
+            }
+        }
+
+        CursorResult<RestaurantDTO> result = KeysetCursor.toResult(restaurants, size,
+                Restaurant::getCreatedAt, Restaurant::getId,
+                restaurant -> toDTOWithLocation(restaurant, userLat, userLng));
+        result.setApproximateTotal(total);
+        return result;
+    }
+
     public List<RestaurantDTO> getFeaturedRestaurants(int limit) {
         return getFeaturedRestaurants(limit, null, null);
     }
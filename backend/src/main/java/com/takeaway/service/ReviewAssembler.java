@@ -0,0 +1,160 @@
+package com.takeaway.service;
+
+import com.takeaway.dto.OrderItemDTO;
+import com.takeaway.dto.ReviewDTO;
+import com.takeaway.entity.OrderItem;
+import com.takeaway.entity.Restaurant;
+import com.takeaway.entity.Review;
+import com.takeaway.entity.User;
+import com.takeaway.repository.OrderItemRepository;
+import com.takeaway.repository.RestaurantRepository;
+import com.takeaway.repository.ReviewRepository;
+import com.takeaway.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 评价 DTO 批量组装
+ * 一页评价只按ID集合批量查询用户、订单商品（管理端为餐厅名称），
+ * 当前用户的点赞状态读点赞服务的内存集合，在内存中拼装 DTO，避免逐条懒加载关联
+ */
+@Service
+@RequiredArgsConstructor
+@SuppressWarnings("null")
+public class ReviewAssembler {
+
+    private final ReviewRepository reviewRepository;
+    private final UserRepository userRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final RestaurantRepository restaurantRepository;
+    private final ReviewLikeService reviewLikeService;
+
+    /**
+     * 按评价ID加载并组装（保持ID顺序，已删除的评价跳过）
+     */
+    public List<ReviewDTO> assembleByIds(List<Long> reviewIds, Long viewerId) {
+        if (reviewIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Review> reviewMap = byId(reviewRepository.findAllById(reviewIds), Review::getId);
+        List<Review> reviews = reviewIds.stream()
+                .map(reviewMap::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return assemble(reviews, viewerId);
+    }
+
+    /**
+     * 组装用户端评价（含订单商品与当前用户点赞状态）
+     */
+    public List<ReviewDTO> assemble(List<Review> reviews, Long viewerId) {
+        if (reviews.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, User> users = loadUsers(reviews);
+        Map<Long, List<OrderItemDTO>> orderItems = orderItemRepository
+                .findByOrderIdIn(collectIds(reviews, review -> review.getOrder().getId())).stream()
+                .collect(Collectors.groupingBy(item -> item.getOrder().getId(),
+                        Collectors.mapping(ReviewAssembler::toOrderItemDTO, Collectors.toList())));
+
+        List<ReviewDTO> result = new ArrayList<>(reviews.size());
+        for (Review review : reviews) {
+            ReviewDTO dto = toDTO(review, users.get(review.getUser().getId()));
+            if (dto.getImages() == null) {
+                dto.setImages(Collections.emptyList());
+            }
+            dto.setIsLiked(reviewLikeService.isLiked(viewerId, review.getId()));
+            dto.setOrderItems(orderItems.getOrDefault(review.getOrder().getId(), Collections.emptyList()));
+            result.add(dto);
+        }
+        return result;
+    }
+
+    /**
+     * 组装单条用户端评价
+     */
+    public ReviewDTO assemble(Review review, Long viewerId) {
+        return assemble(Collections.singletonList(review), viewerId).get(0);
+    }
+
+    /**
+     * 组装管理端评价（含餐厅名称，不含订单商品与点赞状态）
+     */
+    public List<ReviewDTO> assembleForAdmin(List<Review> reviews) {
+        if (reviews.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, User> users = loadUsers(reviews);
+        Map<Long, Restaurant> restaurants = byId(restaurantRepository.findAllById(
+                collectIds(reviews, review -> review.getRestaurant().getId())), Restaurant::getId);
+
+        List<ReviewDTO> result = new ArrayList<>(reviews.size());
+        for (Review review : reviews) {
+            ReviewDTO dto = toDTO(review, users.get(review.getUser().getId()));
+            Restaurant restaurant = restaurants.get(review.getRestaurant().getId());
+            dto.setRestaurantName(restaurant != null ? restaurant.getName() : null);
+            result.add(dto);
+        }
+        return result;
+    }
+
+    // ==================== 内部方法 ====================
+
+    private Map<Long, User> loadUsers(List<Review> reviews) {
+        return byId(userRepository.findAllById(collectIds(reviews, review -> review.getUser().getId())), User::getId);
+    }
+
+    /**
+     * 收集外键ID（懒加载代理取ID不会触发查询）
+     */
+    private static Set<Long> collectIds(List<Review> reviews, Function<Review, Long> idGetter) {
+        return reviews.stream().map(idGetter).collect(Collectors.toSet());
+    }
+
+    private static <T> Map<Long, T> byId(List<T> entities, Function<T, Long> idGetter) {
+        return entities.stream().collect(Collectors.toMap(idGetter, Function.identity(), (a, b) -> a));
+    }
+
+    private ReviewDTO toDTO(Review review, User user) {
+        boolean anonymous = Boolean.TRUE.equals(review.getIsAnonymous());
+        ReviewDTO dto = new ReviewDTO();
+        dto.setId(review.getId());
+        dto.setOrderId(review.getOrder().getId());
+        dto.setUserId(review.getUser().getId());
+        dto.setUsername(anonymous ? "匿名用户" : (user != null ? user.getUsername() : null));
+        dto.setUserAvatar(anonymous || user == null ? null : user.getAvatar());
+        dto.setRestaurantId(review.getRestaurant().getId());
+        dto.setTasteRating(review.getTasteRating());
+        dto.setPackagingRating(review.getPackagingRating());
+        dto.setDeliveryRating(review.getDeliveryRating());
+        dto.setOverallRating(review.getOverallRating());
+        dto.setContent(review.getContent());
+        dto.setImagesFromString(review.getImages());
+        dto.setIsAnonymous(review.getIsAnonymous());
+        dto.setLikeCount(reviewLikeService.likeCount(review));
+        dto.setReplyContent(review.getReplyContent());
+        dto.setReplyTime(review.getReplyTime());
+        dto.setCreatedAt(review.getCreatedAt());
+        return dto;
+    }
+
+    private static OrderItemDTO toOrderItemDTO(OrderItem item) {
+        OrderItemDTO dto = new OrderItemDTO();
+        dto.setId(item.getId());
+        dto.setMenuItemId(item.getMenuItem().getId());
+        dto.setMenuItemName(item.getMenuItemName());
+        dto.setMenuItemImage(item.getMenuItemImage());
+        dto.setPrice(item.getPrice());
+        dto.setQuantity(item.getQuantity());
+        return dto;
+    }
+}
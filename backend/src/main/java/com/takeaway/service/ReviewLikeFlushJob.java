@@ -0,0 +1,27 @@
+package com.takeaway.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 点赞落库任务
+ * 定期把内存中累积的点赞记录与点赞数增量批量写入数据库
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReviewLikeFlushJob {
+
+    private final ReviewLikeService reviewLikeService;
+
+    @Scheduled(fixedDelayString = "${review.like.flush-interval:2000}")
+    public void run() {
+        try {
+            reviewLikeService.flush();
+        } catch (Exception e) {
+            log.error("点赞落库失败: {}", e.getMessage());
+        }
+    }
+}
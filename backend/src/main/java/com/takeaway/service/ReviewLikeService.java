@@ -0,0 +1,223 @@
+package com.takeaway.service;
+
+import com.takeaway.entity.Review;
+import com.takeaway.repository.ReviewLikeRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 评价点赞服务（写回缓存）
+ * 每个用户的点赞评价ID保存在紧凑集合中（首次访问时从数据库加载），
+ * 点赞/取消与 isLiked 判断只读写内存；点赞记录与点赞数变更由后台任务批量落库。
+ * 内存状态按单实例设计，多实例部署时各节点只保证最终一致
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReviewLikeService {
+
+    private static final String INSERT_LIKE_SQL =
+            "INSERT IGNORE INTO review_likes (review_id, user_id, created_at) VALUES (?, ?, NOW())";
+    private static final String DELETE_LIKE_SQL =
+            "DELETE FROM review_likes WHERE review_id = ? AND user_id = ?";
+    private static final String UPDATE_COUNT_SQL =
+            "UPDATE reviews SET like_count = GREATEST(0, like_count + ?) WHERE id = ?";
+
+    private final ReviewLikeRepository reviewLikeRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${review.like.max-cached-users:100000}")
+    private int maxCachedUsers;
+
+    // 用户ID -> 已点赞评价ID集合（LRU 淘汰，淘汰后再次访问重新加载）
+    private final Map<Long, CompactIdSet> userLikes = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, CompactIdSet> eldest) {
+                    return size() > maxCachedUsers;
+                }
+            });
+
+    // 待落库的点赞状态（true 点赞，false 取消）与点赞数增量
+    private final Map<LikeKey, Boolean> pendingOps = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> pendingCounts = new ConcurrentHashMap<>();
+
+    // 正在落库的批次，加载用户集合时同样要叠加
+    private final Map<LikeKey, Boolean> inflightOps = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> inflightCounts = new ConcurrentHashMap<>();
+
+    // 落库持写锁，加载用户集合持读锁，避免加载时漏掉正在提交的批次
+    private final ReentrantReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    /**
+     * 点赞
+     */
+    public void like(Long reviewId, Long userId) {
+        CompactIdSet liked = likedSet(userId);
+        synchronized (liked) {
+            if (!liked.add(reviewId)) {
+                throw new RuntimeException("已点赞过该评价");
+            }
+            pendingOps.put(new LikeKey(reviewId, userId), Boolean.TRUE);
+        }
+        pendingCounts.merge(reviewId, 1, Integer::sum);
+    }
+
+    /**
+     * 取消点赞
+     */
+    public void unlike(Long reviewId, Long userId) {
+        CompactIdSet liked = likedSet(userId);
+        synchronized (liked) {
+            if (!liked.remove(reviewId)) {
+                throw new RuntimeException("未点赞过该评价");
+            }
+            pendingOps.put(new LikeKey(reviewId, userId), Boolean.FALSE);
+        }
+        pendingCounts.merge(reviewId, -1, Integer::sum);
+    }
+
+    /**
+     * 当前用户是否已点赞
+     */
+    public boolean isLiked(Long userId, Long reviewId) {
+        return userId != null && likedSet(userId).contains(reviewId);
+    }
+
+    /**
+     * 点赞数（数据库值叠加尚未落库的增量）
+     */
+    public int likeCount(Review review) {
+        int count = review.getLikeCount() != null ? review.getLikeCount() : 0;
+        count += pendingCounts.getOrDefault(review.getId(), 0);
+        count += inflightCounts.getOrDefault(review.getId(), 0);
+        return Math.max(0, count);
+    }
+
+    /**
+     * 批量落库待写的点赞记录与点赞数
+     */
+    public void flush() {
+        flushLock.writeLock().lock();
+        try {
+            drain(pendingOps, inflightOps);
+            drain(pendingCounts, inflightCounts);
+            if (inflightOps.isEmpty() && inflightCounts.isEmpty()) {
+                return;
+            }
+
+            List<Object[]> inserts = new ArrayList<>();
+            List<Object[]> deletes = new ArrayList<>();
+            inflightOps.forEach((key, liked) ->
+                    (liked ? inserts : deletes).add(new Object[]{key.reviewId(), key.userId()}));
+            List<Object[]> counts = new ArrayList<>();
+            inflightCounts.forEach((reviewId, delta) -> {
+                if (delta != 0) {
+                    counts.add(new Object[]{delta, reviewId});
+                }
+            });
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (!inserts.isEmpty()) {
+                        jdbcTemplate.batchUpdate(INSERT_LIKE_SQL, inserts);
+                    }
+                    if (!deletes.isEmpty()) {
+                        jdbcTemplate.batchUpdate(DELETE_LIKE_SQL, deletes);
+                    }
+                    if (!counts.isEmpty()) {
+                        jdbcTemplate.batchUpdate(UPDATE_COUNT_SQL, counts);
+                    }
+                });
+                log.debug("点赞落库 - 新增: {}, 取消: {}, 计数更新: {}", inserts.size(), deletes.size(), counts.size());
+            } catch (RuntimeException e) {
+                // 落库失败：放回待写队列，下一轮重试（期间的新状态优先）
+                inflightOps.forEach(pendingOps::putIfAbsent);
+                inflightCounts.forEach((reviewId, delta) -> pendingCounts.merge(reviewId, delta, Integer::sum));
+                throw e;
+            } finally {
+                inflightOps.clear();
+                inflightCounts.clear();
+            }
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("关闭时点赞落库失败: {}", e.getMessage());
+        }
+    }
+
+    // ==================== 内部方法 ====================
+
+    private CompactIdSet likedSet(Long userId) {
+        CompactIdSet liked = userLikes.get(userId);
+        if (liked != null) {
+            return liked;
+        }
+
+        CompactIdSet loaded = new CompactIdSet();
+        flushLock.readLock().lock();
+        try {
+            for (Long reviewId : reviewLikeRepository.findReviewIdsByUserId(userId)) {
+                loaded.add(reviewId);
+            }
+            applyOps(userId, loaded, inflightOps);
+            applyOps(userId, loaded, pendingOps);
+        } finally {
+            flushLock.readLock().unlock();
+        }
+
+        synchronized (userLikes) {
+            liked = userLikes.get(userId);
+            if (liked == null) {
+                userLikes.put(userId, loaded);
+                liked = loaded;
+            }
+        }
+        return liked;
+    }
+
+    private static void applyOps(Long userId, CompactIdSet liked, Map<LikeKey, Boolean> ops) {
+        ops.forEach((key, isLiked) -> {
+            if (key.userId().equals(userId)) {
+                if (isLiked) {
+                    liked.add(key.reviewId());
+                } else {
+                    liked.remove(key.reviewId());
+                }
+            }
+        });
+    }
+
+    private static <K, V> void drain(Map<K, V> source, Map<K, V> target) {
+        for (K key : new ArrayList<>(source.keySet())) {
+            V value = source.remove(key);
+            if (value != null) {
+                target.put(key, value);
+            }
+        }
+    }
+
+    private record LikeKey(Long reviewId, Long userId) {
+    }
+}
@@ -1,6 +1,7 @@
 package com.takeaway.service;
 
-import com.takeaway.dto.OrderItemDTO;
+import com.takeaway.dto.CursorResult;
+import com.takeaway.dto.KeysetCursor;
 import com.takeaway.dto.ReviewDTO;
 import com.takeaway.dto.request.CreateReviewRequest;
 import com.takeaway.dto.request.ReplyReviewRequest;
@@ -8,6 +9,7 @@ import com.takeaway.entity.*;
 import com.takeaway.repository.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -17,7 +19,6 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -25,10 +26,15 @@ import java.util.stream.Collectors;
 public class ReviewService {
 
     private final ReviewRepository reviewRepository;
-    private final ReviewLikeRepository reviewLikeRepository;
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
     private final RestaurantRepository restaurantRepository;
+    private final SearchIndexService searchIndexService;
+    private final ApproximateCountService approximateCountService;
+    private final RestaurantRatingService restaurantRatingService;
+    private final ReviewLikeService reviewLikeService;
+    private final MenuItemReviewService menuItemReviewService;
+    private final ReviewAssembler reviewAssembler;
 
     /**
      * 创建评价
@@ -81,11 +87,13 @@ public class ReviewService {
         }
 
         Review savedReview = reviewRepository.save(review);
+        searchIndexService.indexReview(savedReview);
+        menuItemReviewService.indexReview(savedReview.getId());
 
-        // 更新餐厅评分
-        updateRestaurantRating(order.getRestaurant().getId());
+        // 增量更新餐厅评分统计
+        restaurantRatingService.applyReview(savedReview);
 
-        return toDTO(savedReview, userId);
+        return reviewAssembler.assemble(savedReview, userId);
     }
 
     /**
@@ -95,22 +103,32 @@ public class ReviewService {
         Pageable pageable = PageRequest.of(page, size);
         Page<Review> reviews = reviewRepository.findByRestaurantIdOrderByCreatedAtDesc(restaurantId, pageable);
 
-        // 获取当前用户点赞的评价ID
-        Set<Long> likedReviewIds = new HashSet<>();
-        if (currentUserId != null) {
-            List<Long> reviewIds = reviews.getContent().stream()
-                    .map(Review::getId)
-                    .collect(Collectors.toList());
-            if (!reviewIds.isEmpty()) {
-                likedReviewIds = reviewLikeRepository.findByUserIdAndReviewIdIn(currentUserId, reviewIds)
-                        .stream()
-                        .map(like -> like.getReview().getId())
-                        .collect(Collectors.toSet());
-            }
-        }
+        List<ReviewDTO> content = reviewAssembler.assemble(reviews.getContent(), currentUserId);
+        return new PageImpl<>(content, pageable, reviews.getTotalElements());
+    }
 
-        Set<Long> finalLikedReviewIds = likedReviewIds;
-        return reviews.map(review -> toDTO(review, currentUserId, finalLikedReviewIds.contains(review.getId())));
+    /**
+     * 游标分页获取餐厅评价（按 created_at, id 倒序 seek，不执行 COUNT）
+     */
+    public CursorResult<ReviewDTO> getReviewsByRestaurantCursor(Long restaurantId, Long currentUserId,
+                                                                String cursor, int size, boolean withTotal) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        List<Review> reviews = reviewRepository.findRestaurantReviewsBefore(restaurantId,
+                position.getCreatedAt(), position.getId(), KeysetCursor.limit(size));
+
+        CursorResult<Review> page = KeysetCursor.toResult(reviews, size, Review::getCreatedAt, Review::getId,
+                review -> review);
+        CursorResult<ReviewDTO> result = CursorResult.<ReviewDTO>builder()
+                .content(reviewAssembler.assemble(page.getContent(), currentUserId))
+                .size(page.getSize())
+                .nextCursor(page.getNextCursor())
+                .hasMore(page.isHasMore())
+                .build();
+        if (withTotal) {
+            result.setApproximateTotal(approximateCountService.cached("reviews:restaurant:" + restaurantId,
+                    () -> reviewRepository.countByRestaurantId(restaurantId)));
+        }
+        return result;
     }
 
     /**
@@ -126,7 +144,7 @@ public class ReviewService {
     public ReviewDTO getReviewByOrder(Long orderId, Long currentUserId) {
         Review review = reviewRepository.findByOrderId(orderId)
                 .orElseThrow(() -> new RuntimeException("评价不存在"));
-        return toDTO(review, currentUserId);
+        return reviewAssembler.assemble(review, currentUserId);
     }
 
     /**
@@ -134,54 +152,23 @@ public class ReviewService {
      */
     public List<ReviewDTO> getReviewsByUser(Long userId) {
         List<Review> reviews = reviewRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        return reviews.stream()
-                .map(review -> toDTO(review, userId))
-                .collect(Collectors.toList());
+        return reviewAssembler.assemble(reviews, userId);
     }
 
     /**
-     * 点赞评价
+     * 点赞评价（只更新内存，后台批量落库）
      */
-    @Transactional
     public void likeReview(Long reviewId, Long userId) {
-        Review review = reviewRepository.findById(reviewId)
-                .orElseThrow(() -> new RuntimeException("评价不存在"));
-
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("用户不存在"));
-
-        // 检查是否已点赞
-        if (reviewLikeRepository.existsByReviewIdAndUserId(reviewId, userId)) {
-            throw new RuntimeException("已点赞过该评价");
-        }
-
-        // 创建点赞记录
-        ReviewLike like = new ReviewLike();
-        like.setReview(review);
-        like.setUser(user);
-        reviewLikeRepository.save(like);
-
-        // 更新评价点赞数
-        review.setLikeCount(review.getLikeCount() + 1);
-        reviewRepository.save(review);
+        requireReviewExists(reviewId);
+        reviewLikeService.like(reviewId, userId);
     }
 
     /**
-     * 取消点赞
+     * 取消点赞（只更新内存，后台批量落库）
      */
-    @Transactional
     public void unlikeReview(Long reviewId, Long userId) {
-        Review review = reviewRepository.findById(reviewId)
-                .orElseThrow(() -> new RuntimeException("评价不存在"));
-
-        ReviewLike like = reviewLikeRepository.findByReviewIdAndUserId(reviewId, userId)
-                .orElseThrow(() -> new RuntimeException("未点赞过该评价"));
-
-        reviewLikeRepository.delete(like);
-
-        // 更新评价点赞数
-        review.setLikeCount(Math.max(0, review.getLikeCount() - 1));
-        reviewRepository.save(review);
+        requireReviewExists(reviewId);
+        reviewLikeService.unlike(reviewId, userId);
     }
 
     /**
@@ -207,28 +194,7 @@ public class ReviewService {
         review.setReplyTime(LocalDateTime.now());
 
         Review savedReview = reviewRepository.save(review);
-        return toDTO(savedReview, null);
-    }
-
-    /**
-     * 更新餐厅评分
-     */
-    @Transactional
-    public void updateRestaurantRating(Long restaurantId) {
-        Restaurant restaurant = restaurantRepository.findById(restaurantId)
-                .orElseThrow(() -> new RuntimeException("餐厅不存在"));
-
-        // 计算平均评分
-        BigDecimal avgRating = reviewRepository.calculateAverageRatingByRestaurantId(restaurantId);
-        if (avgRating != null) {
-            restaurant.setRating(avgRating.setScale(1, RoundingMode.HALF_UP));
-        }
-
-        // 更新评价数量
-        long reviewCount = reviewRepository.countByRestaurantId(restaurantId);
-        restaurant.setReviewCount((int) reviewCount);
-
-        restaurantRepository.save(restaurant);
+        return reviewAssembler.assemble(savedReview, null);
     }
 
     /**
@@ -236,24 +202,12 @@ public class ReviewService {
      */
     public Page<ReviewDTO> getReviewsByMenuItem(Long menuItemId, Long currentUserId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<Review> reviews = reviewRepository.findByMenuItemId(menuItemId, pageable);
-
-        // 获取当前用户点赞的评价ID
-        Set<Long> likedReviewIds = new HashSet<>();
-        if (currentUserId != null) {
-            List<Long> reviewIds = reviews.getContent().stream()
-                    .map(Review::getId)
-                    .collect(Collectors.toList());
-            if (!reviewIds.isEmpty()) {
-                likedReviewIds = reviewLikeRepository.findByUserIdAndReviewIdIn(currentUserId, reviewIds)
-                        .stream()
-                        .map(like -> like.getReview().getId())
-                        .collect(Collectors.toSet());
-            }
-        }
+        List<Long> reviewIds = menuItemReviewService.findReviewIds(menuItemId, pageable);
+        long total = menuItemReviewService.getStats(menuItemId).getReviewCount();
 
-        Set<Long> finalLikedReviewIds = likedReviewIds;
-        return reviews.map(review -> toDTO(review, currentUserId, finalLikedReviewIds.contains(review.getId())));
+        // 按映射表的顺序组装评价
+        List<ReviewDTO> content = reviewAssembler.assembleByIds(reviewIds, currentUserId);
+        return new PageImpl<>(content, pageable, total);
     }
 
     /**
@@ -261,14 +215,16 @@ public class ReviewService {
      */
     public Map<String, Object> getMenuItemRatingStats(Long menuItemId) {
         Map<String, Object> stats = new HashMap<>();
+        MenuItemRatingStats ratingStats = menuItemReviewService.getStats(menuItemId);
 
         // 获取评价总数
-        long totalReviews = reviewRepository.countByMenuItemId(menuItemId);
+        long totalReviews = ratingStats.getReviewCount();
         stats.put("totalReviews", totalReviews);
 
         // 获取平均评分
-        BigDecimal avgRating = reviewRepository.calculateAverageRatingByMenuItemId(menuItemId);
-        stats.put("averageRating", avgRating != null ? avgRating.setScale(1, RoundingMode.HALF_UP) : BigDecimal.ZERO);
+        stats.put("averageRating", totalReviews > 0
+                ? ratingStats.getRatingSum().divide(BigDecimal.valueOf(totalReviews), 1, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO);
 
         return stats;
     }
@@ -277,98 +233,15 @@ public class ReviewService {
      * 获取餐厅评分统计
      */
     public Map<String, Object> getRestaurantRatingStats(Long restaurantId) {
-        Map<String, Object> stats = new HashMap<>();
-
-        // 获取评价总数
-        long totalReviews = reviewRepository.countByRestaurantId(restaurantId);
-        stats.put("totalReviews", totalReviews);
-
-        // 获取平均评分
-        BigDecimal avgRating = reviewRepository.calculateAverageRatingByRestaurantId(restaurantId);
-        stats.put("averageRating", avgRating != null ? avgRating.setScale(1, RoundingMode.HALF_UP) : BigDecimal.ZERO);
-
-        // 获取各维度平均评分
-        List<Object[]> avgRatings = reviewRepository.getAverageRatingsByRestaurantId(restaurantId);
-        if (!avgRatings.isEmpty() && avgRatings.get(0) != null) {
-            Object[] ratings = avgRatings.get(0);
-            stats.put("avgTasteRating", ratings[0] != null ? new BigDecimal(ratings[0].toString()).setScale(1, RoundingMode.HALF_UP) : BigDecimal.ZERO);
-            stats.put("avgPackagingRating", ratings[1] != null ? new BigDecimal(ratings[1].toString()).setScale(1, RoundingMode.HALF_UP) : BigDecimal.ZERO);
-            stats.put("avgDeliveryRating", ratings[2] != null ? new BigDecimal(ratings[2].toString()).setScale(1, RoundingMode.HALF_UP) : BigDecimal.ZERO);
-        } else {
-            stats.put("avgTasteRating", BigDecimal.ZERO);
-            stats.put("avgPackagingRating", BigDecimal.ZERO);
-            stats.put("avgDeliveryRating", BigDecimal.ZERO);
-        }
-
-        // 获取评分分布
-        List<Object[]> distribution = reviewRepository.getRatingDistributionByRestaurantId(restaurantId);
-        Map<String, Long> ratingDistribution = new LinkedHashMap<>();
-        for (int i = 5; i >= 1; i--) {
-            ratingDistribution.put(String.valueOf(i), 0L);
-        }
-        for (Object[] item : distribution) {
-            BigDecimal rating = (BigDecimal) item[0];
-            Long count = (Long) item[1];
-            // 四舍五入到整数
-            int roundedRating = rating.setScale(0, RoundingMode.HALF_UP).intValue();
-            String key = String.valueOf(roundedRating);
-            ratingDistribution.put(key, ratingDistribution.getOrDefault(key, 0L) + count);
-        }
-        stats.put("ratingDistribution", ratingDistribution);
-
-        return stats;
-    }
-
-    private ReviewDTO toDTO(Review review, Long currentUserId) {
-        boolean isLiked = false;
-        if (currentUserId != null) {
-            isLiked = reviewLikeRepository.existsByReviewIdAndUserId(review.getId(), currentUserId);
-        }
-        return toDTO(review, currentUserId, isLiked);
+        return restaurantRatingService.getStats(restaurantId);
     }
 
-    private ReviewDTO toDTO(Review review, Long currentUserId, boolean isLiked) {
-        User user = review.getUser();
-
-        List<String> images = new ArrayList<>();
-        if (review.getImages() != null && !review.getImages().isEmpty()) {
-            images = Arrays.asList(review.getImages().split(","));
+    /**
+     * 校验评价存在（主键查询），不存在的评价ID不进入点赞内存状态
+     */
+    private void requireReviewExists(Long reviewId) {
+        if (!reviewRepository.existsById(reviewId)) {
+            throw new RuntimeException("评价不存在");
         }
-
-        // 获取订单商品信息
-        List<OrderItemDTO> orderItems = review.getOrder().getItems().stream()
-                .map(item -> {
-                    OrderItemDTO dto = new OrderItemDTO();
-                    dto.setId(item.getId());
-                    dto.setMenuItemId(item.getMenuItem().getId());
-                    dto.setMenuItemName(item.getMenuItemName());
-                    dto.setMenuItemImage(item.getMenuItemImage());
-                    dto.setPrice(item.getPrice());
-                    dto.setQuantity(item.getQuantity());
-                    return dto;
-                })
-                .collect(Collectors.toList());
-
-        return ReviewDTO.builder()
-                .id(review.getId())
-                .orderId(review.getOrder().getId())
-                .userId(review.getUser().getId())
-                .username(review.getIsAnonymous() ? "匿名用户" : user.getUsername())
-                .userAvatar(review.getIsAnonymous() ? null : user.getAvatar())
-                .restaurantId(review.getRestaurant().getId())
-                .tasteRating(review.getTasteRating())
-                .packagingRating(review.getPackagingRating())
-                .deliveryRating(review.getDeliveryRating())
-                .overallRating(review.getOverallRating())
-                .content(review.getContent())
-                .images(images)
-                .isAnonymous(review.getIsAnonymous())
-                .likeCount(review.getLikeCount())
-                .isLiked(isLiked)
-                .replyContent(review.getReplyContent())
-                .replyTime(review.getReplyTime())
-                .createdAt(review.getCreatedAt())
-                .orderItems(orderItems)
-                .build();
     }
 }
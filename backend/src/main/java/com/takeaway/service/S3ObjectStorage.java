@@ -0,0 +1,237 @@
+package com.takeaway.service;
+
+import com.takeaway.config.StorageProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * S3 兼容对象存储（file.storage.type=s3，AWS S3、MinIO 等）
+ * 小文件单次上传，超过阈值的文件按分段上传逐段读取，不整体载入内存；
+ * 读取经本地磁盘缓存（ObjectStorageCache），供 sendfile 输出和生成尺寸变体；
+ * 支持预签名直传，签名中带内容 SHA-256，存储端校验不一致的内容会拒绝写入
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "file.storage.type", havingValue = "s3")
+public class S3ObjectStorage implements ObjectStorage {
+
+    // 对象按内容寻址，内容不会变化
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    private final StorageProperties.S3 config;
+    private final S3Client client;
+    private final S3Presigner presigner;
+    private final ObjectStorageCache cache;
+
+    public S3ObjectStorage(StorageProperties properties) {
+        this.config = properties.getS3();
+        if (config.getBucket() == null || config.getBucket().isEmpty()) {
+            throw new IllegalStateException("未配置 file.storage.s3.bucket");
+        }
+        AwsCredentialsProvider credentials = config.getAccessKey() != null && !config.getAccessKey().isEmpty()
+                ? StaticCredentialsProvider.create(AwsBasicCredentials.create(config.getAccessKey(), config.getSecretKey()))
+                : DefaultCredentialsProvider.create();
+        S3Configuration s3Configuration = S3Configuration.builder()
+                .pathStyleAccessEnabled(config.isPathStyle())
+                .build();
+
+        var clientBuilder = S3Client.builder()
+                .region(Region.of(config.getRegion()))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(s3Configuration);
+        var presignerBuilder = S3Presigner.builder()
+                .region(Region.of(config.getRegion()))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(s3Configuration);
+        if (config.getEndpoint() != null && !config.getEndpoint().isEmpty()) {
+            clientBuilder.endpointOverride(URI.create(config.getEndpoint()));
+            presignerBuilder.endpointOverride(URI.create(config.getEndpoint()));
+        }
+        this.client = clientBuilder.build();
+        this.presigner = presignerBuilder.build();
+        this.cache = new ObjectStorageCache(properties.getCache().getPath(), properties.getCache().getMaxBytes());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        presigner.close();
+        client.close();
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return size(key) >= 0;
+    }
+
+    @Override
+    public long size(String key) {
+        try {
+            return client.headObject(HeadObjectRequest.builder().bucket(config.getBucket()).key(key).build())
+                    .contentLength();
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return -1;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        long size = Files.size(source);
+        if (size <= config.getMultipartThreshold()) {
+            client.putObject(PutObjectRequest.builder()
+                            .bucket(config.getBucket())
+                            .key(key)
+                            .contentType(contentType)
+                            .cacheControl(IMMUTABLE_CACHE_CONTROL)
+                            .build(),
+                    RequestBody.fromFile(source));
+            return;
+        }
+        putMultipart(key, source, contentType, size);
+    }
+
+    @Override
+    public Path localPath(String key) throws IOException {
+        return cache.get(key, (objectKey, target) -> {
+            try {
+                client.getObject(GetObjectRequest.builder().bucket(config.getBucket()).key(objectKey).build(),
+                        ResponseTransformer.toFile(target));
+                return true;
+            } catch (S3Exception e) {
+                if (e.statusCode() == 404) {
+                    return false;
+                }
+                throw new IOException("下载对象失败: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    @Override
+    public void delete(String key) {
+        client.deleteObject(DeleteObjectRequest.builder().bucket(config.getBucket()).key(key).build());
+        cache.invalidate(key);
+    }
+
+    @Override
+    public PresignedUpload presignUpload(String key, String contentType, long size, String sha256) {
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(config.getBucket())
+                .key(key)
+                .contentType(contentType)
+                .contentLength(size)
+                .cacheControl(IMMUTABLE_CACHE_CONTROL)
+                .checksumSHA256(Base64.getEncoder().encodeToString(HexFormat.of().parseHex(sha256)))
+                .build();
+        PresignedPutObjectRequest presigned = presigner.presignPutObject(PutObjectPresignRequest.builder()
+                .signatureDuration(Duration.ofSeconds(config.getPresignTtl()))
+                .putObjectRequest(request)
+                .build());
+
+        // 签名覆盖的请求头需由客户端原样带上（Host 由浏览器自动设置）
+        Map<String, String> headers = new HashMap<>();
+        presigned.signedHeaders().forEach((name, values) -> {
+            if (!"host".equalsIgnoreCase(name)) {
+                headers.put(name, String.join(",", values));
+            }
+        });
+        return new PresignedUpload(presigned.url().toString(), "PUT", headers,
+                presigned.expiration().toEpochMilli());
+    }
+
+    // ==================== 内部方法 ====================
+
+    /**
+     * 分段上传：逐段读入固定大小的缓冲区上传，失败时中止以免残留未完成的分段
+     */
+    private void putMultipart(String key, Path source, String contentType, long size) throws IOException {
+        String uploadId = client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(config.getBucket())
+                .key(key)
+                .contentType(contentType)
+                .cacheControl(IMMUTABLE_CACHE_CONTROL)
+                .build()).uploadId();
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            List<CompletedPart> parts = new ArrayList<>();
+            ByteBuffer buffer = ByteBuffer.allocate(config.getPartSize());
+            long position = 0;
+            int partNumber = 1;
+            while (position < size) {
+                buffer.clear();
+                while (buffer.hasRemaining() && position + buffer.position() < size) {
+                    if (channel.read(buffer, position + buffer.position()) < 0) {
+                        break;
+                    }
+                }
+                buffer.flip();
+                int length = buffer.remaining();
+                String etag = client.uploadPart(UploadPartRequest.builder()
+                                .bucket(config.getBucket())
+                                .key(key)
+                                .uploadId(uploadId)
+                                .partNumber(partNumber)
+                                .contentLength((long) length)
+                                .build(),
+                        RequestBody.fromByteBuffer(buffer)).eTag();
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(etag).build());
+                position += length;
+                partNumber++;
+            }
+            client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(config.getBucket())
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+        } catch (IOException | RuntimeException e) {
+            try {
+                client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                        .bucket(config.getBucket()).key(key).uploadId(uploadId).build());
+            } catch (RuntimeException abortError) {
+                log.warn("中止分段上传失败 - 对象: {}, 错误: {}", key, abortError.getMessage());
+            }
+            throw e;
+        }
+    }
+}
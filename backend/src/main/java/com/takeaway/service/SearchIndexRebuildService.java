@@ -0,0 +1,135 @@
+package com.takeaway.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 搜索索引重建任务
+ * 存量数据回填在后台单线程中按批执行（每批单独提交），请求只负责启动并返回任务状态；
+ * 同一时间只运行一个重建任务，状态保存在内存中
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SearchIndexRebuildService {
+
+    public static final String STATE_IDLE = "IDLE";
+    public static final String STATE_RUNNING = "RUNNING";
+    public static final String STATE_COMPLETED = "COMPLETED";
+    public static final String STATE_FAILED = "FAILED";
+
+    private static final List<String> TYPES = List.of(
+            SearchIndexService.TYPE_ORDER, SearchIndexService.TYPE_USER, SearchIndexService.TYPE_REVIEW);
+
+    private final SearchIndexService searchIndexService;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "search-index-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // 类型 -> 已重建数量（按类型顺序）
+    private final Map<String, Long> indexed = new ConcurrentHashMap<>();
+    private volatile String state = STATE_IDLE;
+    private volatile String currentType;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 启动重建（已在运行时不重复启动）
+     * @return 当前任务状态
+     */
+    public Map<String, Object> start() {
+        if (!running.compareAndSet(false, true)) {
+            return getStatus();
+        }
+        indexed.clear();
+        state = STATE_RUNNING;
+        currentType = null;
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        error = null;
+        try {
+            executor.execute(this::rebuild);
+        } catch (RuntimeException e) {
+            finish(STATE_FAILED, e.getMessage());
+            throw new RuntimeException("索引重建启动失败: " + e.getMessage(), e);
+        }
+        return getStatus();
+    }
+
+    /**
+     * 任务状态：state、当前类型、各类型已重建数量、起止时间、失败原因
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", state);
+        status.put("currentType", currentType);
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (String type : TYPES) {
+            Long count = indexed.get(type);
+            if (count != null) {
+                counts.put(type, count);
+            }
+        }
+        status.put("indexed", counts);
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        status.put("error", error);
+        return status;
+    }
+
+    // ==================== 内部方法 ====================
+
+    private void rebuild() {
+        try {
+            for (String type : TYPES) {
+                currentType = type;
+                indexed.put(type, 0L);
+                Long cursor = 0L;
+                List<Long> ids;
+                while (!(ids = searchIndexService.rebuildBatch(type, cursor)).isEmpty()) {
+                    indexed.merge(type, (long) ids.size(), Long::sum);
+                    cursor = ids.get(ids.size() - 1);
+                    if (Thread.currentThread().isInterrupted()) {
+                        finish(STATE_FAILED, "任务已中断");
+                        return;
+                    }
+                }
+            }
+            finish(STATE_COMPLETED, null);
+            log.info("搜索索引重建完成 - {}", indexed);
+        } catch (Exception e) {
+            log.error("搜索索引重建失败 - 类型: {}, 错误: {}", currentType, e.getMessage());
+            finish(STATE_FAILED, e.getMessage());
+        }
+    }
+
+    private void finish(String finalState, String message) {
+        state = finalState;
+        error = message;
+        currentType = null;
+        finishedAt = LocalDateTime.now();
+        running.set(false);
+    }
+}
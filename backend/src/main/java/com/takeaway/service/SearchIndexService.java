@@ -0,0 +1,228 @@
+package com.takeaway.service;
+
+import com.takeaway.dto.CursorResult;
+import com.takeaway.entity.Order;
+import com.takeaway.entity.Review;
+import com.takeaway.entity.User;
+import com.takeaway.repository.OrderRepository;
+import com.takeaway.repository.ReviewRepository;
+import com.takeaway.repository.SearchNgramRepository;
+import com.takeaway.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 搜索索引服务
+ * 维护订单号/手机号、用户名/手机号、评价内容的三元组倒排表，
+ * 写入时增量更新，查询时按实体ID倒序游标分页；
+ * 已注销的用户（deletedAt 非空）不进入索引，增量写入与重建使用同一规则，查询时同样排除
+ */
+@Service
+@RequiredArgsConstructor
+@SuppressWarnings("null")
+public class SearchIndexService {
+
+    public static final String TYPE_ORDER = "ORDER";
+    public static final String TYPE_USER = "USER";
+    public static final String TYPE_REVIEW = "REVIEW";
+
+    private static final int GRAM_SIZE = 3;
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private final SearchNgramRepository searchNgramRepository;
+    private final OrderRepository orderRepository;
+    private final UserRepository userRepository;
+    private final ReviewRepository reviewRepository;
+
+    // ==================== 增量维护 ====================
+
+    @Transactional
+    public void indexOrder(Order order) {
+        reindex(TYPE_ORDER, order.getId(), order.getOrderNo(), order.getPhone());
+    }
+
+    @Transactional
+    public void indexUser(User user) {
+        if (isDeleted(user)) {
+            searchNgramRepository.deleteByEntity(TYPE_USER, user.getId());
+            return;
+        }
+        reindex(TYPE_USER, user.getId(), user.getUsername(), user.getPhone());
+    }
+
+    @Transactional
+    public void indexReview(Review review) {
+        reindex(TYPE_REVIEW, review.getId(), review.getContent());
+    }
+
+    @Transactional
+    public void removeReview(Long reviewId) {
+        searchNgramRepository.deleteByEntity(TYPE_REVIEW, reviewId);
+    }
+
+    @Transactional
+    public void removeUser(Long userId) {
+        searchNgramRepository.deleteByEntity(TYPE_USER, userId);
+    }
+
+    /**
+     * 重建一批索引（按ID游标推进），返回本批处理的ID，没有更多数据时返回空列表
+     */
+    @Transactional
+    public List<Long> rebuildBatch(String entityType, Long afterId) {
+        Pageable pageable = PageRequest.of(0, REBUILD_BATCH_SIZE);
+        List<Long> ids = new ArrayList<>();
+        switch (entityType) {
+            case TYPE_ORDER -> {
+                for (Order order : orderRepository.findByIdGreaterThanOrderByIdAsc(afterId, pageable)) {
+                    indexOrder(order);
+                    ids.add(order.getId());
+                }
+            }
+            case TYPE_USER -> {
+                for (User user : userRepository.findByIdGreaterThanOrderByIdAsc(afterId, pageable)) {
+                    indexUser(user);
+                    ids.add(user.getId());
+                }
+            }
+            case TYPE_REVIEW -> {
+                for (Review review : reviewRepository.findByIdGreaterThanOrderByIdAsc(afterId, pageable)) {
+                    indexReview(review);
+                    ids.add(review.getId());
+                }
+            }
+            default -> throw new RuntimeException("不支持的索引类型: " + entityType);
+        }
+        return ids;
+    }
+
+    /**
+     * 用户是否已自行注销（与管理员禁用区分，禁用的用户仍可搜索）
+     */
+    public static boolean isDeleted(User user) {
+        return user.getDeletedAt() != null;
+    }
+
+    // ==================== 查询 ====================
+
+    /**
+     * 按关键词游标搜索
+     * 倒排表给出候选ID后，再对实体字段做子串校验，排除跨字段拼接造成的误命中
+     *
+     * @param loader 按ID批量加载实体
+     * @param idGetter 取实体ID
+     * @param fieldsGetter 取参与匹配的字段
+     */
+    public <T> CursorResult<T> search(String entityType, String keyword, String cursor, int size,
+                                      Function<List<Long>, List<T>> loader,
+                                      Function<T, Long> idGetter,
+                                      Function<T, String[]> fieldsGetter) {
+        String normalized = normalize(keyword);
+        Set<String> grams = extractGrams(normalized);
+        if (grams.isEmpty()) {
+            throw new RuntimeException("搜索关键词至少需要 " + GRAM_SIZE + " 个字符");
+        }
+
+        long beforeId = parseCursor(cursor);
+        int batchSize = Math.max(size * 2, 20);
+        List<T> matched = new ArrayList<>();
+        boolean exhausted = false;
+        boolean stoppedEarly = false;
+
+        while (matched.size() < size && !exhausted) {
+            List<Long> ids = searchNgramRepository.findCandidateIds(
+                    entityType, grams, grams.size(), beforeId, PageRequest.of(0, batchSize));
+            exhausted = ids.size() < batchSize;
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            Map<Long, T> loaded = loader.apply(ids).stream()
+                    .collect(Collectors.toMap(idGetter, Function.identity()));
+            for (int i = 0; i < ids.size(); i++) {
+                Long id = ids.get(i);
+                beforeId = id;
+                T entity = loaded.get(id);
+                if (entity != null && matches(fieldsGetter.apply(entity), normalized)) {
+                    matched.add(entity);
+                    if (matched.size() == size) {
+                        stoppedEarly = i < ids.size() - 1;
+                        break;
+                    }
+                }
+            }
+        }
+
+        boolean hasMore = !exhausted || stoppedEarly;
+        return CursorResult.<T>builder()
+                .content(matched)
+                .size(size)
+                .nextCursor(hasMore ? String.valueOf(beforeId) : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    // ==================== 内部方法 ====================
+
+    private void reindex(String entityType, Long entityId, String... values) {
+        searchNgramRepository.deleteByEntity(entityType, entityId);
+        String[] normalized = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            normalized[i] = normalize(values[i]);
+        }
+        searchNgramRepository.insertGrams(entityType, entityId, extractGrams(normalized));
+    }
+
+    /**
+     * 提取三元组（按码点切分，中文同样适用）
+     */
+    static Set<String> extractGrams(String... values) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (String value : values) {
+            if (value == null) {
+                continue;
+            }
+            int[] codePoints = value.codePoints().toArray();
+            for (int i = 0; i + GRAM_SIZE <= codePoints.length; i++) {
+                grams.add(new String(codePoints, i, GRAM_SIZE));
+            }
+        }
+        return grams;
+    }
+
+    private static boolean matches(String[] fields, String normalizedKeyword) {
+        for (String field : fields) {
+            if (field != null && normalize(field).contains(normalizedKeyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long parseCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("无效的分页游标");
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.takeaway.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Redis 共享令牌桶（rate-limit.mode=shared 时启用）
+ * 令牌补充与扣减在 Lua 脚本中原子完成，时间取 Redis 服务器时钟，避免各节点时钟偏差；
+ * 键在桶回满所需时间后过期
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.mode", havingValue = "shared")
+public class SharedRateLimitStore {
+
+    private static final String KEY_PREFIX = "rate-limit:";
+
+    // 返回 {是否放行, 需等待毫秒数}
+    private static final DefaultRedisScript<List> SCRIPT = new DefaultRedisScript<>("""
+            local capacity = tonumber(ARGV[1])
+            local rate = tonumber(ARGV[2])
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+            local tokens = tonumber(state[1]) or capacity
+            local ts = tonumber(state[2]) or now
+            tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate)
+            local allowed = 0
+            local wait = 0
+            if tokens >= 1 then
+              tokens = tokens - 1
+              allowed = 1
+            else
+              wait = math.ceil((1 - tokens) / rate)
+            end
+            redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(now))
+            redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / rate) + 1000)
+            return {allowed, wait}
+            """, List.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    public SharedRateLimitStore(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * @return 放行返回 0，否则返回还需等待的毫秒数
+     */
+    public long tryAcquire(String key, int capacity, double refillPerSecond) {
+        double tokensPerMilli = Math.max(refillPerSecond, 1e-6) / 1000;
+        List<?> result = redisTemplate.execute(SCRIPT, List.of(KEY_PREFIX + key),
+                String.valueOf(Math.max(1, capacity)), String.valueOf(tokensPerMilli));
+        if (result == null || result.size() < 2) {
+            throw new IllegalStateException("限流脚本返回为空");
+        }
+        return ((Number) result.get(0)).longValue() == 1 ? 0 : Math.max(1, ((Number) result.get(1)).longValue());
+    }
+}
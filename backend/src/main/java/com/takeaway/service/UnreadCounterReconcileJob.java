@@ -0,0 +1,31 @@
+package com.takeaway.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 未读通知计数校准任务
+ * 定期按数据库重算已缓存用户的未读数，修正并发加载或事务回滚造成的偏差
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UnreadCounterReconcileJob {
+
+    private final UnreadCounterService unreadCounterService;
+
+    @Scheduled(initialDelayString = "${notification.unread.reconcile-interval:300000}",
+               fixedDelayString = "${notification.unread.reconcile-interval:300000}")
+    public void run() {
+        try {
+            int corrected = unreadCounterService.reconcile();
+            if (corrected > 0) {
+                log.info("未读通知计数校准完成 - 修正: {}", corrected);
+            }
+        } catch (Exception e) {
+            log.error("未读通知计数校准失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.takeaway.service;
+
+import com.takeaway.entity.User;
+import com.takeaway.repository.NotificationRepository;
+import com.takeaway.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 未读通知计数缓存
+ * 首次读取时按数据库加载（个人未读 + 未合并广播），之后由通知的增删改在事务提交后原子增减，
+ * 变化推送到本人的 /user/queue/notifications；后台任务定期与数据库校准。
+ * 内存状态按单实例设计，多实例部署时依赖定期校准收敛
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@SuppressWarnings("null")
+public class UnreadCounterService {
+
+    private final NotificationRepository notificationRepository;
+    private final UserRepository userRepository;
+    private final BroadcastService broadcastService;
+    private final WebSocketService webSocketService;
+
+    @Value("${notification.unread.max-cached-users:100000}")
+    private int maxCachedUsers;
+
+    // 用户ID -> 未读计数（LRU 淘汰，淘汰后再次读取重新加载）
+    private final Map<Long, Counter> counters = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Counter> eldest) {
+                    return size() > maxCachedUsers;
+                }
+            });
+
+    /**
+     * 获取未读数量（命中缓存时不访问数据库）
+     */
+    public long get(Long userId) {
+        Counter counter = counters.get(userId);
+        if (counter != null) {
+            return counter.count.get();
+        }
+        counter = load(userId);
+        synchronized (counters) {
+            Counter existing = counters.get(userId);
+            if (existing != null) {
+                return existing.count.get();
+            }
+            counters.put(userId, counter);
+        }
+        return counter.count.get();
+    }
+
+    /**
+     * 未读数增减（事务提交后生效，未缓存的用户忽略，下次读取时加载）
+     */
+    public void add(Long userId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        afterCommit(() -> {
+            Counter counter = counters.get(userId);
+            if (counter != null) {
+                push(userId, counter.count.updateAndGet(value -> Math.max(0, value + delta)));
+            }
+        });
+    }
+
+    /**
+     * 未读数清零（全部已读或全部删除后）
+     */
+    public void reset(Long userId) {
+        afterCommit(() -> {
+            Counter counter = counters.get(userId);
+            if (counter != null) {
+                counter.count.set(0);
+            }
+            push(userId, 0);
+        });
+    }
+
+    /**
+     * 新广播发布：所有已缓存且接收广播的用户未读数加一
+     */
+    public void onBroadcast() {
+        afterCommit(() -> {
+            for (Map.Entry<Long, Counter> entry : snapshot()) {
+                Counter counter = entry.getValue();
+                if (counter.receivesBroadcasts) {
+                    push(entry.getKey(), counter.count.incrementAndGet());
+                }
+            }
+        });
+    }
+
+    /**
+     * 与数据库校准已缓存的计数，返回修正的数量
+     */
+    public int reconcile() {
+        int corrected = 0;
+        for (Map.Entry<Long, Counter> entry : snapshot()) {
+            Long userId = entry.getKey();
+            try {
+                long actual = countUnread(userId);
+                long cached = entry.getValue().count.getAndSet(actual);
+                if (cached != actual) {
+                    corrected++;
+                    log.debug("未读计数已校准 - 用户ID: {}, 缓存值: {}, 实际值: {}", userId, cached, actual);
+                    push(userId, actual);
+                }
+            } catch (Exception e) {
+                counters.remove(userId);
+                log.warn("未读计数校准失败，已移出缓存 - 用户ID: {}, 错误: {}", userId, e.getMessage());
+            }
+        }
+        return corrected;
+    }
+
+    // ==================== 内部方法 ====================
+
+    private Counter load(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("用户不存在"));
+        return new Counter(new AtomicLong(countUnread(userId)), !"ADMIN".equals(user.getRole()));
+    }
+
+    private long countUnread(Long userId) {
+        return notificationRepository.countByUserIdAndIsReadFalse(userId) + broadcastService.countPending(userId);
+    }
+
+    private List<Map.Entry<Long, Counter>> snapshot() {
+        synchronized (counters) {
+            return new ArrayList<>(counters.entrySet());
+        }
+    }
+
+    private void push(Long userId, long count) {
+        webSocketService.sendUnreadCount(userId, count);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record Counter(AtomicLong count, boolean receivesBroadcasts) {
+    }
+}
@@ -0,0 +1,40 @@
+package com.takeaway.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 孤立上传文件定时清理任务
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UploadGcJob {
+
+    private final UploadGcService uploadGcService;
+
+    @Value("${file.gc.enabled:true}")
+    private boolean enabled;
+
+    @Value("${file.gc.dry-run:false}")
+    private boolean dryRun;
+
+    @Scheduled(initialDelayString = "${file.gc.initial-delay:600000}",
+               fixedDelayString = "${file.gc.interval:86400000}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Map<String, Object> stats = uploadGcService.run(dryRun);
+            log.info("孤立上传文件清理完成 - {}", stats);
+        } catch (Exception e) {
+            log.error("孤立上传文件清理失败: {}", e.getMessage());
+        }
+    }
+}
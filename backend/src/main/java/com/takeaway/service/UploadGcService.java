@@ -0,0 +1,381 @@
+package com.takeaway.service;
+
+import com.takeaway.repository.CategoryRepository;
+import com.takeaway.repository.MenuItemRepository;
+import com.takeaway.repository.OrderItemRepository;
+import com.takeaway.repository.RestaurantRepository;
+import com.takeaway.repository.ReviewRepository;
+import com.takeaway.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+
+/**
+ * 孤立上传文件清理（标记-清除）
+ * 标记：按主键游标分批读取餐厅图片/Logo、菜品图片、订单商品图片快照、评价图片、用户头像、分类图标中的上传路径，
+ * 以 64 位哈希存入排序数组（每个引用 8 字节，哈希碰撞只会多保留文件，不会误删）；
+ * 清除：用 NIO 遍历上传目录，修改时间早于宽限期且未被引用的文件记为候选，遍历结束后重新标记一次，
+ * 仍未被引用的才删除（避免遍历期间新增的引用被误删），尺寸变体随原图一并清理。
+ * 遍历和删除按配置限速，避免清理时占满磁盘 I/O。对象存储（s3/memory）无法本地遍历原图，只清理本地变体
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UploadGcService {
+
+    private static final String URL_MARKER = "/uploads/";
+
+    private final FileService fileService;
+    private final RestaurantRepository restaurantRepository;
+    private final MenuItemRepository menuItemRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final ReviewRepository reviewRepository;
+    private final UserRepository userRepository;
+    private final CategoryRepository categoryRepository;
+
+    @Value("${file.upload.path:./uploads}")
+    private String uploadPath;
+
+    @Value("${file.storage.type:local}")
+    private String storageType;
+
+    // 宽限期（毫秒）：刚上传尚未保存到业务数据的文件不清理
+    @Value("${file.gc.grace-period:86400000}")
+    private long gracePeriod;
+
+    @Value("${file.gc.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${file.gc.max-scans-per-second:2000}")
+    private int maxScansPerSecond;
+
+    @Value("${file.gc.max-deletes-per-second:50}")
+    private int maxDeletesPerSecond;
+
+    // 单次最多删除的文件数，剩余的留到下次
+    @Value("${file.gc.max-deletes-per-run:10000}")
+    private int maxDeletesPerRun;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * 执行一次清理
+     * @param dryRun 只统计不删除
+     * @return 扫描、候选、删除数量等统计
+     */
+    public Map<String, Object> run(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("清理任务正在执行");
+        }
+        try {
+            return doRun(dryRun);
+        } catch (IOException e) {
+            throw new RuntimeException("上传文件清理失败: " + e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // ==================== 内部方法 ====================
+
+    private Map<String, Object> doRun(boolean dryRun) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        long cutoffMillis = startedAt - gracePeriod;
+        Path root = Paths.get(uploadPath).toAbsolutePath().normalize();
+        Path variantsRoot = root.resolve(ImageVariantService.VARIANTS_DIR);
+        boolean sweepOriginals = "local".equals(storageType);
+
+        ReferenceSet references = mark();
+        Throttle scanThrottle = new Throttle(maxScansPerSecond);
+        long[] scanned = new long[1];
+
+        // 清除阶段一：收集候选
+        List<Path> candidates = new ArrayList<>();
+        if (sweepOriginals && Files.isDirectory(root)) {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    // 跳过临时目录（由分片上传清理任务负责）和变体目录
+                    if (!dir.equals(root) && (dir.getFileName().toString().startsWith(".") || dir.equals(variantsRoot))) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    scanThrottle.acquire();
+                    scanned[0]++;
+                    if (attrs.isRegularFile() && attrs.lastModifiedTime().toMillis() < cutoffMillis
+                            && !references.contains(relative(root, file))) {
+                        candidates.add(file);
+                    }
+                    return candidates.size() >= maxDeletesPerRun ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        List<Path> variantCandidates = new ArrayList<>();
+        if (Files.isDirectory(variantsRoot)) {
+            Files.walkFileTree(variantsRoot, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    scanThrottle.acquire();
+                    scanned[0]++;
+                    // 变体目录为原图路径去掉扩展名
+                    if (attrs.lastModifiedTime().toMillis() < cutoffMillis
+                            && !references.contains(relative(variantsRoot, file.getParent()))) {
+                        variantCandidates.add(file);
+                    }
+                    return variantCandidates.size() >= maxDeletesPerRun ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+                }
+            });
+        }
+
+        // 清除阶段二：重新标记，删除仍未被引用的候选
+        int deleted = 0;
+        int variantsDeleted = 0;
+        long freedBytes = 0;
+        if (!candidates.isEmpty() || !variantCandidates.isEmpty()) {
+            ReferenceSet latest = mark();
+            Throttle deleteThrottle = new Throttle(maxDeletesPerSecond);
+            LocalDateTime cutoff = LocalDateTime.ofInstant(Instant.ofEpochMilli(cutoffMillis), ZoneId.systemDefault());
+            for (Path file : candidates) {
+                String relativePath = relative(root, file);
+                if (latest.contains(relativePath)) {
+                    continue;
+                }
+                long size = sizeOf(file);
+                if (!dryRun) {
+                    deleteThrottle.acquire();
+                    try {
+                        if (!fileService.purgeUnreferenced(relativePath, cutoff)) {
+                            continue;
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        log.warn("清理上传文件失败 - 文件: {}, 错误: {}", relativePath, e.getMessage());
+                        continue;
+                    }
+                    removeEmptyParents(file, root);
+                }
+                deleted++;
+                freedBytes += size;
+            }
+            for (Path file : variantCandidates) {
+                // 原图清理时已一并删除的变体跳过
+                if (!Files.exists(file) || latest.contains(relative(variantsRoot, file.getParent()))) {
+                    continue;
+                }
+                long size = sizeOf(file);
+                if (!dryRun) {
+                    deleteThrottle.acquire();
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException e) {
+                        log.warn("清理图片变体失败 - 文件: {}, 错误: {}", file, e.getMessage());
+                        continue;
+                    }
+                    removeEmptyParents(file, variantsRoot);
+                }
+                variantsDeleted++;
+                freedBytes += size;
+            }
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("dryRun", dryRun);
+        stats.put("references", references.size());
+        stats.put("scanned", scanned[0]);
+        stats.put("candidates", candidates.size() + variantCandidates.size());
+        stats.put("deleted", deleted);
+        stats.put("variantsDeleted", variantsDeleted);
+        stats.put("freedBytes", freedBytes);
+        stats.put("originalsSwept", sweepOriginals);
+        stats.put("elapsedMs", System.currentTimeMillis() - startedAt);
+        return stats;
+    }
+
+    /**
+     * 标记：分批读取所有引用的上传路径
+     */
+    private ReferenceSet mark() {
+        ReferenceSet references = new ReferenceSet();
+        collect(restaurantRepository::findImageRefsAfter, references);
+        collect(menuItemRepository::findImageRefsAfter, references);
+        // 订单商品保存下单时的菜品图片，菜品换图后历史订单仍引用旧文件
+        collect(orderItemRepository::findImageRefsAfter, references);
+        collect(reviewRepository::findImageRefsAfter, references);
+        collect(userRepository::findImageRefsAfter, references);
+        collect(categoryRepository::findImageRefsAfter, references);
+        references.seal();
+        return references;
+    }
+
+    private void collect(BiFunction<Long, Pageable, List<Object[]>> query, ReferenceSet references) {
+        Long afterId = 0L;
+        Pageable page = PageRequest.of(0, batchSize);
+        while (true) {
+            List<Object[]> rows = query.apply(afterId, page);
+            for (Object[] row : rows) {
+                for (int i = 1; i < row.length; i++) {
+                    if (row[i] instanceof String value && !value.isEmpty()) {
+                        // 评价图片为逗号分隔的多个地址
+                        for (String url : value.split(",")) {
+                            addReference(url.trim(), references);
+                        }
+                    }
+                }
+            }
+            if (rows.size() < batchSize) {
+                return;
+            }
+            afterId = (Long) rows.get(rows.size() - 1)[0];
+        }
+    }
+
+    /**
+     * 记录引用的相对路径及去掉扩展名的路径（后者用于匹配尺寸变体目录）
+     */
+    private static void addReference(String url, ReferenceSet references) {
+        int start = url.indexOf(URL_MARKER);
+        if (start < 0) {
+            return;
+        }
+        String path = url.substring(start + URL_MARKER.length());
+        int end = indexOfAny(path, '?', '#');
+        if (end >= 0) {
+            path = path.substring(0, end);
+        }
+        if (path.isEmpty()) {
+            return;
+        }
+        references.add(path);
+        int dot = path.lastIndexOf('.');
+        if (dot > path.lastIndexOf('/') + 1) {
+            references.add(path.substring(0, dot));
+        }
+    }
+
+    private static int indexOfAny(String value, char first, char second) {
+        int a = value.indexOf(first);
+        int b = value.indexOf(second);
+        return a < 0 ? b : (b < 0 ? a : Math.min(a, b));
+    }
+
+    /**
+     * 删除文件后向上清理变空的分片目录或变体目录，直到上传根目录
+     */
+    private static void removeEmptyParents(Path file, Path root) {
+        Path dir = file.getParent();
+        while (dir != null && dir.startsWith(root) && !dir.equals(root)) {
+            try {
+                Files.delete(dir);
+            } catch (DirectoryNotEmptyException e) {
+                return;
+            } catch (IOException e) {
+                log.debug("删除空目录失败: {}", dir);
+                return;
+            }
+            dir = dir.getParent();
+        }
+    }
+
+    private static String relative(Path base, Path file) {
+        return base.relativize(file).toString().replace('\\', '/');
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 引用集合：路径的 64 位 FNV-1a 哈希，排序后二分查找
+     */
+    private static final class ReferenceSet {
+
+        private long[] hashes = new long[1024];
+        private int size;
+
+        void add(String path) {
+            if (size == hashes.length) {
+                hashes = Arrays.copyOf(hashes, size * 2);
+            }
+            hashes[size++] = hash(path);
+        }
+
+        void seal() {
+            Arrays.sort(hashes, 0, size);
+        }
+
+        boolean contains(String path) {
+            return Arrays.binarySearch(hashes, 0, size, hash(path)) >= 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private static long hash(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+    }
+
+    /**
+     * 简单限速：按固定间隔放行，超出速率时休眠
+     */
+    private static final class Throttle {
+
+        private final long intervalNanos;
+        private long next = System.nanoTime();
+
+        Throttle(int perSecond) {
+            this.intervalNanos = perSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / perSecond : 0;
+        }
+
+        void acquire() {
+            if (intervalNanos == 0) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (next > now) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(next - now);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            next = Math.max(now, next) + intervalNanos;
+        }
+    }
+}
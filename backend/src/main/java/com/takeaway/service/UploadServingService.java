@@ -0,0 +1,299 @@
+package com.takeaway.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 上传文件访问服务
+ * 替代默认静态资源处理：强 ETag 与 If-None-Match 协商缓存，单段 Range 请求，
+ * 内容寻址文件名及其变体返回长期 immutable 缓存头；
+ * 大文件优先交给 Tomcat sendfile，否则用 FileChannel.transferTo 写出，小文件（缩略图等）缓存在内存中
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UploadServingService {
+
+    public static final String SIZE_PARAM = "size";
+
+    // Tomcat NIO 连接器的 sendfile 请求属性
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final String IMMUTABLE_CACHE_CONTROL =
+            CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable().getHeaderValue();
+
+    private final ImageVariantService imageVariantService;
+    private final ObjectStorage objectStorage;
+
+    @Value("${file.upload.path:./uploads}")
+    private String uploadPath;
+
+    // 非内容寻址文件（旧版文件名、变体生成前的回退原图）的缓存时间
+    @Value("${file.serve.max-age:3600}")
+    private long maxAge;
+
+    @Value("${file.serve.sendfile-threshold:49152}")
+    private long sendfileThreshold;
+
+    @Value("${file.serve.memory-cache.max-entry-size:65536}")
+    private long maxEntrySize;
+
+    @Value("${file.serve.memory-cache.max-bytes:33554432}")
+    private long maxCacheBytes;
+
+    // 文件路径 -> 内容（按访问顺序，超出总字节数时淘汰最久未访问的）
+    private final Map<Path, CachedFile> memoryCache = new LinkedHashMap<>(256, 0.75f, true);
+    private long cachedBytes;
+
+    /**
+     * 输出上传文件
+     * @param relativePath 相对上传目录的路径
+     */
+    public void serve(String relativePath, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path root = uploadRoot();
+        Path source = root.resolve(relativePath).normalize();
+        // 拒绝跳出上传目录及隐藏目录（上传临时文件）
+        if (!source.startsWith(root) || source.equals(root) || relativePath.startsWith(".") || relativePath.contains("/.")) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        // 变体是本地派生文件，原图经存储获取本地文件（远程存储走读穿缓存）
+        if (!relativePath.startsWith(ImageVariantService.VARIANTS_DIR + "/")) {
+            source = objectStorage.localPath(relativePath);
+        }
+        ImageVariantService.Size size = ImageVariantService.Size.parse(request.getParameter(SIZE_PARAM));
+        Path file = size != null && source != null
+                ? imageVariantService.resolve(relativePath, source, size, request.getHeader(HttpHeaders.ACCEPT))
+                : source;
+        BasicFileAttributes attributes;
+        try {
+            attributes = file != null ? Files.readAttributes(file, BasicFileAttributes.class) : null;
+        } catch (IOException e) {
+            attributes = null;
+        }
+        if (attributes == null || !attributes.isRegularFile()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        boolean contentAddressed = FileService.CONTENT_ADDRESSED.matcher(relativePath).matches();
+        String etag = contentAddressed && file.equals(source)
+                ? "\"" + digestOf(relativePath) + "\""
+                : etag(file, length, lastModified);
+        // 变体生成完成前回退的原图不能按该尺寸 URL 长期缓存
+        boolean immutable = contentAddressed && (size == null || !file.equals(source));
+
+        if (size != null) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, immutable ? IMMUTABLE_CACHE_CONTROL
+                : CacheControl.maxAge(maxAge, TimeUnit.SECONDS).cachePublic().getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (matchesAny(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] bounds = parseRange(range, length);
+            if (bounds == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count <= 0) {
+            return;
+        }
+
+        try {
+            write(file, length, lastModified, start, count, request, response);
+        } catch (IOException e) {
+            // 客户端中途断开（图片加载被取消）属于正常情况
+            log.debug("上传文件输出中断 - 文件: {}, 错误: {}", relativePath, e.getMessage());
+        }
+    }
+
+    // ==================== 内部方法 ====================
+
+    private void write(Path file, long length, long lastModified, long start, long count,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (length <= maxEntrySize) {
+            byte[] content = cachedContent(file, length, lastModified);
+            response.getOutputStream().write(content, (int) start, (int) count);
+            return;
+        }
+        if (count >= sendfileThreshold && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // 由 Tomcat 在响应提交后直接从文件发送到套接字
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            OutputStream output = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(output);
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long written = channel.transferTo(position, remaining, target);
+                if (written <= 0) {
+                    break;
+                }
+                position += written;
+                remaining -= written;
+            }
+        }
+    }
+
+    /**
+     * 读取小文件内容（内存缓存按修改时间和大小校验，文件变化后重新读取）
+     */
+    private byte[] cachedContent(Path file, long length, long lastModified) throws IOException {
+        synchronized (memoryCache) {
+            CachedFile cached = memoryCache.get(file);
+            if (cached != null && cached.lastModified() == lastModified && cached.content().length == length) {
+                return cached.content();
+            }
+        }
+        byte[] content = Files.readAllBytes(file);
+        synchronized (memoryCache) {
+            CachedFile previous = memoryCache.put(file, new CachedFile(content, lastModified));
+            cachedBytes += content.length - (previous != null ? previous.content().length : 0);
+            Iterator<CachedFile> eldest = memoryCache.values().iterator();
+            while (cachedBytes > maxCacheBytes && eldest.hasNext()) {
+                cachedBytes -= eldest.next().content().length;
+                eldest.remove();
+            }
+        }
+        return content;
+    }
+
+    /**
+     * 内容寻址文件名中的 SHA-256 摘要
+     */
+    private static String digestOf(String relativePath) {
+        String name = relativePath.substring(relativePath.lastIndexOf('/') + 1);
+        return name.substring(0, name.indexOf('.'));
+    }
+
+    /**
+     * 非内容寻址文件的强 ETag：所在目录与文件名、修改时间和大小
+     */
+    private static String etag(Path file, long length, long lastModified) {
+        String name = file.getFileName().toString();
+        Path parent = file.getParent();
+        String scope = parent != null ? parent.getFileName() + "/" + name : name;
+        return "\"" + Integer.toHexString(scope.hashCode()) + "-" + Long.toHexString(lastModified)
+                + "-" + Long.toHexString(length) + "\"";
+    }
+
+    /**
+     * If-None-Match 按弱比较匹配（忽略 W/ 前缀）
+     */
+    private static boolean matchesAny(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if ("*".equals(value) || etag.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 解析单段 Range：返回 [start, end]；多段或格式不支持时返回空数组（按完整内容响应）；无法满足时返回 null
+     */
+    private static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            long start;
+            long end;
+            if (dash == 0) {
+                // 最后 N 个字节
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                end = dash == spec.length() - 1 ? length - 1 : Math.min(Long.parseLong(spec.substring(dash + 1)), length - 1);
+            }
+            if (start >= length || start > end) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    private Path uploadRoot() {
+        return Paths.get(uploadPath).toAbsolutePath().normalize();
+    }
+
+    private record CachedFile(byte[] content, long lastModified) {
+    }
+}
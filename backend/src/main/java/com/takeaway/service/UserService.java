@@ -8,42 +8,67 @@ import com.takeaway.dto.request.LoginRequest;
 import com.takeaway.dto.request.RegisterRequest;
 import com.takeaway.entity.User;
 import com.takeaway.repository.UserRepository;
+import com.takeaway.security.AuthenticatedUserCache;
 import com.takeaway.security.JwtTokenProvider;
+import com.takeaway.security.LoginAttemptLimiter;
+import com.takeaway.security.PasswordHasher;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @SuppressWarnings("null")
 public class UserService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final LoginAttemptLimiter loginAttemptLimiter;
     private final JwtTokenProvider jwtTokenProvider;
+    private final SearchIndexService searchIndexService;
+    private final AuthenticatedUserCache authenticatedUserCache;
 
-    public Map<String, Object> login(LoginRequest request) {
-        User user = userRepository.findByPhone(request.getPhone())
-                .orElseThrow(() -> new RuntimeException("用户不存在"));
-
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
-            throw new RuntimeException("密码错误");
-        }
+    /**
+     * 登录（密码校验在哈希线程池中异步完成，请求线程不等待）
+     * 同一手机号或 IP 失败次数超限时直接拒绝；密码哈希强度低于当前配置时登录成功后后台重新哈希
+     * @param clientIp 客户端 IP
+     */
+    public CompletableFuture<Map<String, Object>> login(LoginRequest request, String clientIp) {
+        loginAttemptLimiter.check(request.getPhone(), clientIp);
 
-        if (!user.getEnabled()) {
-            throw new RuntimeException("账号已被禁用");
+        User user = userRepository.findByPhone(request.getPhone()).orElse(null);
+        if (user == null) {
+            loginAttemptLimiter.recordFailure(request.getPhone(), clientIp);
+            throw new RuntimeException("用户不存在");
         }
 
-        String token = jwtTokenProvider.generateToken(user.getId(), user.getUsername());
-
-        Map<String, Object> result = new HashMap<>();
-        result.put("token", token);
-        result.put("user", toDTO(user));
-        return result;
+        return passwordHasher.matchesAsync(request.getPassword(), user.getPassword())
+                .thenApply(matched -> {
+                    if (!matched) {
+                        loginAttemptLimiter.recordFailure(request.getPhone(), clientIp);
+                        throw new RuntimeException("密码错误");
+                    }
+
+                    if (!user.getEnabled()) {
+                        throw new RuntimeException("账号已被禁用");
+                    }
+                    loginAttemptLimiter.recordSuccess(request.getPhone());
+                    rehashIfNeeded(user, request.getPassword());
+
+                    String token = jwtTokenProvider.generateToken(user);
+
+                    Map<String, Object> result = new HashMap<>();
+                    result.put("token", token);
+                    result.put("user", toDTO(user));
+                    return result;
+                });
     }
 
     public UserDTO register(RegisterRequest request) {
@@ -58,11 +83,12 @@ public class UserService {
         User user = new User();
         user.setUsername(request.getUsername());
         user.setPhone(request.getPhone());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHasher.encode(request.getPassword()));
         user.setEnabled(true);
         user.setRole("USER");
 
         User savedUser = userRepository.save(user);
+        searchIndexService.indexUser(savedUser);
         return toDTO(savedUser);
     }
 
@@ -90,6 +116,10 @@ public class UserService {
         }
 
         User savedUser = userRepository.save(user);
+        if (userDTO.getUsername() != null) {
+            searchIndexService.indexUser(savedUser);
+            authenticatedUserCache.invalidate(userId);
+        }
         return toDTO(savedUser);
     }
 
@@ -102,6 +132,22 @@ public class UserService {
         return toDTO(savedUser);
     }
 
+    /**
+     * 哈希强度低于当前配置时按新强度重新哈希（后台执行，线程池繁忙则跳过，下次登录再试）
+     */
+    private void rehashIfNeeded(User user, String rawPassword) {
+        if (!passwordHasher.needsRehash(user.getPassword())) {
+            return;
+        }
+        String oldHash = user.getPassword();
+        passwordHasher.encodeAsync(rawPassword)
+                .thenAccept(newHash -> userRepository.updatePasswordIfUnchanged(user.getId(), oldHash, newHash))
+                .exceptionally(e -> {
+                    log.debug("密码重新哈希跳过 - 用户ID: {}, 原因: {}", user.getId(), e.getMessage());
+                    return null;
+                });
+    }
+
     private UserDTO toDTO(User user) {
         UserDTO dto = new UserDTO();
         dto.setId(user.getId());
@@ -129,11 +175,12 @@ public class UserService {
         User user = new User();
         user.setUsername(request.getUsername());
         user.setPhone(request.getPhone());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHasher.encode(request.getPassword()));
         user.setEnabled(true);
         user.setRole("MERCHANT");
 
         User savedUser = userRepository.save(user);
+        searchIndexService.indexUser(savedUser);
         return toDTO(savedUser);
     }
 
@@ -151,17 +198,17 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
 
         // 验证当前密码
-        if (!passwordEncoder.matches(request.getCurrentPassword(), user.getPassword())) {
+        if (!passwordHasher.matches(request.getCurrentPassword(), user.getPassword())) {
             throw new RuntimeException("当前密码错误");
         }
 
         // 新密码不能与旧密码相同
-        if (passwordEncoder.matches(request.getNewPassword(), user.getPassword())) {
+        if (passwordHasher.matches(request.getNewPassword(), user.getPassword())) {
             throw new RuntimeException("新密码不能与当前密码相同");
         }
 
         // 更新密码
-        user.setPassword(passwordEncoder.encode(request.getNewPassword()));
+        user.setPassword(passwordHasher.encode(request.getNewPassword()));
         userRepository.save(user);
     }
 
@@ -174,7 +221,7 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
 
         // 验证密码
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHasher.matches(request.getPassword(), user.getPassword())) {
             throw new RuntimeException("密码错误");
         }
 
@@ -191,6 +238,7 @@ public class UserService {
         // 更新手机号
         user.setPhone(request.getNewPhone());
         User savedUser = userRepository.save(user);
+        searchIndexService.indexUser(savedUser);
         return toDTO(savedUser);
     }
 
@@ -203,13 +251,16 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
 
         // 验证密码
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHasher.matches(request.getPassword(), user.getPassword())) {
             throw new RuntimeException("密码错误");
         }
 
-        // 禁用账号而不是真正删除（软删除）
+        // 禁用账号而不是真正删除（软删除），记录注销时间以区别于管理员禁用，同时移出搜索索引
         user.setEnabled(false);
+        user.setDeletedAt(LocalDateTime.now());
         userRepository.save(user);
+        searchIndexService.removeUser(userId);
+        authenticatedUserCache.invalidate(userId);
     }
 
     /**
@@ -218,6 +269,6 @@ public class UserService {
     public boolean verifyPassword(Long userId, String password) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
-        return passwordEncoder.matches(password, user.getPassword());
+        return passwordHasher.matches(password, user.getPassword());
     }
 }
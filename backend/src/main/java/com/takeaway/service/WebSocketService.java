@@ -1,15 +1,29 @@
 package com.takeaway.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.takeaway.dto.OrderStatusMessage;
 import com.takeaway.entity.Order;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.BrokerAvailabilityEvent;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.Map;
 
 /**
  * WebSocket 消息服务
  * 负责向客户端推送实时消息
+ * 消息体只序列化一次，同一份字节发往多个目的地；订单消息的目的地序号放在 STOMP 头 seq 中，序号纪元放在 seq-epoch 中。
+ * 个人消息发往 /user/{用户ID}/queue/...（与 convertAndSendToUser 相同的目的地，只投递给本人已认证的会话），
+ * 用户不在线时跳过投递，订单消息仍写入补发缓冲；订单状态消息同时转发给该订单的 SSE 连接
  */
 @Slf4j
 @Service
@@ -18,6 +32,25 @@ import org.springframework.stereotype.Service;
 public class WebSocketService {
 
     private final SimpMessagingTemplate messagingTemplate;
+    private final OrderMessageReplayBuffer replayBuffer;
+    private final ObjectMapper objectMapper;
+    private final SimpUserRegistry userRegistry;
+    private final OrderEventStreamService orderEventStreamService;
+
+    public static final String ORDERS_QUEUE = "/queue/orders";
+    public static final String NOTIFICATIONS_QUEUE = "/queue/notifications";
+
+    /**
+     * 消息代理可用性变化（中继模式下外部代理断开时推送会被丢弃，恢复后自动重连）
+     */
+    @EventListener
+    public void onBrokerAvailability(BrokerAvailabilityEvent event) {
+        if (event.isBrokerAvailable()) {
+            log.info("WebSocket 消息代理已可用");
+        } else {
+            log.warn("WebSocket 消息代理不可用，推送将被丢弃直至重连成功");
+        }
+    }
 
     /**
      * 推送订单状态更新消息给指定用户
@@ -28,13 +61,14 @@ public class WebSocketService {
         try {
             OrderStatusMessage message = OrderStatusMessage.fromOrder(order, oldStatus);
             
-            // 推送给指定用户（使用 topic 模式，避免匿名连接无法路由的问题）
-            String userDestination = "/topic/user/" + order.getUser().getId() + "/orders";
-            messagingTemplate.convertAndSend(userDestination, message);
-            
-            // 同时推送到公共订单主题（用于商家端监听）
+            // 推送给下单用户的个人队列
+            String userDestination = userDestination(order.getUser().getId(), ORDERS_QUEUE);
+            // 同时推送到商家订单主题（订阅需为该餐厅商家）
             String merchantDestination = "/topic/merchant/" + order.getRestaurant().getId() + "/orders";
-            messagingTemplate.convertAndSend(merchantDestination, message);
+            byte[] body = serialize(message);
+            publishOrderMessage(body, userDestination, merchantDestination);
+            // 同一份消息体转发给该订单的 SSE 连接
+            orderEventStreamService.publish(order.getId(), order.getStatus(), message.getType(), body);
             
             log.info("订单状态更新消息已推送 - 订单号: {}, 用户ID: {}, 新状态: {}", 
                     order.getOrderNo(), order.getUser().getId(), order.getStatus());
@@ -62,13 +96,30 @@ public class WebSocketService {
                     .build();
             
             String destination = "/topic/merchant/" + order.getRestaurant().getId() + "/orders";
-            messagingTemplate.convertAndSend(destination, message);
+            publishOrderMessage(serialize(message), destination);
             
             log.info("新订单通知已推送 - 订单号: {}, 餐厅ID: {}", order.getOrderNo(), order.getRestaurant().getId());
         } catch (Exception e) {
             log.error("推送新订单通知失败 - 订单号: {}, 错误: {}", order.getOrderNo(), e.getMessage());
         }
     }
+
+    /**
+     * 推送用户未读通知数量
+     * @param userId 用户ID
+     * @param unreadCount 未读数量
+     */
+    public void sendUnreadCount(Long userId, long unreadCount) {
+        try {
+            if (!isOnline(userId)) {
+                return;
+            }
+            String destination = userDestination(userId, NOTIFICATIONS_QUEUE);
+            publish(Map.of("type", "UNREAD_COUNT", "unreadCount", unreadCount), destination);
+        } catch (Exception e) {
+            log.error("推送未读通知数量失败 - 用户ID: {}, 错误: {}", userId, e.getMessage());
+        }
+    }
     
     /**
      * 推送消息给所有用户（广播）
@@ -77,10 +128,82 @@ public class WebSocketService {
      */
     public void broadcast(String destination, Object message) {
         try {
-            messagingTemplate.convertAndSend("/topic" + destination, message);
+            publish(message, "/topic" + destination);
             log.info("广播消息已发送 - 目的地: {}", destination);
         } catch (Exception e) {
             log.error("广播消息失败 - 目的地: {}, 错误: {}", destination, e.getMessage());
         }
     }
+
+    /**
+     * 序列化一次，发往多个目的地
+     * @param payload 消息内容
+     * @param destinations 目的地
+     */
+    public void publish(Object payload, String... destinations) {
+        byte[] body = serialize(payload);
+        for (String destination : destinations) {
+            sendBytes(destination, body, null, null);
+        }
+    }
+
+    /**
+     * 序列化为 JSON 字节（Jackson 内部复用线程级缓冲，只产生一次结果数组）
+     */
+    public byte[] serialize(Object payload) {
+        try {
+            return objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("消息序列化失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 用户是否有已认证的在线会话（用户注册表按用户名哈希索引；中继模式下包含其他节点的会话）
+     */
+    public boolean isOnline(Long userId) {
+        return userRegistry.getUser(String.valueOf(userId)) != null;
+    }
+
+    /**
+     * 个人目的地，与 SimpMessagingTemplate.convertAndSendToUser 拼接方式一致
+     */
+    public String userDestination(Long userId, String destination) {
+        return messagingTemplate.getUserDestinationPrefix() + userId + destination;
+    }
+
+    // ==================== 内部方法 ====================
+
+    /**
+     * 订单消息：各目的地分配独立序号并写入补发缓冲后发送
+     */
+    private void publishOrderMessage(byte[] body, String... destinations) {
+        for (String destination : destinations) {
+            replayBuffer.publish(destination, body, (epoch, seq) -> {
+                if (isDeliverable(destination)) {
+                    sendBytes(destination, body, epoch, seq);
+                }
+            });
+        }
+    }
+
+    private boolean isDeliverable(String destination) {
+        String prefix = messagingTemplate.getUserDestinationPrefix();
+        if (!destination.startsWith(prefix)) {
+            return true;
+        }
+        int end = destination.indexOf('/', prefix.length());
+        return end < 0 || userRegistry.getUser(destination.substring(prefix.length(), end)) != null;
+    }
+
+    private void sendBytes(String destination, byte[] body, String epoch, Long seq) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        if (seq != null) {
+            accessor.setNativeHeader(OrderMessageReplayBuffer.EPOCH_HEADER, epoch);
+            accessor.setNativeHeader(OrderMessageReplayBuffer.SEQ_HEADER, String.valueOf(seq));
+        }
+        accessor.setLeaveMutable(true);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(body, accessor.getMessageHeaders()));
+    }
 }
@@ -0,0 +1,211 @@
+package com.takeaway.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.tcp.FixedIntervalReconnectStrategy;
+import org.springframework.messaging.tcp.TcpConnection;
+import org.springframework.messaging.tcp.TcpConnectionHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 代理中继 TCP 客户端测试
+ * 用最小 STOMP 代理替身（只应答 CONNECT）验证：代理启动晚于客户端时按退避重连成功，
+ * 代理重启（连接被关闭）后系统连接重新建立并能继续收发帧
+ */
+class BackoffTcpClientTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private BackoffTcpClient client;
+    private StompBrokerStandIn broker;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (client != null) {
+            // 停止重连；事件循环按 Reactor Netty 默认超时异步释放，不阻塞测试
+            client.shutdownAsync();
+        }
+        if (broker != null) {
+            broker.close();
+        }
+    }
+
+    @Test
+    void reconnectsWhenBrokerStartsAfterClient() throws Exception {
+        int port = freePort();
+        RecordingHandler handler = new RecordingHandler();
+        client = new BackoffTcpClient("127.0.0.1", port, 100, 200);
+        client.connectAsync(handler, new FixedIntervalReconnectStrategy(60_000));
+
+        // 代理尚未启动：首次连接失败
+        assertTrue(handler.connectFailures.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        broker = new StompBrokerStandIn(port);
+        TcpConnection<byte[]> connection = handler.connections.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertNotNull(connection, "代理启动后应在退避间隔内重连");
+        assertConnected(connection, handler);
+    }
+
+    @Test
+    void reestablishesSystemConnectionAfterBrokerRestart() throws Exception {
+        int port = freePort();
+        broker = new StompBrokerStandIn(port);
+        RecordingHandler handler = new RecordingHandler();
+        client = new BackoffTcpClient("127.0.0.1", port, 100, 200);
+        client.connectAsync(handler, new FixedIntervalReconnectStrategy(60_000));
+
+        TcpConnection<byte[]> first = handler.connections.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertNotNull(first);
+        assertConnected(first, handler);
+
+        // 代理重启：关闭现有连接和监听，稍后在同一端口重新监听
+        broker.close();
+        assertTrue(handler.closed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        broker = new StompBrokerStandIn(port);
+
+        TcpConnection<byte[]> second = handler.connections.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertNotNull(second, "代理重启后应重新建立系统连接");
+        assertConnected(second, handler);
+    }
+
+    // ==================== 内部方法 ====================
+
+    private static void assertConnected(TcpConnection<byte[]> connection, RecordingHandler handler) throws Exception {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setAcceptVersion("1.2");
+        accessor.setHost("/");
+        accessor.setLeaveMutable(true);
+        connection.sendAsync(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()))
+                .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        Message<byte[]> reply = handler.messages.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertNotNull(reply, "应收到代理的 CONNECTED 帧");
+        assertEquals(StompCommand.CONNECTED, StompHeaderAccessor.wrap(reply).getCommand());
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * 记录连接事件的处理器
+     */
+    private static final class RecordingHandler implements TcpConnectionHandler<byte[]> {
+
+        private final BlockingQueue<TcpConnection<byte[]>> connections = new LinkedBlockingQueue<>();
+        private final BlockingQueue<Message<byte[]>> messages = new LinkedBlockingQueue<>();
+        private final CountDownLatch connectFailures = new CountDownLatch(1);
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public void afterConnected(TcpConnection<byte[]> connection) {
+            connections.add(connection);
+        }
+
+        @Override
+        public void afterConnectFailure(Throwable ex) {
+            connectFailures.countDown();
+        }
+
+        @Override
+        public void handleMessage(Message<byte[]> message) {
+            messages.add(message);
+        }
+
+        @Override
+        public void handleFailure(Throwable ex) {
+        }
+
+        @Override
+        public void afterConnectionClosed() {
+            closed.countDown();
+        }
+    }
+
+    /**
+     * 最小 STOMP 代理替身：接受连接，对每个 CONNECT 帧回复 CONNECTED，关闭时断开所有连接
+     */
+    private static final class StompBrokerStandIn implements AutoCloseable {
+
+        private static final byte[] CONNECTED_FRAME =
+                "CONNECTED\nversion:1.2\nheart-beat:0,0\n\n\0".getBytes(StandardCharsets.UTF_8);
+
+        private final ServerSocket serverSocket;
+        private final BlockingQueue<Socket> accepted = new LinkedBlockingQueue<>();
+
+        StompBrokerStandIn(int port) throws IOException {
+            serverSocket = new ServerSocket();
+            serverSocket.setReuseAddress(true);
+            serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            Thread acceptor = new Thread(this::acceptLoop, "stomp-stand-in-" + port);
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        private void acceptLoop() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    accepted.add(socket);
+                    Thread reader = new Thread(() -> serve(socket), "stomp-stand-in-session");
+                    reader.setDaemon(true);
+                    reader.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void serve(Socket socket) {
+            try (InputStream input = socket.getInputStream()) {
+                ByteArrayOutputStream frame = new ByteArrayOutputStream();
+                int read;
+                while ((read = input.read()) != -1) {
+                    if (read != 0) {
+                        frame.write(read);
+                        continue;
+                    }
+                    String command = frame.toString(StandardCharsets.UTF_8).stripLeading();
+                    if (command.startsWith("CONNECT") || command.startsWith("STOMP")) {
+                        socket.getOutputStream().write(CONNECTED_FRAME);
+                        socket.getOutputStream().flush();
+                    }
+                    frame.reset();
+                }
+            } catch (IOException ignored) {
+                // 替身关闭时连接被中断
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+            Socket socket;
+            while ((socket = accepted.poll()) != null) {
+                socket.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.takeaway.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.takeaway.dto.OrderStatusMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.DefaultSubscriptionRegistry;
+import org.springframework.messaging.simp.broker.SubscriptionRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.util.MultiValueMap;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 消息代理压测（benchmark 标签，默认构建不运行）
+ * 模拟大量会话订阅个人队列（用户目的地解析后的形式）与商家主题，对比默认订阅表与索引订阅表的查找吞吐，
+ * 测量分区出站执行器的投递吞吐，以及多目的地推送逐个序列化与一次序列化的耗时、JSON 与 CBOR 的体积。
+ * 运行：mvn test -Pbenchmark -Dtest=BrokerLoadBenchmarkTest，规模用 -Dbench.sessions、-Dbench.merchants、
+ * -Dbench.messages、-Dbench.partitions、-Dbench.session-queue-capacity 调整
+ */
+@Slf4j
+@Tag("benchmark")
+class BrokerLoadBenchmarkTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private final int sessions = Integer.getInteger("bench.sessions", 10000);
+    private final int merchants = Integer.getInteger("bench.merchants", 500);
+    private final int messages = Integer.getInteger("bench.messages", 200000);
+    private final int partitions = Integer.getInteger("bench.partitions", 0);
+    private final int sessionQueueCapacity = Integer.getInteger("bench.session-queue-capacity", 256);
+
+    @Test
+    void brokerLoad() throws Exception {
+        log.info("消息代理压测开始 - 会话数: {}, 商家数: {}, 消息数: {}", sessions, merchants, messages);
+        benchLookup("默认订阅表", new DefaultSubscriptionRegistry());
+        benchLookup("索引订阅表", new IndexedSubscriptionRegistry());
+        benchDispatch();
+        benchSerialization();
+    }
+
+    private void benchLookup(String name, SubscriptionRegistry registry) {
+        subscribeAll(registry);
+        long start = System.nanoTime();
+        long matched = 0;
+        for (int i = 0; i < messages; i++) {
+            matched += registry.findSubscriptions(randomMessage()).size();
+        }
+        long elapsed = System.nanoTime() - start;
+        log.info("{} - 查找 {} 次, 命中会话 {}, 耗时 {} ms, 吞吐 {} 次/秒",
+                name, messages, matched, TimeUnit.NANOSECONDS.toMillis(elapsed), rate(messages, elapsed));
+    }
+
+    private void benchDispatch() throws InterruptedException {
+        IndexedSubscriptionRegistry registry = new IndexedSubscriptionRegistry();
+        subscribeAll(registry);
+        PartitionedOutboundExecutor executor = new PartitionedOutboundExecutor(
+                partitions, sessionQueueCapacity, Collections.emptyList());
+        executor.initialize();
+
+        AtomicLong delivered = new AtomicLong();
+        MessageHandler handler = message -> delivered.incrementAndGet();
+        long expected = 0;
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < messages; i++) {
+                Message<byte[]> message = randomMessage();
+                String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+                MultiValueMap<String, String> subscribers = registry.findSubscriptions(message);
+                for (String sessionId : subscribers.keySet()) {
+                    executor.execute(new DispatchTask(outbound(sessionId, destination), handler));
+                    expected++;
+                }
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (delivered.get() + executor.getDroppedCount() < expected && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long elapsed = System.nanoTime() - start;
+        log.info("分区投递 - 分区数: {}, 应投递 {}, 已投递 {}, 丢弃 {}, 耗时 {} ms, 吞吐 {} 条/秒",
+                executor.getPartitionCount(), expected, delivered.get(), executor.getDroppedCount(),
+                TimeUnit.NANOSECONDS.toMillis(elapsed), rate(delivered.get(), elapsed));
+    }
+
+    private void benchSerialization() throws Exception {
+        OrderStatusMessage sample = OrderStatusMessage.builder()
+                .type("ORDER_STATUS_UPDATE")
+                .orderId(123456L)
+                .orderNo("ORD20240101123456789")
+                .userId(10001L)
+                .restaurantId(301L)
+                .restaurantName("示例餐厅")
+                .oldStatus("PAID")
+                .newStatus("CONFIRMED")
+                .statusLabel("已确认")
+                .payAmount(new BigDecimal("58.50"))
+                .updatedAt(LocalDateTime.now())
+                .message("您的订单「ORD20240101123456789」已变为「已确认」")
+                .build();
+        // 预热
+        for (int i = 0; i < 10000; i++) {
+            objectMapper.writeValueAsBytes(sample);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            // 原路径：用户主题与商家主题各序列化一次
+            objectMapper.writeValueAsBytes(sample);
+            objectMapper.writeValueAsBytes(sample);
+        }
+        long perDestination = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            objectMapper.writeValueAsBytes(sample);
+        }
+        long once = System.nanoTime() - start;
+
+        byte[] json = objectMapper.writeValueAsBytes(sample);
+        byte[] cbor = new CBORMapper().writeValueAsBytes(objectMapper.readTree(json));
+        log.info("序列化 - 双目的地逐个序列化 {} ms, 一次序列化 {} ms; 消息体 JSON {} 字节, CBOR {} 字节",
+                TimeUnit.NANOSECONDS.toMillis(perDestination), TimeUnit.NANOSECONDS.toMillis(once),
+                json.length, cbor.length);
+    }
+
+    // ==================== 内部方法 ====================
+
+    private void subscribeAll(SubscriptionRegistry registry) {
+        for (int i = 0; i < sessions; i++) {
+            String sessionId = "bench-" + i;
+            registry.registerSubscription(subscribe(sessionId, "sub-0", "/queue/orders-user" + sessionId));
+            registry.registerSubscription(subscribe(sessionId, "sub-1", "/topic/merchant/" + (i % merchants) + "/orders"));
+        }
+    }
+
+    private Message<byte[]> randomMessage() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String destination = random.nextBoolean()
+                ? "/queue/orders-userbench-" + random.nextInt(sessions)
+                : "/topic/merchant/" + random.nextInt(merchants) + "/orders";
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> subscribe(String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> outbound(String sessionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static long rate(long count, long elapsedNanos) {
+        return elapsedNanos == 0 ? 0 : count * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    /**
+     * 与 ExecutorSubscribableChannel 提交的任务形态一致
+     */
+    private record DispatchTask(Message<?> message, MessageHandler handler) implements MessageHandlingRunnable {
+
+        @Override
+        @NonNull
+        public Message<?> getMessage() {
+            return message;
+        }
+
+        @Override
+        @NonNull
+        public MessageHandler getMessageHandler() {
+            return handler;
+        }
+
+        @Override
+        public void run() {
+            handler.handleMessage(message);
+        }
+    }
+}
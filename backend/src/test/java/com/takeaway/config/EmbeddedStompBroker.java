@@ -0,0 +1,181 @@
+package com.takeaway.config;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.BufferingStompDecoder;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompDecoder;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 测试用内嵌 STOMP 代理
+ * 只实现中继用到的帧：CONNECT/STOMP、SUBSCRIBE、UNSUBSCRIBE、SEND、DISCONNECT 和 receipt，
+ * 目的地按全文匹配，SEND 转发给所有连接上订阅该目的地的订阅（保留自定义头），不协商心跳
+ */
+class EmbeddedStompBroker implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final StompEncoder encoder = new StompEncoder();
+    private final AtomicLong messageIds = new AtomicLong();
+    private final List<Connection> connections = new CopyOnWriteArrayList<>();
+
+    private EmbeddedStompBroker(ServerSocket serverSocket) {
+        this.serverSocket = serverSocket;
+    }
+
+    static EmbeddedStompBroker start() throws IOException {
+        EmbeddedStompBroker broker = new EmbeddedStompBroker(new ServerSocket(0, 50, InetAddress.getLoopbackAddress()));
+        Thread acceptor = new Thread(broker::acceptLoop, "embedded-stomp-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return broker;
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+
+    // ==================== 内部方法 ====================
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Connection connection = new Connection(serverSocket.accept());
+                connections.add(connection);
+                Thread reader = new Thread(connection::readLoop, "embedded-stomp-connection");
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Connection connection, Message<byte[]> frame) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(frame);
+        StompCommand command = accessor.getCommand();
+        if (command == null) {
+            // 心跳
+            return;
+        }
+        switch (command) {
+            case CONNECT, STOMP -> {
+                StompHeaderAccessor connected = StompHeaderAccessor.create(StompCommand.CONNECTED);
+                connected.setVersion("1.2");
+                connected.setHeartbeat(0, 0);
+                connection.send(connected, new byte[0]);
+            }
+            case SUBSCRIBE -> connection.subscriptions.put(accessor.getSubscriptionId(), accessor.getDestination());
+            case UNSUBSCRIBE -> connection.subscriptions.remove(accessor.getSubscriptionId());
+            case SEND -> fanOut(accessor, frame.getPayload());
+            case DISCONNECT -> {
+                receipt(connection, accessor);
+                connection.close();
+                return;
+            }
+            default -> {
+            }
+        }
+        receipt(connection, accessor);
+    }
+
+    private void fanOut(StompHeaderAccessor send, byte[] payload) {
+        for (Connection connection : connections) {
+            for (Map.Entry<String, String> subscription : connection.subscriptions.entrySet()) {
+                if (!subscription.getValue().equals(send.getDestination())) {
+                    continue;
+                }
+                StompHeaderAccessor message = StompHeaderAccessor.create(StompCommand.MESSAGE);
+                send.toNativeHeaderMap().forEach((name, values) -> {
+                    if (!StompHeaderAccessor.STOMP_RECEIPT_HEADER.equals(name)) {
+                        values.forEach(value -> message.addNativeHeader(name, value));
+                    }
+                });
+                message.setSubscriptionId(subscription.getKey());
+                message.setMessageId(String.valueOf(messageIds.incrementAndGet()));
+                message.setDestination(send.getDestination());
+                connection.send(message, payload);
+            }
+        }
+    }
+
+    private static void receipt(Connection connection, StompHeaderAccessor accessor) {
+        String receipt = accessor.getReceipt();
+        if (receipt != null) {
+            StompHeaderAccessor receiptFrame = StompHeaderAccessor.create(StompCommand.RECEIPT);
+            receiptFrame.setReceiptId(receipt);
+            connection.send(receiptFrame, new byte[0]);
+        }
+    }
+
+    private final class Connection {
+
+        private final Socket socket;
+        private final OutputStream out;
+        // 订阅ID -> 目的地
+        private final Map<String, String> subscriptions = new ConcurrentHashMap<>();
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.out = socket.getOutputStream();
+        }
+
+        void readLoop() {
+            BufferingStompDecoder decoder = new BufferingStompDecoder(new StompDecoder(), 64 * 1024);
+            byte[] chunk = new byte[8192];
+            try (InputStream in = socket.getInputStream()) {
+                int read;
+                while ((read = in.read(chunk)) != -1) {
+                    for (Message<byte[]> frame : decoder.decode(ByteBuffer.wrap(chunk, 0, read))) {
+                        handle(this, frame);
+                    }
+                }
+            } catch (IOException e) {
+                // 连接关闭
+            } finally {
+                close();
+            }
+        }
+
+        synchronized void send(StompHeaderAccessor accessor, byte[] payload) {
+            accessor.setLeaveMutable(true);
+            try {
+                out.write(encoder.encode(MessageBuilder.createMessage(payload, accessor.getMessageHeaders())));
+                out.flush();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void close() {
+            connections.remove(this);
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // 已关闭
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.takeaway.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.takeaway.entity.User;
+import com.takeaway.repository.RestaurantRepository;
+import com.takeaway.security.AuthenticatedUserCache;
+import com.takeaway.security.JwtTokenProvider;
+import com.takeaway.service.OrderMessageReplayBuffer;
+import com.takeaway.service.WebSocketService;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * relay 模式多节点测试：两个应用上下文连接同一个内嵌 STOMP 代理，
+ * 节点 A 发布的消息经代理送达节点 B 上的订阅会话
+ */
+class RelayFanOutTest {
+
+    private static final String DESTINATION = "/topic/merchant/1/orders";
+    private static final long TIMEOUT_SECONDS = 10;
+
+    @Test
+    void messagePublishedOnOneNodeReachesSubscriberOnAnother() throws Exception {
+        try (EmbeddedStompBroker broker = EmbeddedStompBroker.start();
+             AnnotationConfigApplicationContext nodeA = node(broker.port());
+             AnnotationConfigApplicationContext nodeB = node(broker.port())) {
+            awaitBrokerAvailable(nodeA);
+            awaitBrokerAvailable(nodeB);
+
+            BlockingQueue<Message<?>> outbound = new LinkedBlockingQueue<>();
+            nodeB.getBean("clientOutboundChannel", SubscribableChannel.class).subscribe(outbound::add);
+            MessageChannel inbound = nodeB.getBean("clientInboundChannel", MessageChannel.class);
+
+            // 节点 B 上的客户端会话：连接、订阅商家主题，等代理确认订阅后再发布
+            Message<byte[]> connect = frame(StompCommand.CONNECT, accessor -> {
+                accessor.setAcceptVersion("1.2");
+                accessor.setNativeHeader("Authorization", "Bearer token");
+            });
+            inbound.send(connect);
+            await(outbound, StompCommand.CONNECTED, message -> true);
+            // 后续帧带上 CONNECT 时认证的身份（实际由 WebSocket 会话处理器填入）
+            Principal user = StompHeaderAccessor.wrap(connect).getUser();
+            inbound.send(frame(StompCommand.SUBSCRIBE, accessor -> {
+                accessor.setUser(user);
+                accessor.setSubscriptionId("sub-0");
+                accessor.setDestination(DESTINATION);
+                accessor.setReceipt("subscribed");
+            }));
+            await(outbound, StompCommand.RECEIPT, message -> true);
+
+            nodeA.getBean("brokerMessagingTemplate", SimpMessagingTemplate.class)
+                    .convertAndSend(DESTINATION, Map.of("orderId", 42));
+
+            Message<?> delivered = await(outbound, StompCommand.MESSAGE,
+                    message -> DESTINATION.equals(StompHeaderAccessor.wrap(message).getDestination()));
+            StompHeaderAccessor accessor = StompHeaderAccessor.wrap(delivered);
+            assertEquals("s1", accessor.getSessionId());
+            assertEquals("sub-0", accessor.getSubscriptionId());
+            assertEquals("{\"orderId\":42}", new String((byte[]) delivered.getPayload(), StandardCharsets.UTF_8));
+        }
+    }
+
+    // ==================== 内部方法 ====================
+
+    private static AnnotationConfigApplicationContext node(int brokerPort) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("websocket.broker.mode", "relay");
+        properties.put("websocket.broker.relay.host", "127.0.0.1");
+        properties.put("websocket.broker.relay.port", brokerPort);
+        properties.put("websocket.broker.relay.fallback-to-local", false);
+        properties.put("websocket.broker.relay.heartbeat-send-interval", 0);
+        properties.put("websocket.broker.relay.heartbeat-receive-interval", 0);
+        // 认证桩继承了 @Value 字段
+        properties.put("jwt.secret", "relay-test-secret");
+        properties.put("jwt.expiration", 86400000L);
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("relay-test", properties));
+        context.register(NodeConfig.class);
+        context.refresh();
+        return context;
+    }
+
+    private static void awaitBrokerAvailable(AnnotationConfigApplicationContext node) throws InterruptedException {
+        AbstractBrokerMessageHandler relay = node.getBean("stompBrokerRelayMessageHandler", AbstractBrokerMessageHandler.class);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (!relay.isBrokerAvailable() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(relay.isBrokerAvailable(), "中继系统连接应在超时前建立");
+    }
+
+    private static Message<?> await(BlockingQueue<Message<?>> outbound, StompCommand command,
+                                    Predicate<Message<?>> condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (System.nanoTime() < deadline) {
+            Message<?> message = outbound.poll(100, TimeUnit.MILLISECONDS);
+            if (message != null && StompHeaderAccessor.wrap(message).getCommand() == command && condition.test(message)) {
+                return message;
+            }
+        }
+        return fail("超时未收到 " + command);
+    }
+
+    private static Message<byte[]> frame(StompCommand command, Consumer<StompHeaderAccessor> customizer) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId("s1");
+        accessor.setSessionAttributes(new HashMap<>());
+        customizer.accept(accessor);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    /**
+     * 单个节点：真实的 WebSocket/STOMP 配置与拦截器，认证与数据访问用桩
+     */
+    @Configuration
+    @Import({WebSocketConfig.class, StompAuthInterceptor.class, ReplaySubscriptionInterceptor.class,
+            CompactEncodingInterceptor.class, OrderMessageReplayBuffer.class})
+    static class NodeConfig {
+
+        @Bean
+        JwtTokenProvider jwtTokenProvider() {
+            JwtTokenProvider provider = mock(JwtTokenProvider.class);
+            when(provider.verify("token")).thenReturn(mock(Claims.class));
+            return provider;
+        }
+
+        @Bean
+        AuthenticatedUserCache authenticatedUserCache() {
+            User admin = new User();
+            admin.setId(1L);
+            admin.setRole("ADMIN");
+            AuthenticatedUserCache cache = mock(AuthenticatedUserCache.class);
+            when(cache.resolve(any())).thenReturn(admin);
+            return cache;
+        }
+
+        @Bean
+        RestaurantRepository restaurantRepository() {
+            return mock(RestaurantRepository.class);
+        }
+
+        @Bean
+        WebSocketService webSocketService() {
+            return mock(WebSocketService.class);
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.takeaway.config;
+
+import com.takeaway.entity.Restaurant;
+import com.takeaway.repository.RestaurantRepository;
+import com.takeaway.security.StompPrincipal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * STOMP 订阅授权测试：白名单目的地按身份放行，通配符与未列出的目的地一律拒绝
+ */
+class StompAuthInterceptorTest {
+
+    private static final StompPrincipal CUSTOMER = new StompPrincipal(7L, "USER", null);
+    private static final StompPrincipal MERCHANT = new StompPrincipal(8L, "MERCHANT", 12L);
+    private static final StompPrincipal ADMIN = new StompPrincipal(1L, "ADMIN", null);
+
+    private final MessageChannel channel = mock(MessageChannel.class);
+    private RestaurantRepository restaurantRepository;
+    private StompAuthInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        restaurantRepository = mock(RestaurantRepository.class);
+        when(restaurantRepository.findByOwnerId(anyLong())).thenReturn(Optional.empty());
+        interceptor = new StompAuthInterceptor(null, null, restaurantRepository);
+    }
+
+    @Test
+    void allowsOwnPersonalDestinations() {
+        assertAllowed(CUSTOMER, "/user/queue/orders");
+        assertAllowed(CUSTOMER, "/user/queue/notifications");
+        assertAllowed(CUSTOMER, "/topic/user/7/orders");
+    }
+
+    @Test
+    void allowsMerchantTopicForOwnerAndAdmin() {
+        assertAllowed(MERCHANT, "/topic/merchant/12/orders");
+        assertAllowed(ADMIN, "/topic/merchant/12/orders");
+        assertDenied(MERCHANT, "/topic/merchant/13/orders");
+        assertDenied(CUSTOMER, "/topic/merchant/12/orders");
+    }
+
+    @Test
+    void rechecksOwnershipForMerchantWhoOpenedShopAfterConnecting() {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setId(20L);
+        when(restaurantRepository.findByOwnerId(9L)).thenReturn(Optional.of(restaurant));
+
+        assertAllowed(new StompPrincipal(9L, "MERCHANT", null), "/topic/merchant/20/orders");
+    }
+
+    @Test
+    void rejectsWildcardSubscriptions() {
+        assertDenied(ADMIN, "/topic/**");
+        assertDenied(CUSTOMER, "/topic/*/12/orders");
+        assertDenied(CUSTOMER, "/topic/merchant/*/orders");
+        assertDenied(CUSTOMER, "/topic/user/7/*");
+        assertDenied(CUSTOMER, "/topic/user/?/orders");
+        assertDenied(CUSTOMER, "/topic/merchant/{id}/orders");
+        assertDenied(CUSTOMER, "/user/queue/*");
+    }
+
+    @Test
+    void rejectsDestinationsOutsideWhitelist() {
+        assertDenied(CUSTOMER, "/queue/orders-user7");
+        assertDenied(CUSTOMER, "/topic/user/8/orders");
+        assertDenied(CUSTOMER, "/topic/simp-user-registry");
+        assertDenied(CUSTOMER, "/topic/unresolved-user-destination");
+        assertDenied(CUSTOMER, "/topic/merchant/12/orders/extra");
+        assertDenied(CUSTOMER, "/user/queue/orders/extra");
+        assertDenied(CUSTOMER, null);
+    }
+
+    @Test
+    void rejectsAnonymousSubscriptions() {
+        assertThrows(AccessDeniedException.class,
+                () -> interceptor.preSend(subscribe(null, "/user/queue/orders"), channel));
+    }
+
+    // ==================== 内部方法 ====================
+
+    private void assertAllowed(StompPrincipal principal, String destination) {
+        assertDoesNotThrow(() -> interceptor.preSend(subscribe(principal, destination), channel));
+    }
+
+    private void assertDenied(StompPrincipal principal, String destination) {
+        assertThrows(AccessDeniedException.class,
+                () -> interceptor.preSend(subscribe(principal, destination), channel), String.valueOf(destination));
+    }
+
+    private static Message<byte[]> subscribe(StompPrincipal principal, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSubscriptionId("sub-0");
+        accessor.setSessionId("s1");
+        if (destination != null) {
+            accessor.setDestination(destination);
+        }
+        accessor.setUser(principal);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,73 @@
+package com.takeaway.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * relay 模式启动探测测试：代理可达时启用中继，不可达时按配置降级为本节点代理
+ */
+class WebSocketConfigTest {
+
+    @Test
+    void usesRelayWhenBrokerReachable() throws IOException {
+        try (ServerSocket broker = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            WebSocketConfig config = relayConfig(broker.getLocalPort(), true);
+            config.resolveBrokerMode();
+            assertTrue(isRelayActive(config));
+        }
+    }
+
+    @Test
+    void fallsBackToLocalBrokerWhenUnreachable() throws IOException {
+        WebSocketConfig config = relayConfig(closedPort(), true);
+        config.resolveBrokerMode();
+        assertFalse(isRelayActive(config));
+    }
+
+    @Test
+    void keepsRelayWhenFallbackDisabled() throws IOException {
+        // 不允许降级时由中继系统连接按退避重连，等待代理恢复
+        WebSocketConfig config = relayConfig(closedPort(), false);
+        config.resolveBrokerMode();
+        assertTrue(isRelayActive(config));
+    }
+
+    @Test
+    void ignoresRelaySettingsInPartitionedMode() throws IOException {
+        try (ServerSocket broker = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            WebSocketConfig config = relayConfig(broker.getLocalPort(), true);
+            ReflectionTestUtils.setField(config, "brokerMode", "partitioned");
+            config.resolveBrokerMode();
+            assertFalse(isRelayActive(config));
+        }
+    }
+
+    // ==================== 内部方法 ====================
+
+    private static WebSocketConfig relayConfig(int port, boolean fallbackToLocal) {
+        WebSocketConfig config = new WebSocketConfig(null, null, null);
+        ReflectionTestUtils.setField(config, "brokerMode", "relay");
+        ReflectionTestUtils.setField(config, "relayHost", "127.0.0.1");
+        ReflectionTestUtils.setField(config, "relayPort", port);
+        ReflectionTestUtils.setField(config, "relayFallbackToLocal", fallbackToLocal);
+        ReflectionTestUtils.setField(config, "relayConnectTimeout", 500);
+        return config;
+    }
+
+    private static boolean isRelayActive(WebSocketConfig config) {
+        return Boolean.TRUE.equals(ReflectionTestUtils.getField(config, "relayActive"));
+    }
+
+    private static int closedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.takeaway.security;
+
+import com.takeaway.entity.User;
+import com.takeaway.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * JWT 校验压测（benchmark 标签，默认构建不运行）
+ * 对比认证过滤器热路径的三种做法：每次重建密钥和解析器并解析两次（原实现）、
+ * 复用解析器解析一次、命中已验证令牌缓存；同时统计按令牌声明解析认证用户（embed-claims 开启，不查库）的耗时。
+ * 运行：mvn test -Pbenchmark -Dtest=JwtVerifyBenchmarkTest，次数用 -Dbench.iterations 调整
+ */
+@Slf4j
+@Tag("benchmark")
+class JwtVerifyBenchmarkTest {
+
+    private static final String SECRET = "benchmark-secret-key-at-least-32-bytes-long";
+    private static final long EXPIRATION = 86400000L;
+
+    private final int iterations = Integer.getInteger("bench.iterations", 200000);
+
+    @Test
+    void verifyHotPath() {
+        JwtTokenProvider jwtTokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtExpiration", EXPIRATION);
+        ReflectionTestUtils.setField(jwtTokenProvider, "embedClaims", true);
+        ReflectionTestUtils.setField(jwtTokenProvider, "verifiedCacheSize", 10000);
+        jwtTokenProvider.init();
+
+        AuthenticatedUserCache authenticatedUserCache = new AuthenticatedUserCache(mock(UserRepository.class));
+        ReflectionTestUtils.setField(authenticatedUserCache, "embedClaims", true);
+        ReflectionTestUtils.setField(authenticatedUserCache, "jwtExpiration", EXPIRATION);
+        ReflectionTestUtils.setField(authenticatedUserCache, "ttl", 60000L);
+        ReflectionTestUtils.setField(authenticatedUserCache, "maxSize", 100000);
+
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("bench");
+        user.setRole("USER");
+        String token = jwtTokenProvider.generateToken(user);
+        JwtParser parser = Jwts.parser().verifyWith(key()).build();
+        log.info("JWT 校验压测开始 - 次数: {}", iterations);
+
+        bench("重建密钥并解析两次", () -> {
+            parseRebuildingKey(token);
+            return parseRebuildingKey(token);
+        });
+        bench("复用解析器解析一次", () -> parser.parseSignedClaims(token).getPayload());
+        bench("已验证令牌缓存", () -> jwtTokenProvider.verify(token));
+        bench("过滤器热路径（校验 + 认证用户）", () -> {
+            Claims claims = jwtTokenProvider.verify(token);
+            authenticatedUserCache.resolve(claims);
+            return claims;
+        });
+    }
+
+    // ==================== 内部方法 ====================
+
+    private void bench(String name, Supplier<Claims> task) {
+        // 预热
+        for (int i = 0; i < Math.min(iterations, 20000); i++) {
+            task.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            task.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        log.info("{} - {} 次, 耗时 {} ms, 平均 {} ns/次", name, iterations,
+                TimeUnit.NANOSECONDS.toMillis(elapsed), elapsed / Math.max(1, iterations));
+    }
+
+    private static Claims parseRebuildingKey(String token) {
+        return Jwts.parser().verifyWith(key()).build().parseSignedClaims(token).getPayload();
+    }
+
+    private static SecretKey key() {
+        return Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,99 @@
+package com.takeaway.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.takeaway.config.RateLimitProperties;
+import com.takeaway.service.RateLimitService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 接口限流过滤器测试：命中策略的请求超限后返回 429 与 Retry-After，未命中策略的请求不受影响
+ */
+class RateLimitFilterTest {
+
+    @Test
+    void rejectsWithRetryAfterOnceBucketIsEmpty() throws Exception {
+        RateLimitFilter filter = filter(policy());
+
+        MockHttpServletResponse first = execute(filter, request("/api/restaurants/search"));
+        assertEquals(200, first.getStatus());
+
+        MockHttpServletResponse second = execute(filter, request("/api/restaurants/search"));
+        assertEquals(429, second.getStatus());
+        // 每秒补充 0.5 个令牌，需等待 2 秒
+        assertEquals("2", second.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(second.getContentAsString().contains("429"));
+    }
+
+    @Test
+    void countsEachClientIpSeparatelyWhenAnonymous() throws Exception {
+        RateLimitFilter filter = filter(policy());
+
+        MockHttpServletRequest fromA = request("/api/restaurants/search");
+        fromA.setRemoteAddr("10.0.0.1");
+        MockHttpServletRequest fromB = request("/api/restaurants/search");
+        fromB.setRemoteAddr("10.0.0.2");
+
+        assertEquals(200, execute(filter, fromA).getStatus());
+        assertEquals(200, execute(filter, fromB).getStatus());
+    }
+
+    @Test
+    void ignoresRequestsOutsidePolicies() throws Exception {
+        RateLimitFilter filter = filter(policy());
+
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletResponse response = execute(filter, request("/api/categories"));
+            assertEquals(200, response.getStatus());
+            assertNull(response.getHeader(HttpHeaders.RETRY_AFTER));
+        }
+    }
+
+    // ==================== 内部方法 ====================
+
+    @SuppressWarnings("unchecked")
+    private static RateLimitFilter filter(RateLimitProperties.Policy policy) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setPolicies(List.of(policy));
+        RateLimitService service = new RateLimitService(properties, mock(ObjectProvider.class));
+        return new RateLimitFilter(service, new ObjectMapper());
+    }
+
+    private static RateLimitProperties.Policy policy() {
+        RateLimitProperties.Policy policy = new RateLimitProperties.Policy();
+        policy.setName("search");
+        policy.setMethod("GET");
+        policy.setPatterns(List.of("/api/restaurants/search"));
+        policy.setCapacity(1);
+        policy.setRefillPerSecond(0.5);
+        return policy;
+    }
+
+    private static MockHttpServletRequest request(String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setRemoteAddr("127.0.0.1");
+        return request;
+    }
+
+    private static MockHttpServletResponse execute(RateLimitFilter filter, MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        if (response.getStatus() == 200) {
+            assertNotNull(chain.getRequest(), "放行的请求应继续执行过滤器链");
+        }
+        return response;
+    }
+}
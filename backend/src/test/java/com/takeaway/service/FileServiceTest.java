@@ -0,0 +1,218 @@
+package com.takeaway.service;
+
+import com.takeaway.config.StorageProperties;
+import com.takeaway.repository.StoredFileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 文件服务测试：内容寻址去重与引用计数，计数归零才删除存储对象和变体；直传确认只接受本人有效的申请且只计数一次
+ * 引用计数表用内存映射模拟 stored_files 上的单条语句
+ */
+class FileServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private InMemoryObjectStorage storage;
+    private ImageVariantService imageVariantService;
+    private final Map<String, Integer> refCounts = new ConcurrentHashMap<>();
+    private FileService fileService;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties properties = new StorageProperties();
+        properties.getCache().setPath(tempDir.resolve("cache").toString());
+        storage = new InMemoryObjectStorage(properties);
+        imageVariantService = mock(ImageVariantService.class);
+
+        StoredFileRepository repository = mock(StoredFileRepository.class);
+        when(repository.incrementRef(anyString(), anyLong())).thenAnswer(invocation -> {
+            refCounts.merge(invocation.getArgument(0), 1, Integer::sum);
+            return 1;
+        });
+        when(repository.decrementRef(anyString())).thenAnswer(invocation -> {
+            String path = invocation.getArgument(0);
+            Integer count = refCounts.get(path);
+            if (count == null || count <= 0) {
+                return 0;
+            }
+            refCounts.put(path, count - 1);
+            return 1;
+        });
+        when(repository.deleteIfUnreferenced(anyString())).thenAnswer(invocation ->
+                refCounts.remove(invocation.<String>getArgument(0), 0) ? 1 : 0);
+
+        fileService = new FileService(imageVariantService, repository, storage);
+        ReflectionTestUtils.setField(fileService, "uploadPath", tempDir.resolve("uploads").toString());
+        ReflectionTestUtils.setField(fileService, "presignPendingTtl", 60_000L);
+        ReflectionTestUtils.setField(fileService, "maxPendingPresignsPerUser", 20);
+        fileService.init();
+    }
+
+    @Test
+    void identicalContentIsStoredOnceWithTwoReferences() throws IOException {
+        String first = fileService.storeImage(upload("first.jpg", "same bytes"), "first.jpg");
+        String second = fileService.storeImage(upload("second.JPEG", "same bytes"), "second.JPEG");
+
+        assertEquals(first, second);
+        String relativePath = relative(first);
+        assertTrue(FileService.CONTENT_ADDRESSED.matcher(relativePath).matches());
+        assertEquals("same bytes", Files.readString(storage.localPath(relativePath)));
+        assertEquals(2, refCounts.get(relativePath));
+        // 只有首次写入时生成变体
+        verify(imageVariantService, times(1)).generateAll(relativePath);
+    }
+
+    @Test
+    void differentContentGetsDifferentPath() throws IOException {
+        String first = fileService.storeImage(upload("a.png", "one"), "a.png");
+        String second = fileService.storeImage(upload("b.png", "two"), "b.png");
+
+        assertNotEquals(first, second);
+        assertEquals(1, refCounts.get(relative(first)));
+        assertEquals(1, refCounts.get(relative(second)));
+    }
+
+    @Test
+    void deleteKeepsObjectUntilLastReferenceIsGone() throws IOException {
+        String url = fileService.storeImage(upload("a.jpg", "shared"), "a.jpg");
+        fileService.storeImage(upload("b.jpg", "shared"), "b.jpg");
+        String relativePath = relative(url);
+
+        fileService.deleteFile(url);
+        assertTrue(storage.exists(relativePath));
+        assertEquals(1, refCounts.get(relativePath));
+        verify(imageVariantService, never()).deleteVariants(relativePath);
+
+        fileService.deleteFile(url);
+        assertFalse(storage.exists(relativePath));
+        assertFalse(refCounts.containsKey(relativePath));
+        verify(imageVariantService).deleteVariants(relativePath);
+
+        // 多余的删除不影响其他数据
+        fileService.deleteFile(url);
+        verify(imageVariantService, times(1)).deleteVariants(relativePath);
+    }
+
+    @Test
+    void deleteIgnoresPathsOutsideUploadDirectory() throws IOException {
+        storage.put("../secret.jpg", upload("secret.jpg", "secret"), "image/jpeg");
+
+        fileService.deleteFile("/uploads/../secret.jpg");
+
+        assertTrue(storage.exists("../secret.jpg"));
+    }
+
+    @Test
+    void presignedUploadCountsOnceForRequestingUser() throws IOException {
+        String relativePath = existingObject("presigned");
+        long size = storage.size(relativePath);
+
+        Map<String, Object> presign = fileService.presignImageUpload(1L, "a.jpg", "image/jpeg", size, hashOf(relativePath));
+        assertEquals(true, presign.get("exists"));
+        // 申请本身不计入引用
+        assertFalse(refCounts.containsKey(relativePath));
+
+        String url = FileService.URL_PREFIX + relativePath;
+        assertEquals(url, fileService.completePresignedUpload(1L, url));
+        assertEquals(1, refCounts.get(relativePath));
+
+        // 重复确认不再计数
+        assertThrows(IllegalArgumentException.class, () -> fileService.completePresignedUpload(1L, url));
+        assertEquals(1, refCounts.get(relativePath));
+    }
+
+    @Test
+    void completeRejectsPathNotPresignedByCaller() throws IOException {
+        String relativePath = existingObject("someone else's");
+        String url = FileService.URL_PREFIX + relativePath;
+        fileService.presignImageUpload(1L, "a.jpg", "image/jpeg", storage.size(relativePath), hashOf(relativePath));
+
+        assertThrows(IllegalArgumentException.class, () -> fileService.completePresignedUpload(2L, url));
+        assertFalse(refCounts.containsKey(relativePath));
+    }
+
+    @Test
+    void completeRejectsExpiredPresign() throws IOException {
+        ReflectionTestUtils.setField(fileService, "presignPendingTtl", -1L);
+        String relativePath = existingObject("expired");
+        fileService.presignImageUpload(1L, "a.jpg", "image/jpeg", storage.size(relativePath), hashOf(relativePath));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> fileService.completePresignedUpload(1L, FileService.URL_PREFIX + relativePath));
+        assertFalse(refCounts.containsKey(relativePath));
+    }
+
+    @Test
+    void completeRejectsSizeDifferentFromPresign() throws IOException {
+        String relativePath = existingObject("sized");
+        fileService.presignImageUpload(1L, "a.jpg", "image/jpeg", storage.size(relativePath) + 1, hashOf(relativePath));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> fileService.completePresignedUpload(1L, FileService.URL_PREFIX + relativePath));
+        assertFalse(refCounts.containsKey(relativePath));
+    }
+
+    @Test
+    void limitsPendingPresignsPerUser() throws IOException {
+        ReflectionTestUtils.setField(fileService, "maxPendingPresignsPerUser", 1);
+        String first = existingObject("first");
+        String second = existingObject("second");
+        fileService.presignImageUpload(1L, "a.jpg", "image/jpeg", 1, hashOf(first));
+        // 同一路径重复申请只刷新有效期
+        fileService.presignImageUpload(1L, "a.jpg", "image/jpeg", 1, hashOf(first));
+
+        assertThrows(RuntimeException.class,
+                () -> fileService.presignImageUpload(1L, "b.jpg", "image/jpeg", 1, hashOf(second)));
+        fileService.presignImageUpload(2L, "b.jpg", "image/jpeg", 1, hashOf(second));
+    }
+
+    // ==================== 内部方法 ====================
+
+    /**
+     * 在上传临时目录中准备文件（保存后会被移走或删除）
+     */
+    private Path upload(String name, String content) throws IOException {
+        return Files.write(fileService.tempDirectory().resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 直接写入存储的内容寻址对象（模拟已由他人上传的文件），不计入引用
+     */
+    private String existingObject(String content) throws IOException {
+        String relativePath = relative(fileService.storeImage(upload("seed.jpg", content), "seed.jpg"));
+        refCounts.remove(relativePath);
+        return relativePath;
+    }
+
+    private static String hashOf(String relativePath) {
+        return relativePath.substring(relativePath.lastIndexOf('/') + 1, relativePath.lastIndexOf('.'));
+    }
+
+    private static String relative(String url) {
+        return url.substring(FileService.URL_PREFIX.length());
+    }
+}
@@ -0,0 +1,112 @@
+package com.takeaway.service;
+
+import com.takeaway.config.StorageProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 图片变体服务测试：正常原图生成变体，无法解码的原图记住后直接返回原图、不再提交生成任务
+ */
+class ImageVariantServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private InMemoryObjectStorage storage;
+    private ImageVariantService service;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties properties = new StorageProperties();
+        properties.getCache().setPath(tempDir.resolve("cache").toString());
+        storage = new InMemoryObjectStorage(properties);
+        service = new ImageVariantService(storage, 1, 10);
+        ReflectionTestUtils.setField(service, "uploadPath", tempDir.resolve("uploads").toString());
+        ReflectionTestUtils.setField(service, "jpegQuality", 0.8f);
+        ReflectionTestUtils.setField(service, "waitTimeout", 5000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void generatesVariantForDecodableImage() throws IOException {
+        Path source = tempDir.resolve("photo.png");
+        ImageIO.write(new BufferedImage(800, 400, BufferedImage.TYPE_INT_RGB), "png", source.toFile());
+        storage.put("images/photo.png", source, "image/png");
+
+        Path resolved = service.resolve("images/photo.png", source, ImageVariantService.Size.THUMB, null);
+
+        assertNotEquals(source, resolved);
+        BufferedImage thumb = ImageIO.read(resolved.toFile());
+        assertEquals(200, thumb.getWidth());
+        assertEquals(100, thumb.getHeight());
+    }
+
+    @Test
+    void remembersUndecodableSourceAndReturnsOriginal() throws IOException {
+        Path source = tempDir.resolve("broken.jpg");
+        Files.write(source, "not an image".getBytes(StandardCharsets.UTF_8));
+        storage.put("images/broken.jpg", source, "image/jpeg");
+
+        assertEquals(source, service.resolve("images/broken.jpg", source, ImageVariantService.Size.CARD, null));
+        long submitted = executor().getTaskCount();
+        assertEquals(1, submitted);
+
+        // 后续请求（任意尺寸）直接返回原图，不再排队解码
+        assertEquals(source, service.resolve("images/broken.jpg", source, ImageVariantService.Size.THUMB, null));
+        service.generateAll("images/broken.jpg");
+        assertEquals(submitted, executor().getTaskCount());
+    }
+
+    @Test
+    void forgetsUndecodableSourceWhenDeleted() throws IOException {
+        Path source = tempDir.resolve("broken.jpg");
+        Files.write(source, "not an image".getBytes(StandardCharsets.UTF_8));
+        storage.put("images/broken.jpg", source, "image/jpeg");
+        service.resolve("images/broken.jpg", source, ImageVariantService.Size.CARD, null);
+        awaitIdle();
+
+        service.deleteVariants("images/broken.jpg");
+
+        service.resolve("images/broken.jpg", source, ImageVariantService.Size.CARD, null);
+        assertTrue(executor().getTaskCount() > 1);
+    }
+
+    // ==================== 内部方法 ====================
+
+    /**
+     * 等待生成任务从进行中表移除（任务先完成结果、后在 finally 中移除）
+     */
+    private void awaitIdle() {
+        Map<?, ?> inFlight = (Map<?, ?>) ReflectionTestUtils.getField(service, "inFlight");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!inFlight.isEmpty() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertTrue(inFlight.isEmpty());
+    }
+
+    private ThreadPoolExecutor executor() {
+        return (ThreadPoolExecutor) ReflectionTestUtils.getField(service, "executor");
+    }
+}
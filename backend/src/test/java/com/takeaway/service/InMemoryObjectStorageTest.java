@@ -0,0 +1,78 @@
+package com.takeaway.service;
+
+import com.takeaway.config.StorageProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 进程内对象存储测试：写入、经本地缓存读取、删除后缓存失效
+ */
+class InMemoryObjectStorageTest {
+
+    @TempDir
+    Path tempDir;
+
+    private InMemoryObjectStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties properties = new StorageProperties();
+        properties.getCache().setPath(tempDir.resolve("cache").toString());
+        storage = new InMemoryObjectStorage(properties);
+    }
+
+    @Test
+    void putThenReadThroughLocalCache() throws IOException {
+        Path source = write("a.jpg", "hello");
+        storage.put("ab/cd/a.jpg", source, "image/jpeg");
+        // 写入保存的是内容副本，源文件随后删除不影响读取
+        Files.delete(source);
+
+        assertTrue(storage.exists("ab/cd/a.jpg"));
+        assertEquals(5, storage.size("ab/cd/a.jpg"));
+
+        Path local = storage.localPath("ab/cd/a.jpg");
+        assertNotNull(local);
+        assertTrue(local.startsWith(tempDir.resolve("cache").toAbsolutePath()));
+        assertEquals("hello", Files.readString(local));
+        // 再次读取命中缓存文件
+        assertEquals(local, storage.localPath("ab/cd/a.jpg"));
+    }
+
+    @Test
+    void missingObjectHasNoLocalPath() throws IOException {
+        assertFalse(storage.exists("missing.jpg"));
+        assertEquals(-1, storage.size("missing.jpg"));
+        assertNull(storage.localPath("missing.jpg"));
+    }
+
+    @Test
+    void deleteRemovesObjectAndCachedCopy() throws IOException {
+        storage.put("ab/cd/a.jpg", write("a.jpg", "hello"), "image/jpeg");
+        Path local = storage.localPath("ab/cd/a.jpg");
+
+        storage.delete("ab/cd/a.jpg");
+
+        assertFalse(storage.exists("ab/cd/a.jpg"));
+        assertFalse(Files.exists(local));
+        assertNull(storage.localPath("ab/cd/a.jpg"));
+    }
+
+    // ==================== 内部方法 ====================
+
+    private Path write(String name, String content) throws IOException {
+        return Files.write(tempDir.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
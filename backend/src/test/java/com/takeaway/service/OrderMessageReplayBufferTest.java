@@ -0,0 +1,128 @@
+package com.takeaway.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 订单消息补发缓冲测试：序号按纪元区分节点与缓冲，只补发本纪元的缺口，补发期间新消息等待
+ */
+class OrderMessageReplayBufferTest {
+
+    private static final String DESTINATION = "/topic/merchant/1/orders";
+
+    private OrderMessageReplayBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        buffer = buffer(3);
+    }
+
+    @Test
+    void replaysMessagesAfterClientPositionInSameEpoch() {
+        String epoch = publish(buffer, "a");
+        publish(buffer, "b");
+        publish(buffer, "c");
+
+        OrderMessageReplayBuffer.Replay replay = replay(buffer, Map.of(epoch, 1L));
+
+        assertFalse(replay.gap());
+        assertEquals(List.of(2L, 3L), replay.messages().stream().map(OrderMessageReplayBuffer.Entry::seq).toList());
+        assertEquals("b", new String(replay.messages().get(0).body(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void otherNodeOrRestartedNodeEpochRequiresResync() {
+        OrderMessageReplayBuffer other = buffer(3);
+        String epoch = publish(buffer, "a");
+        String otherEpoch = publish(other, "b");
+
+        // 两个节点对同一目的地各自从 1 开始编号，纪元不同
+        assertNotEquals(epoch, otherEpoch);
+        // 客户端见过其他节点的消息：本节点无法补发，需全量刷新
+        assertTrue(replay(buffer, Map.of(epoch, 1L, otherEpoch, 1L)).gap());
+        assertTrue(replay(buffer, Map.of(otherEpoch, 1L)).gap());
+        assertFalse(replay(buffer, Map.of(epoch, 1L)).gap());
+    }
+
+    @Test
+    void gapBeyondBufferRequiresResync() {
+        String epoch = publish(buffer, "a");
+        for (int i = 0; i < 4; i++) {
+            publish(buffer, "m" + i);
+        }
+
+        OrderMessageReplayBuffer.Replay replay = replay(buffer, Map.of(epoch, 1L));
+
+        assertTrue(replay.gap());
+        assertEquals(5L, replay.latestSeq());
+    }
+
+    @Test
+    void publishWaitsUntilReplayLockIsReleased() throws Exception {
+        String epoch = publish(buffer, "a");
+        List<Long> sent = new CopyOnWriteArrayList<>();
+
+        OrderMessageReplayBuffer.LockedReplay locked = buffer.lockForReplay(DESTINATION, Map.of(epoch, 0L));
+        CompletableFuture<Void> publishing = CompletableFuture.runAsync(() ->
+                buffer.publish(DESTINATION, bytes("b"), (e, seq) -> sent.add(seq)));
+        try {
+            assertThrows(TimeoutException.class, () -> publishing.get(200, TimeUnit.MILLISECONDS));
+            assertTrue(sent.isEmpty());
+            assertEquals(List.of(1L), locked.replay().messages().stream().map(OrderMessageReplayBuffer.Entry::seq).toList());
+        } finally {
+            locked.lock().unlock();
+        }
+
+        publishing.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(2L), sent);
+    }
+
+    @Test
+    void parsesEpochQualifiedPositions() {
+        assertEquals(Map.of("n1-1", 5L, "n2-3", 9L), OrderMessageReplayBuffer.parsePositions("n1-1:5, n2-3:9"));
+        assertNull(OrderMessageReplayBuffer.parsePositions("5"));
+        assertNull(OrderMessageReplayBuffer.parsePositions("n1-1:x"));
+    }
+
+    // ==================== 内部方法 ====================
+
+    private static OrderMessageReplayBuffer buffer(int size) {
+        OrderMessageReplayBuffer buffer = new OrderMessageReplayBuffer();
+        ReflectionTestUtils.setField(buffer, "bufferSize", size);
+        ReflectionTestUtils.setField(buffer, "maxDestinations", 100);
+        return buffer;
+    }
+
+    private static String publish(OrderMessageReplayBuffer buffer, String body) {
+        AtomicReference<String> epoch = new AtomicReference<>();
+        buffer.publish(DESTINATION, bytes(body), (e, seq) -> epoch.set(e));
+        return epoch.get();
+    }
+
+    private static OrderMessageReplayBuffer.Replay replay(OrderMessageReplayBuffer buffer, Map<String, Long> positions) {
+        OrderMessageReplayBuffer.LockedReplay locked = buffer.lockForReplay(DESTINATION, positions);
+        locked.lock().unlock();
+        return locked.replay();
+    }
+
+    private static byte[] bytes(String body) {
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,167 @@
+package com.takeaway.service;
+
+import com.takeaway.config.RateLimitProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 接口限流服务测试：本地令牌桶的按时间补充与 CAS 并发扣减、Retry-After 秒数计算、共享存储异常时回退本地、本地桶数上限
+ */
+class RateLimitServiceTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void bucketRefillsByElapsedTime() {
+        RateLimitService.Bucket bucket = new RateLimitService.Bucket(2, 1);
+        long now = System.nanoTime();
+
+        assertEquals(0, bucket.tryAcquire(now));
+        assertEquals(0, bucket.tryAcquire(now));
+        // 令牌耗尽：每秒补充 1 个，需等待 1 秒
+        assertEquals(1000, bucket.tryAcquire(now));
+        assertEquals(500, bucket.tryAcquire(now + SECOND / 2));
+        assertEquals(0, bucket.tryAcquire(now + SECOND));
+        // 补充不超过容量
+        assertTrue(bucket.isFull(now + 10 * SECOND));
+    }
+
+    @Test
+    void concurrentAcquiresNeverOverspendTokens() throws Exception {
+        int capacity = 100;
+        RateLimitService.Bucket bucket = new RateLimitService.Bucket(capacity, 1e-6);
+        long now = System.nanoTime();
+        int threads = 8;
+        int attemptsPerThread = 50;
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int i = 0; i < threads; i++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int j = 0; j < attemptsPerThread; j++) {
+                        if (bucket.tryAcquire(now) == 0) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(capacity, allowed.get());
+    }
+
+    @Test
+    void retryAfterRoundsUpToWholeSeconds() {
+        RateLimitService service = service("local", null);
+
+        RateLimitProperties.Policy slow = policy("slow", 1, 0.4);
+        assertEquals(0, service.tryAcquire(slow, "u:1"));
+        // 0.4 个/秒补满 1 个令牌需 2.5 秒，向上取整为 3
+        assertEquals(3, service.tryAcquire(slow, "u:1"));
+
+        RateLimitProperties.Policy fast = policy("fast", 1, 20);
+        assertEquals(0, service.tryAcquire(fast, "u:1"));
+        // 不足 1 秒的等待按 1 秒返回
+        assertEquals(1, service.tryAcquire(fast, "u:1"));
+
+        // 不同主体各自计数
+        assertEquals(0, service.tryAcquire(slow, "u:2"));
+    }
+
+    @Test
+    void sharedModeUsesStoreResult() {
+        SharedRateLimitStore store = mock(SharedRateLimitStore.class);
+        when(store.tryAcquire(anyString(), anyInt(), anyDouble())).thenReturn(0L, 1500L);
+        RateLimitService service = service("shared", store);
+        RateLimitProperties.Policy policy = policy("search", 1, 1);
+
+        assertEquals(0, service.tryAcquire(policy, "u:1"));
+        assertEquals(2, service.tryAcquire(policy, "u:1"));
+        assertEquals(0, service.getStats().get("localBuckets"));
+        assertEquals(0L, service.getStats().get("sharedFallbacks"));
+    }
+
+    @Test
+    void sharedModeFallsBackToLocalBucketOnRedisError() {
+        SharedRateLimitStore store = mock(SharedRateLimitStore.class);
+        when(store.tryAcquire(anyString(), anyInt(), anyDouble()))
+                .thenThrow(new RedisConnectionFailureException("connection refused"));
+        RateLimitService service = service("shared", store);
+        RateLimitProperties.Policy policy = policy("search", 1, 0.5);
+
+        // Redis 不可用时仍按本地令牌桶限流，而不是全部放行
+        assertEquals(0, service.tryAcquire(policy, "u:1"));
+        assertEquals(2, service.tryAcquire(policy, "u:1"));
+        assertEquals(1, service.getStats().get("localBuckets"));
+        assertEquals(2L, service.getStats().get("sharedFallbacks"));
+    }
+
+    @Test
+    void newSubjectsShareOverflowBucketOnceCapIsReached() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMaxBuckets(2);
+        RateLimitService service = new RateLimitService(properties, null);
+        RateLimitProperties.Policy policy = policy("login", 1, 0.1);
+
+        assertEquals(0, service.tryAcquire(policy, "ip:1"));
+        assertEquals(0, service.tryAcquire(policy, "ip:2"));
+        // 已有桶未回满，清理后仍在上限：新主体共用溢出桶，不再新建
+        assertEquals(0, service.tryAcquire(policy, "ip:3"));
+        assertTrue(service.tryAcquire(policy, "ip:4") > 0);
+        for (int i = 5; i < 1000; i++) {
+            service.tryAcquire(policy, "ip:" + i);
+        }
+
+        assertEquals(2, service.getStats().get("localBuckets"));
+        assertEquals(997L, service.getStats().get("overflowHits"));
+        // 已有主体仍使用各自的桶
+        assertTrue(service.tryAcquire(policy, "ip:1") > 0);
+    }
+
+    // ==================== 内部方法 ====================
+
+    @SuppressWarnings("unchecked")
+    private static RateLimitService service(String mode, SharedRateLimitStore store) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMode(mode);
+        ObjectProvider<SharedRateLimitStore> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(store);
+        return new RateLimitService(properties, provider);
+    }
+
+    private static RateLimitProperties.Policy policy(String name, int capacity, double refillPerSecond) {
+        RateLimitProperties.Policy policy = new RateLimitProperties.Policy();
+        policy.setName(name);
+        policy.setPatterns(List.of("/api/**"));
+        policy.setCapacity(capacity);
+        policy.setRefillPerSecond(refillPerSecond);
+        return policy;
+    }
+}
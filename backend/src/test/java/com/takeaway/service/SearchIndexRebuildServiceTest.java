@@ -0,0 +1,118 @@
+package com.takeaway.service;
+
+import com.takeaway.entity.User;
+import com.takeaway.repository.SearchNgramRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 搜索索引重建测试：后台执行并汇报状态，已注销用户不进入索引
+ */
+class SearchIndexRebuildServiceTest {
+
+    private SearchIndexRebuildService rebuildService;
+
+    @AfterEach
+    void tearDown() {
+        if (rebuildService != null) {
+            rebuildService.shutdown();
+        }
+    }
+
+    @Test
+    void rebuildRunsInBackgroundAndReportsCounts() throws Exception {
+        SearchIndexService searchIndexService = mock(SearchIndexService.class);
+        CountDownLatch release = new CountDownLatch(1);
+        when(searchIndexService.rebuildBatch(anyString(), anyLong())).thenReturn(List.of());
+        when(searchIndexService.rebuildBatch(SearchIndexService.TYPE_ORDER, 0L)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(1L, 2L);
+        });
+        when(searchIndexService.rebuildBatch(SearchIndexService.TYPE_USER, 0L)).thenReturn(List.of(5L));
+        rebuildService = new SearchIndexRebuildService(searchIndexService);
+
+        // 启动立即返回，重建仍在进行
+        Map<String, Object> started = rebuildService.start();
+        assertEquals(SearchIndexRebuildService.STATE_RUNNING, started.get("state"));
+        // 运行中再次启动只返回当前状态
+        assertEquals(SearchIndexRebuildService.STATE_RUNNING, rebuildService.start().get("state"));
+
+        release.countDown();
+        Map<String, Object> status = awaitFinished();
+        assertEquals(SearchIndexRebuildService.STATE_COMPLETED, status.get("state"));
+        assertEquals(Map.of(SearchIndexService.TYPE_ORDER, 2L, SearchIndexService.TYPE_USER, 1L,
+                SearchIndexService.TYPE_REVIEW, 0L), status.get("indexed"));
+        assertNotNull(status.get("finishedAt"));
+    }
+
+    @Test
+    void rebuildReportsFailure() throws Exception {
+        SearchIndexService searchIndexService = mock(SearchIndexService.class);
+        when(searchIndexService.rebuildBatch(anyString(), anyLong())).thenThrow(new RuntimeException("数据库不可用"));
+        rebuildService = new SearchIndexRebuildService(searchIndexService);
+
+        rebuildService.start();
+
+        Map<String, Object> status = awaitFinished();
+        assertEquals(SearchIndexRebuildService.STATE_FAILED, status.get("state"));
+        assertEquals("数据库不可用", status.get("error"));
+    }
+
+    @Test
+    void deletedUserIsRemovedInsteadOfIndexed() {
+        SearchNgramRepository ngramRepository = mock(SearchNgramRepository.class);
+        SearchIndexService searchIndexService = new SearchIndexService(ngramRepository, null, null, null);
+        User deleted = user(3L);
+        deleted.setEnabled(false);
+        deleted.setDeletedAt(LocalDateTime.now());
+        User disabled = user(4L);
+        disabled.setEnabled(false);
+
+        searchIndexService.indexUser(deleted);
+        searchIndexService.indexUser(disabled);
+
+        verify(ngramRepository).deleteByEntity(SearchIndexService.TYPE_USER, 3L);
+        verify(ngramRepository, never()).insertGrams(eq(SearchIndexService.TYPE_USER), eq(3L), any());
+        // 管理员禁用的用户仍在索引中
+        verify(ngramRepository).insertGrams(eq(SearchIndexService.TYPE_USER), eq(4L), any());
+    }
+
+    // ==================== 内部方法 ====================
+
+    private Map<String, Object> awaitFinished() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        Map<String, Object> status = rebuildService.getStatus();
+        while (SearchIndexRebuildService.STATE_RUNNING.equals(status.get("state")) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            status = rebuildService.getStatus();
+        }
+        assertTrue(!SearchIndexRebuildService.STATE_RUNNING.equals(status.get("state")), "重建应在超时前结束");
+        return status;
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        user.setPhone("1380000000" + id);
+        return user;
+    }
+}
@@ -13,6 +13,7 @@ CREATE TABLE IF NOT EXISTS users (
     avatar VARCHAR(255),
     address VARCHAR(500),
     enabled BOOLEAN DEFAULT TRUE,
+    deleted_at DATETIME COMMENT '用户自行注销时间',
     role VARCHAR(20) DEFAULT 'USER',
     balance DECIMAL(10,2) NOT NULL DEFAULT 0.00 COMMENT '账户余额',
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
@@ -170,6 +171,40 @@ CREATE TABLE IF NOT EXISTS notifications (
     FOREIGN KEY (user_id) REFERENCES users(id)
 );
 
+-- 系统广播表（一次广播一条记录，读取时按水位线合并到个人通知）
+CREATE TABLE IF NOT EXISTS broadcast_notifications (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    title VARCHAR(100) NOT NULL COMMENT '广播标题',
+    content TEXT NOT NULL COMMENT '广播内容',
+    type VARCHAR(20) NOT NULL DEFAULT 'SYSTEM' COMMENT '通知类型',
+    materialized BOOLEAN NOT NULL DEFAULT TRUE COMMENT '是否已物化到用户通知表',
+    materialize_cursor BIGINT NOT NULL DEFAULT 0 COMMENT '物化进度（已处理的最大用户ID）',
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 用户广播水位线表
+CREATE TABLE IF NOT EXISTS user_broadcast_states (
+    user_id BIGINT PRIMARY KEY COMMENT '用户ID',
+    last_broadcast_id BIGINT NOT NULL DEFAULT 0 COMMENT '已投递的最大广播ID',
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+-- 餐厅评分统计表（评价增删时增量维护）
+CREATE TABLE IF NOT EXISTS restaurant_rating_stats (
+    restaurant_id BIGINT PRIMARY KEY COMMENT '餐厅ID',
+    review_count BIGINT NOT NULL DEFAULT 0 COMMENT '评价数量',
+    overall_sum DECIMAL(14,1) NOT NULL DEFAULT 0 COMMENT '综合评分总和',
+    taste_sum BIGINT NOT NULL DEFAULT 0 COMMENT '口味评分总和',
+    packaging_sum BIGINT NOT NULL DEFAULT 0 COMMENT '包装评分总和',
+    delivery_sum BIGINT NOT NULL DEFAULT 0 COMMENT '配送评分总和',
+    star1_count BIGINT NOT NULL DEFAULT 0 COMMENT '1星评价数',
+    star2_count BIGINT NOT NULL DEFAULT 0 COMMENT '2星评价数',
+    star3_count BIGINT NOT NULL DEFAULT 0 COMMENT '3星评价数',
+    star4_count BIGINT NOT NULL DEFAULT 0 COMMENT '4星评价数',
+    star5_count BIGINT NOT NULL DEFAULT 0 COMMENT '5星评价数',
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
 -- 评价表
 CREATE TABLE IF NOT EXISTS reviews (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
@@ -203,6 +238,24 @@ CREATE TABLE IF NOT EXISTS review_likes (
     UNIQUE KEY uk_review_user (review_id, user_id)
 );
 
+-- 评价-菜品映射表（评价创建时按订单商品写入）
+CREATE TABLE IF NOT EXISTS review_menu_items (
+    menu_item_id BIGINT NOT NULL COMMENT '菜品ID',
+    review_id BIGINT NOT NULL COMMENT '评价ID',
+    overall_rating DECIMAL(2,1) NOT NULL COMMENT '评价综合评分（冗余）',
+    created_at DATETIME NOT NULL COMMENT '评价创建时间（冗余）',
+    PRIMARY KEY (menu_item_id, review_id),
+    INDEX idx_review_menu_items_created (menu_item_id, created_at, review_id),
+    INDEX idx_review_menu_items_review (review_id)
+);
+
+-- 菜品评分聚合表
+CREATE TABLE IF NOT EXISTS menu_item_rating_stats (
+    menu_item_id BIGINT PRIMARY KEY COMMENT '菜品ID',
+    review_count BIGINT NOT NULL DEFAULT 0 COMMENT '评价数量',
+    rating_sum DECIMAL(14,1) NOT NULL DEFAULT 0 COMMENT '综合评分总和'
+);
+
 -- 创建索引
 CREATE INDEX idx_favorites_user ON favorites(user_id);
 CREATE INDEX idx_restaurants_category ON restaurants(category_id);
@@ -217,12 +270,26 @@ CREATE INDEX idx_addresses_user ON addresses(user_id);
 CREATE INDEX idx_notifications_user ON notifications(user_id);
 CREATE INDEX idx_notifications_type ON notifications(type);
 CREATE INDEX idx_notifications_read ON notifications(is_read);
+CREATE INDEX idx_notifications_user_read ON notifications(user_id, is_read);
+CREATE INDEX idx_notifications_user_created ON notifications(user_id, created_at, id);
+CREATE INDEX idx_notifications_read_created ON notifications(is_read, created_at);
 CREATE INDEX idx_reviews_restaurant ON reviews(restaurant_id);
 CREATE INDEX idx_reviews_user ON reviews(user_id);
 CREATE INDEX idx_reviews_order ON reviews(order_id);
 CREATE INDEX idx_review_likes_review ON review_likes(review_id);
 CREATE INDEX idx_review_likes_user ON review_likes(user_id);
 
+-- 游标分页 (created_at, id) seek 索引
+CREATE INDEX idx_orders_user_created ON orders(user_id, created_at, id);
+CREATE INDEX idx_orders_restaurant_created ON orders(restaurant_id, created_at, id);
+CREATE INDEX idx_orders_status_created ON orders(status, created_at, id);
+CREATE INDEX idx_orders_created ON orders(created_at, id);
+CREATE INDEX idx_reviews_restaurant_created ON reviews(restaurant_id, created_at, id);
+CREATE INDEX idx_restaurants_category_created ON restaurants(category_id, created_at, id);
+CREATE INDEX idx_restaurants_created ON restaurants(created_at, id);
+CREATE INDEX idx_users_role_created ON users(role, created_at, id);
+CREATE INDEX idx_users_created ON users(created_at, id);
+
 -- 系统配置表
 CREATE TABLE IF NOT EXISTS system_config (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
@@ -235,4 +302,22 @@ CREATE TABLE IF NOT EXISTS system_config (
 -- 插入默认平台抽成配置（8%）
 INSERT INTO system_config (config_key, config_value, config_desc) 
 VALUES ('default_platform_rate', '0.08', '默认平台抽成比例')
-ON DUPLICATE KEY UPDATE config_value = config_value;
\ No newline at end of file
+ON DUPLICATE KEY UPDATE config_value = config_value;
+-- 搜索三元组倒排表（管理后台订单/用户/评价关键词搜索）
+CREATE TABLE IF NOT EXISTS search_ngrams (
+    entity_type VARCHAR(10) NOT NULL COMMENT '实体类型: ORDER/USER/REVIEW',
+    gram VARCHAR(3) NOT NULL COMMENT '小写三元组',
+    entity_id BIGINT NOT NULL COMMENT '实体ID',
+    PRIMARY KEY (entity_type, gram, entity_id)
+);
+
+CREATE INDEX idx_search_ngrams_entity ON search_ngrams(entity_type, entity_id);
+
+-- 上传文件引用计数表（文件按内容 SHA-256 寻址，计数归零才删除文件）
+CREATE TABLE IF NOT EXISTS stored_files (
+    path VARCHAR(100) PRIMARY KEY COMMENT '相对上传目录的路径',
+    size BIGINT NOT NULL COMMENT '文件大小（字节）',
+    ref_count INT NOT NULL DEFAULT 0 COMMENT '引用计数',
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
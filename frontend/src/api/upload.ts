@@ -13,12 +13,102 @@ api.interceptors.request.use((config) => {
   return config
 })
 
+// 超过该大小的图片使用分片上传（弱网下断线可续传）
+const CHUNKED_UPLOAD_THRESHOLD = 1024 * 1024
+const CHUNK_RETRIES = 3
+
+interface ApiResult<T> {
+  code: number
+  message: string
+  data: T
+}
+
+interface ChunkedUploadStatus {
+  uploadId: string
+  chunkSize: number
+  totalChunks: number
+  receivedChunks: number[]
+}
+
+const unwrap = <T>(result: ApiResult<T>): T => {
+  if (result.code === 200) {
+    return result.data
+  }
+  throw new Error(result.message || '上传失败')
+}
+
+const sha256Hex = async (data: ArrayBuffer): Promise<string> => {
+  const digest = await crypto.subtle.digest('SHA-256', data)
+  return Array.from(new Uint8Array(digest))
+    .map((b) => b.toString(16).padStart(2, '0'))
+    .join('')
+}
+
+/**
+ * 分片上传图片：未完成的上传记录在 localStorage，断线或刷新后重新选择同一文件会跳过已上传的分片
+ * @param file 文件对象
+ * @param onProgress 进度回调（0-100）
+ * @returns 上传后的图片 URL
+ */
+export const uploadImageChunked = async (
+  file: File,
+  onProgress?: (percent: number) => void
+): Promise<string> => {
+  const resumeKey = `chunked-upload:${file.name}:${file.size}:${file.lastModified}`
+  let status: ChunkedUploadStatus | null = null
+
+  const savedId = localStorage.getItem(resumeKey)
+  if (savedId) {
+    const response = await api.get<ApiResult<ChunkedUploadStatus>>(`/upload/chunked/${savedId}`)
+    status = response.data.code === 200 ? response.data.data : null
+  }
+  if (!status) {
+    const response = await api.post<ApiResult<ChunkedUploadStatus>>('/upload/chunked', {
+      filename: file.name,
+      contentType: file.type,
+      totalSize: file.size,
+    })
+    status = unwrap(response.data)
+    localStorage.setItem(resumeKey, status.uploadId)
+  }
+
+  const { uploadId, chunkSize, totalChunks } = status
+  const received = new Set(status.receivedChunks)
+  for (let index = 0; index < totalChunks; index++) {
+    if (received.has(index)) continue
+    const chunk = await file.slice(index * chunkSize, Math.min(file.size, (index + 1) * chunkSize)).arrayBuffer()
+    const checksum = await sha256Hex(chunk)
+    for (let attempt = 1; ; attempt++) {
+      try {
+        const response = await api.put<ApiResult<ChunkedUploadStatus>>(`/upload/chunked/${uploadId}/${index}`, chunk, {
+          headers: { 'Content-Type': 'application/octet-stream', 'X-Chunk-Sha256': checksum },
+        })
+        unwrap(response.data)
+        break
+      } catch (error) {
+        if (attempt >= CHUNK_RETRIES) throw error
+      }
+    }
+    received.add(index)
+    onProgress?.(Math.round((received.size / totalChunks) * 100))
+  }
+
+  const response = await api.post<ApiResult<{ url: string }>>(`/upload/chunked/${uploadId}/complete`)
+  const { url } = unwrap(response.data)
+  localStorage.removeItem(resumeKey)
+  return url
+}
+
 /**
  * 上传图片
  * @param file 文件对象
  * @returns 上传后的图片 URL
  */
 export const uploadImage = async (file: File): Promise<string> => {
+  if (file.size > CHUNKED_UPLOAD_THRESHOLD && window.crypto?.subtle) {
+    return uploadImageChunked(file)
+  }
+
   const formData = new FormData()
   formData.append('file', file)
 
@@ -49,16 +139,23 @@ export const deleteImage = async (url: string): Promise<void> => {
   })
 }
 
+/**
+ * 图片尺寸变体：thumb 缩略图、card 列表卡片、detail 详情大图
+ */
+export type ImageSize = 'thumb' | 'card' | 'detail'
+
 /**
  * 获取完整的图片 URL
  * @param path 图片路径
+ * @param size 尺寸变体，仅对上传的图片生效，不传时返回原图
  */
-export const getImageUrl = (path: string | null | undefined): string => {
+export const getImageUrl = (path: string | null | undefined, size?: ImageSize): string => {
   if (!path) return ''
   // 如果已经是完整 URL，直接返回
   if (path.startsWith('http://') || path.startsWith('https://')) {
     return path
   }
   // 拼接后端地址
-  return `http://localhost:8080${path}`
+  const url = `http://localhost:8080${path}`
+  return size && path.startsWith('/uploads/') ? `${url}?size=${size}` : url
 }
@@ -120,7 +120,7 @@ const Navbar = () => {
                 >
                   <div className="w-8 h-8 rounded-full bg-gradient-to-br from-orange-400 to-orange-600 flex items-center justify-center text-white text-sm font-medium overflow-hidden">
                     {user?.avatar ? (
-                      <img src={getImageUrl(user.avatar)} alt={user.username} className="w-full h-full object-cover" />
+                      <img src={getImageUrl(user.avatar, 'thumb')} alt={user.username} className="w-full h-full object-cover" />
                     ) : (
                       user?.username?.charAt(0) || 'U'
                     )}
@@ -251,7 +251,7 @@ const Navbar = () => {
                       >
                         <div className="w-8 h-8 rounded-full bg-gradient-to-br from-orange-400 to-orange-600 flex items-center justify-center text-white text-sm font-medium overflow-hidden">
                           {user?.avatar ? (
-                            <img src={getImageUrl(user.avatar)} alt={user.username} className="w-full h-full object-cover" />
+                            <img src={getImageUrl(user.avatar, 'thumb')} alt={user.username} className="w-full h-full object-cover" />
                           ) : (
                             user?.username?.charAt(0) || 'U'
                           )}
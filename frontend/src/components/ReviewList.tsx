@@ -203,7 +203,7 @@ const ReviewList = ({ restaurantId }: ReviewListProps) => {
                 <div className="w-10 h-10 rounded-full bg-gray-100 flex items-center justify-center overflow-hidden">
                   {review.userAvatar ? (
                     <img
-                      src={getImageUrl(review.userAvatar)}
+                      src={getImageUrl(review.userAvatar, 'thumb')}
                       alt={review.username}
                       className="w-full h-full object-cover"
                     />
@@ -234,7 +234,7 @@ const ReviewList = ({ restaurantId }: ReviewListProps) => {
                     >
                       {item.menuItemImage && (
                         <img
-                          src={getImageUrl(item.menuItemImage)}
+                          src={getImageUrl(item.menuItemImage, 'thumb')}
                           alt={item.menuItemName}
                           className="w-6 h-6 rounded object-cover"
                         />
@@ -277,7 +277,7 @@ const ReviewList = ({ restaurantId }: ReviewListProps) => {
                         className="w-20 h-20 rounded-lg overflow-hidden"
                       >
                         <img
-                          src={getImageUrl(image)}
+                          src={getImageUrl(image, 'thumb')}
                           alt={`评价图片${idx + 1}`}
                           className="w-full h-full object-cover cursor-pointer hover:opacity-80 transition-opacity"
                           onClick={() => window.open(getImageUrl(image), '_blank')}
@@ -389,7 +389,7 @@ const Cart = () => {
                         className="flex gap-3 py-3 border-b border-gray-100 last:border-0"
                       >
                         <img
-                          src={getImageUrl(item.menuItem.image)}
+                          src={getImageUrl(item.menuItem.image, 'thumb')}
                           alt={item.menuItem.name}
                           className="w-16 h-16 rounded-lg object-cover"
                         />
@@ -118,7 +118,7 @@ const Favorites = () => {
                 <Card className="p-4">
                   <div className="flex gap-4">
                     <img
-                      src={getImageUrl(favorite.restaurantImage)}
+                      src={getImageUrl(favorite.restaurantImage, 'card')}
                       alt={favorite.restaurantName}
                       className="w-24 h-24 rounded-xl object-cover cursor-pointer"
                       onClick={() => navigate(`/restaurant/${favorite.restaurantId}`)}
@@ -298,7 +298,7 @@ const Home = () => {
                         <motion.img
                           whileHover={{ scale: 1.1 }}
                           transition={{ duration: 0.4 }}
-                          src={getImageUrl(restaurant.image)}
+                          src={getImageUrl(restaurant.image, 'card')}
                           alt={restaurant.name}
                           className="w-full h-full object-cover"
                         />
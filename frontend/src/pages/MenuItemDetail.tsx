@@ -186,7 +186,7 @@ const MenuItemDetail = () => {
       {/* Header */}
       <div className="relative h-72 md:h-96 overflow-hidden">
         <img
-          src={getImageUrl(menuItem.image)}
+          src={getImageUrl(menuItem.image, 'detail')}
           alt={menuItem.name}
           className="w-full h-full object-cover"
         />
@@ -318,7 +318,7 @@ const MenuItemDetail = () => {
               <div className="w-12 h-12 rounded-xl overflow-hidden flex-shrink-0">
                 {restaurant.logo ? (
                   <img
-                    src={getImageUrl(restaurant.logo)}
+                    src={getImageUrl(restaurant.logo, 'thumb')}
                     alt={restaurant.name}
                     className="w-full h-full object-cover"
                   />
@@ -375,7 +375,7 @@ const MenuItemDetail = () => {
                       <div className="w-10 h-10 rounded-full bg-gray-100 flex items-center justify-center overflow-hidden">
                         {review.userAvatar ? (
                           <img
-                            src={getImageUrl(review.userAvatar)}
+                            src={getImageUrl(review.userAvatar, 'thumb')}
                             alt={review.username}
                             className="w-full h-full object-cover"
                           />
@@ -410,7 +410,7 @@ const MenuItemDetail = () => {
                           >
                             {item.menuItemImage && (
                               <img
-                                src={getImageUrl(item.menuItemImage)}
+                                src={getImageUrl(item.menuItemImage, 'thumb')}
                                 alt={item.menuItemName}
                                 className="w-6 h-6 rounded object-cover"
                               />
@@ -457,7 +457,7 @@ const MenuItemDetail = () => {
                               className="w-20 h-20 rounded-lg overflow-hidden"
                             >
                               <img
-                                src={getImageUrl(image)}
+                                src={getImageUrl(image, 'thumb')}
                                 alt={`评价图片${idx + 1}`}
                                 className="w-full h-full object-cover cursor-pointer hover:opacity-80 transition-opacity"
                                 onClick={() => window.open(getImageUrl(image), '_blank')}
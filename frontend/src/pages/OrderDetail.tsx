@@ -131,7 +131,7 @@ const OrderDetail = () => {
   // WebSocket 连接成功后订阅
   useEffect(() => {
     if (wsStatus === 'connected' && user?.id) {
-      subscribeToUserOrders(user.id, handleOrderStatusUpdate)
+      subscribeToUserOrders(handleOrderStatusUpdate)
     }
   }, [wsStatus, user?.id, handleOrderStatusUpdate])
 
@@ -1,4 +1,4 @@
-import { useState, useEffect, useCallback } from 'react'
+import { useState, useEffect, useCallback, useRef } from 'react'
 import { useNavigate } from 'react-router-dom'
 import { motion } from 'framer-motion'
 import { Package, Clock, CheckCircle, XCircle, Truck, ChefHat, CreditCard, Loader2, RefreshCw, Wifi, WifiOff } from 'lucide-react'
@@ -42,10 +42,19 @@ const Orders = () => {
     { key: 'COMPLETED', label: '已完成' },
   ]
 
+  // 始终指向最新的静默刷新函数（消息回调只创建一次）
+  const resyncRef = useRef<() => void>(() => {})
+
   // 处理 WebSocket 订单状态更新消息
   const handleOrderStatusUpdate = useCallback((message: OrderStatusMessage) => {
     console.log('收到订单状态更新:', message)
     
+    if (message.type === 'RESYNC') {
+      // 离线期间缺失过多，静默刷新列表
+      resyncRef.current()
+      return
+    }
+    
     // 显示提示
     toast.info('订单状态更新', `${message.restaurantName} 的订单已变为「${message.statusLabel}」`)
     
@@ -75,7 +84,7 @@ const Orders = () => {
   // WebSocket 连接成功后订阅
   useEffect(() => {
     if (wsStatus === 'connected' && user?.id) {
-      subscribeToUserOrders(user.id, handleOrderStatusUpdate)
+      subscribeToUserOrders(handleOrderStatusUpdate)
     }
   }, [wsStatus, user?.id, handleOrderStatusUpdate])
 
@@ -140,6 +149,7 @@ const Orders = () => {
       console.error('获取订单失败:', error)
     }
   }
+  resyncRef.current = fetchOrdersSilently
 
   const handleCancelOrder = async (orderId: number) => {
     const confirmed = await confirm({
@@ -8,6 +8,7 @@ import {
 import Card from '../components/ui/Card'
 import Button from '../components/ui/Button'
 import { useUserStore } from '../store/useUserStore'
+import { useWebSocketStore } from '../store/useWebSocketStore'
 import { confirm } from '../store/useConfirmStore'
 import { getAddresses } from '../api/address'
 import { getUnreadCount } from '../api/notification'
@@ -19,6 +20,7 @@ const Profile = () => {
   const { user, isLoggedIn, logout, refreshUser } = useUserStore()
   const [defaultAddress, setDefaultAddress] = useState<Address | null>(null)
   const [unreadNotificationCount, setUnreadNotificationCount] = useState<number>(0)
+  const { connect, disconnect, subscribeToUserNotifications, status: wsStatus } = useWebSocketStore()
 
   useEffect(() => {
     if (isLoggedIn) {
@@ -29,6 +31,25 @@ const Profile = () => {
     }
   }, [isLoggedIn])
 
+  // 未读数量变化由服务端推送，首次进入时拉取一次即可
+  useEffect(() => {
+    if (user?.id) {
+      connect(user.id)
+    }
+
+    return () => {
+      disconnect()
+    }
+  }, [user?.id])
+
+  useEffect(() => {
+    if (wsStatus === 'connected' && user?.id) {
+      subscribeToUserNotifications((message) => {
+        setUnreadNotificationCount(message.unreadCount)
+      })
+    }
+  }, [wsStatus, user?.id])
+
   const fetchDefaultAddress = async () => {
     try {
       const res = await getAddresses()
@@ -132,7 +153,7 @@ const Profile = () => {
             <div className="flex items-center gap-4">
               <div className="w-20 h-20 rounded-full bg-white/20 flex items-center justify-center overflow-hidden">
                 {user?.avatar ? (
-                  <img src={getImageUrl(user.avatar)} alt={user.username} className="w-full h-full object-cover" />
+                  <img src={getImageUrl(user.avatar, 'thumb')} alt={user.username} className="w-full h-full object-cover" />
                 ) : (
                   <User className="w-10 h-10 text-white" />
                 )}
@@ -235,7 +235,7 @@ const RestaurantDetail = () => {
       {/* Restaurant Header */}
       <div className="relative h-64 md:h-80 overflow-hidden">
         <img
-          src={getImageUrl(restaurant.image)}
+          src={getImageUrl(restaurant.image, 'detail')}
           alt={restaurant.name}
           className="w-full h-full object-cover"
         />
@@ -252,7 +252,7 @@ const RestaurantDetail = () => {
                   <div className="flex items-center gap-3 mb-3">
                     {restaurant.logo && (
                       <img 
-                        src={getImageUrl(restaurant.logo)} 
+                        src={getImageUrl(restaurant.logo, 'thumb')} 
                         alt={restaurant.name}
                         className="w-12 h-12 rounded-xl object-cover"
                       />
@@ -428,7 +428,7 @@ const RestaurantDetail = () => {
                         onClick={() => navigate(`/menu-item/${item.id}`)}
                       >
                         <img
-                          src={getImageUrl(item.image)}
+                          src={getImageUrl(item.image, 'card')}
                           alt={item.name}
                           className="w-full h-full object-cover hover:scale-105 transition-transform duration-300"
                         />
@@ -315,7 +315,7 @@ const RestaurantList = () => {
                       <motion.img
                         whileHover={{ scale: 1.1 }}
                         transition={{ duration: 0.4 }}
-                        src={getImageUrl(restaurant.image)}
+                        src={getImageUrl(restaurant.image, 'card')}
                         alt={restaurant.name}
                         className="w-full h-full object-cover"
                       />
@@ -388,7 +388,7 @@ const MerchantMenu = () => {
                       <div className="w-20 h-20 rounded-xl overflow-hidden bg-gray-100 flex-shrink-0">
                         {item.image ? (
                           <img
-                            src={getImageUrl(item.image)}
+                            src={getImageUrl(item.image, 'thumb')}
                             alt={item.name}
                             className="w-full h-full object-cover"
                           />
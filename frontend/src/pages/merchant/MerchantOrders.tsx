@@ -91,7 +91,10 @@ const MerchantOrders = () => {
   const handleOrderMessage = useCallback((message: OrderStatusMessage) => {
     console.log('商家端收到订单消息:', message)
     
-    if (message.type === 'NEW_ORDER') {
+    if (message.type === 'RESYNC') {
+      // 离线期间缺失过多，重新加载列表
+      fetchOrders()
+    } else if (message.type === 'NEW_ORDER') {
       // 新订单通知
       toast.success('新订单提醒', message.message)
       // 刷新订单列表
@@ -173,7 +173,7 @@ const MerchantReviews = () => {
                   <div className="flex items-center gap-3">
                     {review.userAvatar && !review.isAnonymous ? (
                       <img
-                        src={getImageUrl(review.userAvatar)}
+                        src={getImageUrl(review.userAvatar, 'thumb')}
                         alt={review.username}
                         className="w-10 h-10 rounded-full object-cover"
                       />
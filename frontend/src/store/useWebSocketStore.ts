@@ -18,6 +18,12 @@ export interface OrderStatusMessage {
   message: string
 }
 
+// 未读通知数量消息类型
+export interface UnreadCountMessage {
+  type: string
+  unreadCount: number
+}
+
 // WebSocket 连接状态
 type ConnectionStatus = 'disconnected' | 'connecting' | 'connected' | 'error'
 
@@ -30,8 +36,10 @@ interface WebSocketState {
   connect: (userId: number) => void
   // 断开连接
   disconnect: () => void
-  // 订阅用户订单更新
-  subscribeToUserOrders: (userId: number, callback: (message: OrderStatusMessage) => void) => void
+  // 订阅当前用户订单更新
+  subscribeToUserOrders: (callback: (message: OrderStatusMessage) => void) => void
+  // 订阅当前用户未读通知数量
+  subscribeToUserNotifications: (callback: (message: UnreadCountMessage) => void) => void
   // 订阅商家订单更新
   subscribeToMerchantOrders: (restaurantId: number, callback: (message: OrderStatusMessage) => void) => void
   // 取消订阅
@@ -43,6 +51,71 @@ interface WebSocketState {
 // WebSocket 服务器地址
 const WS_URL = import.meta.env.VITE_WS_URL || 'http://localhost:8080/ws'
 
+// 个人消息队列（服务端按 CONNECT 时认证的身份投递给本人）
+const USER_ORDERS_DESTINATION = '/user/queue/orders'
+const USER_NOTIFICATIONS_DESTINATION = '/user/queue/notifications'
+
+// 每个订单目的地按序号纪元记录已收到的最大序号（纪元区分服务节点及其重启），重新订阅时通过 last-seq 头让服务端补发
+const lastSeqs = new Map<string, Map<string, number>>()
+
+const lastSeqHeader = (destination: string): Record<string, string> => {
+  const positions = lastSeqs.get(destination)
+  if (!positions || positions.size === 0) {
+    return {}
+  }
+  return { 'last-seq': Array.from(positions, ([epoch, seq]) => `${epoch}:${seq}`).join(',') }
+}
+
+const subscribeOrderTopic = (
+  client: Client,
+  destination: string,
+  callback: (message: OrderStatusMessage) => void,
+  onGap: () => void
+): StompSubscription => {
+  // 发现缺口后旧订阅上仍在途的消息一律忽略，由重新订阅补发
+  let stale = false
+
+  return client.subscribe(destination, (message: IMessage) => {
+    if (stale) {
+      return
+    }
+    try {
+      const data: OrderStatusMessage = JSON.parse(message.body)
+      // 序号纪元在 seq-epoch 头、纪元内递增序号在 seq 头中，RESYNC 表示无法补发需全量刷新
+      const epoch = message.headers['seq-epoch']
+      const seqHeader = message.headers['seq']
+      if (epoch !== undefined && seqHeader !== undefined) {
+        const seq = Number(seqHeader)
+        if (data.type === 'RESYNC') {
+          // 全量刷新后只从服务端当前位置继续
+          lastSeqs.set(destination, new Map([[epoch, seq]]))
+        } else {
+          let positions = lastSeqs.get(destination)
+          if (!positions) {
+            positions = new Map()
+            lastSeqs.set(destination, positions)
+          }
+          const seen = positions.get(epoch)
+          // 补发与实时推送可能重叠，按序号去重
+          if (seen !== undefined && seq <= seen) {
+            return
+          }
+          // 同一纪元内序号跳跃说明有消息丢失：不处理这条，带 last-seq 重新订阅补发（无法补发时服务端返回 RESYNC）
+          if (seen !== undefined && seq > seen + 1) {
+            stale = true
+            onGap()
+            return
+          }
+          positions.set(epoch, seq)
+        }
+      }
+      callback(data)
+    } catch (error) {
+      console.error('解析 WebSocket 消息失败:', error)
+    }
+  }, lastSeqHeader(destination))
+}
+
 export const useWebSocketStore = create<WebSocketState>((set, get) => ({
   client: null,
   status: 'disconnected',
@@ -61,6 +134,11 @@ export const useWebSocketStore = create<WebSocketState>((set, get) => ({
 
     const stompClient = new Client({
       webSocketFactory: () => new SockJS(WS_URL),
+      // 每次（重）连接前带上最新的登录令牌，服务端在 CONNECT 帧中校验
+      beforeConnect: () => {
+        const token = localStorage.getItem('token')
+        stompClient.connectHeaders = token ? { Authorization: `Bearer ${token}` } : {}
+      },
       // 减少重连延迟，提高响应速度
       reconnectDelay: 2000,
       // 缩短心跳间隔，更快检测连接状态
@@ -115,7 +193,31 @@ export const useWebSocketStore = create<WebSocketState>((set, get) => ({
     })
   },
 
-  subscribeToUserOrders: (userId: number, callback: (message: OrderStatusMessage) => void) => {
+  subscribeToUserOrders: (callback: (message: OrderStatusMessage) => void) => {
+    const { client, status, subscriptions } = get()
+    
+    if (!client || status !== 'connected') {
+      console.warn('WebSocket 未连接，无法订阅')
+      return
+    }
+
+    const destination = USER_ORDERS_DESTINATION
+    
+    // 如果已经订阅，先取消
+    if (subscriptions.has(destination)) {
+      subscriptions.get(destination)?.unsubscribe()
+    }
+
+    const subscription = subscribeOrderTopic(client, destination, callback,
+      () => get().subscribeToUserOrders(callback))
+
+    subscriptions.set(destination, subscription)
+    set({ subscriptions: new Map(subscriptions) })
+    
+    console.log('已订阅用户订单更新:', destination)
+  },
+
+  subscribeToUserNotifications: (callback: (message: UnreadCountMessage) => void) => {
     const { client, status, subscriptions } = get()
     
     if (!client || status !== 'connected') {
@@ -123,8 +225,7 @@ export const useWebSocketStore = create<WebSocketState>((set, get) => ({
       return
     }
 
-    // 使用 topic 模式订阅用户订单更新
-    const destination = `/topic/user/${userId}/orders`
+    const destination = USER_NOTIFICATIONS_DESTINATION
     
     // 如果已经订阅，先取消
     if (subscriptions.has(destination)) {
@@ -133,7 +234,7 @@ export const useWebSocketStore = create<WebSocketState>((set, get) => ({
 
     const subscription = client.subscribe(destination, (message: IMessage) => {
       try {
-        const data: OrderStatusMessage = JSON.parse(message.body)
+        const data: UnreadCountMessage = JSON.parse(message.body)
         callback(data)
       } catch (error) {
         console.error('解析 WebSocket 消息失败:', error)
@@ -143,7 +244,7 @@ export const useWebSocketStore = create<WebSocketState>((set, get) => ({
     subscriptions.set(destination, subscription)
     set({ subscriptions: new Map(subscriptions) })
     
-    console.log('已订阅用户订单更新:', destination)
+    console.log('已订阅未读通知数量:', destination)
   },
 
   subscribeToMerchantOrders: (restaurantId: number, callback: (message: OrderStatusMessage) => void) => {
@@ -161,14 +262,8 @@ export const useWebSocketStore = create<WebSocketState>((set, get) => ({
       subscriptions.get(destination)?.unsubscribe()
     }
 
-    const subscription = client.subscribe(destination, (message: IMessage) => {
-      try {
-        const data: OrderStatusMessage = JSON.parse(message.body)
-        callback(data)
-      } catch (error) {
-        console.error('解析 WebSocket 消息失败:', error)
-      }
-    })
+    const subscription = subscribeOrderTopic(client, destination, callback,
+      () => get().subscribeToMerchantOrders(restaurantId, callback))
 
     subscriptions.set(destination, subscription)
     set({ subscriptions: new Map(subscriptions) })